@@ -0,0 +1,86 @@
+package edu.stanford.smi.protegex.owl.inference.dig.tests;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+
+import edu.stanford.smi.protege.util.URIUtilities;
+import edu.stanford.smi.protegex.owl.inference.util.ReasonerPreferences;
+import edu.stanford.smi.protegex.owl.inference.util.ReasonerUtil;
+import edu.stanford.smi.protegex.owl.model.OWLNamedClass;
+import edu.stanford.smi.protegex.owl.model.RDFResource;
+import edu.stanford.smi.protegex.owl.model.impl.OWLUtil;
+import edu.stanford.smi.protegex.owl.tests.AbstractDIGReasonerTestCase;
+
+/**
+ * Checks that asking the inferred hierarchy and types in batches gives the
+ * same results as asking the reasoner one class or individual at a time.
+ *
+ * @prowl.junit.dig
+ */
+public class BatchedAsksTestCase extends AbstractDIGReasonerTestCase {
+
+    public void testBatchedResultsMatchSingleAsks() throws Exception {
+        if (!reasonerInitialized()) {
+            return;
+        }
+        loadTestOntology(URIUtilities.createURI("junit/projects/pizza.owl"));
+        String[] typeNames = {"Margherita", "Soho", "American", "AmericanHot", "MozzarellaTopping", "TomatoTopping"};
+        for (int i = 0; i < typeNames.length; i++) {
+            owlModel.getOWLNamedClass(typeNames[i]).createOWLIndividual("individual" + i);
+        }
+        initializeReasoner();
+
+        ReasonerPreferences preferences = ReasonerPreferences.getInstance();
+        int batchSize = preferences.getAsksBatchSize();
+        int maxConcurrentAsks = preferences.getMaxConcurrentAsks();
+        try {
+            // One request per class or individual, one request at a time
+            preferences.setAsksBatchSize(1);
+            preferences.setMaxConcurrentAsks(1);
+            Map<RDFResource, Set> singleSuperclasses = computeInferredSuperclasses();
+            Map<RDFResource, Set> singleTypes = computeInferredTypes();
+            assertFalse(singleSuperclasses.isEmpty());
+            assertFalse(singleTypes.isEmpty());
+
+            // Batches that do not divide the number of classes, several in flight
+            preferences.setAsksBatchSize(7);
+            preferences.setMaxConcurrentAsks(3);
+            assertEquals(singleSuperclasses, computeInferredSuperclasses());
+            assertEquals(singleTypes, computeInferredTypes());
+        }
+        finally {
+            preferences.setAsksBatchSize(batchSize);
+            preferences.setMaxConcurrentAsks(maxConcurrentAsks);
+        }
+    }
+
+
+    private Map<RDFResource, Set> computeInferredSuperclasses() throws Exception {
+        OWLUtil.resetComputedSuperclasses(owlModel);
+        reasoner.computeInferredHierarchy(null);
+        Map<RDFResource, Set> superclasses = new HashMap<RDFResource, Set>();
+        for (Iterator it = ReasonerUtil.getInstance().getNamedClses(owlModel).iterator(); it.hasNext();) {
+            OWLNamedClass cls = (OWLNamedClass) it.next();
+            superclasses.put(cls, new HashSet(cls.getInferredSuperclasses()));
+        }
+        return superclasses;
+    }
+
+
+    private Map<RDFResource, Set> computeInferredTypes() throws Exception {
+        for (Iterator it = ReasonerUtil.getInstance().getIndividuals(owlModel).iterator(); it.hasNext();) {
+            ((RDFResource) it.next()).setInferredTypes(Collections.EMPTY_LIST);
+        }
+        reasoner.computeInferredIndividualTypes(null);
+        Map<RDFResource, Set> types = new HashMap<RDFResource, Set>();
+        for (Iterator it = ReasonerUtil.getInstance().getIndividuals(owlModel).iterator(); it.hasNext();) {
+            RDFResource individual = (RDFResource) it.next();
+            types.put(individual, new HashSet(individual.getInferredTypes()));
+        }
+        return types;
+    }
+}
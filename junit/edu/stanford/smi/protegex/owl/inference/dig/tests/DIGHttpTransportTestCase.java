@@ -0,0 +1,286 @@
+package edu.stanford.smi.protegex.owl.inference.dig.tests;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.InetSocketAddress;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+
+import junit.framework.TestCase;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import edu.stanford.smi.protegex.owl.inference.dig.reasoner.DIGHttpTransport;
+
+/**
+ * Sends requests with a DIGHttpTransport to an in-process HTTP server that
+ * echoes the request documents, or answers with a fixed response.
+ */
+public class DIGHttpTransportTestCase extends TestCase {
+
+    private static final String RESPONSE =
+            "<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n" +
+            "<responses xmlns=\"http://dl.kr.org/dig/2003/02/lang\"\n" +
+            "    xmlns:xsi=\"http://www.w3.org/2001/XMLSchema-instance\"\n" +
+            "    xsi:schemaLocation=\"http://dl.kr.org/dig/2003/02/lang dig.xsd\">\n" +
+            "  <conceptSet id=\"q1\">\n" +
+            "    <synonyms><catom name=\"A &amp; B\"/></synonyms>\n" +
+            "    <synonyms><top/></synonyms>\n" +
+            "  </conceptSet>\n" +
+            "  <individualSet id=\"q2\"><individual name=\"&#233;l&#232;ve\"/></individualSet>\n" +
+            "  <error id=\"q3\" code=\"501\" message=\"Unknown\">a &lt; b <![CDATA[<cdata>]]> end</error>\n" +
+            "</responses>\n";
+
+    private static final int THREAD_COUNT = 8;
+
+    private static final int REQUESTS_PER_THREAD = 20;
+
+    private HttpServer server;
+
+    private ExecutorService serverExecutor;
+
+    private EchoHandler handler;
+
+    private URL url;
+
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        handler = new EchoHandler();
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/", handler);
+        serverExecutor = Executors.newCachedThreadPool();
+        server.setExecutor(serverExecutor);
+        server.start();
+        url = new URL("http://localhost:" + server.getAddress().getPort() + "/");
+    }
+
+
+    @Override
+    protected void tearDown() throws Exception {
+        server.stop(0);
+        serverExecutor.shutdownNow();
+        super.tearDown();
+    }
+
+
+    public void testChunkedRoundTrip() throws Exception {
+        DIGHttpTransport transport = new DIGHttpTransport();
+        assertTrue(transport.isChunkedRequests());
+        Document response = transport.performRequest(url, createRequest("first"));
+        assertRequestEchoed("first", response);
+        assertEquals(Arrays.asList(new String[]{"chunked"}), handler.getRequestModes());
+    }
+
+
+    public void testFallbackToBufferedRequests() throws Exception {
+        handler.rejectChunked = true;
+        DIGHttpTransport transport = new DIGHttpTransport();
+        assertRequestEchoed("first", transport.performRequest(url, createRequest("first")));
+        assertFalse(transport.isChunkedRequests());
+        assertRequestEchoed("second", transport.performRequest(url, createRequest("second")));
+        assertEquals(Arrays.asList(new String[]{"chunked", "buffered", "buffered"}), handler.getRequestModes());
+    }
+
+
+    public void testResponseMatchesDocumentBuilder() throws Exception {
+        handler.response = RESPONSE.getBytes("UTF-8");
+        DIGHttpTransport transport = new DIGHttpTransport();
+        Document actual = transport.performRequest(url, createRequest("first"));
+        // The DOM that DefaultDIGReasoner used to build
+        Document expected = DocumentBuilderFactory.newInstance().newDocumentBuilder().parse(
+                new ByteArrayInputStream(handler.response));
+        assertSameElement(expected.getDocumentElement(), actual.getDocumentElement());
+    }
+
+
+    public void testConcurrentRequests() throws Exception {
+        final DIGHttpTransport transport = new DIGHttpTransport();
+        final List<Throwable> failures = Collections.synchronizedList(new ArrayList<Throwable>());
+        Thread[] threads = new Thread[THREAD_COUNT];
+        for (int i = 0; i < threads.length; i++) {
+            final int thread = i;
+            threads[i] = new Thread("DIG client " + i) {
+                @Override
+                public void run() {
+                    try {
+                        for (int request = 0; request < REQUESTS_PER_THREAD; request++) {
+                            String id = thread + "-" + request;
+                            assertRequestEchoed(id, transport.performRequest(url, createRequest(id)));
+                        }
+                    }
+                    catch (Throwable t) {
+                        failures.add(t);
+                    }
+                }
+            };
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        if (!failures.isEmpty()) {
+            throw new RuntimeException(failures.size() + " requests failed", failures.get(0));
+        }
+        assertEquals(THREAD_COUNT * REQUESTS_PER_THREAD, handler.getRequestModes().size());
+    }
+
+
+    private static Document createRequest(String id) throws Exception {
+        Document doc = DocumentBuilderFactory.newInstance().newDocumentBuilder().newDocument();
+        Element asks = doc.createElement("asks");
+        asks.setAttribute("xmlns", "http://dl.kr.org/dig/2003/02/lang");
+        asks.setAttribute("uri", "urn:uuid:" + id);
+        doc.appendChild(asks);
+        Element subsumes = doc.createElement("subsumes");
+        subsumes.setAttribute("id", id);
+        subsumes.appendChild(doc.createElement("top"));
+        asks.appendChild(subsumes);
+        return doc;
+    }
+
+
+    private static void assertRequestEchoed(String id, Document response) {
+        Element root = response.getDocumentElement();
+        assertEquals("asks", root.getTagName());
+        assertEquals("urn:uuid:" + id, root.getAttribute("uri"));
+        Element subsumes = getChildElements(root).get(0);
+        assertEquals("subsumes", subsumes.getTagName());
+        assertEquals(id, subsumes.getAttribute("id"));
+    }
+
+
+    /**
+     * Compares the names, attributes, text and child elements of two elements.
+     * Adjacent text and CDATA nodes are compared by their concatenated text.
+     */
+    private static void assertSameElement(Element expected, Element actual) {
+        assertEquals(expected.getTagName(), actual.getTagName());
+        assertEquals(getAttributes(expected), getAttributes(actual));
+        assertEquals(getTexts(expected), getTexts(actual));
+        List<Element> expectedChildren = getChildElements(expected);
+        List<Element> actualChildren = getChildElements(actual);
+        assertEquals(expectedChildren.size(), actualChildren.size());
+        for (int i = 0; i < expectedChildren.size(); i++) {
+            assertSameElement(expectedChildren.get(i), actualChildren.get(i));
+        }
+    }
+
+
+    private static Map<String, String> getAttributes(Element element) {
+        Map<String, String> attributes = new HashMap<String, String>();
+        NamedNodeMap map = element.getAttributes();
+        for (int i = 0; i < map.getLength(); i++) {
+            attributes.put(map.item(i).getNodeName(), map.item(i).getNodeValue());
+        }
+        return attributes;
+    }
+
+
+    // the texts between the child elements
+    private static List<String> getTexts(Element element) {
+        List<String> texts = new ArrayList<String>();
+        StringBuffer text = new StringBuffer();
+        for (Node child = element.getFirstChild(); child != null; child = child.getNextSibling()) {
+            if (child.getNodeType() == Node.TEXT_NODE || child.getNodeType() == Node.CDATA_SECTION_NODE) {
+                text.append(child.getNodeValue());
+            }
+            else if (child.getNodeType() == Node.ELEMENT_NODE) {
+                texts.add(text.toString());
+                text.setLength(0);
+            }
+        }
+        texts.add(text.toString());
+        return texts;
+    }
+
+
+    private static List<Element> getChildElements(Element element) {
+        List<Element> children = new ArrayList<Element>();
+        for (Node child = element.getFirstChild(); child != null; child = child.getNextSibling()) {
+            if (child instanceof Element) {
+                children.add((Element) child);
+            }
+        }
+        return children;
+    }
+
+
+    /**
+     * Echoes each request, or sends a fixed response, and records whether
+     * the requests were chunked.  Chunked requests can be rejected with
+     * 411 Length Required, like an HTTP/1.0 server does.
+     */
+    private static class EchoHandler implements HttpHandler {
+
+        private volatile boolean rejectChunked;
+
+        private volatile byte[] response;
+
+        private List<String> requestModes = Collections.synchronizedList(new ArrayList<String>());
+
+
+        public List<String> getRequestModes() {
+            synchronized (requestModes) {
+                return new ArrayList<String>(requestModes);
+            }
+        }
+
+
+        public void handle(HttpExchange exchange) throws IOException {
+            try {
+                String encoding = exchange.getRequestHeaders().getFirst("Transfer-Encoding");
+                boolean chunked = encoding != null && encoding.equalsIgnoreCase("chunked");
+                byte[] body = read(exchange.getRequestBody());
+                requestModes.add(chunked ? "chunked" : "buffered");
+                if (chunked && rejectChunked) {
+                    exchange.sendResponseHeaders(HttpURLConnection.HTTP_LENGTH_REQUIRED, -1);
+                }
+                else {
+                    byte[] responseBody = response != null ? response : body;
+                    exchange.getResponseHeaders().set("Content-Type", "text/xml; charset=UTF-8");
+                    exchange.sendResponseHeaders(HttpURLConnection.HTTP_OK, responseBody.length);
+                    OutputStream os = exchange.getResponseBody();
+                    os.write(responseBody);
+                    os.close();
+                }
+            }
+            finally {
+                exchange.close();
+            }
+        }
+
+
+        private static byte[] read(InputStream is) throws IOException {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            byte[] buffer = new byte[4096];
+            int count;
+            while ((count = is.read(buffer)) >= 0) {
+                bytes.write(buffer, 0, count);
+            }
+            is.close();
+            return bytes.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package edu.stanford.smi.protegex.owl.inference.reasoner.tests;
+
+import java.util.Arrays;
+import java.util.Collections;
+
+import edu.stanford.smi.protegex.owl.inference.reasoner.ReasonerChangeJournal;
+import edu.stanford.smi.protegex.owl.model.OWLNamedClass;
+import edu.stanford.smi.protegex.owl.model.OWLObjectProperty;
+import edu.stanford.smi.protegex.owl.model.OWLSomeValuesFrom;
+import edu.stanford.smi.protegex.owl.model.OWLUnionClass;
+import edu.stanford.smi.protegex.owl.tests.AbstractJenaTestCase;
+
+public class ReasonerChangeJournalTestCase extends AbstractJenaTestCase {
+
+    private ReasonerChangeJournal journal;
+
+
+    protected void setUp() throws Exception {
+        super.setUp();
+        journal = new ReasonerChangeJournal();
+        assertTrue(journal.isFullSynchronizationRequired());
+        journal.clear();
+    }
+
+
+    public void testAdditions() {
+        OWLNamedClass a = owlModel.createOWLNamedClass("A");
+        OWLNamedClass b = owlModel.createOWLNamedClass("B");
+        journal.resourceCreated(b);
+        journal.axiomsAdded(b);
+        journal.axiomsAdded(a);
+        assertFalse(journal.isFullSynchronizationRequired());
+        assertEquals(Collections.singletonList(b), journal.getCreatedResources());
+        assertEquals(Collections.singletonList(a), journal.getChangedResources());
+        journal.clear();
+        assertTrue(journal.isEmpty());
+    }
+
+
+    public void testDetachedExpressionIgnored() {
+        OWLNamedClass a = owlModel.createOWLNamedClass("A");
+        OWLObjectProperty p = owlModel.createOWLObjectProperty("p");
+        OWLSomeValuesFrom restriction = owlModel.createOWLSomeValuesFrom(p, a);
+        journal.resourceCreated(restriction);
+        journal.axiomsAdded(restriction);
+        assertFalse(journal.isFullSynchronizationRequired());
+        assertTrue(journal.isEmpty());
+    }
+
+
+    public void testAttachedExpressionRequiresFullSynchronization() {
+        OWLNamedClass a = owlModel.createOWLNamedClass("A");
+        OWLObjectProperty p = owlModel.createOWLObjectProperty("p");
+        OWLSomeValuesFrom restriction = owlModel.createOWLSomeValuesFrom(p, a);
+        a.addSuperclass(restriction);
+        journal.axiomsAdded(restriction);
+        assertTrue(journal.isFullSynchronizationRequired());
+    }
+
+
+    public void testExpressionUsedAsDomainRequiresFullSynchronization() {
+        OWLNamedClass a = owlModel.createOWLNamedClass("A");
+        OWLObjectProperty p = owlModel.createOWLObjectProperty("p");
+        OWLObjectProperty q = owlModel.createOWLObjectProperty("q");
+        OWLSomeValuesFrom restriction = owlModel.createOWLSomeValuesFrom(p, a);
+        q.setDomain(restriction);
+        journal.axiomsAdded(restriction);
+        assertTrue(journal.isFullSynchronizationRequired());
+    }
+
+
+    public void testDisjointNestedOperandRequiresFullSynchronization() {
+        OWLNamedClass a = owlModel.createOWLNamedClass("A");
+        OWLNamedClass b = owlModel.createOWLNamedClass("B");
+        OWLObjectProperty p = owlModel.createOWLObjectProperty("p");
+        OWLSomeValuesFrom restriction = owlModel.createOWLSomeValuesFrom(p, a);
+        OWLUnionClass union = owlModel.createOWLUnionClass(Arrays.asList(new Object[]{a, restriction}));
+        b.addDisjointClass(union);
+        journal.axiomsAdded(restriction);
+        assertTrue(journal.isFullSynchronizationRequired());
+    }
+
+
+    public void testRemovedValueRequiresFullSynchronization() {
+        OWLNamedClass a = owlModel.createOWLNamedClass("A");
+        OWLNamedClass b = owlModel.createOWLNamedClass("B");
+        a.addSuperclass(b);
+        journal.propertyValueChanged(a, owlModel.getRDFSSubClassOfProperty(), Collections.EMPTY_LIST);
+        assertFalse(journal.isFullSynchronizationRequired());
+        assertEquals(Collections.singletonList(a), journal.getChangedResources());
+
+        a.removeSuperclass(b);
+        journal.propertyValueChanged(a, owlModel.getRDFSSubClassOfProperty(), Collections.singleton(b));
+        assertTrue(journal.isFullSynchronizationRequired());
+        assertTrue(journal.isEmpty());
+    }
+}
@@ -12,7 +12,9 @@ import edu.stanford.smi.protegex.owl.model.RDFProperty;
 import edu.stanford.smi.protegex.owl.model.impl.XMLSchemaDatatypes;
 import edu.stanford.smi.protegex.owl.tests.AbstractJenaTestCase;
 
+import java.util.HashSet;
 import java.util.Iterator;
+import java.util.Set;
 
 /**
  * @author Holger Knublauch  <holger@knublauch.com>
@@ -133,6 +135,43 @@ public class ProtegeGraphTestCase extends AbstractJenaTestCase {
     }
 
 
+    public void testFindWithSubjectObject() {
+        OWLNamedClass c = owlModel.createOWLNamedClass("Class");
+        OWLNamedClass d = owlModel.createOWLNamedClass("Other");
+        ProtegeGraph graph = new ProtegeGraph(owlModel, owlModel.getTripleStoreModel().getActiveTripleStore());
+        Iterator it = graph.find(
+                Node.createURI(c.getURI()),
+                null,
+                OWL.Thing.asNode());
+        assertTrue(it.hasNext());
+        Triple triple = (Triple) it.next();
+        assertFalse(it.hasNext());
+        assertEquals(c.getURI(), triple.getSubject().getURI());
+        assertEquals(RDFS.subClassOf.getURI(), triple.getPredicate().getURI());
+        assertFalse(graph.find(
+                Node.createURI(c.getURI()),
+                null,
+                Node.createURI(d.getURI())).hasNext());
+    }
+
+
+    public void testFindWithSubjectWhileChanging() {
+        OWLNamedClass c = owlModel.createOWLNamedClass("Class");
+        c.addComment("First");
+        ProtegeGraph graph = new ProtegeGraph(owlModel, owlModel.getTripleStoreModel().getActiveTripleStore());
+        Set<String> predicates = new HashSet<String>();
+        Iterator it = graph.find(Node.createURI(c.getURI()), null, null);
+        while (it.hasNext()) {
+            Triple triple = (Triple) it.next();
+            predicates.add(triple.getPredicate().getURI());
+            c.addComment("Comment " + predicates.size());
+        }
+        assertTrue(predicates.contains(RDF.type.getURI()));
+        assertTrue(predicates.contains(RDFS.subClassOf.getURI()));
+        assertTrue(predicates.contains(RDFS.comment.getURI()));
+    }
+
+
     public void testFindAnonymousClass() {
         OWLNamedClass c = owlModel.createOWLNamedClass("Class");
         RDFProperty property = owlModel.createOWLObjectProperty("property");
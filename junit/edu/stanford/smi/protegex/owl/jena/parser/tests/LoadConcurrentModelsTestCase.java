@@ -0,0 +1,148 @@
+package edu.stanford.smi.protegex.owl.jena.parser.tests;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.concurrent.CountDownLatch;
+
+import edu.stanford.smi.protegex.owl.ProtegeOWL;
+import edu.stanford.smi.protegex.owl.jena.JenaOWLModel;
+import edu.stanford.smi.protegex.owl.model.OWLNamedClass;
+import edu.stanford.smi.protegex.owl.tests.AbstractJenaTestCase;
+
+/**
+ * Loads two models with imports at the same time, to check that the
+ * state of one load does not leak into the other.
+ */
+public class LoadConcurrentModelsTestCase extends AbstractJenaTestCase {
+
+    private static final int CLASS_COUNT = 200;
+
+    private static final int ROUNDS = 5;
+
+    private static final String[] MODELS = {"left", "right"};
+
+    private File directory;
+
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        directory = File.createTempFile("concurrent", "");
+        directory.delete();
+        directory.mkdir();
+        for (String name : MODELS) {
+            writeDocument(name + "Main", name + "Imported");
+            writeDocument(name + "Imported", null);
+        }
+    }
+
+
+    @Override
+    protected void tearDown() throws Exception {
+        for (String name : MODELS) {
+            getFile(name + "Main").delete();
+            getFile(name + "Imported").delete();
+        }
+        directory.delete();
+        super.tearDown();
+    }
+
+
+    public void testLoadTwoModelsConcurrently() throws Exception {
+        for (int round = 0; round < ROUNDS; round++) {
+            final CountDownLatch start = new CountDownLatch(1);
+            final JenaOWLModel[] models = new JenaOWLModel[MODELS.length];
+            final Throwable[] errors = new Throwable[MODELS.length];
+            Thread[] threads = new Thread[MODELS.length];
+            for (int i = 0; i < MODELS.length; i++) {
+                final int index = i;
+                final String uri = getFile(MODELS[i] + "Main").toURI().toString();
+                threads[i] = new Thread("Load " + MODELS[i]) {
+                    @Override
+                    public void run() {
+                        try {
+                            start.await();
+                            models[index] = ProtegeOWL.createJenaOWLModelFromURI(uri);
+                        }
+                        catch (Throwable t) {
+                            errors[index] = t;
+                        }
+                    }
+                };
+                threads[i].start();
+            }
+            start.countDown();
+            for (Thread thread : threads) {
+                thread.join();
+            }
+            try {
+                for (int i = 0; i < MODELS.length; i++) {
+                    if (errors[i] != null) {
+                        throw new RuntimeException("Loading " + MODELS[i] + " failed", errors[i]);
+                    }
+                    assertModelLoaded(models[i], MODELS[i], MODELS[(i + 1) % MODELS.length]);
+                }
+            }
+            finally {
+                for (JenaOWLModel model : models) {
+                    if (model != null) {
+                        model.getProject().dispose();
+                    }
+                }
+            }
+        }
+    }
+
+
+    private void assertModelLoaded(JenaOWLModel model, String name, String otherName) {
+        String mainURI = getFile(name + "Main").toURI().toString();
+        String importedURI = getFile(name + "Imported").toURI().toString();
+        assertEquals(mainURI, model.getTripleStoreModel().getTopTripleStore().getName());
+        assertNotNull(model.getTripleStoreModel().getTripleStore(importedURI));
+        assertNull(model.getTripleStoreModel().getTripleStore(getFile(otherName + "Imported").toURI().toString()));
+        for (int i = 0; i < CLASS_COUNT; i++) {
+            OWLNamedClass mainCls = model.getOWLNamedClass(mainURI + "#" + name + "Main" + i);
+            assertNotNull(mainCls);
+            OWLNamedClass importedCls = model.getOWLNamedClass(importedURI + "#" + name + "Imported" + i);
+            assertNotNull(importedCls);
+            assertTrue(mainCls.isSubclassOf(importedCls));
+            assertNull(model.getOWLNamedClass(getFile(otherName + "Main").toURI() + "#" + otherName + "Main" + i));
+        }
+    }
+
+
+    private File getFile(String name) {
+        return new File(directory, name + ".owl");
+    }
+
+
+    private void writeDocument(String name, String imported) throws Exception {
+        String base = getFile(name).toURI().toString();
+        Writer writer = new OutputStreamWriter(new FileOutputStream(getFile(name)), "UTF-8");
+        try {
+            writer.write("<?xml version=\"1.0\"?>\n" +
+                         "<rdf:RDF xmlns:rdf=\"http://www.w3.org/1999/02/22-rdf-syntax-ns#\"\n" +
+                         "    xmlns:rdfs=\"http://www.w3.org/2000/01/rdf-schema#\"\n" +
+                         "    xmlns:owl=\"http://www.w3.org/2002/07/owl#\"\n" +
+                         "    xml:base=\"" + base + "\">\n" +
+                         "  <owl:Ontology rdf:about=\"\">\n");
+            if (imported != null) {
+                writer.write("    <owl:imports rdf:resource=\"" + getFile(imported).toURI() + "\"/>\n");
+            }
+            writer.write("  </owl:Ontology>\n");
+            for (int i = 0; i < CLASS_COUNT; i++) {
+                writer.write("  <owl:Class rdf:ID=\"" + name + i + "\">\n");
+                if (imported != null) {
+                    writer.write("    <rdfs:subClassOf rdf:resource=\"" + getFile(imported).toURI() + "#" + imported + i + "\"/>\n");
+                }
+                writer.write("  </owl:Class>\n");
+            }
+            writer.write("</rdf:RDF>\n");
+        }
+        finally {
+            writer.close();
+        }
+    }
+}
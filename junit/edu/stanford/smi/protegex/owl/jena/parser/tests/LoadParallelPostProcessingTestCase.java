@@ -0,0 +1,45 @@
+package edu.stanford.smi.protegex.owl.jena.parser.tests;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import edu.stanford.smi.protege.util.ApplicationProperties;
+import edu.stanford.smi.protegex.owl.model.OWLNamedClass;
+import edu.stanford.smi.protegex.owl.model.RDFSNamedClass;
+import edu.stanford.smi.protegex.owl.tests.AbstractJenaTestCase;
+
+public class LoadParallelPostProcessingTestCase extends AbstractJenaTestCase {
+
+    private final static String POST_PROCESSING_THREADS_PROPERTY = "protegeowl.parser.postprocess.threads";
+
+
+    public void testLoadKoalaWithParallelPostProcessing() throws Exception {
+        loadRemoteOntology("koala.owl");
+        Set<String> superclasses = getSuperclasses();
+
+        int threads = ApplicationProperties.getIntegerProperty(POST_PROCESSING_THREADS_PROPERTY, 1);
+        ApplicationProperties.setInt(POST_PROCESSING_THREADS_PROPERTY, 4);
+        try {
+            loadRemoteOntology("koala.owl");
+        }
+        finally {
+            ApplicationProperties.setInt(POST_PROCESSING_THREADS_PROPERTY, threads);
+        }
+        assertEquals(superclasses, getSuperclasses());
+
+        OWLNamedClass koalaWithPhDCls = owlModel.getOWLNamedClass("KoalaWithPhD");
+        assertTrue(koalaWithPhDCls.getSuperclasses(false).contains(owlModel.getOWLNamedClass("Koala")));
+    }
+
+
+    private Set<String> getSuperclasses() {
+        Set<String> superclasses = new HashSet<String>();
+        for (Object o : owlModel.getUserDefinedOWLNamedClasses()) {
+            RDFSNamedClass cls = (RDFSNamedClass) o;
+            for (Object superclass : cls.getNamedSuperclasses()) {
+                superclasses.add(cls.getName() + " < " + ((RDFSNamedClass) superclass).getName());
+            }
+        }
+        return superclasses;
+    }
+}
@@ -0,0 +1,127 @@
+package edu.stanford.smi.protegex.owl.jena.parser.tests;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.net.URI;
+import java.util.Collection;
+import java.util.Iterator;
+
+import edu.stanford.smi.protege.util.ApplicationProperties;
+import edu.stanford.smi.protegex.owl.jena.parser.ImportPrefetcher;
+import edu.stanford.smi.protegex.owl.model.OWLNamedClass;
+import edu.stanford.smi.protegex.owl.model.OWLSomeValuesFrom;
+import edu.stanford.smi.protegex.owl.model.RDFSClass;
+import edu.stanford.smi.protegex.owl.tests.AbstractJenaTestCase;
+
+public class LoadPrefetchedImportsTestCase extends AbstractJenaTestCase {
+
+    private static final int CLASS_COUNT = 50;
+
+    private static final String[] DOCUMENTS = {"main", "first", "second"};
+
+    private File directory;
+
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        directory = File.createTempFile("prefetch", "");
+        directory.delete();
+        directory.mkdir();
+        for (int i = 0; i < DOCUMENTS.length; i++) {
+            String imported = i + 1 < DOCUMENTS.length ? DOCUMENTS[i + 1] : null;
+            writeDocument(DOCUMENTS[i], imported);
+        }
+    }
+
+
+    @Override
+    protected void tearDown() throws Exception {
+        for (String name : DOCUMENTS) {
+            getFile(name).delete();
+        }
+        directory.delete();
+        super.tearDown();
+    }
+
+
+    public void testLoadImportClosure() throws Exception {
+        loadTestOntology(getFile("main").toURI());
+        assertImportClosureLoaded();
+    }
+
+
+    public void testLoadImportClosureExceedingBuffer() throws Exception {
+        ApplicationProperties.setString(ImportPrefetcher.BUFFER_SIZE_PROPERTY, "1024");
+        try {
+            loadTestOntology(getFile("main").toURI());
+        }
+        finally {
+            ApplicationProperties.setString(ImportPrefetcher.BUFFER_SIZE_PROPERTY, String.valueOf(64 * 1024 * 1024));
+        }
+        assertImportClosureLoaded();
+    }
+
+
+    private void assertImportClosureLoaded() throws Exception {
+        for (String name : DOCUMENTS) {
+            URI uri = getFile(name).toURI();
+            assertNotNull(owlModel.getTripleStoreModel().getTripleStore(uri.toString()));
+            for (int i = 0; i < CLASS_COUNT; i++) {
+                OWLNamedClass cls = owlModel.getOWLNamedClass(uri + "#" + name + i);
+                assertNotNull(cls);
+                // each anonymous node of every document is a separate restriction
+                int restrictionCount = 0;
+                Collection superclasses = cls.getSuperclasses(false);
+                for (Iterator it = superclasses.iterator(); it.hasNext();) {
+                    RDFSClass superclass = (RDFSClass) it.next();
+                    if (superclass instanceof OWLSomeValuesFrom) {
+                        restrictionCount++;
+                        assertEquals(cls, ((OWLSomeValuesFrom) superclass).getSomeValuesFrom());
+                    }
+                }
+                assertEquals(1, restrictionCount);
+            }
+        }
+    }
+
+
+    private File getFile(String name) {
+        return new File(directory, name + ".owl");
+    }
+
+
+    private void writeDocument(String name, String imported) throws Exception {
+        String base = getFile(name).toURI().toString();
+        Writer writer = new OutputStreamWriter(new FileOutputStream(getFile(name)), "UTF-8");
+        try {
+            writer.write("<?xml version=\"1.0\"?>\n" +
+                         "<rdf:RDF xmlns:rdf=\"http://www.w3.org/1999/02/22-rdf-syntax-ns#\"\n" +
+                         "    xmlns:rdfs=\"http://www.w3.org/2000/01/rdf-schema#\"\n" +
+                         "    xmlns:owl=\"http://www.w3.org/2002/07/owl#\"\n" +
+                         "    xml:base=\"" + base + "\">\n" +
+                         "  <owl:Ontology rdf:about=\"\">\n");
+            if (imported != null) {
+                writer.write("    <owl:imports rdf:resource=\"" + getFile(imported).toURI() + "\"/>\n");
+            }
+            writer.write("  </owl:Ontology>\n" +
+                         "  <owl:ObjectProperty rdf:ID=\"p\"/>\n");
+            for (int i = 0; i < CLASS_COUNT; i++) {
+                writer.write("  <owl:Class rdf:ID=\"" + name + i + "\">\n" +
+                             "    <rdfs:subClassOf>\n" +
+                             "      <owl:Restriction>\n" +
+                             "        <owl:onProperty rdf:resource=\"#p\"/>\n" +
+                             "        <owl:someValuesFrom rdf:resource=\"#" + name + i + "\"/>\n" +
+                             "      </owl:Restriction>\n" +
+                             "    </rdfs:subClassOf>\n" +
+                             "  </owl:Class>\n");
+            }
+            writer.write("</rdf:RDF>\n");
+        }
+        finally {
+            writer.close();
+        }
+    }
+}
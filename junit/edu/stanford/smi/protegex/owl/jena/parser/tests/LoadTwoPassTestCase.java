@@ -0,0 +1,139 @@
+package edu.stanford.smi.protegex.owl.jena.parser.tests;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+
+import edu.stanford.smi.protege.util.ApplicationProperties;
+import edu.stanford.smi.protegex.owl.jena.parser.ProtegeOWLParser;
+import edu.stanford.smi.protegex.owl.model.OWLDatatypeProperty;
+import edu.stanford.smi.protegex.owl.model.OWLIndividual;
+import edu.stanford.smi.protegex.owl.model.OWLNamedClass;
+import edu.stanford.smi.protegex.owl.model.OWLObjectProperty;
+import edu.stanford.smi.protegex.owl.tests.AbstractJenaTestCase;
+
+public class LoadTwoPassTestCase extends AbstractJenaTestCase {
+
+    private static final String BASE = "http://protege.stanford.edu/junit/twopass.owl";
+
+    private static final String NS = BASE + "#";
+
+    private static final int INDIVIDUAL_COUNT = 50;
+
+    private File file;
+
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+        file = File.createTempFile("twopass", ".owl");
+    }
+
+
+    @Override
+    protected void tearDown() throws Exception {
+        file.delete();
+        super.tearDown();
+    }
+
+
+    public void testForwardReferences() throws Exception {
+        // every resource is used before the triple that declares its type
+        writeDocument("  <rdf:Description rdf:about=\"#Early\">\n" +
+                      "    <rdfs:subClassOf rdf:resource=\"#Late\"/>\n" +
+                      "  </rdf:Description>\n" +
+                      "  <rdf:Description rdf:about=\"#early\">\n" +
+                      "    <rdf:type rdf:resource=\"#Early\"/>\n" +
+                      "    <knows rdf:resource=\"#late\"/>\n" +
+                      "    <name>early</name>\n" +
+                      "  </rdf:Description>\n" +
+                      "  <owl:Class rdf:ID=\"Early\"/>\n" +
+                      "  <owl:Class rdf:ID=\"Late\"/>\n" +
+                      "  <Late rdf:ID=\"late\"/>\n" +
+                      "  <owl:ObjectProperty rdf:ID=\"knows\"/>\n" +
+                      "  <owl:DatatypeProperty rdf:ID=\"name\"/>\n");
+        loadInTwoPasses(null);
+
+        OWLNamedClass earlyCls = owlModel.getOWLNamedClass(NS + "Early");
+        OWLNamedClass lateCls = owlModel.getOWLNamedClass(NS + "Late");
+        assertNotNull(earlyCls);
+        assertTrue(earlyCls.getSuperclasses(false).contains(lateCls));
+        OWLObjectProperty knowsProperty = owlModel.getOWLObjectProperty(NS + "knows");
+        OWLDatatypeProperty nameProperty = owlModel.getOWLDatatypeProperty(NS + "name");
+        assertNotNull(knowsProperty);
+        assertNotNull(nameProperty);
+        OWLIndividual early = owlModel.getOWLIndividual(NS + "early");
+        OWLIndividual late = owlModel.getOWLIndividual(NS + "late");
+        assertTrue(early.hasRDFType(earlyCls));
+        assertTrue(late.hasRDFType(lateCls));
+        assertEquals(late, early.getPropertyValue(knowsProperty));
+        assertEquals("early", early.getPropertyValue(nameProperty));
+    }
+
+
+    public void testSpilledTriples() throws Exception {
+        StringBuffer buffer = new StringBuffer();
+        for (int i = 0; i < INDIVIDUAL_COUNT; i++) {
+            buffer.append("  <Person rdf:ID=\"person" + i + "\">\n" +
+                          "    <knows rdf:resource=\"#person" + ((i + 1) % INDIVIDUAL_COUNT) + "\"/>\n" +
+                          "    <name>person" + i + "</name>\n" +
+                          "  </Person>\n");
+        }
+        buffer.append("  <owl:Class rdf:ID=\"Person\"/>\n" +
+                      "  <owl:ObjectProperty rdf:ID=\"knows\"/>\n" +
+                      "  <owl:DatatypeProperty rdf:ID=\"name\"/>\n");
+        writeDocument(buffer.toString());
+        // far fewer than the buffered triples, so that most subjects are moved to disk
+        loadInTwoPasses("4");
+
+        OWLNamedClass personCls = owlModel.getOWLNamedClass(NS + "Person");
+        OWLObjectProperty knowsProperty = owlModel.getOWLObjectProperty(NS + "knows");
+        OWLDatatypeProperty nameProperty = owlModel.getOWLDatatypeProperty(NS + "name");
+        assertEquals(INDIVIDUAL_COUNT, personCls.getInstanceCount(false));
+        for (int i = 0; i < INDIVIDUAL_COUNT; i++) {
+            OWLIndividual person = owlModel.getOWLIndividual(NS + "person" + i);
+            OWLIndividual next = owlModel.getOWLIndividual(NS + "person" + ((i + 1) % INDIVIDUAL_COUNT));
+            assertEquals(next, person.getPropertyValue(knowsProperty));
+            assertEquals("person" + i, person.getPropertyValue(nameProperty));
+        }
+    }
+
+
+    private void loadInTwoPasses(String spillThreshold) throws Exception {
+        boolean twoPassLoading = ApplicationProperties.getBooleanProperty(ProtegeOWLParser.TWO_PASS_LOADING, false);
+        int oldSpillThreshold = ApplicationProperties.getIntegerProperty(ProtegeOWLParser.TWO_PASS_SPILL_THRESHOLD, 1000000);
+        ApplicationProperties.setBoolean(ProtegeOWLParser.TWO_PASS_LOADING, true);
+        if (spillThreshold != null) {
+            ApplicationProperties.setString(ProtegeOWLParser.TWO_PASS_SPILL_THRESHOLD, spillThreshold);
+        }
+        try {
+            loadTestOntology(file.toURI());
+        }
+        finally {
+            ApplicationProperties.setBoolean(ProtegeOWLParser.TWO_PASS_LOADING, twoPassLoading);
+            if (spillThreshold != null) {
+                ApplicationProperties.setString(ProtegeOWLParser.TWO_PASS_SPILL_THRESHOLD, String.valueOf(oldSpillThreshold));
+            }
+        }
+    }
+
+
+    private void writeDocument(String content) throws Exception {
+        Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+        try {
+            writer.write("<?xml version=\"1.0\"?>\n" +
+                         "<rdf:RDF xmlns:rdf=\"http://www.w3.org/1999/02/22-rdf-syntax-ns#\"\n" +
+                         "    xmlns:rdfs=\"http://www.w3.org/2000/01/rdf-schema#\"\n" +
+                         "    xmlns:owl=\"http://www.w3.org/2002/07/owl#\"\n" +
+                         "    xmlns=\"" + NS + "\"\n" +
+                         "    xml:base=\"" + BASE + "\">\n" +
+                         "  <owl:Ontology rdf:about=\"\"/>\n" +
+                         content +
+                         "</rdf:RDF>\n");
+        }
+        finally {
+            writer.close();
+        }
+    }
+}
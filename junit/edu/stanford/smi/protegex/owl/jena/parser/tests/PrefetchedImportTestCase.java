@@ -0,0 +1,131 @@
+package edu.stanford.smi.protegex.owl.jena.parser.tests;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.hp.hpl.jena.rdf.arp.ALiteral;
+import com.hp.hpl.jena.rdf.arp.ARPHandlers;
+import com.hp.hpl.jena.rdf.arp.AResource;
+import com.hp.hpl.jena.rdf.arp.NamespaceHandler;
+import com.hp.hpl.jena.rdf.arp.StatementHandler;
+
+import edu.stanford.smi.protegex.owl.jena.parser.PrefetchedImport;
+import edu.stanford.smi.protegex.owl.tests.AbstractJenaTestCase;
+
+public class PrefetchedImportTestCase extends AbstractJenaTestCase {
+
+    private static final String BASE = "http://www.owl-ontologies.com/prefetched.owl";
+
+    private static final String DOCUMENT =
+            "<?xml version=\"1.0\"?>\n" +
+            "<rdf:RDF xmlns:rdf=\"http://www.w3.org/1999/02/22-rdf-syntax-ns#\"\n" +
+            "    xmlns:rdfs=\"http://www.w3.org/2000/01/rdf-schema#\"\n" +
+            "    xmlns:owl=\"http://www.w3.org/2002/07/owl#\"\n" +
+            "    xml:base=\"" + BASE + "\">\n" +
+            "  <owl:Ontology rdf:about=\"\">\n" +
+            "    <owl:imports rdf:resource=\"http://www.owl-ontologies.com/imported.owl\"/>\n" +
+            "  </owl:Ontology>\n" +
+            "  <owl:Class rdf:ID=\"A\">\n" +
+            "    <rdfs:subClassOf>\n" +
+            "      <owl:Restriction>\n" +
+            "        <owl:onProperty rdf:resource=\"#p\"/>\n" +
+            "        <owl:minCardinality>1</owl:minCardinality>\n" +
+            "      </owl:Restriction>\n" +
+            "    </rdfs:subClassOf>\n" +
+            "  </owl:Class>\n" +
+            "</rdf:RDF>\n";
+
+
+    public void testReplay() throws Exception {
+        PrefetchedImport prefetchedImport = parse(DOCUMENT);
+        assertTrue(prefetchedImport.isParsed());
+        assertEquals(new URI(BASE), prefetchedImport.getXMLBase());
+        assertSize(1, prefetchedImport.getImports());
+        assertContains("http://www.owl-ontologies.com/imported.owl", prefetchedImport.getImports());
+
+        Recorder recorder = new Recorder();
+        prefetchedImport.replay(recorder.getHandlers());
+        assertContains("owl", recorder.prefixes);
+        assertSize(7, recorder.subjects);
+        assertSize(3, recorder.getAnonymousSubjects());
+    }
+
+
+    public void testAnonymousIDsAreUniquePerDocument() throws Exception {
+        Recorder first = new Recorder();
+        parse(DOCUMENT).replay(first.getHandlers());
+        Recorder second = new Recorder();
+        parse(DOCUMENT).replay(second.getHandlers());
+
+        List<AResource> firstAnonymous = first.getAnonymousSubjects();
+        AResource firstRestriction = firstAnonymous.get(0);
+        AResource secondRestriction = second.getAnonymousSubjects().get(0);
+        assertEquals(firstRestriction, firstAnonymous.get(1));
+        assertEquals(firstRestriction, firstAnonymous.get(2));
+        assertFalse(firstRestriction.getAnonymousID().equals(secondRestriction.getAnonymousID()));
+    }
+
+
+    public void testParseErrorIsThrownAtReplay() throws Exception {
+        PrefetchedImport prefetchedImport = parse(DOCUMENT.substring(0, DOCUMENT.indexOf("</owl:Class>")));
+        try {
+            prefetchedImport.replay(new Recorder().getHandlers());
+            fail();
+        }
+        catch (Exception e) {
+            // expected
+        }
+    }
+
+
+    private static PrefetchedImport parse(String document) throws Exception {
+        return PrefetchedImport.parse(null, document.getBytes("UTF-8"), BASE, new URI(BASE));
+    }
+
+
+    private static class Recorder implements StatementHandler, NamespaceHandler {
+
+        private List<AResource> subjects = new ArrayList<AResource>();
+
+        private List<String> prefixes = new ArrayList<String>();
+
+
+        ARPHandlers getHandlers() {
+            ARPHandlers handlers = ARPHandlers.createNewHandlers();
+            handlers.setStatementHandler(this);
+            handlers.setNamespaceHandler(this);
+            return handlers;
+        }
+
+
+        List<AResource> getAnonymousSubjects() {
+            List<AResource> anonymousSubjects = new ArrayList<AResource>();
+            for (AResource subject : subjects) {
+                if (subject.isAnonymous()) {
+                    anonymousSubjects.add(subject);
+                }
+            }
+            return anonymousSubjects;
+        }
+
+
+        public void statement(AResource subj, AResource pred, AResource obj) {
+            subjects.add(subj);
+        }
+
+
+        public void statement(AResource subj, AResource pred, ALiteral lit) {
+            subjects.add(subj);
+        }
+
+
+        public void startPrefixMapping(String prefix, String namespace) {
+            prefixes.add(prefix);
+        }
+
+
+        public void endPrefixMapping(String prefix) {
+        }
+    }
+}
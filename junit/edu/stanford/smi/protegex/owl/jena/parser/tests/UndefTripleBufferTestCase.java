@@ -0,0 +1,102 @@
+package edu.stanford.smi.protegex.owl.jena.parser.tests;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+
+import com.hp.hpl.jena.rdf.arp.AResource;
+
+import edu.stanford.smi.protegex.owl.jena.parser.UndefTriple;
+import edu.stanford.smi.protegex.owl.jena.parser.UndefTripleBuffer;
+import edu.stanford.smi.protegex.owl.model.triplestore.TripleStore;
+import edu.stanford.smi.protegex.owl.tests.AbstractJenaTestCase;
+
+public class UndefTripleBufferTestCase extends AbstractJenaTestCase {
+
+    public void testAddAndRemove() {
+        UndefTripleBuffer buffer = new UndefTripleBuffer(0);
+        TripleStore tripleStore = owlModel.getTripleStoreModel().getActiveTripleStore();
+        buffer.add("b", new UndefTriple(createResource("a"), createResource("p"), createResource("b"), tripleStore));
+        buffer.add("b", new UndefTriple(createResource("c"), createResource("p"), createResource("b"), tripleStore));
+        buffer.add("q", new UndefTriple(createResource("a"), createResource("q"), createResource("d"), tripleStore));
+        assertEquals(2, buffer.getKeyCount());
+        assertEquals(3, buffer.getTripleCount());
+
+        Collection<UndefTriple> triples = buffer.get("b");
+        assertSize(2, triples);
+        Iterator<UndefTriple> it = triples.iterator();
+        UndefTriple triple = it.next();
+        assertEquals("a", triple.getTripleSubj().getURI());
+        assertEquals("b", ((AResource) triple.getTripleObj()).getURI());
+        assertSame(tripleStore, triple.getTripleStore());
+        it.remove();
+        assertSize(1, buffer.get("b"));
+        assertEquals("c", buffer.get("b").iterator().next().getTripleSubj().getURI());
+
+        buffer.remove("q");
+        assertSize(0, buffer.get("q"));
+        assertEquals(1, buffer.getKeys().size());
+        assertEquals(1, buffer.getTripleCount());
+    }
+
+
+    public void testSpilledTriplesKeepTheirOrder() {
+        UndefTripleBuffer buffer = new UndefTripleBuffer(4);
+        TripleStore tripleStore = owlModel.getTripleStoreModel().getActiveTripleStore();
+        for (int i = 0; i < 100; i++) {
+            String undef = "key" + (i % 3);
+            buffer.add(undef, new UndefTriple(createResource("s" + i), createResource("p"), createResource(undef), tripleStore));
+        }
+        try {
+            assertEquals(3, buffer.getKeys().size());
+            assertEquals(100, buffer.getTripleCount());
+            for (int k = 0; k < 3; k++) {
+                List<String> subjects = new ArrayList<String>();
+                for (UndefTriple triple : buffer.get("key" + k)) {
+                    subjects.add(triple.getTripleSubj().getURI());
+                }
+                assertEquals((100 - k + 2) / 3, subjects.size());
+                for (int i = 0; i < subjects.size(); i++) {
+                    assertEquals("s" + (i * 3 + k), subjects.get(i));
+                }
+            }
+        }
+        finally {
+            buffer.clear();
+        }
+    }
+
+
+    private static AResource createResource(final String uri) {
+        return new AResource() {
+            public String getAnonymousID() {
+                return null;
+            }
+
+
+            public String getURI() {
+                return uri;
+            }
+
+
+            public Object getUserData() {
+                return null;
+            }
+
+
+            public void setUserData(Object d) {
+            }
+
+
+            public boolean hasNodeID() {
+                return false;
+            }
+
+
+            public boolean isAnonymous() {
+                return false;
+            }
+        };
+    }
+}
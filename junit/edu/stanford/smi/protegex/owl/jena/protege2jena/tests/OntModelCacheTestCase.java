@@ -0,0 +1,87 @@
+package edu.stanford.smi.protegex.owl.jena.protege2jena.tests;
+
+import com.hp.hpl.jena.ontology.OntClass;
+import com.hp.hpl.jena.ontology.OntModel;
+import com.hp.hpl.jena.rdf.model.RDFNode;
+import com.hp.hpl.jena.rdf.model.Resource;
+import com.hp.hpl.jena.rdf.model.Statement;
+import com.hp.hpl.jena.rdf.model.StmtIterator;
+import com.hp.hpl.jena.vocabulary.OWL;
+import com.hp.hpl.jena.vocabulary.RDFS;
+import edu.stanford.smi.protegex.owl.model.OWLNamedClass;
+import edu.stanford.smi.protegex.owl.model.OWLObjectProperty;
+import edu.stanford.smi.protegex.owl.model.OWLSomeValuesFrom;
+
+public class OntModelCacheTestCase extends AbstractProtege2JenaTestCase {
+
+    public void testOntModelIsCached() {
+        owlModel.createOWLNamedClass("Class");
+        assertSame(owlModel.getOntModel(), owlModel.getOntModel());
+    }
+
+
+    public void testPropertyValueChangeIsApplied() {
+        OWLNamedClass cls = owlModel.createOWLNamedClass("Class");
+        OntModel ontModel = owlModel.getOntModel();
+        cls.addComment("Comment");
+        assertSame(ontModel, owlModel.getOntModel());
+        Resource resource = ontModel.getResource(cls.getURI());
+        assertTrue(ontModel.contains(resource, RDFS.comment, "Comment"));
+        cls.removeComment("Comment");
+        assertFalse(ontModel.contains(resource, RDFS.comment, "Comment"));
+    }
+
+
+    public void testNewSuperclassIsApplied() {
+        OWLNamedClass superCls = owlModel.createOWLNamedClass("Superclass");
+        OWLNamedClass cls = owlModel.createOWLNamedClass("Class");
+        owlModel.getOntModel();
+        cls.addSuperclass(superCls);
+        cls.removeSuperclass(owlThing);
+        OntClass ontClass = owlModel.getOntModel().getOntClass(cls.getURI());
+        assertNotNull(ontClass);
+        assertTrue(ontClass.hasSuperClass(owlModel.getOntModel().getResource(superCls.getURI())));
+    }
+
+
+    public void testChangeWithoutEventsIsApplied() {
+        OWLNamedClass cls = owlModel.createOWLNamedClass("Class");
+        owlModel.getOntModel();
+        boolean enabled = owlModel.setGenerateEventsEnabled(false);
+        try {
+            cls.addComment("Comment");
+            OntModel ontModel = owlModel.getOntModel();
+            assertTrue(ontModel.contains(ontModel.getResource(cls.getURI()), RDFS.comment, "Comment"));
+        }
+        finally {
+            owlModel.setGenerateEventsEnabled(enabled);
+        }
+        cls.removeComment("Comment");
+        OntModel ontModel = owlModel.getOntModel();
+        assertFalse(ontModel.contains(ontModel.getResource(cls.getURI()), RDFS.comment, "Comment"));
+    }
+
+
+    public void testAnonymousResourceChangeIsApplied() {
+        OWLObjectProperty property = owlModel.createOWLObjectProperty("property");
+        OWLNamedClass alpha = owlModel.createOWLNamedClass("Alpha");
+        OWLNamedClass beta = owlModel.createOWLNamedClass("Beta");
+        OWLNamedClass cls = owlModel.createOWLNamedClass("Class");
+        OWLSomeValuesFrom restriction = owlModel.createOWLSomeValuesFrom(property, alpha);
+        cls.addSuperclass(restriction);
+        OntModel ontModel = owlModel.getOntModel();
+        restriction.setSomeValuesFrom(beta);
+        assertSame(ontModel, owlModel.getOntModel());
+        StmtIterator it = ontModel.listStatements(null, OWL.someValuesFrom, (RDFNode) null);
+        try {
+            assertTrue(it.hasNext());
+            Statement statement = it.nextStatement();
+            assertEquals(beta.getURI(), ((Resource) statement.getObject()).getURI());
+            assertTrue(ontModel.contains(ontModel.getResource(cls.getURI()), RDFS.subClassOf, statement.getSubject()));
+            assertFalse(it.hasNext());
+        }
+        finally {
+            it.close();
+        }
+    }
+}
@@ -3,12 +3,16 @@ package edu.stanford.smi.protegex.owl.jena.triplestore.tests;
 import edu.stanford.smi.protegex.owl.model.OWLNamedClass;
 import edu.stanford.smi.protegex.owl.model.OWLNames;
 import edu.stanford.smi.protegex.owl.model.RDFProperty;
+import edu.stanford.smi.protegex.owl.model.RDFResource;
 import edu.stanford.smi.protegex.owl.model.triplestore.Triple;
 import edu.stanford.smi.protegex.owl.model.triplestore.TripleStore;
+import edu.stanford.smi.protegex.owl.model.triplestore.TripleVisitor;
 import edu.stanford.smi.protegex.owl.model.triplestore.impl.DefaultTriple;
 import edu.stanford.smi.protegex.owl.tests.AbstractJenaTestCase;
 
+import java.util.ArrayList;
 import java.util.Iterator;
+import java.util.List;
 
 /**
  * @author Holger Knublauch  <holger@knublauch.com>
@@ -61,6 +65,23 @@ public class ListTriplesTestCase extends AbstractJenaTestCase {
     }
 
 
+    public void testListSubjects() {
+        RDFProperty property = owlModel.createRDFProperty("property");
+        OWLNamedClass cls = owlModel.createOWLNamedClass("Class");
+        cls.addPropertyValue(property, "value");
+        cls.setClassificationStatus(OWLNames.CLASSIFICATION_STATUS_INCONSISTENT);
+        TripleStore ts = owlModel.getTripleStoreModel().getActiveTripleStore();
+        List<RDFResource> subjects = new ArrayList<RDFResource>();
+        for (Iterator<RDFResource> it = ts.listSubjects(); it.hasNext();) {
+            subjects.add(it.next());
+        }
+        assertSize(3, subjects);
+        assertContains(owlModel.getDefaultOWLOntology(), subjects);
+        assertContains(property, subjects);
+        assertContains(cls, subjects);
+    }
+
+
     public void testListTriplesWithObject() {
         RDFProperty property = owlModel.createRDFProperty("property");
         OWLNamedClass cls = owlModel.createOWLNamedClass("Class");
@@ -69,4 +90,18 @@ public class ListTriplesTestCase extends AbstractJenaTestCase {
         assertEquals(new DefaultTriple(cls, property, cls), it.next());
         assertFalse(it.hasNext());
     }
+
+
+    public void testVisitTriples() {
+        OWLNamedClass cls = owlModel.createOWLNamedClass("Class");
+        TripleStore ts = owlModel.getTripleStoreModel().getActiveTripleStore();
+        final List<Triple> visited = new ArrayList<Triple>();
+        ts.visitTriples(new TripleVisitor() {
+            public void visit(RDFResource subject, RDFProperty predicate, Object object) {
+                visited.add(new DefaultTriple(subject, predicate, object));
+            }
+        });
+        assertSize(DEFAULT_SIZE + 2, visited);
+        assertContains(new DefaultTriple(cls, owlModel.getRDFSSubClassOfProperty(), owlModel.getOWLThingClass()), visited);
+    }
 }
@@ -0,0 +1,52 @@
+package edu.stanford.smi.protegex.owl.jena.triplestore.tests;
+
+import edu.stanford.smi.protege.model.framestore.InMemoryFrameDb;
+import edu.stanford.smi.protegex.owl.model.OWLNamedClass;
+import edu.stanford.smi.protegex.owl.model.triplestore.TripleStore;
+import edu.stanford.smi.protegex.owl.model.triplestore.TripleStoreModel;
+import edu.stanford.smi.protegex.owl.model.triplestore.impl.TripleStoreChangeTracker;
+import edu.stanford.smi.protegex.owl.tests.AbstractJenaTestCase;
+
+public class TripleStoreChangeTrackerTestCase extends AbstractJenaTestCase {
+
+    public void testChangesMarkActiveTripleStore() {
+        TripleStoreChangeTracker tracker = owlModel.getTripleStoreChangeTracker();
+        TripleStore activeTripleStore = owlModel.getTripleStoreModel().getActiveTripleStore();
+        tracker.clear();
+        assertFalse(tracker.isModified(activeTripleStore));
+        owlModel.createOWLNamedClass("Class");
+        assertTrue(tracker.isModified(activeTripleStore));
+        tracker.markSaved(activeTripleStore);
+        assertFalse(tracker.isModified(activeTripleStore));
+    }
+
+
+    public void testChangesOnlyMarkTheirTripleStore() {
+        TripleStoreChangeTracker tracker = owlModel.getTripleStoreChangeTracker();
+        TripleStoreModel tripleStoreModel = owlModel.getTripleStoreModel();
+        TripleStore homeTripleStore = tripleStoreModel.getActiveTripleStore();
+        OWLNamedClass cls = owlModel.createOWLNamedClass("Class");
+        TripleStore importedTripleStore = tripleStoreModel.createActiveImportedTripleStore(new InMemoryFrameDb("Imported"));
+        tripleStoreModel.setActiveTripleStore(homeTripleStore);
+        tracker.clear();
+
+        tripleStoreModel.setActiveTripleStore(importedTripleStore);
+        cls.addComment("Comment");
+        assertTrue(tracker.isModified(importedTripleStore));
+        assertFalse(tracker.isModified(homeTripleStore));
+    }
+
+
+    public void testChangesWithoutEventsMarkActiveTripleStore() {
+        TripleStoreChangeTracker tracker = owlModel.getTripleStoreChangeTracker();
+        TripleStore activeTripleStore = owlModel.getTripleStoreModel().getActiveTripleStore();
+        tracker.clear();
+        boolean enabled = owlModel.setGenerateEventsEnabled(false);
+        try {
+            assertTrue(tracker.isModified(activeTripleStore));
+        }
+        finally {
+            owlModel.setGenerateEventsEnabled(enabled);
+        }
+    }
+}
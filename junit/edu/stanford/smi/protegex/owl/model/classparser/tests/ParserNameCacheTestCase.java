@@ -0,0 +1,113 @@
+package edu.stanford.smi.protegex.owl.model.classparser.tests;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import edu.stanford.smi.protege.model.BrowserSlotPattern;
+import edu.stanford.smi.protegex.owl.model.OWLNamedClass;
+import edu.stanford.smi.protegex.owl.model.OWLObjectProperty;
+import edu.stanford.smi.protegex.owl.model.OWLSomeValuesFrom;
+import edu.stanford.smi.protegex.owl.model.RDFResource;
+import edu.stanford.smi.protegex.owl.model.classparser.ParserUtils;
+import edu.stanford.smi.protegex.owl.model.classparser.manchester.ManchesterOWLParser;
+import edu.stanford.smi.protegex.owl.model.classparser.manchester.ParseException;
+import edu.stanford.smi.protegex.owl.tests.AbstractJenaTestCase;
+
+public class ParserNameCacheTestCase extends AbstractJenaTestCase {
+
+    public void testLookupsFollowChanges() throws Exception {
+        assertNull(ParserUtils.getOWLClassFromName(owlModel, "A"));
+        OWLNamedClass cls = owlModel.createOWLNamedClass("A");
+        assertEquals(cls, ParserUtils.getOWLClassFromName(owlModel, "A"));
+        assertNull(ParserUtils.getRDFPropertyFromName(owlModel, "A"));
+
+        RDFResource renamed = (RDFResource) cls.rename(cls.getNamespace() + "B");
+        assertNull(ParserUtils.getOWLClassFromName(owlModel, "A"));
+        assertEquals(renamed, ParserUtils.getOWLClassFromName(owlModel, "B"));
+
+        renamed.delete();
+        assertNull(ParserUtils.getOWLClassFromName(owlModel, "B"));
+    }
+
+
+    public void testLookupsFollowLabels() throws Exception {
+        owlModel.getOWLNamedClassClass().setDirectBrowserSlotPattern(new BrowserSlotPattern(owlModel.getRDFSLabelProperty()));
+        OWLNamedClass cls = owlModel.createOWLNamedClass("A");
+        OWLNamedClass superCls = owlModel.createOWLNamedClass("B");
+        assertNull(ParserUtils.getOWLClassFromName(owlModel, "Alpha"));
+
+        cls.addLabel("Alpha", null);
+        assertEquals(cls, ParserUtils.getOWLClassFromName(owlModel, "Alpha"));
+        cls.addSuperclass(superCls);
+        assertEquals(cls, ParserUtils.getOWLClassFromName(owlModel, "Alpha"));
+
+        cls.removeLabel("Alpha", null);
+        assertNull(ParserUtils.getOWLClassFromName(owlModel, "Alpha"));
+    }
+
+
+    public void testParserIsReusable() throws Exception {
+        OWLNamedClass a = owlModel.createOWLNamedClass("A");
+        OWLObjectProperty p = owlModel.createOWLObjectProperty("p");
+        ManchesterOWLParser parser = new ManchesterOWLParser(owlModel);
+
+        OWLSomeValuesFrom someValuesFrom = (OWLSomeValuesFrom) parser.parseClass("p some A");
+        assertEquals(p, someValuesFrom.getOnProperty());
+        assertEquals(a, someValuesFrom.getSomeValuesFrom());
+
+        try {
+            parser.checkClass("p some Unknown");
+            fail();
+        }
+        catch (ParseException e) {
+            assertEquals("Class or property name expected", parser.errorMessage);
+            assertTrue(parser.nextCouldBeCls);
+        }
+
+        parser.checkClass("A and p some A");
+        assertNull(parser.errorMessage);
+        assertFalse(parser.nextCouldBeCls);
+    }
+
+
+    public void testParallelParsing() throws Exception {
+        for (int i = 0; i < 20; i++) {
+            owlModel.createOWLNamedClass("A" + i);
+        }
+        owlModel.createOWLObjectProperty("p");
+        final List<Throwable> errors = Collections.synchronizedList(new ArrayList<Throwable>());
+        List<Thread> threads = new ArrayList<Thread>();
+        for (int t = 0; t < 4; t++) {
+            Thread thread = new Thread() {
+                @Override
+                public void run() {
+                    ManchesterOWLParser parser = new ManchesterOWLParser(owlModel);
+                    try {
+                        for (int i = 0; i < 200; i++) {
+                            parser.checkClass("A" + (i % 20) + " and p some A" + ((i + 1) % 20));
+                            try {
+                                parser.checkClass("p some Unknown" + i);
+                                errors.add(new AssertionError("Unknown name accepted"));
+                            }
+                            catch (ParseException e) {
+                                if (!parser.nextCouldBeCls) {
+                                    errors.add(new AssertionError("Error state lost"));
+                                }
+                            }
+                        }
+                    }
+                    catch (Throwable e) {
+                        errors.add(e);
+                    }
+                }
+            };
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(Collections.emptyList(), errors);
+    }
+}
@@ -0,0 +1,141 @@
+package edu.stanford.smi.protegex.owl.model.framestore.tests;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import edu.stanford.smi.protege.model.Cls;
+import edu.stanford.smi.protege.model.Slot;
+import edu.stanford.smi.protegex.owl.model.OWLNamedClass;
+import edu.stanford.smi.protegex.owl.model.OWLNames;
+import edu.stanford.smi.protegex.owl.model.ProtegeNames;
+import edu.stanford.smi.protegex.owl.model.impl.OWLUtil;
+import edu.stanford.smi.protegex.owl.tests.AbstractJenaTestCase;
+
+public class LocalClassificationFrameStoreTestCase extends AbstractJenaTestCase {
+
+    private static final int CLASS_COUNT = 2000;
+
+
+    public void testInferredHierarchy() {
+        OWLNamedClass a = owlModel.createOWLNamedClass("A");
+        OWLNamedClass b = owlModel.createOWLNamedClass("B");
+        OWLNamedClass c = owlModel.createOWLNamedClass("C");
+        b.addInferredSuperclass(a);
+        c.addInferredSuperclass(a);
+        c.addInferredSuperclass(b);
+        assertSize(2, a.getInferredSubclasses());
+        assertContains(b, a.getInferredSubclasses());
+        assertContains(c, a.getInferredSubclasses());
+        assertSize(2, c.getInferredSuperclasses());
+
+        c.removeInferredSuperclass(a);
+        assertSize(1, a.getInferredSubclasses());
+        assertSize(1, c.getInferredSuperclasses());
+        assertContains(b, c.getInferredSuperclasses());
+    }
+
+
+    public void testDeleteClass() {
+        OWLNamedClass a = owlModel.createOWLNamedClass("A");
+        OWLNamedClass b = owlModel.createOWLNamedClass("B");
+        OWLNamedClass c = owlModel.createOWLNamedClass("C");
+        b.addInferredSuperclass(a);
+        c.addInferredSuperclass(b);
+        b.setClassificationStatus(OWLNames.CLASSIFICATION_STATUS_CONSISTENT_AND_CHANGED);
+        b.delete();
+        assertSize(0, a.getInferredSubclasses());
+        assertSize(0, c.getInferredSuperclasses());
+    }
+
+
+    public void testReplaceValuesSharedByManyClasses() {
+        OWLNamedClass hub = owlModel.createOWLNamedClass("Hub");
+        OWLNamedClass other = owlModel.createOWLNamedClass("Other");
+        List<OWLNamedClass> clses = new ArrayList<OWLNamedClass>();
+        for (int i = 0; i < CLASS_COUNT; i++) {
+            OWLNamedClass cls = owlModel.createOWLNamedClass("C" + i);
+            cls.addInferredSuperclass(hub);
+            cls.addInferredSuperclass(other);
+            clses.add(cls);
+        }
+        assertSize(CLASS_COUNT, hub.getInferredSubclasses());
+
+        Set<OWLNamedClass> remaining = new HashSet<OWLNamedClass>();
+        for (int i = 0; i < CLASS_COUNT; i++) {
+            if (i % 2 == 0) {
+                clses.get(i).removeInferredSuperclass(hub);
+            }
+            else {
+                remaining.add(clses.get(i));
+            }
+        }
+        assertEquals(remaining, new HashSet(hub.getInferredSubclasses()));
+        assertSize(CLASS_COUNT, other.getInferredSubclasses());
+        for (int i = 0; i < CLASS_COUNT; i++) {
+            List expected = i % 2 == 0 ? Collections.singletonList(other) : Arrays.asList(new Object[]{hub, other});
+            assertEquals(expected, new ArrayList(clses.get(i).getInferredSuperclasses()));
+        }
+
+        for (int i = CLASS_COUNT - 1; i >= 0; i--) {
+            clses.get(i).removeInferredSuperclass(hub);
+            clses.get(i).removeInferredSuperclass(other);
+        }
+        assertSize(0, hub.getInferredSubclasses());
+        assertSize(0, other.getInferredSubclasses());
+    }
+
+
+    public void testReplaceDuplicateValues() {
+        Slot slot = owlModel.getRDFProperty(ProtegeNames.Slot.INFERRED_SUPERCLASSES);
+        OWLNamedClass a = owlModel.createOWLNamedClass("A");
+        OWLNamedClass b = owlModel.createOWLNamedClass("B");
+        ((Cls) a).setDirectOwnSlotValues(slot, Arrays.asList(new Object[]{b, b}));
+        ((Cls) a).setDirectOwnSlotValues(slot, Collections.EMPTY_LIST);
+        OWLNamedClass c = owlModel.createOWLNamedClass("C");
+        OWLNamedClass d = owlModel.createOWLNamedClass("D");
+        c.addInferredSuperclass(d);
+        assertSize(0, a.getInferredSuperclasses());
+        assertSize(0, b.getInferredSubclasses());
+        assertEquals(Collections.singletonList(d), new ArrayList(c.getInferredSuperclasses()));
+        assertEquals(Collections.singletonList(c), new ArrayList(d.getInferredSubclasses()));
+        assertSize(0, d.getInferredSuperclasses());
+    }
+
+
+    public void testFindClassesByClassificationStatus() {
+        List<OWLNamedClass> changed = new ArrayList<OWLNamedClass>();
+        for (int i = 0; i < CLASS_COUNT; i++) {
+            OWLNamedClass cls = owlModel.createOWLNamedClass("C" + i);
+            if (i % 3 == 0) {
+                cls.setClassificationStatus(OWLNames.CLASSIFICATION_STATUS_CONSISTENT_AND_CHANGED);
+                changed.add(cls);
+            }
+            else {
+                cls.setClassificationStatus(OWLNames.CLASSIFICATION_STATUS_CONSISTENT_AND_UNCHANGED);
+            }
+        }
+        assertEquals(new HashSet(changed), new HashSet(owlModel.getChangedInferredClasses()));
+
+        OWLNamedClass cls = changed.remove(0);
+        cls.setClassificationStatus(OWLNames.CLASSIFICATION_STATUS_CONSISTENT_AND_UNCHANGED);
+        assertEquals(OWLNames.CLASSIFICATION_STATUS_CONSISTENT_AND_UNCHANGED, cls.getClassificationStatus());
+        assertEquals(new HashSet(changed), new HashSet(owlModel.getChangedInferredClasses()));
+    }
+
+
+    public void testResetComputedSuperclasses() {
+        OWLNamedClass a = owlModel.createOWLNamedClass("A");
+        OWLNamedClass b = owlModel.createOWLNamedClass("B");
+        b.addInferredSuperclass(a);
+        OWLUtil.resetComputedSuperclasses(owlModel);
+        assertSize(0, a.getInferredSubclasses());
+        assertSize(0, b.getInferredSuperclasses());
+        b.addInferredSuperclass(a);
+        assertContains(a, b.getInferredSuperclasses());
+        assertContains(b, a.getInferredSubclasses());
+    }
+}
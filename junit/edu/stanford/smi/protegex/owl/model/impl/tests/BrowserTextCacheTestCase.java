@@ -0,0 +1,58 @@
+package edu.stanford.smi.protegex.owl.model.impl.tests;
+
+import edu.stanford.smi.protegex.owl.model.OWLNamedClass;
+import edu.stanford.smi.protegex.owl.model.OWLObjectProperty;
+import edu.stanford.smi.protegex.owl.model.RDFIndividual;
+import edu.stanford.smi.protegex.owl.model.RDFResource;
+import edu.stanford.smi.protegex.owl.tests.AbstractJenaTestCase;
+
+public class BrowserTextCacheTestCase extends AbstractJenaTestCase {
+
+    public void testRename() {
+        OWLNamedClass cls = owlModel.createOWLNamedClass("Cls");
+        assertEquals("Cls", cls.getBrowserText());
+        RDFResource renamed = (RDFResource) cls.rename(cls.getNamespace() + "Renamed");
+        assertEquals("Renamed", renamed.getBrowserText());
+    }
+
+
+    public void testLabelChange() {
+        OWLNamedClass cls = owlModel.createOWLNamedClass("Cls");
+        RDFIndividual individual = cls.createRDFIndividual("Instance");
+        assertEquals("Instance", individual.getBrowserText());
+        cls.setDirectBrowserSlot(owlModel.getRDFSLabelProperty());
+        individual.addLabel("first", null);
+        assertEquals("first", individual.getBrowserText());
+        individual.removeLabel("first", null);
+        individual.addLabel("second", null);
+        assertEquals("second", individual.getBrowserText());
+    }
+
+
+    public void testTypeChange() {
+        OWLNamedClass cls = owlModel.createOWLNamedClass("Cls");
+        OWLNamedClass labelledCls = owlModel.createOWLNamedClass("LabelledCls");
+        labelledCls.setDirectBrowserSlot(owlModel.getRDFSLabelProperty());
+        RDFIndividual individual = cls.createRDFIndividual("Instance");
+        individual.addLabel("label", null);
+        assertEquals("Instance", individual.getBrowserText());
+        individual.setRDFType(labelledCls);
+        assertEquals("label", individual.getBrowserText());
+    }
+
+
+    public void testDependentBrowserText() {
+        OWLObjectProperty property = owlModel.createOWLObjectProperty("property");
+        OWLNamedClass cls = owlModel.createOWLNamedClass("Cls");
+        cls.setDirectBrowserSlot(property);
+        RDFIndividual a = cls.createRDFIndividual("a");
+        RDFIndividual b = cls.createRDFIndividual("b");
+        RDFIndividual c = cls.createRDFIndividual("c");
+        c.setPropertyValue(property, c);
+        b.setPropertyValue(property, c);
+        a.setPropertyValue(property, b);
+        assertEquals("<recursive call>", a.getBrowserText());
+        c.setPropertyValue(property, null);
+        assertEquals("c", a.getBrowserText());
+    }
+}
@@ -0,0 +1,87 @@
+package edu.stanford.smi.protegex.owl.model.impl.tests;
+
+import java.util.Arrays;
+
+import edu.stanford.smi.protegex.owl.model.OWLIntersectionClass;
+import edu.stanford.smi.protegex.owl.model.OWLNamedClass;
+import edu.stanford.smi.protegex.owl.model.OWLObjectProperty;
+import edu.stanford.smi.protegex.owl.model.OWLSomeValuesFrom;
+import edu.stanford.smi.protegex.owl.model.RDFResource;
+import edu.stanford.smi.protegex.owl.model.impl.ClassExpressionCache;
+import edu.stanford.smi.protegex.owl.tests.AbstractJenaTestCase;
+
+public class ClassExpressionCacheTestCase extends AbstractJenaTestCase {
+
+    public void testStructuralKeys() {
+        ClassExpressionCache cache = owlModel.getClassExpressionCache();
+        OWLNamedClass alpha = owlModel.createOWLNamedClass("Alpha");
+        OWLNamedClass beta = owlModel.createOWLNamedClass("Beta");
+        OWLObjectProperty property = owlModel.createOWLObjectProperty("property");
+        OWLIntersectionClass first = owlModel.createOWLIntersectionClass(Arrays.asList(new Object[]{
+                alpha, owlModel.createOWLSomeValuesFrom(property, beta)
+        }));
+        OWLIntersectionClass second = owlModel.createOWLIntersectionClass(Arrays.asList(new Object[]{
+                owlModel.createOWLSomeValuesFrom(property, beta), alpha
+        }));
+        assertSame(cache.getStructuralKey(first), cache.getStructuralKey(second));
+        assertTrue(cache.isEqualExpression(first, second));
+        assertEquals(second, cache.findEqualExpression(first, Arrays.asList(new Object[]{alpha, second})));
+        assertEquals(alpha, cache.getStructuralKey(alpha));
+
+        second.addOperand(beta);
+        assertFalse(cache.isEqualExpression(first, second));
+        assertNull(cache.findEqualExpression(first, Arrays.asList(new Object[]{alpha, second})));
+    }
+
+
+    public void testInvalidatedExpressionsArePruned() {
+        ClassExpressionCache cache = owlModel.getClassExpressionCache();
+        OWLNamedClass alpha = owlModel.createOWLNamedClass("Alpha");
+        OWLNamedClass beta = owlModel.createOWLNamedClass("Beta");
+        OWLObjectProperty property = owlModel.createOWLObjectProperty("property");
+        OWLSomeValuesFrom someValuesFrom = owlModel.createOWLSomeValuesFrom(property, alpha);
+        OWLIntersectionClass intersection = owlModel.createOWLIntersectionClass(Arrays.asList(new Object[]{
+                beta, someValuesFrom
+        }));
+        int size = cache.size();
+        cache.getStructuralKey(intersection);
+        assertEquals(size + 2, cache.size());
+
+        someValuesFrom.setSomeValuesFrom(beta);
+        assertEquals(size, cache.size());
+
+        OWLIntersectionClass other = owlModel.createOWLIntersectionClass(Arrays.asList(new Object[]{
+                owlModel.createOWLSomeValuesFrom(property, beta), beta
+        }));
+        assertTrue(cache.isEqualExpression(intersection, other));
+        assertEquals(size + 2, cache.size());
+    }
+
+
+    public void testDisplayTextFollowsChanges() {
+        OWLNamedClass alpha = owlModel.createOWLNamedClass("Alpha");
+        OWLNamedClass beta = owlModel.createOWLNamedClass("Beta");
+        OWLObjectProperty property = owlModel.createOWLObjectProperty("property");
+        OWLSomeValuesFrom someValuesFrom = owlModel.createOWLSomeValuesFrom(property, alpha);
+        OWLIntersectionClass intersection = owlModel.createOWLIntersectionClass(Arrays.asList(new Object[]{
+                beta, someValuesFrom
+        }));
+        String text = intersection.getBrowserText();
+        assertTrue(text.indexOf("Alpha") >= 0);
+        assertEquals(text, intersection.getBrowserText());
+
+        someValuesFrom.setSomeValuesFrom(beta);
+        text = intersection.getBrowserText();
+        assertTrue(text.indexOf("Alpha") < 0);
+        assertEquals(owlModel.getOWLClassDisplay().getDisplayText(intersection), text);
+
+        RDFResource renamed = (RDFResource) beta.rename(beta.getNamespace() + "Gamma");
+        text = intersection.getBrowserText();
+        assertTrue(text.indexOf("Beta") < 0);
+        assertTrue(text.indexOf("Gamma") >= 0);
+        assertEquals(owlModel.getOWLClassDisplay().getDisplayText(intersection), text);
+
+        intersection.removeOperand((OWLNamedClass) renamed);
+        assertEquals(owlModel.getOWLClassDisplay().getDisplayText(intersection), intersection.getBrowserText());
+    }
+}
@@ -2,6 +2,7 @@ package edu.stanford.smi.protegex.owl.model.impl.tests;
 
 import com.hp.hpl.jena.datatypes.xsd.XSDDatatype;
 import edu.stanford.smi.protegex.owl.model.*;
+import edu.stanford.smi.protegex.owl.model.impl.DefaultRDFSLiteral;
 import edu.stanford.smi.protegex.owl.tests.AbstractJenaTestCase;
 
 import java.util.Collection;
@@ -162,4 +163,32 @@ public class DefaultRDFSLiteralTestCase extends AbstractJenaTestCase {
         assertTrue(a.compareTo(a) == 0);
         assertTrue(b.compareTo(a) > 0);
     }
+
+
+    public void testFromRawValue() {
+        DefaultRDFSLiteral literal = DefaultRDFSLiteral.fromRawValue(owlModel, "~#de Hallo Welt");
+        assertEquals("de", literal.getLanguage());
+        assertEquals("Hallo Welt", literal.getString());
+        assertEquals(owlModel.getXSDstring(), literal.getDatatype());
+
+        literal = DefaultRDFSLiteral.fromRawValue(owlModel, DefaultRDFSLiteral.getRawValue("42", owlModel.getXSDint()));
+        assertNull(literal.getLanguage());
+        assertEquals("42", literal.getString());
+        assertEquals(owlModel.getXSDint(), literal.getDatatype());
+        assertEquals(new Integer(42), literal.getPlainValue());
+
+        literal = DefaultRDFSLiteral.fromRawValue(owlModel, "plain");
+        assertEquals("plain", literal.getString());
+        assertEquals(owlModel.getXSDstring(), literal.getDatatype());
+        assertEquals("plain", literal.getPlainValue());
+    }
+
+
+    public void testFromRawValueIsCached() {
+        String rawValue = DefaultRDFSLiteral.getRawValue("7", owlModel.getXSDint());
+        DefaultRDFSLiteral literal = DefaultRDFSLiteral.fromRawValue(owlModel, rawValue);
+        assertSame(literal, DefaultRDFSLiteral.fromRawValue(owlModel, new String(rawValue)));
+        assertEquals(literal, owlModel.createRDFSLiteral("7", owlModel.getXSDint()));
+        assertEquals(7, literal.getInt());
+    }
 }
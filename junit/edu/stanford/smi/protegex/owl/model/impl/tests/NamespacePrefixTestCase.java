@@ -1,6 +1,7 @@
 package edu.stanford.smi.protegex.owl.model.impl.tests;
 
 import edu.stanford.smi.protegex.owl.model.NamespaceManager;
+import edu.stanford.smi.protegex.owl.model.NamespaceUtil;
 import edu.stanford.smi.protegex.owl.model.OWLNamedClass;
 import edu.stanford.smi.protegex.owl.model.OWLOntology;
 import edu.stanford.smi.protegex.owl.model.factory.AlreadyImportedException;
@@ -31,6 +32,21 @@ public class NamespacePrefixTestCase extends AbstractJenaTestCase {
     }
 
 
+    public void testPrefixedNamesFollowPrefixChanges() {
+        NamespaceManager nsm = owlModel.getNamespaceManager();
+        String namespace = "http://aldi.de#";
+        nsm.setPrefix(namespace, "aldi");
+        assertEquals("aldi:Person", NamespaceUtil.getPrefixedName(owlModel, namespace + "Person"));
+        assertEquals(namespace + "Person", NamespaceUtil.getFullName(owlModel, "aldi:Person"));
+        nsm.setPrefix(namespace, "lidl");
+        assertEquals("lidl:Person", NamespaceUtil.getPrefixedName(owlModel, namespace + "Person"));
+        assertEquals(namespace + "Person", NamespaceUtil.getFullName(owlModel, "lidl:Person"));
+        assertNull(NamespaceUtil.getFullName(owlModel, "aldi:Person"));
+        nsm.removePrefix("lidl");
+        assertEquals(namespace + "Person", NamespaceUtil.getPrefixedName(owlModel, namespace + "Person"));
+    }
+
+
     public void testDefaultPrefix() {
         NamespaceManager nsm = owlModel.getNamespaceManager();
 
@@ -0,0 +1,56 @@
+package edu.stanford.smi.protegex.owl.model.impl.tests;
+
+import edu.stanford.smi.protegex.owl.model.OWLDatatypeProperty;
+import edu.stanford.smi.protegex.owl.model.OWLNamedClass;
+import edu.stanford.smi.protegex.owl.model.RDFIndividual;
+import edu.stanford.smi.protegex.owl.tests.AbstractJenaTestCase;
+
+public class PropertyValueCacheTestCase extends AbstractJenaTestCase {
+
+    public void testIntValues() {
+        OWLDatatypeProperty property = owlModel.createOWLDatatypeProperty("property");
+        property.setRange(owlModel.getXSDint());
+        OWLNamedClass cls = owlModel.createOWLNamedClass("Cls");
+        RDFIndividual individual = cls.createRDFIndividual("individual");
+        assertEquals(-1, individual.getPropertyValueInt(property, -1));
+
+        individual.setPropertyValue(property, new Integer(42));
+        assertEquals(42, individual.getPropertyValueInt(property, -1));
+        assertEquals(42L, individual.getPropertyValueLong(property, -1));
+        assertEquals(42.0, individual.getPropertyValueDouble(property, -1), 0);
+
+        individual.setPropertyValue(property, new Integer(7));
+        assertEquals(7, individual.getPropertyValueInt(property, -1));
+
+        individual.setPropertyValue(property, null);
+        assertEquals(-1, individual.getPropertyValueInt(property, -1));
+    }
+
+
+    public void testInvalidValues() {
+        OWLDatatypeProperty property = owlModel.createOWLDatatypeProperty("property");
+        OWLNamedClass cls = owlModel.createOWLNamedClass("Cls");
+        RDFIndividual individual = cls.createRDFIndividual("individual");
+        individual.setPropertyValue(property, owlModel.createRDFSLiteral("abc", owlModel.getXSDint()));
+        assertEquals(-1, individual.getPropertyValueInt(property, -1));
+        assertEquals(-1L, individual.getPropertyValueLong(property, -1L));
+        assertTrue(individual.getPropertyValueBoolean(property, true));
+
+        individual.setPropertyValue(property, owlModel.createRDFSLiteral("1.5", owlModel.getXSDfloat()));
+        assertEquals(-1, individual.getPropertyValueInt(property, -1));
+        assertEquals(1.5, individual.getPropertyValueDouble(property, 0), 0);
+    }
+
+
+    public void testBooleanValues() {
+        OWLDatatypeProperty property = owlModel.createOWLDatatypeProperty("property");
+        property.setRange(owlModel.getXSDboolean());
+        OWLNamedClass cls = owlModel.createOWLNamedClass("Cls");
+        RDFIndividual individual = cls.createRDFIndividual("individual");
+        assertFalse(individual.getPropertyValueBoolean(property, false));
+        individual.setPropertyValue(property, Boolean.TRUE);
+        assertTrue(individual.getPropertyValueBoolean(property, false));
+        individual.setPropertyValue(property, Boolean.FALSE);
+        assertFalse(individual.getPropertyValueBoolean(property, true));
+    }
+}
@@ -0,0 +1,204 @@
+package edu.stanford.smi.protegex.owl.swrl.engine.tests;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import edu.stanford.smi.protegex.owl.model.OWLDatatypeProperty;
+import edu.stanford.smi.protegex.owl.model.OWLIndividual;
+import edu.stanford.smi.protegex.owl.model.OWLNamedClass;
+import edu.stanford.smi.protegex.owl.model.OWLObjectProperty;
+import edu.stanford.smi.protegex.owl.model.RDFResource;
+import edu.stanford.smi.protegex.owl.model.RDFSLiteral;
+import edu.stanford.smi.protegex.owl.swrl.engine.SQWRLQueryExecutor;
+import edu.stanford.smi.protegex.owl.swrl.engine.SQWRLQueryResults;
+import edu.stanford.smi.protegex.owl.swrl.engine.SWRLRuleEngineException;
+import edu.stanford.smi.protegex.owl.swrl.model.SQWRLNames;
+import edu.stanford.smi.protegex.owl.swrl.model.SWRLAtom;
+import edu.stanford.smi.protegex.owl.swrl.model.SWRLAtomList;
+import edu.stanford.smi.protegex.owl.swrl.model.SWRLBuiltin;
+import edu.stanford.smi.protegex.owl.swrl.model.SWRLImp;
+import edu.stanford.smi.protegex.owl.swrl.model.SWRLNames;
+import edu.stanford.smi.protegex.owl.swrl.model.SWRLVariable;
+import edu.stanford.smi.protegex.owl.swrl.model.impl.tests.AbstractSWRLTestCase;
+
+public class SQWRLQueryExecutorTestCase extends AbstractSWRLTestCase {
+
+    private OWLNamedClass personCls;
+
+    private OWLObjectProperty hasChildProperty;
+
+    private OWLDatatypeProperty ageProperty;
+
+    private SWRLVariable x;
+
+    private SWRLVariable y;
+
+    private SWRLVariable a;
+
+    private SQWRLQueryExecutor executor;
+
+
+    protected void setUp() throws Exception {
+        super.setUp();
+        personCls = owlModel.createOWLNamedClass("Person");
+        hasChildProperty = owlModel.createOWLObjectProperty("hasChild");
+        ageProperty = owlModel.createOWLDatatypeProperty("age", owlModel.getXSDint());
+        x = factory.createVariable("x");
+        y = factory.createVariable("y");
+        a = factory.createVariable("a");
+        executor = new SQWRLQueryExecutor(owlModel);
+        OWLIndividual[] persons = new OWLIndividual[5];
+        for (int i = 0; i < persons.length; i++) {
+            persons[i] = personCls.createOWLIndividual("p" + i);
+            persons[i].setPropertyValue(ageProperty, new Integer(10 * (i + 1)));
+        }
+        persons[0].addPropertyValue(hasChildProperty, persons[1]);
+        persons[0].addPropertyValue(hasChildProperty, persons[2]);
+        persons[1].addPropertyValue(hasChildProperty, persons[3]);
+    }
+
+
+    public void testSelect() throws Exception {
+        SWRLImp imp = createQuery(atoms(createSQWRLAtom("select", x, a)),
+                                  factory.createClassAtom(personCls, x),
+                                  factory.createDatavaluedPropertyAtom(ageProperty, x, a));
+        assertTrue(executor.isQuery(imp));
+        SQWRLQueryResults results = executor.execute(imp);
+        assertEquals(Arrays.asList(new String[]{"x", "a"}), results.getVariables());
+        int count = 0;
+        while (results.hasNext()) {
+            Map row = results.next();
+            RDFResource person = (RDFResource) row.get("x");
+            assertEquals(person.getPropertyValueInt(ageProperty, -1), ((RDFSLiteral) row.get("a")).getInt());
+            count++;
+        }
+        assertEquals(5, count);
+    }
+
+
+    public void testSelectWithBuiltin() throws Exception {
+        SWRLImp imp = createQuery(atoms(createSQWRLAtom("select", x)),
+                                  factory.createDatavaluedPropertyAtom(ageProperty, x, a),
+                                  createBuiltinAtom(SWRLNames.CoreBuiltIns.GREATER_THAN, a, literal(30)));
+        assertSize(2, getColumn(executor.execute(imp), "x"));
+    }
+
+
+    public void testLimit() throws Exception {
+        SWRLImp imp = createQuery(atoms(createSQWRLAtom("select", x), createSQWRLAtom("limit", literal(2))),
+                                  factory.createClassAtom(personCls, x));
+        assertSize(2, getColumn(executor.execute(imp), "x"));
+    }
+
+
+    public void testOrderByDescendingWithLimit() throws Exception {
+        SWRLImp imp = createQuery(atoms(createSQWRLAtom("select", x, a),
+                                        createSQWRLAtom("orderByDescending", a),
+                                        createSQWRLAtom("limit", literal(3))),
+                                  factory.createDatavaluedPropertyAtom(ageProperty, x, a));
+        List values = getColumn(executor.execute(imp), "a");
+        assertSize(3, values);
+        assertEquals(50, ((RDFSLiteral) values.get(0)).getInt());
+        assertEquals(40, ((RDFSLiteral) values.get(1)).getInt());
+        assertEquals(30, ((RDFSLiteral) values.get(2)).getInt());
+    }
+
+
+    public void testSelectDistinct() throws Exception {
+        SWRLImp imp = createQuery(atoms(createSQWRLAtom("selectDistinct", x)),
+                                  factory.createIndividualPropertyAtom(hasChildProperty, x, y));
+        assertSize(2, getColumn(executor.execute(imp), "x"));
+    }
+
+
+    public void testAggregatesPerGroup() throws Exception {
+        SWRLImp imp = createQuery(atoms(createSQWRLAtom("select", x),
+                                        createSQWRLAtom("count", y),
+                                        createSQWRLAtom("orderBy", x),
+                                        createSQWRLAtom("columnNames", literal("parent"), literal("children"))),
+                                  factory.createIndividualPropertyAtom(hasChildProperty, x, y));
+        SQWRLQueryResults results = executor.execute(imp);
+        assertEquals(Arrays.asList(new String[]{"parent", "children"}), results.getVariables());
+        Map row = results.next();
+        assertEquals("p0", ((RDFResource) row.get("parent")).getLocalName());
+        assertEquals(2, ((RDFSLiteral) row.get("children")).getInt());
+        row = results.next();
+        assertEquals("p1", ((RDFResource) row.get("parent")).getLocalName());
+        assertEquals(1, ((RDFSLiteral) row.get("children")).getInt());
+        assertFalse(results.hasNext());
+    }
+
+
+    public void testAggregatesWithoutGroups() throws Exception {
+        SWRLImp imp = createQuery(atoms(createSQWRLAtom("min", a),
+                                        createSQWRLAtom("max", a),
+                                        createSQWRLAtom("sum", a),
+                                        createSQWRLAtom("avg", a)),
+                                  factory.createDatavaluedPropertyAtom(ageProperty, x, a));
+        SQWRLQueryResults results = executor.execute(imp);
+        Map row = results.next();
+        assertFalse(results.hasNext());
+        assertEquals(10, ((RDFSLiteral) row.get("min(a)")).getInt());
+        assertEquals(50, ((RDFSLiteral) row.get("max(a)")).getInt());
+        assertEquals(150, ((RDFSLiteral) row.get("sum(a)")).getInt());
+        assertEquals(30.0, ((RDFSLiteral) row.get("avg(a)")).getDouble(), 0.0001);
+    }
+
+
+    public void testUnsupportedBuiltin() {
+        SWRLImp imp = createQuery(atoms(createSQWRLAtom("select", x), createSQWRLAtom("firstN", x)),
+                                  factory.createClassAtom(personCls, x));
+        try {
+            executor.execute(imp);
+            fail();
+        }
+        catch (SWRLRuleEngineException e) {
+            // expected
+        }
+    }
+
+
+    private SWRLImp createQuery(List<SWRLAtom> head, SWRLAtom... bodyAtoms) {
+        SWRLAtomList headList = factory.createAtomList(head);
+        SWRLAtomList bodyList = factory.createAtomList(Arrays.asList(bodyAtoms));
+        return factory.createImp(headList, bodyList);
+    }
+
+
+    private static List<SWRLAtom> atoms(SWRLAtom... atoms) {
+        return Arrays.asList(atoms);
+    }
+
+
+    private SWRLAtom createSQWRLAtom(String name, Object... arguments) {
+        return createBuiltinAtom(SQWRLNames.SQWRLNamespace + name, arguments);
+    }
+
+
+    private SWRLAtom createBuiltinAtom(String uri, Object... arguments) {
+        RDFResource resource = owlModel.getRDFResource(uri);
+        SWRLBuiltin builtin = resource instanceof SWRLBuiltin ? (SWRLBuiltin) resource : factory.createBuiltin(uri);
+        return factory.createBuiltinAtom(builtin, owlModel.createRDFList(Arrays.asList(arguments).iterator()));
+    }
+
+
+    private RDFSLiteral literal(int value) {
+        return owlModel.createRDFSLiteral(new Integer(value));
+    }
+
+
+    private RDFSLiteral literal(String value) {
+        return owlModel.createRDFSLiteral(value);
+    }
+
+
+    private static List getColumn(SQWRLQueryResults results, String column) {
+        List values = new ArrayList();
+        while (results.hasNext()) {
+            values.add(results.next().get(column));
+        }
+        return values;
+    }
+}
@@ -0,0 +1,229 @@
+package edu.stanford.smi.protegex.owl.swrl.engine.tests;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import edu.stanford.smi.protegex.owl.model.OWLDatatypeProperty;
+import edu.stanford.smi.protegex.owl.model.OWLIndividual;
+import edu.stanford.smi.protegex.owl.model.OWLNamedClass;
+import edu.stanford.smi.protegex.owl.model.OWLObjectProperty;
+import edu.stanford.smi.protegex.owl.model.RDFResource;
+import edu.stanford.smi.protegex.owl.model.RDFSLiteral;
+import edu.stanford.smi.protegex.owl.swrl.engine.SWRLRuleEngine;
+import edu.stanford.smi.protegex.owl.swrl.model.SWRLAtom;
+import edu.stanford.smi.protegex.owl.swrl.model.SWRLBuiltin;
+import edu.stanford.smi.protegex.owl.swrl.model.SWRLImp;
+import edu.stanford.smi.protegex.owl.swrl.model.SWRLNames;
+import edu.stanford.smi.protegex.owl.swrl.model.SWRLVariable;
+import edu.stanford.smi.protegex.owl.swrl.model.impl.tests.AbstractSWRLTestCase;
+
+public class SWRLRuleEngineTestCase extends AbstractSWRLTestCase {
+
+    private OWLNamedClass personCls;
+
+    private OWLNamedClass parentCls;
+
+    private OWLObjectProperty hasChildProperty;
+
+    private SWRLVariable x;
+
+    private SWRLVariable y;
+
+    private SWRLVariable z;
+
+    private SWRLRuleEngine engine;
+
+
+    protected void setUp() throws Exception {
+        super.setUp();
+        personCls = owlModel.createOWLNamedClass("Person");
+        parentCls = owlModel.createOWLNamedClass("Parent");
+        hasChildProperty = owlModel.createOWLObjectProperty("hasChild");
+        x = factory.createVariable("x");
+        y = factory.createVariable("y");
+        z = factory.createVariable("z");
+        engine = new SWRLRuleEngine(owlModel);
+    }
+
+
+    protected void tearDown() throws Exception {
+        engine.dispose();
+        super.tearDown();
+    }
+
+
+    public void testClassAndPropertyRule() {
+        createImp(factory.createClassAtom(parentCls, x),
+                  factory.createClassAtom(personCls, x),
+                  factory.createIndividualPropertyAtom(hasChildProperty, x, y));
+        OWLIndividual alice = personCls.createOWLIndividual("alice");
+        OWLIndividual bob = personCls.createOWLIndividual("bob");
+        alice.addPropertyValue(hasChildProperty, bob);
+
+        engine.loadRules();
+        engine.loadFacts();
+        assertEquals(1, engine.run());
+        assertTrue(alice.hasRDFType(parentCls));
+        assertFalse(bob.hasRDFType(parentCls));
+        assertTrue(engine.getInferredTripleStore().contains(alice, owlModel.getRDFTypeProperty(), parentCls));
+        assertEquals(0, engine.run());
+    }
+
+
+    public void testJoinOfPropertyAtoms() {
+        OWLObjectProperty hasGrandchildProperty = owlModel.createOWLObjectProperty("hasGrandchild");
+        createImp(factory.createIndividualPropertyAtom(hasGrandchildProperty, x, z),
+                  factory.createIndividualPropertyAtom(hasChildProperty, x, y),
+                  factory.createIndividualPropertyAtom(hasChildProperty, y, z));
+        OWLIndividual a = personCls.createOWLIndividual("a");
+        OWLIndividual b = personCls.createOWLIndividual("b");
+        OWLIndividual c = personCls.createOWLIndividual("c");
+        OWLIndividual d = personCls.createOWLIndividual("d");
+        a.addPropertyValue(hasChildProperty, b);
+        b.addPropertyValue(hasChildProperty, c);
+        b.addPropertyValue(hasChildProperty, d);
+
+        engine.loadRules();
+        engine.loadFacts();
+        assertEquals(2, engine.run());
+        assertSize(2, a.getPropertyValues(hasGrandchildProperty));
+        assertContains(c, a.getPropertyValues(hasGrandchildProperty));
+        assertContains(d, a.getPropertyValues(hasGrandchildProperty));
+        assertSize(0, b.getPropertyValues(hasGrandchildProperty));
+    }
+
+
+    public void testRulesAreChained() {
+        OWLNamedClass grandparentCls = owlModel.createOWLNamedClass("Grandparent");
+        createImp(factory.createClassAtom(parentCls, x),
+                  factory.createIndividualPropertyAtom(hasChildProperty, x, y));
+        createImp(factory.createClassAtom(grandparentCls, x),
+                  factory.createIndividualPropertyAtom(hasChildProperty, x, y),
+                  factory.createClassAtom(parentCls, y));
+        OWLIndividual a = personCls.createOWLIndividual("a");
+        OWLIndividual b = personCls.createOWLIndividual("b");
+        OWLIndividual c = personCls.createOWLIndividual("c");
+        a.addPropertyValue(hasChildProperty, b);
+        b.addPropertyValue(hasChildProperty, c);
+
+        engine.loadRules();
+        engine.loadFacts();
+        assertEquals(3, engine.run());
+        assertTrue(a.hasRDFType(grandparentCls));
+        assertFalse(b.hasRDFType(grandparentCls));
+    }
+
+
+    public void testBuiltins() {
+        OWLNamedClass adultCls = owlModel.createOWLNamedClass("Adult");
+        OWLDatatypeProperty ageProperty = owlModel.createOWLDatatypeProperty("age", owlModel.getXSDint());
+        OWLDatatypeProperty nextAgeProperty = owlModel.createOWLDatatypeProperty("nextAge", owlModel.getXSDint());
+        SWRLVariable a = factory.createVariable("a");
+        SWRLVariable b = factory.createVariable("b");
+        RDFSLiteral seventeen = owlModel.createRDFSLiteral("17", owlModel.getXSDint());
+        RDFSLiteral one = owlModel.createRDFSLiteral("1", owlModel.getXSDint());
+        createImp(factory.createClassAtom(adultCls, x),
+                  factory.createDatavaluedPropertyAtom(ageProperty, x, a),
+                  createBuiltinAtom(SWRLNames.CoreBuiltIns.GREATER_THAN, a, seventeen));
+        createImp(factory.createDatavaluedPropertyAtom(nextAgeProperty, x, b),
+                  factory.createDatavaluedPropertyAtom(ageProperty, x, a),
+                  createBuiltinAtom(SWRLNames.CoreBuiltIns.ADD, b, a, one));
+        OWLIndividual alice = personCls.createOWLIndividual("alice");
+        OWLIndividual bob = personCls.createOWLIndividual("bob");
+        alice.setPropertyValue(ageProperty, new Integer(20));
+        bob.setPropertyValue(ageProperty, new Integer(10));
+
+        engine.loadRules();
+        engine.loadFacts();
+        assertEquals(3, engine.run());
+        assertTrue(alice.hasRDFType(adultCls));
+        assertFalse(bob.hasRDFType(adultCls));
+        assertEquals(21, alice.getPropertyValueInt(nextAgeProperty, -1));
+        assertEquals(11, bob.getPropertyValueInt(nextAgeProperty, -1));
+    }
+
+
+    public void testIncrementalMatching() {
+        createImp(factory.createClassAtom(parentCls, x),
+                  factory.createClassAtom(personCls, x),
+                  factory.createIndividualPropertyAtom(hasChildProperty, x, y));
+        OWLIndividual alice = personCls.createOWLIndividual("alice");
+        OWLIndividual bob = personCls.createOWLIndividual("bob");
+
+        engine.loadRules();
+        engine.loadFacts();
+        engine.setListening(true);
+        assertEquals(0, engine.run());
+        assertFalse(alice.hasRDFType(parentCls));
+
+        alice.addPropertyValue(hasChildProperty, bob);
+        assertTrue(alice.hasRDFType(parentCls));
+        assertEquals(1, engine.getInferredFactCount());
+    }
+
+
+    public void testRuleAddedAfterFacts() {
+        OWLIndividual alice = personCls.createOWLIndividual("alice");
+        OWLIndividual bob = personCls.createOWLIndividual("bob");
+        alice.addPropertyValue(hasChildProperty, bob);
+        engine.loadFacts();
+
+        SWRLImp imp = createImp(factory.createClassAtom(parentCls, x),
+                                factory.createClassAtom(personCls, x),
+                                factory.createIndividualPropertyAtom(hasChildProperty, x, y));
+        engine.loadRules();
+        assertContains(imp, engine.getRules());
+        assertEquals(1, engine.run());
+        assertTrue(alice.hasRDFType(parentCls));
+    }
+
+
+    public void testRuleAddedAfterRunIsChained() {
+        OWLNamedClass grandparentCls = owlModel.createOWLNamedClass("Grandparent");
+        createImp(factory.createClassAtom(parentCls, x),
+                  factory.createIndividualPropertyAtom(hasChildProperty, x, y));
+        OWLIndividual a = personCls.createOWLIndividual("a");
+        OWLIndividual b = personCls.createOWLIndividual("b");
+        OWLIndividual c = personCls.createOWLIndividual("c");
+        a.addPropertyValue(hasChildProperty, b);
+        b.addPropertyValue(hasChildProperty, c);
+
+        engine.loadRules();
+        engine.loadFacts();
+        assertEquals(2, engine.run());
+        assertTrue(b.hasRDFType(parentCls));
+
+        createImp(factory.createClassAtom(grandparentCls, x),
+                  factory.createIndividualPropertyAtom(hasChildProperty, x, y),
+                  factory.createClassAtom(parentCls, y));
+        engine.loadRules();
+        assertEquals(1, engine.run());
+        assertTrue(a.hasRDFType(grandparentCls));
+        assertFalse(b.hasRDFType(grandparentCls));
+    }
+
+
+    public void testUnsupportedRule() {
+        SWRLVariable s = factory.createVariable("s");
+        SWRLImp imp = createImp(factory.createClassAtom(parentCls, x),
+                                factory.createClassAtom(personCls, x),
+                                createBuiltinAtom(SWRLNames.CoreBuiltIns.TOKENIZE, s, x));
+        engine.loadRules();
+        assertSize(0, engine.getRules());
+        assertTrue(engine.getUnsupportedRules().containsKey(imp));
+    }
+
+
+    private SWRLImp createImp(SWRLAtom headAtom, SWRLAtom... bodyAtoms) {
+        List<SWRLAtom> body = new ArrayList<SWRLAtom>(Arrays.asList(bodyAtoms));
+        return factory.createImp(headAtom, body);
+    }
+
+
+    private SWRLAtom createBuiltinAtom(String uri, Object... arguments) {
+        RDFResource resource = owlModel.getRDFResource(uri);
+        SWRLBuiltin builtin = resource instanceof SWRLBuiltin ? (SWRLBuiltin) resource : factory.createBuiltin(uri);
+        return factory.createBuiltinAtom(builtin, owlModel.createRDFList(Arrays.asList(arguments).iterator()));
+    }
+}
@@ -0,0 +1,93 @@
+package edu.stanford.smi.protegex.owl.swrl.model.impl.tests;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import edu.stanford.smi.protegex.owl.model.OWLNamedClass;
+import edu.stanford.smi.protegex.owl.swrl.model.SWRLAtom;
+import edu.stanford.smi.protegex.owl.swrl.model.SWRLClassAtom;
+import edu.stanford.smi.protegex.owl.swrl.model.SWRLImp;
+import edu.stanford.smi.protegex.owl.swrl.model.SWRLNames;
+import edu.stanford.smi.protegex.owl.swrl.model.SWRLVariable;
+
+public class SWRLImpIndexTestCase extends AbstractSWRLTestCase {
+
+    private OWLNamedClass aCls;
+
+    private OWLNamedClass bCls;
+
+    private SWRLVariable x;
+
+
+    protected void setUp() throws Exception {
+        super.setUp();
+        aCls = owlModel.createOWLNamedClass("A");
+        bCls = owlModel.createOWLNamedClass("B");
+        x = factory.createVariable("x");
+    }
+
+
+    public void testReferencedImpsFollowAtomChanges() {
+        SWRLClassAtom headAtom = factory.createClassAtom(aCls, x);
+        SWRLImp imp = createImp(headAtom, factory.createClassAtom(bCls, x));
+        assertContains(imp, factory.getReferencedImps(aCls));
+        assertContains(imp, factory.getReferencedImps(bCls));
+        assertContains(imp, factory.getReferencedImps(x));
+
+        OWLNamedClass cCls = owlModel.createOWLNamedClass("C");
+        headAtom.setClassPredicate(cCls);
+        assertSize(0, factory.getReferencedImps(aCls));
+        assertContains(imp, factory.getReferencedImps(cCls));
+    }
+
+
+    public void testCreatedAndDeletedImps() {
+        int count = factory.getImps().size();
+        SWRLImp imp = factory.createImp();
+        assertSize(count + 1, factory.getImps());
+        assertContains(imp, factory.getImps());
+
+        SWRLImp other = createImp(factory.createClassAtom(aCls, x), factory.createClassAtom(bCls, x));
+        assertContains(other, factory.getReferencedImps(aCls));
+        other.deleteImp();
+        assertSize(count + 1, factory.getImps());
+        assertSize(0, factory.getReferencedImps(aCls));
+    }
+
+
+    public void testEnabledImpsAndRuleGroups() {
+        if (owlModel.getOWLDatatypeProperty(SWRLNames.Annotations.IS_RULE_ENABLED) == null) {
+            owlModel.createOWLDatatypeProperty(SWRLNames.Annotations.IS_RULE_ENABLED, owlModel.getXSDboolean());
+        }
+        if (owlModel.getOWLNamedClass(SWRLNames.Annotations.RULE_GROUP) == null) {
+            owlModel.createOWLNamedClass(SWRLNames.Annotations.RULE_GROUP);
+            owlModel.createOWLObjectProperty(SWRLNames.Annotations.HAS_RULE_GROUP);
+            owlModel.createOWLDatatypeProperty(SWRLNames.Annotations.IS_RULE_GROUP_ENABLED, owlModel.getXSDboolean());
+        }
+        SWRLImp imp1 = createImp(factory.createClassAtom(aCls, x), factory.createClassAtom(bCls, x));
+        SWRLImp imp2 = createImp(factory.createClassAtom(bCls, x), factory.createClassAtom(aCls, x));
+        assertContains(imp1, factory.getEnabledImps());
+        assertContains(imp2, factory.getEnabledImps());
+
+        imp1.disable();
+        assertFalse(factory.getEnabledImps().contains(imp1));
+        assertContains(imp2, factory.getEnabledImps());
+
+        assertTrue(imp2.addRuleGroup("group"));
+        assertSize(1, factory.getEnabledImps("group"));
+        assertContains(imp2, factory.getEnabledImps("group"));
+        imp1.enable();
+        assertTrue(imp1.addRuleGroup("group"));
+        assertSize(2, factory.getEnabledImps("group"));
+        imp2.removeRuleGroup("group");
+        assertSize(1, factory.getEnabledImps("group"));
+        assertContains(imp1, factory.getEnabledImps("group"));
+    }
+
+
+    private SWRLImp createImp(SWRLAtom headAtom, SWRLAtom bodyAtom) {
+        List<SWRLAtom> body = new ArrayList<SWRLAtom>(Collections.singleton(bodyAtom));
+        return factory.createImp(headAtom, body);
+    }
+}
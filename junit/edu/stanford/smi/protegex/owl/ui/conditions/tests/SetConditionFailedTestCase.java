@@ -273,7 +273,7 @@ public class SetConditionFailedTestCase extends AbstractConditionsTableTestCase
         assertEquals(2, personCls.getSuperclassCount());
         assertEquals(1, personCls.getEquivalentClasses().size());
         assertTrue(personCls.getDefinition() instanceof OWLIntersectionClass);
-        OWLIntersectionClass newDefinition = (OWLIntersectionClass) personCls.getDefinition();
+        OWLIntersectionClass newDefinition = (OWLIntersectionClass) personCls.getDefinition();
         final List newOperands = new ArrayList(newDefinition.getOperands());
         assertTrue(newOperands.get(0) instanceof OWLComplementClass);
         assertTrue(newOperands.get(1) instanceof OWLComplementClass);
@@ -342,6 +342,43 @@ public class SetConditionFailedTestCase extends AbstractConditionsTableTestCase
     }
 
 
+    /**
+     * <sufficient>
+     * <necessary>
+     * owl:Thing
+     * Animal & (children some Tier)
+     * !Tier     -> set to "(children some Tier) and Animal"
+     * --------------------------------------
+     * The existing intersection is kept, no duplicate is added
+     */
+    public void testSetEqualToOtherSuperclass() throws Exception {
+        OWLObjectProperty property = owlModel.createOWLObjectProperty("children");
+        OWLNamedClass animalCls = owlModel.createOWLNamedClass("Animal");
+        OWLNamedClass tierCls = owlModel.createOWLNamedClass("Tier");
+        OWLNamedClass cls = owlModel.createOWLNamedClass("Person");
+        OWLIntersectionClass intersectionCls = owlModel.createOWLIntersectionClass();
+        intersectionCls.addOperand(animalCls);
+        intersectionCls.addOperand(owlModel.createOWLSomeValuesFrom(property, tierCls));
+        cls.addSuperclass(intersectionCls);
+        OWLComplementClass complementCls = owlModel.createOWLComplementClass(tierCls);
+        cls.addSuperclass(complementCls);
+        ConditionsTableModel tableModel = getTableModel(cls);
+        int row = -1;
+        for (int i = 0; i < tableModel.getRowCount(); i++) {
+            if (complementCls.equals(tableModel.getClass(i))) {
+                row = i;
+            }
+        }
+        assertTrue(row >= 0);
+        int oldClsCount = owlModel.getClsCount();
+        tableModel.setValueAt(row, owlModel, "(children some Tier) and Animal");
+        assertTrue(owlModel.getClsCount() <= oldClsCount);
+        assertEquals(2, cls.getSuperclassCount());
+        assertTrue(cls.getSuperclasses(false).contains(intersectionCls));
+        assertTrue(cls.isSubclassOf(owlThing));
+    }
+
+
     public void testSetToItself() throws Exception {
         OWLNamedClass cls = owlModel.createOWLNamedClass("Class");
         ConditionsTableModel tableModel = getTableModel(cls);
@@ -0,0 +1,207 @@
+package edu.stanford.smi.protegex.owl.writer.rdfxml.rdfwriter.tests;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collection;
+
+import edu.stanford.smi.protege.util.ApplicationProperties;
+import edu.stanford.smi.protege.util.MessageError;
+import edu.stanford.smi.protegex.owl.ProtegeOWL;
+import edu.stanford.smi.protegex.owl.model.OWLModel;
+import edu.stanford.smi.protegex.owl.model.OWLNamedClass;
+import edu.stanford.smi.protegex.owl.tests.AbstractJenaTestCase;
+import edu.stanford.smi.protegex.owl.writer.rdfxml.rdfwriter.OWLModelAllTripleStoresWriter;
+
+public class OWLModelAllTripleStoresWriterTestCase extends AbstractJenaTestCase {
+
+    public void testParallelWrite() throws Exception {
+        owlModel.createOWLNamedClass("Class");
+        File file = File.createTempFile("parallel", ".owl");
+        try {
+            OWLModelAllTripleStoresWriter writer = new OWLModelAllTripleStoresWriter(owlModel, file.toURI(), false);
+            writer.setParallel(true);
+            Collection errors = new ArrayList();
+            writer.write(errors);
+            assertSize(0, errors);
+
+            OWLModel model = ProtegeOWL.createJenaOWLModelFromURI(file.toURI().toString());
+            assertNotNull(model.getOWLNamedClass("Class"));
+            File[] tmpFiles = file.getParentFile().listFiles();
+            for (File tmpFile : tmpFiles) {
+                assertFalse(tmpFile.getName().startsWith("." + file.getName() + "-"));
+            }
+        }
+        finally {
+            file.delete();
+        }
+    }
+
+
+    public void testErrorsAreCollected() throws Exception {
+        File dir = File.createTempFile("missing", "");
+        dir.delete();
+        File file = new File(dir, "missing.owl");
+        OWLModelAllTripleStoresWriter writer = new OWLModelAllTripleStoresWriter(owlModel, file.toURI(), false);
+        writer.setParallel(true);
+        Collection errors = new ArrayList();
+        writer.write(errors);
+        assertSize(1, errors);
+        assertFalse(file.exists());
+    }
+
+
+    /**
+     * Saves a model with three imports in parallel.  The file name of the last
+     * import is so long that no temporary file can be created next to it, so
+     * that its save fails even for users who may write anywhere.
+     */
+    public void testParallelWriteOfImports() throws Exception {
+        File dir = File.createTempFile("parallelImports", "");
+        dir.delete();
+        dir.mkdir();
+        StringBuffer longName = new StringBuffer("failing");
+        while (longName.length() < 240) {
+            longName.append("-long");
+        }
+        File mainFile = new File(dir, "main.owl");
+        File[] importedFiles = {
+                new File(dir, "first.owl"),
+                new File(dir, "second.owl"),
+                new File(dir, longName + ".owl")
+        };
+        File failingFile = importedFiles[2];
+        String mainURI = mainFile.toURI().toString();
+        ApplicationProperties.setString(OWLModelAllTripleStoresWriter.SAVE_UNMODIFIED_IMPORTS_PROPERTY, "true");
+        try {
+            StringBuffer imports = new StringBuffer();
+            for (int i = 0; i < importedFiles.length; i++) {
+                String importedURI = importedFiles[i].toURI().toString();
+                writeDocument(importedFiles[i], importedURI, null, "<owl:Class rdf:ID=\"Imported" + i + "\"/>");
+                imports.append("    <owl:imports rdf:resource=\"" + importedURI + "\"/>\n");
+            }
+            Writer writer = new OutputStreamWriter(new FileOutputStream(mainFile), "UTF-8");
+            try {
+                writer.write("<?xml version=\"1.0\"?>\n" +
+                             "<rdf:RDF xmlns:rdf=\"http://www.w3.org/1999/02/22-rdf-syntax-ns#\"\n" +
+                             "    xmlns:owl=\"http://www.w3.org/2002/07/owl#\"\n" +
+                             "    xml:base=\"" + mainURI + "\">\n" +
+                             "  <owl:Ontology rdf:about=\"\">\n" + imports +
+                             "  </owl:Ontology>\n" +
+                             "  <owl:Class rdf:ID=\"A\"/>\n" +
+                             "</rdf:RDF>\n");
+            }
+            finally {
+                writer.close();
+            }
+            loadTestOntology(mainFile.toURI());
+            for (int i = 0; i < importedFiles.length; i++) {
+                assertNotNull(owlModel.getTripleStoreModel().getTripleStore(importedFiles[i].toURI().toString()));
+            }
+            mainFile.setLastModified(0);
+            for (File importedFile : importedFiles) {
+                importedFile.setLastModified(0);
+            }
+
+            OWLModelAllTripleStoresWriter allWriter = new OWLModelAllTripleStoresWriter(owlModel, mainFile.toURI(), false);
+            allWriter.setParallel(true);
+            Collection errors = new ArrayList();
+            allWriter.write(errors);
+
+            assertSize(1, errors);
+            Object error = errors.iterator().next();
+            assertTrue(error instanceof MessageError);
+            assertTrue(((MessageError) error).getMessage().indexOf(failingFile.getName()) >= 0);
+            assertTrue(mainFile.lastModified() > 0);
+            assertTrue(read(mainFile).indexOf("#A") >= 0);
+            for (int i = 0; i < importedFiles.length; i++) {
+                if (importedFiles[i] != failingFile) {
+                    assertTrue(importedFiles[i].lastModified() > 0);
+                    assertTrue(read(importedFiles[i]).indexOf("Imported" + i) >= 0);
+                }
+            }
+            assertEquals(0, failingFile.lastModified());
+            assertEquals(1 + importedFiles.length, dir.listFiles().length);
+        }
+        finally {
+            ApplicationProperties.setString(OWLModelAllTripleStoresWriter.SAVE_UNMODIFIED_IMPORTS_PROPERTY, "false");
+            for (File file : dir.listFiles()) {
+                file.delete();
+            }
+            dir.delete();
+        }
+    }
+
+
+    public void testDeletionSavesImportingTripleStores() throws Exception {
+        File dir = File.createTempFile("imports", "");
+        dir.delete();
+        dir.mkdir();
+        File mainFile = new File(dir, "main.owl");
+        File importedFile = new File(dir, "imported.owl");
+        String mainURI = mainFile.toURI().toString();
+        String importedURI = importedFile.toURI().toString();
+        try {
+            writeDocument(mainFile, mainURI, importedURI, "<owl:Class rdf:ID=\"A\"/>");
+            writeDocument(importedFile, importedURI, null,
+                          "<owl:Class rdf:ID=\"B\">\n" +
+                          "    <rdfs:subClassOf rdf:resource=\"" + mainURI + "#A\"/>\n" +
+                          "  </owl:Class>");
+            loadTestOntology(mainFile.toURI());
+            OWLNamedClass a = owlModel.getOWLNamedClass(mainURI + "#A");
+            assertNotNull(a);
+            a.delete();
+
+            OWLModelAllTripleStoresWriter writer = new OWLModelAllTripleStoresWriter(owlModel, mainFile.toURI(), false);
+            Collection errors = new ArrayList();
+            writer.write(errors);
+            assertSize(0, errors);
+            assertTrue(read(importedFile).indexOf(mainURI + "#A") < 0);
+        }
+        finally {
+            mainFile.delete();
+            importedFile.delete();
+            dir.delete();
+        }
+    }
+
+
+    private static void writeDocument(File file, String base, String imported, String body) throws Exception {
+        Writer writer = new OutputStreamWriter(new FileOutputStream(file), "UTF-8");
+        try {
+            writer.write("<?xml version=\"1.0\"?>\n" +
+                         "<rdf:RDF xmlns:rdf=\"http://www.w3.org/1999/02/22-rdf-syntax-ns#\"\n" +
+                         "    xmlns:rdfs=\"http://www.w3.org/2000/01/rdf-schema#\"\n" +
+                         "    xmlns:owl=\"http://www.w3.org/2002/07/owl#\"\n" +
+                         "    xml:base=\"" + base + "\">\n" +
+                         "  <owl:Ontology rdf:about=\"\">\n");
+            if (imported != null) {
+                writer.write("    <owl:imports rdf:resource=\"" + imported + "\"/>\n");
+            }
+            writer.write("  </owl:Ontology>\n  " + body + "\n</rdf:RDF>\n");
+        }
+        finally {
+            writer.close();
+        }
+    }
+
+
+    private static String read(File file) throws Exception {
+        InputStream is = new FileInputStream(file);
+        try {
+            byte[] bytes = new byte[(int) file.length()];
+            int offset = 0;
+            while (offset < bytes.length) {
+                offset += is.read(bytes, offset, bytes.length - offset);
+            }
+            return new String(bytes, "UTF-8");
+        }
+        finally {
+            is.close();
+        }
+    }
+}
@@ -0,0 +1,59 @@
+package edu.stanford.smi.protegex.owl.writer.triples.tests;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import com.hp.hpl.jena.rdf.model.Model;
+import com.hp.hpl.jena.rdf.model.ModelFactory;
+import com.hp.hpl.jena.vocabulary.RDFS;
+
+import edu.stanford.smi.protegex.owl.model.OWLNamedClass;
+import edu.stanford.smi.protegex.owl.model.OWLObjectProperty;
+import edu.stanford.smi.protegex.owl.model.triplestore.TripleStore;
+import edu.stanford.smi.protegex.owl.tests.AbstractJenaTestCase;
+import edu.stanford.smi.protegex.owl.writer.triples.NTriplesWriter;
+import edu.stanford.smi.protegex.owl.writer.triples.TurtleWriter;
+
+public class TriplesWriterTestCase extends AbstractJenaTestCase {
+
+    private static final String COMMENT = "A \"quoted\"\ncomment \u00e9";
+
+
+    private void createTestOntology() {
+        OWLNamedClass cls = owlModel.createOWLNamedClass("Class");
+        OWLObjectProperty property = owlModel.createOWLObjectProperty("property");
+        cls.addSuperclass(owlModel.createOWLSomeValuesFrom(property, cls));
+        cls.addPropertyValue(owlModel.getRDFSCommentProperty(), owlModel.createRDFSLiteral(COMMENT, "en"));
+    }
+
+
+    private Model writeNTriples() throws Exception {
+        StringWriter writer = new StringWriter();
+        TripleStore tripleStore = owlModel.getTripleStoreModel().getActiveTripleStore();
+        new NTriplesWriter(owlModel, tripleStore, writer).write();
+        Model model = ModelFactory.createDefaultModel();
+        model.read(new StringReader(writer.toString()), null, "N-TRIPLE");
+        return model;
+    }
+
+
+    public void testNTriples() throws Exception {
+        createTestOntology();
+        Model model = writeNTriples();
+        String uri = owlModel.getOWLNamedClass("Class").getURI();
+        assertTrue(model.contains(model.getResource(uri), RDFS.comment, model.createLiteral(COMMENT, "en")));
+        assertTrue(model.contains(model.getResource(uri), RDFS.subClassOf));
+        assertTrue(model.getResource(uri).getProperty(RDFS.subClassOf).getResource().isAnon());
+    }
+
+
+    public void testTurtleIsSameAsNTriples() throws Exception {
+        createTestOntology();
+        StringWriter writer = new StringWriter();
+        TripleStore tripleStore = owlModel.getTripleStoreModel().getActiveTripleStore();
+        new TurtleWriter(owlModel, tripleStore, writer).write();
+        Model model = ModelFactory.createDefaultModel();
+        model.read(new StringReader(writer.toString()), "http://www.example.org/", "TURTLE");
+        assertTrue(model.isIsomorphicWith(writeNTriples()));
+    }
+}
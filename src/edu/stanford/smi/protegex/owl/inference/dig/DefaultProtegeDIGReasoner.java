@@ -34,6 +34,7 @@ import edu.stanford.smi.protegex.owl.inference.protegeowl.task.digreasoner.GetIn
 import edu.stanford.smi.protegex.owl.inference.protegeowl.task.digreasoner.GetSubConceptsTask;
 import edu.stanford.smi.protegex.owl.inference.protegeowl.task.digreasoner.GetSubsumptionRelationshipTask;
 import edu.stanford.smi.protegex.owl.inference.protegeowl.task.digreasoner.GetSuperConceptsTask;
+import edu.stanford.smi.protegex.owl.inference.protegeowl.task.digreasoner.IncrementalSynchronizeReasonerTask;
 import edu.stanford.smi.protegex.owl.inference.protegeowl.task.digreasoner.IsConceptIntersectionSatisfiableTask;
 import edu.stanford.smi.protegex.owl.inference.protegeowl.task.digreasoner.IsDisjointToTask;
 import edu.stanford.smi.protegex.owl.inference.protegeowl.task.digreasoner.IsSubsumedByTask;
@@ -44,6 +45,7 @@ import edu.stanford.smi.protegex.owl.inference.protegeowl.task.digreasoner.Updat
 import edu.stanford.smi.protegex.owl.inference.protegeowl.task.digreasoner.UpdateInferredTypesTask;
 import edu.stanford.smi.protegex.owl.inference.reasoner.AbstractProtegeReasoner;
 import edu.stanford.smi.protegex.owl.inference.reasoner.ProtegeReasoner;
+import edu.stanford.smi.protegex.owl.inference.reasoner.ReasonerChangeJournal;
 import edu.stanford.smi.protegex.owl.inference.reasoner.exception.ProtegeReasonerException;
 import edu.stanford.smi.protegex.owl.inference.util.ReasonerPreferences;
 import edu.stanford.smi.protegex.owl.inference.util.TimeDifference;
@@ -143,25 +145,54 @@ public class DefaultProtegeDIGReasoner extends AbstractProtegeReasoner implement
         // Render the ontology into DIG and send it to the external
         // dig reasoner
         if (synchronizeReasoner == true || kbURI == null) {
-            SynchronizeReasonerTask synchronizeReasonerTask = new SynchronizeReasonerTask(this);
-            if (taskListener != null) {
-                synchronizeReasonerTask.addTaskListener(taskListener);
-            }
+            if (kbURI == null || changeJournal.isFullSynchronizationRequired() ||
+                    !synchronizeReasonerIncrementally(changeJournal, taskListener)) {
+                SynchronizeReasonerTask synchronizeReasonerTask = new SynchronizeReasonerTask(this);
+                if (taskListener != null) {
+                    synchronizeReasonerTask.addTaskListener(taskListener);
+                }
 
-            if (kbURI == null) {
-                kbURI = reasoner.createKnowledgeBase();
-            }
+                if (kbURI == null) {
+                    kbURI = reasoner.createKnowledgeBase();
+                }
 
-            synchronizeReasonerTask.run();
+                synchronizeReasonerTask.run();
 
-            if (taskListener != null) {
-                synchronizeReasonerTask.removeTaskListener(taskListener);
+                if (taskListener != null) {
+                    synchronizeReasonerTask.removeTaskListener(taskListener);
+                }
             }
 
+            changeJournal.clear();
             synchronizeReasoner = false;
         }
     }
 
+
+    /**
+     * Tells the reasoner the axioms of the resources that have been created
+     * or extended since the last synchronization.
+     */
+    @Override
+    protected boolean synchronizeReasonerIncrementally(ReasonerChangeJournal journal,
+                                                       ReasonerTaskListener taskListener) throws DIGReasonerException {
+        if (journal.isEmpty()) {
+            return true;
+        }
+        IncrementalSynchronizeReasonerTask synchronizeReasonerTask =
+                new IncrementalSynchronizeReasonerTask(this, journal.getCreatedResources(), journal.getChangedResources());
+        if (taskListener != null) {
+            synchronizeReasonerTask.addTaskListener(taskListener);
+        }
+
+        synchronizeReasonerTask.run();
+
+        if (taskListener != null) {
+            synchronizeReasonerTask.removeTaskListener(taskListener);
+        }
+        return true;
+    }
+
     public DIGReasonerIdentity getIdentity() {
         DIGReasonerIdentity id = null;
 
@@ -0,0 +1,306 @@
+package edu.stanford.smi.protegex.owl.inference.dig.reasoner;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+import javax.xml.parsers.ParserConfigurationException;
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import javax.xml.transform.OutputKeys;
+import javax.xml.transform.Transformer;
+import javax.xml.transform.TransformerConfigurationException;
+import javax.xml.transform.TransformerException;
+import javax.xml.transform.TransformerFactory;
+import javax.xml.transform.dom.DOMSource;
+import javax.xml.transform.stream.StreamResult;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+
+import edu.stanford.smi.protege.util.ApplicationProperties;
+import edu.stanford.smi.protegex.owl.inference.dig.exception.DIGReasonerException;
+
+/**
+ * Sends DIG request documents to an external reasoner over HTTP and reads
+ * back the response documents.
+ * <p/>
+ * Requests are serialized straight into the connection's output stream with
+ * chunked transfer encoding, so they are never buffered.  If the reasoner
+ * rejects a chunked request (HTTP/1.0 servers answer 411 or 505), the request
+ * is sent again with a Content-Length header, and all later requests of the
+ * transport are buffered.  Responses are read with a StAX pull parser straight
+ * from the connection into a (non namespace aware) DOM, because the rest of
+ * the DIG code works on response documents.  Connections are never
+ * explicitly disconnected and responses are always read to the end, so that
+ * the JDK keeps the underlying sockets alive and reuses them for subsequent
+ * requests.  The number of idle connections kept per reasoner is controlled
+ * by the standard <code>http.maxConnections</code> system property.
+ * <p/>
+ * The XML tools are not thread safe, so each thread gets its own instances;
+ * a single transport can therefore be used from several threads at once.
+ */
+public class DIGHttpTransport {
+
+    /**
+     * If true (the default), requests are sent with chunked transfer encoding,
+     * so that they do not need to be buffered at all.  If false, requests are
+     * serialized into a buffer first and sent with a Content-Length header,
+     * which some DIG servers that only speak HTTP/1.0 require.
+     */
+    public static final String CHUNKED_REQUESTS_PROPERTY = "edu.stanford.smi.protegex.owl.inference.dig.reasoner.chunked_requests";
+
+    private static final String CONTENT_TYPE = "text/xml; charset=UTF-8";
+
+    private static final int BUFFER_SIZE = 8192;
+
+    private static final TransformerFactory transformerFactory = TransformerFactory.newInstance();
+
+    private static final DocumentBuilderFactory docBuilderFactory = DocumentBuilderFactory.newInstance();
+
+    private static final XMLInputFactory inputFactory = XMLInputFactory.newInstance();
+
+    static {
+        inputFactory.setProperty(XMLInputFactory.IS_COALESCING, Boolean.TRUE);
+        inputFactory.setProperty(XMLInputFactory.IS_NAMESPACE_AWARE, Boolean.TRUE);
+        inputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, Boolean.FALSE);
+    }
+
+    private ThreadLocal<Transformer> transformers = new ThreadLocal<Transformer>() {
+        protected Transformer initialValue() {
+            try {
+                Transformer transformer;
+                synchronized (transformerFactory) {
+                    transformer = transformerFactory.newTransformer();
+                }
+                transformer.setOutputProperty(OutputKeys.ENCODING, "UTF-8");
+                transformer.setOutputProperty(OutputKeys.INDENT, "no");
+                return transformer;
+            }
+            catch (TransformerConfigurationException e) {
+                throw new RuntimeException(e);
+            }
+        }
+    };
+
+    private ThreadLocal<DocumentBuilder> docBuilders = new ThreadLocal<DocumentBuilder>() {
+        protected DocumentBuilder initialValue() {
+            try {
+                synchronized (docBuilderFactory) {
+                    return docBuilderFactory.newDocumentBuilder();
+                }
+            }
+            catch (ParserConfigurationException e) {
+                throw new RuntimeException(e);
+            }
+        }
+    };
+
+    private volatile boolean chunkedRequests;
+
+
+    public DIGHttpTransport() {
+        chunkedRequests = ApplicationProperties.getBooleanProperty(CHUNKED_REQUESTS_PROPERTY, true);
+    }
+
+
+    public boolean isChunkedRequests() {
+        return chunkedRequests;
+    }
+
+
+    public void setChunkedRequests(boolean chunkedRequests) {
+        this.chunkedRequests = chunkedRequests;
+    }
+
+
+    /**
+     * Posts a request document to the reasoner at the specified URL.
+     *
+     * @param reasonerURL The URL of the DIG reasoner
+     * @param request     The DIG request document
+     * @return The response document
+     */
+    public Document performRequest(URL reasonerURL, Document request) throws DIGReasonerException {
+        HttpURLConnection conn = null;
+        try {
+            boolean chunked = chunkedRequests;
+            conn = openConnection(reasonerURL);
+            try {
+                return post(conn, request, chunked);
+            }
+            catch (IOException e) {
+                if (!chunked || !isChunkingRejected(conn)) {
+                    throw e;
+                }
+                // The reasoner needs a Content-Length: buffer the requests from now on
+                discardErrorStream(conn);
+                chunkedRequests = false;
+                conn = openConnection(reasonerURL);
+                return post(conn, request, false);
+            }
+        }
+        catch (IOException e) {
+            discardErrorStream(conn);
+            throw new DIGReasonerException(e.getMessage(), e);
+        }
+        catch (XMLStreamException e) {
+            throw new DIGReasonerException(e.getMessage(), e);
+        }
+        catch (TransformerException e) {
+            throw new DIGReasonerException(e.getMessage(), e);
+        }
+    }
+
+
+    private static HttpURLConnection openConnection(URL reasonerURL) throws IOException {
+        HttpURLConnection conn = (HttpURLConnection) reasonerURL.openConnection();
+        conn.setRequestProperty("Content-Type", CONTENT_TYPE);
+        conn.setRequestMethod("POST");
+        conn.setDoInput(true);
+        conn.setDoOutput(true);
+        conn.setUseCaches(false);
+        return conn;
+    }
+
+
+    private Document post(HttpURLConnection conn, Document request, boolean chunked)
+            throws IOException, TransformerException, XMLStreamException {
+        if (chunked) {
+            conn.setChunkedStreamingMode(BUFFER_SIZE);
+            OutputStream os = conn.getOutputStream();
+            try {
+                serialize(request, os);
+            }
+            finally {
+                os.close();
+            }
+        }
+        else {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream(BUFFER_SIZE);
+            serialize(request, buffer);
+            conn.setFixedLengthStreamingMode(buffer.size());
+            OutputStream os = conn.getOutputStream();
+            try {
+                buffer.writeTo(os);
+            }
+            finally {
+                os.close();
+            }
+        }
+
+        InputStream is = conn.getInputStream();
+        try {
+            return parse(is);
+        }
+        finally {
+            drain(is);
+        }
+    }
+
+
+    private static boolean isChunkingRejected(HttpURLConnection conn) {
+        try {
+            int responseCode = conn.getResponseCode();
+            return responseCode == HttpURLConnection.HTTP_LENGTH_REQUIRED ||
+                   responseCode == HttpURLConnection.HTTP_VERSION;
+        }
+        catch (IOException e) {
+            return false;
+        }
+    }
+
+
+    private void serialize(Document request, OutputStream os) throws TransformerException {
+        transformers.get().transform(new DOMSource(request), new StreamResult(os));
+    }
+
+
+    /**
+     * Reads a response into a DOM that looks like the one a non namespace
+     * aware DocumentBuilder would have produced: qualified element and
+     * attribute names, and namespace declarations as plain attributes.
+     */
+    private Document parse(InputStream is) throws XMLStreamException {
+        Document doc = docBuilders.get().newDocument();
+        XMLStreamReader reader = inputFactory.createXMLStreamReader(is);
+        try {
+            Node current = doc;
+            while (reader.hasNext()) {
+                switch (reader.next()) {
+                    case XMLStreamConstants.START_ELEMENT:
+                        Element element = doc.createElement(getQualifiedName(reader.getPrefix(), reader.getLocalName()));
+                        for (int i = 0; i < reader.getNamespaceCount(); i++) {
+                            String prefix = reader.getNamespacePrefix(i);
+                            element.setAttribute(prefix == null || prefix.length() == 0 ? "xmlns" : "xmlns:" + prefix,
+                                    reader.getNamespaceURI(i));
+                        }
+                        for (int i = 0; i < reader.getAttributeCount(); i++) {
+                            element.setAttribute(getQualifiedName(reader.getAttributePrefix(i), reader.getAttributeLocalName(i)),
+                                    reader.getAttributeValue(i));
+                        }
+                        current.appendChild(element);
+                        current = element;
+                        break;
+                    case XMLStreamConstants.END_ELEMENT:
+                        current = current.getParentNode();
+                        break;
+                    case XMLStreamConstants.CHARACTERS:
+                    case XMLStreamConstants.CDATA:
+                        if (current != doc) {
+                            current.appendChild(doc.createTextNode(reader.getText()));
+                        }
+                        break;
+                }
+            }
+        }
+        finally {
+            reader.close();
+        }
+        return doc;
+    }
+
+
+    private static String getQualifiedName(String prefix, String localName) {
+        if (prefix == null || prefix.length() == 0) {
+            return localName;
+        }
+        return prefix + ":" + localName;
+    }
+
+
+    /**
+     * Reads and closes whatever is left of a response stream, which is
+     * required for the connection to be returned to the keep-alive cache.
+     */
+    private static void drain(InputStream is) {
+        try {
+            byte[] buffer = new byte[BUFFER_SIZE];
+            while (is.read(buffer) >= 0) {
+                // Discard
+            }
+            is.close();
+        }
+        catch (IOException e) {
+            // The connection will not be reused
+        }
+    }
+
+
+    private static void discardErrorStream(HttpURLConnection conn) {
+        if (conn != null) {
+            InputStream es = conn.getErrorStream();
+            if (es != null) {
+                drain(es);
+            }
+        }
+    }
+}
@@ -1,29 +1,18 @@
 package edu.stanford.smi.protegex.owl.inference.dig.reasoner;
 
 import java.io.IOException;
-import java.io.InputStreamReader;
-import java.io.OutputStream;
-import java.io.OutputStreamWriter;
-import java.io.Reader;
 import java.io.StringWriter;
-import java.net.HttpURLConnection;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.logging.Level;
 
-import javax.xml.parsers.DocumentBuilder;
-import javax.xml.parsers.DocumentBuilderFactory;
-import javax.xml.parsers.ParserConfigurationException;
-
 import org.apache.xml.serialize.OutputFormat;
 import org.apache.xml.serialize.XMLSerializer;
 import org.w3c.dom.Document;
 import org.w3c.dom.Element;
 import org.w3c.dom.NodeList;
-import org.xml.sax.InputSource;
-import org.xml.sax.SAXException;
 
 import edu.stanford.smi.protege.util.ApplicationProperties;
 import edu.stanford.smi.protege.util.Log;
@@ -48,15 +37,9 @@ public class DefaultDIGReasoner implements DIGReasoner {
   public static final String DEFAULT_URL_PROPERTY = "edu.stanford.smi.protegex.owl.jena.reasoner.URL";
   private static final String defaultURL = ApplicationProperties.getString(DEFAULT_URL_PROPERTY, "http://localhost:8080");
 
-  private URL reasonerURL;
-
-    private DocumentBuilderFactory docBuilderFactory;
-
-    private DocumentBuilder docBuilder;
+  private volatile URL reasonerURL;
 
-    private XMLSerializer serializer;
-
-    private OutputFormat format;
+    private DIGHttpTransport transport;
 
     private DIGTranslator translator;
 
@@ -77,23 +60,17 @@ public class DefaultDIGReasoner implements DIGReasoner {
 	    }
 	    // this.connection = connection;
 
-        // Set up the XML Serializer that will convert DIG XML Documents
-        // into streams to send to the external DIG reasoner
-        format = new OutputFormat();
-        format.setIndent(4);
-        format.setIndenting(true);
-        format.setPreserveSpace(false);
-        serializer = new XMLSerializer(format);
-        docBuilderFactory = DocumentBuilderFactory.newInstance();
-        docBuilderFactory.setIgnoringElementContentWhitespace(true);
+        // The transport streams DIG XML Documents to and from the
+        // external DIG reasoner, and may be shared between threads
+        transport = new DIGHttpTransport();
+    }
 
-        try {
-            docBuilder = docBuilderFactory.newDocumentBuilder();
 
-        }
-        catch (ParserConfigurationException e) {
-          Log.getLogger().log(Level.SEVERE, "Exception caught", e);
-        }
+    /**
+     * Gets the transport that is used to send requests to the reasoner.
+     */
+    public DIGHttpTransport getTransport() {
+        return transport;
     }
 
 
@@ -189,49 +166,17 @@ public class DefaultDIGReasoner implements DIGReasoner {
     }
 
 
+    /**
+     * Sends a request to the reasoner and returns its response.  This
+     * method may be called from several threads concurrently.
+     */
     public Document performRequest(Document request) throws DIGReasonerException {
         log(Level.FINE, request);
 
-        try {
-            StringWriter writer = new StringWriter();
-            serializer.setOutputCharStream(writer);
-            serializer.serialize(request);
-
-
-            HttpURLConnection conn = (HttpURLConnection) reasonerURL.openConnection();
-	        conn.setRequestProperty("Content-Type", "text/xml");
-	        conn.setRequestMethod("POST");
-	        conn.setDoInput(true);
-	        conn.setDoOutput(true);
-	        StringBuffer buffer = writer.getBuffer();
-            conn.setRequestProperty("Content-Length", "" + buffer.length());
-            conn.connect();
-
-	        OutputStream os = conn.getOutputStream();
-            OutputStreamWriter osw = new OutputStreamWriter(os);
-	        osw.write(buffer.toString());
-	        osw.flush();
-	        osw.close();
-			// Get the response
-            Reader reader = new InputStreamReader(conn.getInputStream());
-            Document doc = docBuilder.parse(new InputSource(reader));
-            reader.close();
-	        conn.disconnect();
-	        log(Level.FINE, doc);
-            performErrorCheck(doc);
-            return doc;
-
-        }
-        catch (IOException e) {
-            // Convert the IOException into a DIGReasonerException
-            throw new DIGReasonerException(e.getMessage(), e);
-        }
-        catch (SAXException saxEx) {
-            // Convert the SAXException into a DIGReasonerException
-            throw new DIGReasonerException(saxEx.getMessage(), saxEx);
-        }
-
-
+        Document doc = transport.performRequest(reasonerURL, request);
+        log(Level.FINE, doc);
+        performErrorCheck(doc);
+        return doc;
     }
 
 
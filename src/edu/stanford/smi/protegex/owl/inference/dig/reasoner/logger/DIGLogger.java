@@ -36,7 +36,7 @@ public class DIGLogger {
     }
 
 
-    public static DIGLogger getInstance(DIGReasoner digReasoner) {
+    public static synchronized DIGLogger getInstance(DIGReasoner digReasoner) {
         DIGLogger instance = (DIGLogger) loggerMap.get(digReasoner);
         if (instance == null) {
             instance = new DIGLogger();
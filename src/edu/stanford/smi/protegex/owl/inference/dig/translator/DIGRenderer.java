@@ -6,6 +6,8 @@ import edu.stanford.smi.protegex.owl.model.*;
 import org.w3c.dom.Document;
 import org.w3c.dom.Node;
 
+import java.util.Collection;
+
 /**
  * User: matthewhorridge<br>
  * The Univeristy Of Manchester<br>
@@ -30,6 +32,14 @@ public interface DIGRenderer {
     void render(OWLModel kb, Document doc, Node parentNode) throws DIGReasonerException;
 
 
+    /**
+     * Renders the definitions of newly created resources, followed by the
+     * axioms of the created and the changed resources.
+     */
+    void renderChanges(OWLModel kb, Collection createdResources, Collection changedResources,
+                       Document doc, Node parentNode) throws DIGReasonerException;
+
+
     boolean render(OWLNamedClass cls, Document doc, Node parentNode);
 
 
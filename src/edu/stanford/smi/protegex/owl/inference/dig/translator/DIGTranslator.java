@@ -6,6 +6,7 @@ import edu.stanford.smi.protegex.owl.model.*;
 import org.w3c.dom.Document;
 import org.w3c.dom.Node;
 
+import java.util.Collection;
 import java.util.Iterator;
 
 /**
@@ -81,6 +82,26 @@ public interface DIGTranslator {
     public void translateToDIG(OWLModel kb, Document doc, Node node) throws DIGReasonerException;
 
 
+    /**
+     * Translates the definitions and axioms of resources that have been
+     * created or changed since the OWLModel was last translated to DIG.
+     * The resulting tells extend a knowledge base that already contains
+     * the previous translation.
+     *
+     * @param kb               The knowledge base that contains the resources
+     * @param createdResources The named resources that need to be defined
+     * @param changedResources The named resources whose axioms need to be told again
+     * @param doc              The Document that the rendering will be created in
+     * @param node             The parent node that the dig rendereing will be appended to
+     * @throws DIGReasonerException
+     */
+    public void translateChangesToDIG(OWLModel kb,
+                                      Collection createdResources,
+                                      Collection changedResources,
+                                      Document doc,
+                                      Node node) throws DIGReasonerException;
+
+
     /**
      * Translates an element of an OWLModel to DIG
      *
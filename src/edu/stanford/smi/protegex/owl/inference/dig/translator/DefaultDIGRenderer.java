@@ -156,6 +156,93 @@ public class DefaultDIGRenderer implements DIGRenderer {
 
 
 
+    public void renderChanges(OWLModel kb,
+                              Collection createdResources,
+                              Collection changedResources,
+                              Document doc,
+                              Node parentNode)
+            throws DIGReasonerException {
+
+        clsesToIgnore.removeAll(clsesToIgnore);
+
+        slotsToIgnore.removeAll(slotsToIgnore);
+
+        updateIgnoredCollections(kb);
+
+        // Define the new resources before any axiom refers to them
+        for (Iterator it = createdResources.iterator(); it.hasNext();) {
+            renderDefinition((RDFResource) it.next(), doc, parentNode);
+        }
+
+        for (Iterator it = createdResources.iterator(); it.hasNext();) {
+            renderResourceAxioms((RDFResource) it.next(), doc, parentNode);
+        }
+
+        for (Iterator it = changedResources.iterator(); it.hasNext();) {
+            renderResourceAxioms((RDFResource) it.next(), doc, parentNode);
+        }
+    }
+
+
+    /**
+     * Renders the defconcept, defrole, defattribute or defindividual
+     * element for a named resource, as the full rendering would.
+     */
+    protected void renderDefinition(RDFResource resource,
+                                    Document doc,
+                                    Node parentNode) {
+        if (isIgnoredResource(resource)) {
+            return;
+        }
+        Element element = null;
+        if (resource instanceof OWLNamedClass) {
+            element = doc.createElement(DIGVocabulary.Tell.DEF_CONCEPT);
+        } else if (resource instanceof OWLObjectProperty) {
+            element = doc.createElement(DIGVocabulary.Tell.DEF_ROLE);
+        } else if (resource instanceof OWLDatatypeProperty) {
+            element = doc.createElement(DIGVocabulary.Tell.DEF_ATTRIBUTE);
+        } else if (resource instanceof OWLIndividual) {
+            element = doc.createElement(DIGVocabulary.Tell.DEF_INDIVIDUAL);
+        }
+        if (element != null) {
+            element.setAttribute("name", resource.getName());
+            parentNode.appendChild(element);
+        }
+    }
+
+
+    protected void renderResourceAxioms(RDFResource resource,
+                                        Document doc,
+                                        Node parentNode)
+            throws DIGReasonerException {
+        if (isIgnoredResource(resource)) {
+            return;
+        }
+        if (resource instanceof OWLNamedClass) {
+            renderAxioms((OWLNamedClass) resource, doc, parentNode);
+        } else if (resource instanceof OWLObjectProperty || resource instanceof OWLDatatypeProperty) {
+            renderAxioms((OWLProperty) resource, doc, parentNode);
+        } else if (resource instanceof OWLIndividual) {
+            renderAxioms((RDFIndividual) resource, doc, parentNode);
+        }
+    }
+
+
+    /**
+     * Checks whether a resource is left out of the full rendering, because it
+     * is a system or SWRL resource, an annotation property, or has been deleted.
+     */
+    private boolean isIgnoredResource(RDFResource resource) {
+        if (resource.isDeleted() || resource.isSystem() || isSWRLResource(resource)) {
+            return true;
+        }
+        if (resource instanceof OWLProperty) {
+            return ((OWLProperty) resource).isAnnotationProperty() || slotsToIgnore.contains(resource);
+        }
+        return clsesToIgnore.contains(resource);
+    }
+
+
 	protected void renderFakedDifferentFrom(Collection differentFromIndividuals, Document doc, Node parentNode) throws DIGReasonerException {
         // We want to put each individual into its
         // own iset element, and make these disjoint from each other.
@@ -1,5 +1,6 @@
 package edu.stanford.smi.protegex.owl.inference.dig.translator;
 
+import java.util.Collection;
 import java.util.Iterator;
 import java.util.logging.Level;
 
@@ -125,6 +126,15 @@ public class DefaultDIGTranslator implements DIGTranslator {
     }
 
 
+    public void translateChangesToDIG(OWLModel kb,
+                                      Collection createdResources,
+                                      Collection changedResources,
+                                      Document doc,
+                                      Node node) throws DIGReasonerException {
+        renderer.renderChanges(kb, createdResources, changedResources, doc, node);
+    }
+
+
     /**
      * Translates an element of an OWLModel to DIG
      *
@@ -33,6 +33,7 @@ import edu.stanford.smi.protegex.owl.inference.protegeowl.task.digreasoner.GetIn
 import edu.stanford.smi.protegex.owl.inference.protegeowl.task.digreasoner.GetSubConceptsTask;
 import edu.stanford.smi.protegex.owl.inference.protegeowl.task.digreasoner.GetSubsumptionRelationshipTask;
 import edu.stanford.smi.protegex.owl.inference.protegeowl.task.digreasoner.GetSuperConceptsTask;
+import edu.stanford.smi.protegex.owl.inference.protegeowl.task.digreasoner.IncrementalSynchronizeReasonerTask;
 import edu.stanford.smi.protegex.owl.inference.protegeowl.task.digreasoner.IsConceptIntersectionSatisfiableTask;
 import edu.stanford.smi.protegex.owl.inference.protegeowl.task.digreasoner.IsDisjointToTask;
 import edu.stanford.smi.protegex.owl.inference.protegeowl.task.digreasoner.IsSubsumedByTask;
@@ -41,6 +42,7 @@ import edu.stanford.smi.protegex.owl.inference.protegeowl.task.digreasoner.Updat
 import edu.stanford.smi.protegex.owl.inference.protegeowl.task.digreasoner.UpdateInconsistentClassesTask;
 import edu.stanford.smi.protegex.owl.inference.protegeowl.task.digreasoner.UpdateInferredHierarchyTask;
 import edu.stanford.smi.protegex.owl.inference.protegeowl.task.digreasoner.UpdateInferredTypesTask;
+import edu.stanford.smi.protegex.owl.inference.reasoner.ReasonerChangeJournal;
 import edu.stanford.smi.protegex.owl.inference.reasoner.exception.ProtegeReasonerException;
 import edu.stanford.smi.protegex.owl.inference.util.TimeDifference;
 import edu.stanford.smi.protegex.owl.model.OWLClass;
@@ -81,6 +83,8 @@ public class DefaultProtegeOWLReasoner implements ProtegeOWLReasoner {
 
     private String kbURI;
 
+    private ReasonerChangeJournal changeJournal = new ReasonerChangeJournal();
+
     private ProjectListener projectListener = new ProjectAdapter() {
         public void projectClosed(ProjectEvent event) {
             // If the reasoner still contains a model then release it
@@ -105,7 +109,7 @@ public class DefaultProtegeOWLReasoner implements ProtegeOWLReasoner {
 	reasoner. */
     private ModelListener modelListener = new ModelAdapter() {
         public void classCreated(RDFSClass cls) {
-            reactToKnowledgeBaseChange();
+            reactToResourceCreated(cls);
         }
 
 
@@ -115,7 +119,7 @@ public class DefaultProtegeOWLReasoner implements ProtegeOWLReasoner {
 
 
         public void propertyCreated(RDFProperty property) {
-            reactToKnowledgeBaseChange();
+            reactToResourceCreated(property);
         }
 
 
@@ -125,7 +129,7 @@ public class DefaultProtegeOWLReasoner implements ProtegeOWLReasoner {
 
 
         public void individualCreated(RDFResource resource) {
-            reactToKnowledgeBaseChange();
+            reactToResourceCreated(resource);
         }
 
 
@@ -142,7 +146,7 @@ public class DefaultProtegeOWLReasoner implements ProtegeOWLReasoner {
     private ResourceAdapter resourceAdapter = new ResourceAdapter() {
         public void typeAdded(RDFResource resource,
                               RDFSClass type) {
-            reactToKnowledgeBaseChange();
+            reactToAxiomsAdded(resource);
         }
 
 
@@ -155,7 +159,7 @@ public class DefaultProtegeOWLReasoner implements ProtegeOWLReasoner {
     private PropertyListener propertyListener = new PropertyAdapter() {
         public void subpropertyAdded(RDFProperty property,
                                      RDFProperty subproperty) {
-            reactToKnowledgeBaseChange();
+            reactToAxiomsAdded(subproperty);
         }
 
 
@@ -167,7 +171,7 @@ public class DefaultProtegeOWLReasoner implements ProtegeOWLReasoner {
 
         public void superpropertyAdded(RDFProperty property,
                                        RDFProperty superproperty) {
-            reactToKnowledgeBaseChange();
+            reactToAxiomsAdded(property);
         }
 
 
@@ -179,7 +183,7 @@ public class DefaultProtegeOWLReasoner implements ProtegeOWLReasoner {
 
         public void unionDomainClassAdded(RDFProperty property,
                                           RDFSClass rdfsClass) {
-            reactToKnowledgeBaseChange();
+            reactToAxiomsAdded(property);
         }
 
 
@@ -192,13 +196,13 @@ public class DefaultProtegeOWLReasoner implements ProtegeOWLReasoner {
     private ClassListener classListener = new ClassAdapter() {
         public void addedToUnionDomainOf(RDFSClass cls,
                                          RDFProperty property) {
-            reactToKnowledgeBaseChange();
+            reactToAxiomsAdded(property);
         }
 
 
         public void instanceAdded(RDFSClass cls,
                                   RDFResource instance) {
-            reactToKnowledgeBaseChange();
+            reactToAxiomsAdded(instance);
         }
 
 
@@ -216,7 +220,7 @@ public class DefaultProtegeOWLReasoner implements ProtegeOWLReasoner {
 
         public void subclassAdded(RDFSClass cls,
                                   RDFSClass subclass) {
-            reactToKnowledgeBaseChange();
+            reactToAxiomsAdded(subclass);
         }
 
 
@@ -228,7 +232,7 @@ public class DefaultProtegeOWLReasoner implements ProtegeOWLReasoner {
 
         public void superclassAdded(RDFSClass cls,
                                     RDFSClass superclass) {
-            reactToKnowledgeBaseChange();
+            reactToAxiomsAdded(cls);
         }
 
 
@@ -248,7 +252,7 @@ public class DefaultProtegeOWLReasoner implements ProtegeOWLReasoner {
         public void propertyValueChanged(RDFResource resource,
                                          RDFProperty property,
                                          Collection oldValues) {
-            reactToKnowledgeBaseChange();
+            reactToPropertyValueChange(resource, property, oldValues);
         }
     };
 
@@ -346,12 +350,41 @@ public class DefaultProtegeOWLReasoner implements ProtegeOWLReasoner {
     }
 
 
+    private void reactToResourceCreated(RDFResource resource) {
+        if (autoSynchReasoner) {
+            changeJournal.resourceCreated(resource);
+            synchronizeReasoner = true;
+        }
+    }
+
+
+    private void reactToAxiomsAdded(RDFResource resource) {
+        if (autoSynchReasoner) {
+            changeJournal.axiomsAdded(resource);
+            synchronizeReasoner = true;
+        }
+    }
+
+
+    private void reactToPropertyValueChange(RDFResource resource, RDFProperty property, Collection oldValues) {
+        if (autoSynchReasoner) {
+            changeJournal.propertyValueChanged(resource, property, oldValues);
+            synchronizeReasoner = true;
+        }
+    }
+
+
     public void forceReasonerReSynchronization() {
+        changeJournal.requireFullSynchronization();
         synchronizeReasoner = true;
     }
 
 
     public void setAutoSynchronizationEnabled(boolean b) {
+        if (!b) {
+            // Changes will not be journaled from now on
+            changeJournal.requireFullSynchronization();
+        }
         autoSynchReasoner = b;
     }
 
@@ -370,21 +403,39 @@ public class DefaultProtegeOWLReasoner implements ProtegeOWLReasoner {
         // Render the ontology into DIG and send it to the external
         // dig reasoner
         if (synchronizeReasoner == true || kbURI == null) {
-            SynchronizeReasonerTask synchronizeReasonerTask = new SynchronizeReasonerTask(this);
-            if (taskListener != null) {
-                synchronizeReasonerTask.addTaskListener(taskListener);
-            }
+            if (kbURI == null || changeJournal.isFullSynchronizationRequired()) {
+                SynchronizeReasonerTask synchronizeReasonerTask = new SynchronizeReasonerTask(this);
+                if (taskListener != null) {
+                    synchronizeReasonerTask.addTaskListener(taskListener);
+                }
+
+                if (kbURI == null) {
+                    kbURI = reasoner.createKnowledgeBase();
+                }
 
-            if (kbURI == null) {
-                kbURI = reasoner.createKnowledgeBase();
+                synchronizeReasonerTask.run();
+
+                if (taskListener != null) {
+                    synchronizeReasonerTask.removeTaskListener(taskListener);
+                }
             }
+            else if (!changeJournal.isEmpty()) {
+                // Only tell the reasoner about the additions
+                IncrementalSynchronizeReasonerTask synchronizeReasonerTask = new IncrementalSynchronizeReasonerTask(this,
+                        changeJournal.getCreatedResources(),
+                        changeJournal.getChangedResources());
+                if (taskListener != null) {
+                    synchronizeReasonerTask.addTaskListener(taskListener);
+                }
 
-            synchronizeReasonerTask.run();
+                synchronizeReasonerTask.run();
 
-            if (taskListener != null) {
-                synchronizeReasonerTask.removeTaskListener(taskListener);
+                if (taskListener != null) {
+                    synchronizeReasonerTask.removeTaskListener(taskListener);
+                }
             }
 
+            changeJournal.clear();
             synchronizeReasoner = false;
         }
     }
@@ -0,0 +1,156 @@
+package edu.stanford.smi.protegex.owl.inference.protegeowl.task.digreasoner;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import org.w3c.dom.Document;
+
+import edu.stanford.smi.protegex.owl.inference.dig.exception.DIGReasonerException;
+import edu.stanford.smi.protegex.owl.inference.dig.reasoner.DIGReasoner;
+import edu.stanford.smi.protegex.owl.inference.dig.translator.DIGQueryResponse;
+import edu.stanford.smi.protegex.owl.inference.protegeowl.ProtegeOWLReasoner;
+import edu.stanford.smi.protegex.owl.inference.util.ReasonerPreferences;
+import edu.stanford.smi.protegex.owl.model.OWLModel;
+import edu.stanford.smi.protegex.owl.model.RDFResource;
+
+/**
+ * A task that asks the reasoner one query per resource, and updates the
+ * model with the answers.  Instead of sending all queries in a single asks
+ * request, the queries are split into batches (see
+ * <code>ReasonerPreferences.getAsksBatchSize()</code>), and several batches
+ * are kept in flight at once (see <code>ReasonerPreferences.getMaxConcurrentAsks()</code>).
+ * The responses of each batch are processed as soon as they arrive, so that
+ * only a few response documents are held in memory at any time.
+ * <p/>
+ * Only the requests themselves are sent from background threads.  The asks
+ * documents are built, and the responses processed, on the thread that runs
+ * the task, in the order of the resources.
+ */
+public abstract class AbstractBatchedAsksTask extends AbstractReasonerTask {
+
+    private static final ThreadFactory threadFactory = new ThreadFactory() {
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "DIG asks");
+            thread.setDaemon(true);
+            return thread;
+        }
+    };
+
+    private ProtegeOWLReasoner protegeOWLReasoner;
+
+
+    protected AbstractBatchedAsksTask(ProtegeOWLReasoner protegeOWLReasoner) {
+        super(protegeOWLReasoner);
+        this.protegeOWLReasoner = protegeOWLReasoner;
+    }
+
+
+    /**
+     * Adds the query for a resource to an asks document.  The ID of the
+     * query should allow <code>processResponse</code> to find the resource.
+     */
+    protected abstract void createQuery(Document asksDoc, RDFResource resource) throws DIGReasonerException;
+
+
+    /**
+     * Updates the model with the answer to a single query.
+     */
+    protected abstract void processResponse(OWLModel kb, DIGQueryResponse response) throws DIGReasonerException;
+
+
+    /**
+     * Asks the queries for the specified resources in batches, and processes
+     * the responses.  The progress is advanced once per batch.
+     *
+     * @param resources The resources to query
+     */
+    protected void performBatchedAsks(Collection resources) throws DIGReasonerException {
+        OWLModel kb = protegeOWLReasoner.getKnowledgeBase();
+        ReasonerPreferences preferences = ReasonerPreferences.getInstance();
+        int batchSize = preferences.getAsksBatchSize();
+        int maxConcurrentAsks = preferences.getMaxConcurrentAsks();
+        int batchCount = (resources.size() + batchSize - 1) / batchSize;
+        if (batchCount == 0) {
+            return;
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(maxConcurrentAsks, batchCount), threadFactory);
+        LinkedList<Future<Document>> pendingResponses = new LinkedList<Future<Document>>();
+        LinkedList<Integer> pendingSizes = new LinkedList<Integer>();
+        try {
+            Iterator resourcesIt = resources.iterator();
+            int batch = 0;
+            while (resourcesIt.hasNext() || !pendingResponses.isEmpty()) {
+                // Keep the reasoner busy while the previous responses are processed
+                while (resourcesIt.hasNext() && pendingResponses.size() < maxConcurrentAsks) {
+                    Document asksDoc = getTranslator().createAsksDocument(protegeOWLReasoner.getReasonerKnowledgeBaseURI());
+                    int size = 0;
+                    while (resourcesIt.hasNext() && size < batchSize) {
+                        createQuery(asksDoc, (RDFResource) resourcesIt.next());
+                        size++;
+                    }
+                    pendingResponses.add(executor.submit(new AsksRequest(protegeOWLReasoner.getDIGReasoner(), asksDoc)));
+                    pendingSizes.add(size);
+                }
+
+                batch++;
+                setMessage("Querying reasoner (batch " + batch + " of " + batchCount + ")...");
+                Document responseDoc = getResponse(pendingResponses.removeFirst());
+                doAbortCheck();
+
+                for (Iterator it = getTranslator().getDIGQueryResponseIterator(kb, responseDoc); it.hasNext();) {
+                    processResponse(kb, (DIGQueryResponse) it.next());
+                }
+                setProgress(getProgress() + pendingSizes.removeFirst());
+                doAbortCheck();
+            }
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+
+    private Document getResponse(Future<Document> future) throws DIGReasonerException {
+        try {
+            return future.get();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new DIGReasonerException("Interrupted while waiting for the reasoner", e);
+        }
+        catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof DIGReasonerException) {
+                throw (DIGReasonerException) cause;
+            }
+            throw new DIGReasonerException(cause.getMessage(), cause);
+        }
+    }
+
+
+    private static class AsksRequest implements Callable<Document> {
+
+        private DIGReasoner reasoner;
+
+        private Document asksDoc;
+
+
+        public AsksRequest(DIGReasoner reasoner, Document asksDoc) {
+            this.reasoner = reasoner;
+            this.asksDoc = asksDoc;
+        }
+
+
+        public Document call() throws DIGReasonerException {
+            return reasoner.performRequest(asksDoc);
+        }
+    }
+}
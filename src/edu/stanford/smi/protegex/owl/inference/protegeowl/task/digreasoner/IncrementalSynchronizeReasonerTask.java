@@ -0,0 +1,104 @@
+package edu.stanford.smi.protegex.owl.inference.protegeowl.task.digreasoner;
+
+import java.util.Collection;
+
+import edu.stanford.smi.protegex.owl.inference.dig.exception.DIGReasonerException;
+import edu.stanford.smi.protegex.owl.inference.protegeowl.ProtegeOWLReasoner;
+import edu.stanford.smi.protegex.owl.inference.protegeowl.log.ReasonerLogRecord;
+import edu.stanford.smi.protegex.owl.inference.protegeowl.log.ReasonerLogRecordFactory;
+import edu.stanford.smi.protegex.owl.inference.util.TimeDifference;
+import edu.stanford.smi.protegex.owl.model.OWLModel;
+import edu.stanford.smi.protegex.owl.model.RDFResource;
+
+import org.w3c.dom.Document;
+
+/**
+ * Updates the knowledge base of a DIG reasoner that has already been
+ * synchronized by telling it the axioms of the resources that have been
+ * created or extended since, instead of clearing the knowledge base and
+ * retransmitting the whole ontology as the <code>SynchronizeReasonerTask</code>
+ * does.  Only additions can be transmitted this way, since DIG does not
+ * support retracting axioms.
+ */
+public class IncrementalSynchronizeReasonerTask extends AbstractReasonerTask {
+
+    private ProtegeOWLReasoner protegeOWLReasoner;
+
+    private Collection<RDFResource> createdResources;
+
+    private Collection<RDFResource> changedResources;
+
+
+    public IncrementalSynchronizeReasonerTask(ProtegeOWLReasoner protegeOWLReasoner,
+                                              Collection<RDFResource> createdResources,
+                                              Collection<RDFResource> changedResources) {
+        super(protegeOWLReasoner);
+        this.protegeOWLReasoner = protegeOWLReasoner;
+        this.createdResources = createdResources;
+        this.changedResources = changedResources;
+    }
+
+
+    public int getTaskSize() {
+        return 1;
+    }
+
+
+    public void run() throws DIGReasonerException {
+        TimeDifference td = new TimeDifference();
+        setDescription("Synchronizing reasoner");
+        setMessage("Updating reasoner...");
+        ReasonerLogRecordFactory logRecordFactory = ReasonerLogRecordFactory.getInstance();
+        ReasonerLogRecord parentRecord = logRecordFactory.createInformationMessageLogRecord("Synchronize reasoner (" +
+                createdResources.size() + " new and " + changedResources.size() + " changed resources)",
+                null);
+        postLogRecord(parentRecord);
+
+        td.markStart();
+        setProgressIndeterminate(true);
+
+        doAbortCheck();
+
+        OWLModel owlModel = protegeOWLReasoner.getKnowledgeBase();
+
+        boolean eventsEnabled = owlModel.setGenerateEventsEnabled(false);
+        try {
+            transmitToReasoner(parentRecord);
+        }
+        finally {
+            owlModel.setGenerateEventsEnabled(eventsEnabled);
+        }
+
+        doAbortCheck();
+
+        setProgressIndeterminate(false);
+        td.markEnd();
+        postLogRecord(ReasonerLogRecordFactory.getInstance().createInformationMessageLogRecord("Time to synchronize = " + td, parentRecord));
+        setMessage("Reasoner synchronized");
+        setProgress(1);
+        setTaskCompleted();
+    }
+
+
+    protected void transmitToReasoner(ReasonerLogRecord parentRecord) throws DIGReasonerException {
+        TimeDifference td = new TimeDifference();
+        setMessage("Generating DIG representation...");
+        td.markStart();
+
+        // Only send the axioms of the new and changed resources
+        Document doc = getTranslator().createTellsDocument(protegeOWLReasoner.getReasonerKnowledgeBaseURI());
+        getTranslator().translateChangesToDIG(protegeOWLReasoner.getKnowledgeBase(),
+                createdResources,
+                changedResources,
+                doc,
+                doc.getDocumentElement());
+        td.markEnd();
+        postLogRecord(ReasonerLogRecordFactory.getInstance().createInformationMessageLogRecord("Time for DIG conversion = " + td, parentRecord));
+        doAbortCheck();
+        setMessage("Updating reasoner");
+        td.markStart();
+        protegeOWLReasoner.getDIGReasoner().performRequest(doc);
+        td.markEnd();
+        postLogRecord(ReasonerLogRecordFactory.getInstance().createInformationMessageLogRecord("Time to update reasoner = " + td, parentRecord));
+    }
+}
@@ -11,6 +11,7 @@ import edu.stanford.smi.protegex.owl.inference.util.TimeDifference;
 import edu.stanford.smi.protegex.owl.model.OWLModel;
 import edu.stanford.smi.protegex.owl.model.OWLNamedClass;
 import edu.stanford.smi.protegex.owl.model.OWLNames;
+import edu.stanford.smi.protegex.owl.model.RDFResource;
 import edu.stanford.smi.protegex.owl.model.RDFSClass;
 import org.w3c.dom.Document;
 
@@ -26,7 +27,7 @@ import java.util.Iterator;
  * matthew.horridge@cs.man.ac.uk<br>
  * www.cs.man.ac.uk/~horridgm<br><br>
  */
-public class UpdateInferredHierarchyTask extends AbstractReasonerTask {
+public class UpdateInferredHierarchyTask extends AbstractBatchedAsksTask {
 
     private ProtegeOWLReasoner protegeOWLReasoner;
 
@@ -57,97 +58,18 @@ public class UpdateInferredHierarchyTask extends AbstractReasonerTask {
 
         setDescription("Computing inferred hierarchy");
 
-        setMessage("Building inferred hierarchy reasoner query...");
-
         TimeDifference td = new TimeDifference();
         td.markStart();
 
-        Document asksDoc = getTranslator().createAsksDocument(protegeOWLReasoner.getReasonerKnowledgeBaseURI());
-
         Collection namedClses = ReasonerUtil.getInstance().getNamedClses(kb);
 
-        Iterator namedClsesIt = namedClses.iterator();
-
-
-        while (namedClsesIt.hasNext()) {
-            final OWLNamedClass curNamedCls;
-
-            curNamedCls = (OWLNamedClass) namedClsesIt.next();
-
-            getTranslator().createDirectSuperConceptsQuery(asksDoc, curNamedCls.getName(), curNamedCls);
-        }
-
-
-        td.markEnd();
-
-        postLogRecord(ReasonerLogRecordFactory.getInstance().createInformationMessageLogRecord("Time to build query = " + td,
-                parentRecord));
-
-        doAbortCheck();
-
-        setMessage("Querying reasoner...");
-
-        td.markStart();
-
-        Document responseDoc = protegeOWLReasoner.getDIGReasoner().performRequest(asksDoc);
-
-        td.markEnd();
-
-        postLogRecord(ReasonerLogRecordFactory.getInstance().createInformationMessageLogRecord("Time to query reasoner = " + td,
-                parentRecord));
-
-        doAbortCheck();
-
-        setMessage("Updating Protege-OWL...");
-
-        td.markStart();
-        
         boolean eventsEnabled = kb.setGenerateEventsEnabled(false);
         try {
 	        kb.beginTransaction("Compute and update inferred class hierarchy");
 	
-	        for (Iterator it = getTranslator().getDIGQueryResponseIterator(kb, responseDoc); it.hasNext();) {
-	
-	            doAbortCheck();
-	
-	            final DIGQueryResponse response = (DIGQueryResponse) it.next();
-	
-	            final String curQueryID = response.getID();
-	
-	            final OWLNamedClass curNamedCls = kb.getOWLNamedClass(curQueryID);
+	        // The direct superclasses are asked and assigned batch by batch
+	        performBatchedAsks(namedClses);
 	
-	            if (curNamedCls != null) {
-	                if (curNamedCls.isConsistent()) {
-	
-	                    final Collection infSuperClses = response.getConcepts();
-	
-	                    for (Iterator clsesIt = infSuperClses.iterator(); clsesIt.hasNext();) {
-	                        final RDFSClass curSuperClass = (RDFSClass) clsesIt.next();
-	                        // We don't want to assign invisible super classes!
-	                        if (curSuperClass.isVisible() == true) {
-	                            curNamedCls.addInferredSuperclass(curSuperClass);
-	                        }
-	                    }
-	
-	                    final Collection namedDirSuperCles = curNamedCls.getNamedSuperclasses();
-	
-	                    if (namedDirSuperCles.containsAll(infSuperClses) == false ||
-	                            infSuperClses.containsAll(namedDirSuperCles) == false) {
-	                        curNamedCls.setClassificationStatus(OWLNames.CLASSIFICATION_STATUS_CONSISTENT_AND_CHANGED);
-	                    }
-	                    else {
-	                        curNamedCls.setClassificationStatus(OWLNames.CLASSIFICATION_STATUS_CONSISTENT_AND_UNCHANGED);
-	                    }
-	                }
-	                else {
-	                    for (Iterator namedDirSuperClsIt = curNamedCls.getNamedSuperclasses().iterator(); namedDirSuperClsIt.hasNext();) {
-	                        curNamedCls.addInferredSuperclass((RDFSClass) namedDirSuperClsIt.next());
-	                    }
-	                }
-	            }
-	
-	            setProgress(getProgress() + 1);
-	        }
 	        kb.commitTransaction();
         }
         catch (DIGReasonerException e) {
@@ -165,9 +87,51 @@ public class UpdateInferredHierarchyTask extends AbstractReasonerTask {
 
         td.markEnd();
 
-        postLogRecord(ReasonerLogRecordFactory.getInstance().createInformationMessageLogRecord("Time to update Protege-OWL = " + td,
+        postLogRecord(ReasonerLogRecordFactory.getInstance().createInformationMessageLogRecord("Time to query reasoner and update Protege-OWL = " + td,
                 parentRecord));
         setTaskCompleted();
 
     }
+
+
+    protected void createQuery(Document asksDoc, RDFResource resource) throws DIGReasonerException {
+        getTranslator().createDirectSuperConceptsQuery(asksDoc, resource.getName(), (OWLNamedClass) resource);
+    }
+
+
+    protected void processResponse(OWLModel kb, DIGQueryResponse response) throws DIGReasonerException {
+        final String curQueryID = response.getID();
+
+        final OWLNamedClass curNamedCls = kb.getOWLNamedClass(curQueryID);
+
+        if (curNamedCls != null) {
+            if (curNamedCls.isConsistent()) {
+
+                final Collection infSuperClses = response.getConcepts();
+
+                for (Iterator clsesIt = infSuperClses.iterator(); clsesIt.hasNext();) {
+                    final RDFSClass curSuperClass = (RDFSClass) clsesIt.next();
+                    // We don't want to assign invisible super classes!
+                    if (curSuperClass.isVisible() == true) {
+                        curNamedCls.addInferredSuperclass(curSuperClass);
+                    }
+                }
+
+                final Collection namedDirSuperCles = curNamedCls.getNamedSuperclasses();
+
+                if (namedDirSuperCles.containsAll(infSuperClses) == false ||
+                        infSuperClses.containsAll(namedDirSuperCles) == false) {
+                    curNamedCls.setClassificationStatus(OWLNames.CLASSIFICATION_STATUS_CONSISTENT_AND_CHANGED);
+                }
+                else {
+                    curNamedCls.setClassificationStatus(OWLNames.CLASSIFICATION_STATUS_CONSISTENT_AND_UNCHANGED);
+                }
+            }
+            else {
+                for (Iterator namedDirSuperClsIt = curNamedCls.getNamedSuperclasses().iterator(); namedDirSuperClsIt.hasNext();) {
+                    curNamedCls.addInferredSuperclass((RDFSClass) namedDirSuperClsIt.next());
+                }
+            }
+        }
+    }
 }
@@ -2,7 +2,6 @@ package edu.stanford.smi.protegex.owl.inference.protegeowl.task.digreasoner;
 
 import java.util.Collection;
 import java.util.Collections;
-import java.util.Iterator;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -22,6 +21,7 @@ import edu.stanford.smi.protegex.owl.model.OWLModel;
 import edu.stanford.smi.protegex.owl.model.OWLNames;
 import edu.stanford.smi.protegex.owl.model.ProtegeNames;
 import edu.stanford.smi.protegex.owl.model.RDFIndividual;
+import edu.stanford.smi.protegex.owl.model.RDFResource;
 import edu.stanford.smi.protegex.owl.model.impl.AbstractOWLModel;
 
 /**
@@ -33,10 +33,14 @@ import edu.stanford.smi.protegex.owl.model.impl.AbstractOWLModel;
  * matthew.horridge@cs.man.ac.uk<br>
  * www.cs.man.ac.uk/~horridgm<br><br>
  */
-public class UpdateInferredTypesTask extends AbstractReasonerTask {
+public class UpdateInferredTypesTask extends AbstractBatchedAsksTask {
     private static transient final Logger log = Log.getLogger(UpdateInferredTypesTask.class);
     private ProtegeOWLReasoner protegeOWLReasoner;
 
+    private Slot inferredTypesSlot;
+
+    private Slot classificationStatusSlot;
+
 
     public UpdateInferredTypesTask(ProtegeOWLReasoner protegeOWLReasoner) {
         super(protegeOWLReasoner);
@@ -69,86 +73,21 @@ public class UpdateInferredTypesTask extends AbstractReasonerTask {
 
         postLogRecord(parentRecord);
         setDescription("Computing inferred types");
-        setMessage("Building reasoner query");
-
-        // Build the types query
         TimeDifference td = new TimeDifference();
         td.markStart();
-        Document doc = getTranslator().createAsksDocument(protegeOWLReasoner.getReasonerKnowledgeBaseURI());
-        Iterator individualsIt = ReasonerUtil.getInstance().getIndividuals(kb).iterator();
-        while (individualsIt.hasNext()) {
-            final RDFIndividual curInd = (RDFIndividual) individualsIt.next();
-
-            getTranslator().createIndividualTypesQuery(doc, curInd.getName(), curInd);
-        }
-        td.markEnd();
-
-        // Log time
-        postLogRecord(logRecordFactory.createInformationMessageLogRecord("Time to build query = " + td,
-                parentRecord));
-
-        // Query the reasoner
-
-        setMessage("Querying reasoner...");
-
-        td.markStart();
-
-        Document responseDoc = protegeOWLReasoner.getDIGReasoner().performRequest(doc);
-
-
-        td.markEnd();
-
-        // Log time
-        postLogRecord(logRecordFactory.createInformationMessageLogRecord("Time to query reasoner = " + td,
-                parentRecord));
-
-        // Update Protge-OWL
-        setMessage("Updating Protege-OWL...");
-        td.markStart();
 
         // Disable the events as we may not be updating protege
         // from the event dispatch thread
         boolean eventsEnabled = kb.setGenerateEventsEnabled(false);        
         try {
 	        kb.beginTransaction("Compute and update inferred types");
-	        Iterator responseIt = getTranslator().getDIGQueryResponseIterator(kb, responseDoc);
-	
-	
-	        Slot inferredTypesSlot = kb.getRDFProperty(ProtegeNames.Slot.INFERRED_TYPE);
-	        Slot classificationStatusSlot = ((AbstractOWLModel) kb).getProtegeClassificationStatusProperty();
-	
-	        while (responseIt.hasNext()) {
-	            final DIGQueryResponse curResponse = (DIGQueryResponse) responseIt.next();
-	            final RDFIndividual curInd = kb.getRDFIndividual(curResponse.getID());
 	
-	            if (curInd != null) {
-	                // Check the inferred types and asserted types
-	                // if there is a mismatch between the two then
-	                // mark the classification status of the individual
-	                // as changed. (MH - 15/09/04)
-                        if (log.isLoggable(Level.FINE)) {
-                            log.fine("Current individual: " + curInd);
-                        }
-	                final Collection inferredTypes = curResponse.getConcepts();
-	                if (inferredTypes.size() == 0) {
-	                    inferredTypes.add(curInd.getOWLModel().getOWLThingClass());
-	                }
-	                final Collection assertedTypes = curInd.getProtegeTypes();
-	                KnowledgeBase k = kb;
-	                k.setOwnSlotValues(curInd, inferredTypesSlot, inferredTypes);
+	        inferredTypesSlot = kb.getRDFProperty(ProtegeNames.Slot.INFERRED_TYPE);
+	        classificationStatusSlot = ((AbstractOWLModel) kb).getProtegeClassificationStatusProperty();
 	
-	                if (inferredTypes.containsAll(assertedTypes) &&
-	                        assertedTypes.containsAll(inferredTypes)) {
-	                	k.setOwnSlotValues(curInd, classificationStatusSlot, Collections.singleton(new Integer(OWLNames.CLASSIFICATION_STATUS_CONSISTENT_AND_UNCHANGED)));	                    
-	                }
-	                else {
-	                	k.setOwnSlotValues(curInd, classificationStatusSlot, Collections.singleton(new Integer(OWLNames.CLASSIFICATION_STATUS_CONSISTENT_AND_CHANGED)));
-	                }
-	            }
+	        // The types are asked and assigned batch by batch
+	        performBatchedAsks(ReasonerUtil.getInstance().getIndividuals(kb));
 	
-	            setProgress(getProgress() + 1);
-	            doAbortCheck();
-	        }
 	        kb.commitTransaction();
         }
         catch (DIGReasonerException e) {
@@ -165,10 +104,45 @@ public class UpdateInferredTypesTask extends AbstractReasonerTask {
         kb.setGenerateEventsEnabled(eventsEnabled);
 
         td.markEnd();
-        postLogRecord(ReasonerLogRecordFactory.getInstance().createInformationMessageLogRecord("Time to update Protege-OWL = " + td,
+        postLogRecord(ReasonerLogRecordFactory.getInstance().createInformationMessageLogRecord("Time to query reasoner and update Protege-OWL = " + td,
                 parentRecord));
         setTaskCompleted();
 
     }
+
+
+    protected void createQuery(Document asksDoc, RDFResource resource) throws DIGReasonerException {
+        getTranslator().createIndividualTypesQuery(asksDoc, resource.getName(), (RDFIndividual) resource);
+    }
+
+
+    protected void processResponse(OWLModel kb, DIGQueryResponse curResponse) throws DIGReasonerException {
+        final RDFIndividual curInd = kb.getRDFIndividual(curResponse.getID());
+
+        if (curInd != null) {
+            // Check the inferred types and asserted types
+            // if there is a mismatch between the two then
+            // mark the classification status of the individual
+            // as changed. (MH - 15/09/04)
+            if (log.isLoggable(Level.FINE)) {
+                log.fine("Current individual: " + curInd);
+            }
+            final Collection inferredTypes = curResponse.getConcepts();
+            if (inferredTypes.size() == 0) {
+                inferredTypes.add(curInd.getOWLModel().getOWLThingClass());
+            }
+            final Collection assertedTypes = curInd.getProtegeTypes();
+            KnowledgeBase k = kb;
+            k.setOwnSlotValues(curInd, inferredTypesSlot, inferredTypes);
+
+            if (inferredTypes.containsAll(assertedTypes) &&
+                    assertedTypes.containsAll(inferredTypes)) {
+                k.setOwnSlotValues(curInd, classificationStatusSlot, Collections.singleton(new Integer(OWLNames.CLASSIFICATION_STATUS_CONSISTENT_AND_UNCHANGED)));
+            }
+            else {
+                k.setOwnSlotValues(curInd, classificationStatusSlot, Collections.singleton(new Integer(OWLNames.CLASSIFICATION_STATUS_CONSISTENT_AND_CHANGED)));
+            }
+        }
+    }
 }
 
@@ -49,6 +49,10 @@ public abstract class AbstractProtegeReasoner implements ProtegeReasoner {
 	protected boolean synchronizeReasoner = true;
     protected boolean autoSynchReasoner = true;
 
+    /* The changes since the last synchronization, for reasoners
+    that can be updated incrementally. */
+    protected ReasonerChangeJournal changeJournal = new ReasonerChangeJournal();
+
     /* A ModelListener so we can listen to model
 	events and determine whether or not we need to sync the
 	reasoner. */
@@ -332,7 +336,7 @@ public abstract class AbstractProtegeReasoner implements ProtegeReasoner {
             // may result in exceptions, but we have
             // already flagged that the knowledgebase           
         	reset();
-            synchronizeReasoner = true;
+            forceReasonerReSynchronization();
 
             ReasonerLogger.getInstance().postLogRecord(ReasonerLogRecordFactory.getInstance().createErrorMessageLogRecord(e.getMessage(), null));
             task.setRequestAbort();
@@ -388,13 +392,13 @@ public abstract class AbstractProtegeReasoner implements ProtegeReasoner {
     	classListener = new ClassAdapter() {
             public void addedToUnionDomainOf(RDFSClass cls,
                                              RDFProperty property) {
-                reactToKnowledgeBaseChange();
+                reactToAxiomsAdded(property);
             }
 
 
             public void instanceAdded(RDFSClass cls,
                                       RDFResource instance) {
-                reactToKnowledgeBaseChange();
+                reactToAxiomsAdded(instance);
             }
 
 
@@ -412,7 +416,7 @@ public abstract class AbstractProtegeReasoner implements ProtegeReasoner {
 
             public void subclassAdded(RDFSClass cls,
                                       RDFSClass subclass) {
-                reactToKnowledgeBaseChange();
+                reactToAxiomsAdded(subclass);
             }
 
 
@@ -424,7 +428,7 @@ public abstract class AbstractProtegeReasoner implements ProtegeReasoner {
 
             public void superclassAdded(RDFSClass cls,
                                         RDFSClass superclass) {
-                reactToKnowledgeBaseChange();
+                reactToAxiomsAdded(cls);
             }
 
 
@@ -442,7 +446,7 @@ public abstract class AbstractProtegeReasoner implements ProtegeReasoner {
     	propertyListener = new PropertyAdapter() {
             public void subpropertyAdded(RDFProperty property,
                                          RDFProperty subproperty) {
-                reactToKnowledgeBaseChange();
+                reactToAxiomsAdded(subproperty);
             }
 
 
@@ -454,7 +458,7 @@ public abstract class AbstractProtegeReasoner implements ProtegeReasoner {
 
             public void superpropertyAdded(RDFProperty property,
                                            RDFProperty superproperty) {
-                reactToKnowledgeBaseChange();
+                reactToAxiomsAdded(property);
             }
 
 
@@ -466,7 +470,7 @@ public abstract class AbstractProtegeReasoner implements ProtegeReasoner {
 
             public void unionDomainClassAdded(RDFProperty property,
                                               RDFSClass rdfsClass) {
-                reactToKnowledgeBaseChange();
+                reactToAxiomsAdded(property);
             }
 
 
@@ -490,7 +494,7 @@ public abstract class AbstractProtegeReasoner implements ProtegeReasoner {
             public void propertyValueChanged(RDFResource resource,
                                              RDFProperty property,
                                              Collection oldValues) {
-                reactToKnowledgeBaseChange();
+                reactToPropertyValueChange(resource, property, oldValues);
             }
         };
         
@@ -501,7 +505,7 @@ public abstract class AbstractProtegeReasoner implements ProtegeReasoner {
     	resourceAdapter = new ResourceAdapter() {
             public void typeAdded(RDFResource resource,
                                   RDFSClass type) {
-                reactToKnowledgeBaseChange();
+                reactToAxiomsAdded(resource);
             }
 
 
@@ -517,7 +521,7 @@ public abstract class AbstractProtegeReasoner implements ProtegeReasoner {
     protected ModelListener getModelListener() {
     	 modelListener = new ModelAdapter() {
     	        public void classCreated(RDFSClass cls) {
-    	            reactToKnowledgeBaseChange();
+    	            reactToResourceCreated(cls);
     	        }
 
 
@@ -527,7 +531,7 @@ public abstract class AbstractProtegeReasoner implements ProtegeReasoner {
 
 
     	        public void propertyCreated(RDFProperty property) {
-    	            reactToKnowledgeBaseChange();
+    	            reactToResourceCreated(property);
     	        }
 
 
@@ -537,7 +541,7 @@ public abstract class AbstractProtegeReasoner implements ProtegeReasoner {
 
 
     	        public void individualCreated(RDFResource resource) {
-    	            reactToKnowledgeBaseChange();
+    	            reactToResourceCreated(resource);
     	        }
 
 
@@ -577,20 +581,40 @@ public abstract class AbstractProtegeReasoner implements ProtegeReasoner {
         // Render the ontology into DIG and send it to the external
         // dig reasoner
         if (synchronizeReasoner == true) {
-            SynchronizeReasonerTask synchronizeReasonerTask = new SynchronizeReasonerTask(this);
-            if (taskListener != null) {
-                synchronizeReasonerTask.addTaskListener(taskListener);
-            }
+            if (changeJournal.isFullSynchronizationRequired() ||
+                    !synchronizeReasonerIncrementally(changeJournal, taskListener)) {
+                SynchronizeReasonerTask synchronizeReasonerTask = new SynchronizeReasonerTask(this);
+                if (taskListener != null) {
+                    synchronizeReasonerTask.addTaskListener(taskListener);
+                }
 
-            synchronizeReasonerTask.run();
+                synchronizeReasonerTask.run();
 
-            if (taskListener != null) {
-                synchronizeReasonerTask.removeTaskListener(taskListener);
+                if (taskListener != null) {
+                    synchronizeReasonerTask.removeTaskListener(taskListener);
+                }
             }
 
+            changeJournal.clear();
             synchronizeReasoner = false;
         }
     }
+
+
+    /**
+     * Updates the reasoner with the changes recorded in the journal, without
+     * retransmitting the whole ontology.  This is only called if the journal
+     * contains no removals.
+     *
+     * @return <code>true</code> if the reasoner has been updated, or
+     *         <code>false</code> if this reasoner does not support incremental
+     *         updates and needs a full synchronization.  The default
+     *         implementation returns <code>false</code>.
+     */
+    protected boolean synchronizeReasonerIncrementally(ReasonerChangeJournal journal,
+                                                       ReasonerTaskListener taskListener) throws ProtegeReasonerException {
+        return false;
+    }
     
     
     protected void reactToKnowledgeBaseChange() {
@@ -600,12 +624,41 @@ public abstract class AbstractProtegeReasoner implements ProtegeReasoner {
     }
 
 
+    protected void reactToResourceCreated(RDFResource resource) {
+        if (autoSynchReasoner) {
+            changeJournal.resourceCreated(resource);
+            synchronizeReasoner = true;
+        }
+    }
+
+
+    protected void reactToAxiomsAdded(RDFResource resource) {
+        if (autoSynchReasoner) {
+            changeJournal.axiomsAdded(resource);
+            synchronizeReasoner = true;
+        }
+    }
+
+
+    protected void reactToPropertyValueChange(RDFResource resource, RDFProperty property, Collection oldValues) {
+        if (autoSynchReasoner) {
+            changeJournal.propertyValueChanged(resource, property, oldValues);
+            synchronizeReasoner = true;
+        }
+    }
+
+
     public void forceReasonerReSynchronization() {
+        changeJournal.requireFullSynchronization();
         synchronizeReasoner = true;
     }
 
 
     public void setAutoSynchronizationEnabled(boolean b) {
+        if (!b) {
+            // Changes will not be journaled from now on
+            changeJournal.requireFullSynchronization();
+        }
         autoSynchReasoner = b;
     }
 
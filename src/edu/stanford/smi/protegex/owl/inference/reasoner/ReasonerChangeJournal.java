@@ -0,0 +1,194 @@
+package edu.stanford.smi.protegex.owl.inference.reasoner;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+import edu.stanford.smi.protege.model.Model;
+import edu.stanford.smi.protege.model.Reference;
+import edu.stanford.smi.protege.model.Slot;
+import edu.stanford.smi.protegex.owl.model.OWLAnonymousClass;
+import edu.stanford.smi.protegex.owl.model.OWLModel;
+import edu.stanford.smi.protegex.owl.model.RDFList;
+import edu.stanford.smi.protegex.owl.model.RDFProperty;
+import edu.stanford.smi.protegex.owl.model.RDFResource;
+import edu.stanford.smi.protegex.owl.model.impl.OWLUtil;
+
+/**
+ * Records the changes of an OWLModel since a reasoner was last synchronized
+ * with it, so that the reasoner can be updated by telling it only the axioms
+ * of the affected resources instead of retransmitting the whole ontology.
+ * <p/>
+ * Since DIG (and most reasoner interfaces) cannot retract axioms, only
+ * monotonic changes are journaled: new resources and new axioms on named
+ * resources.  Any removal, deletion or rename marks the journal as requiring
+ * a full synchronization.  Changes inside anonymous class expressions that
+ * are not yet attached to a named resource are ignored; they are picked up
+ * when the expression is attached.
+ */
+public class ReasonerChangeJournal {
+
+    private Set<RDFResource> createdResources = new LinkedHashSet<RDFResource>();
+
+    private Set<RDFResource> changedResources = new LinkedHashSet<RDFResource>();
+
+    private boolean fullSynchronizationRequired = true;
+
+
+    /**
+     * Records that a named resource has been created.
+     */
+    public synchronized void resourceCreated(RDFResource resource) {
+        if (fullSynchronizationRequired) {
+            return;
+        }
+        if (resource.isAnonymous()) {
+            axiomsAdded(resource);
+        }
+        else {
+            createdResources.add(resource);
+        }
+    }
+
+
+    /**
+     * Records that axioms have been added to a resource, for example a new
+     * superclass, type, superproperty or domain.
+     */
+    public synchronized void axiomsAdded(RDFResource resource) {
+        if (fullSynchronizationRequired) {
+            return;
+        }
+        if (!resource.isAnonymous()) {
+            if (!createdResources.contains(resource)) {
+                changedResources.add(resource);
+            }
+        }
+        else if (isAttached(resource)) {
+            // An expression that is already known to the reasoner has been
+            // modified in place, which cannot be expressed as an addition.
+            requireFullSynchronization();
+        }
+    }
+
+
+    /**
+     * Records a property value change.  The change is journaled as an
+     * addition if all old values are still present, and otherwise requires
+     * a full synchronization.
+     */
+    public synchronized void propertyValueChanged(RDFResource resource,
+                                                  RDFProperty property,
+                                                  Collection oldValues) {
+        if (fullSynchronizationRequired || property.isAnnotationProperty()) {
+            return;
+        }
+        if (oldValues == null) {
+            requireFullSynchronization();
+        }
+        else if (oldValues.isEmpty() || resource.getPropertyValues(property).containsAll(oldValues)) {
+            axiomsAdded(resource);
+        }
+        else if (!resource.isAnonymous() || isAttached(resource)) {
+            requireFullSynchronization();
+        }
+    }
+
+
+    /**
+     * Marks the journal as requiring a full synchronization, discarding
+     * the changes recorded so far.
+     */
+    public synchronized void requireFullSynchronization() {
+        fullSynchronizationRequired = true;
+        createdResources.clear();
+        changedResources.clear();
+    }
+
+
+    public synchronized boolean isFullSynchronizationRequired() {
+        return fullSynchronizationRequired;
+    }
+
+
+    public synchronized boolean isEmpty() {
+        return createdResources.isEmpty() && changedResources.isEmpty();
+    }
+
+
+    /**
+     * Gets the named resources created since the last synchronization.
+     */
+    public synchronized Collection<RDFResource> getCreatedResources() {
+        return new ArrayList<RDFResource>(createdResources);
+    }
+
+
+    /**
+     * Gets the named resources that existed at the last synchronization
+     * and have gained axioms since.
+     */
+    public synchronized Collection<RDFResource> getChangedResources() {
+        return new ArrayList<RDFResource>(changedResources);
+    }
+
+
+    /**
+     * Clears the journal after the reasoner has been synchronized.
+     */
+    public synchronized void clear() {
+        fullSynchronizationRequired = false;
+        createdResources.clear();
+        changedResources.clear();
+    }
+
+
+    /**
+     * Determines whether an anonymous resource is part of an expression
+     * that is used anywhere in the model, for example as a superclass, a type,
+     * a domain or range, or in a disjointness axiom.  Resources other than
+     * class expressions and lists are conservatively considered attached.
+     */
+    private boolean isAttached(RDFResource resource) {
+        if (resource instanceof OWLAnonymousClass) {
+            return isReferenced(((OWLAnonymousClass) resource).getExpressionRoot());
+        }
+        else if (resource instanceof RDFList) {
+            RDFList start = ((RDFList) resource).getStart();
+            Set referringClasses = new HashSet();
+            OWLUtil.getReferringLogicalClasses(start, referringClasses);
+            if (referringClasses.isEmpty()) {
+                return isReferenced(start);
+            }
+            for (Iterator it = referringClasses.iterator(); it.hasNext();) {
+                if (isAttached((RDFResource) it.next())) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        return true;
+    }
+
+
+    /**
+     * Checks whether a resource is the value of a property of another resource.
+     * The references that only reflect the superclasses and types of the
+     * resource itself are ignored.
+     */
+    private static boolean isReferenced(RDFResource resource) {
+        OWLModel owlModel = resource.getOWLModel();
+        Slot directSubclassesSlot = owlModel.getSlot(Model.Slot.DIRECT_SUBCLASSES);
+        Slot directInstancesSlot = owlModel.getSlot(Model.Slot.DIRECT_INSTANCES);
+        for (Iterator it = resource.getReferences().iterator(); it.hasNext();) {
+            Slot slot = ((Reference) it.next()).getSlot();
+            if (!directSubclassesSlot.equals(slot) && !directInstancesSlot.equals(slot)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
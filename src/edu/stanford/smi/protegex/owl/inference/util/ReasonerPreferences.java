@@ -17,6 +17,14 @@ public class ReasonerPreferences {
 
     public static final String REASONER_URL_KEY = "edu.stanford.smi.protegex.owl.jena.reasoner.URL";
 
+    public static final String ASKS_BATCH_SIZE_KEY = "edu.stanford.smi.protegex.owl.inference.asks_batch_size";
+
+    public static final String MAX_CONCURRENT_ASKS_KEY = "edu.stanford.smi.protegex.owl.inference.max_concurrent_asks";
+
+    public static final int DEFAULT_ASKS_BATCH_SIZE = 1000;
+
+    public static final int DEFAULT_MAX_CONCURRENT_ASKS = 4;
+
     private static ReasonerPreferences instance;
 
     private boolean warningsAsErrors = false;
@@ -120,5 +128,35 @@ public class ReasonerPreferences {
     public void setAutomaticallyShowInferredHierarchy(boolean automaticallyShowInferredHierarchy) {
         this.automaticallyShowInferredHierarchy = automaticallyShowInferredHierarchy;
     }
+
+
+    /**
+     * Gets the maximum number of queries that are sent to the reasoner in
+     * a single asks request when the inferred hierarchy or types are computed.
+     */
+    public int getAsksBatchSize() {
+        int size = ApplicationProperties.getIntegerProperty(ASKS_BATCH_SIZE_KEY, DEFAULT_ASKS_BATCH_SIZE);
+        return size > 0 ? size : DEFAULT_ASKS_BATCH_SIZE;
+    }
+
+
+    public void setAsksBatchSize(int size) {
+        ApplicationProperties.setString(ASKS_BATCH_SIZE_KEY, Integer.toString(size));
+    }
+
+
+    /**
+     * Gets the maximum number of asks requests that may be waiting for
+     * a response from the reasoner at the same time.
+     */
+    public int getMaxConcurrentAsks() {
+        int max = ApplicationProperties.getIntegerProperty(MAX_CONCURRENT_ASKS_KEY, DEFAULT_MAX_CONCURRENT_ASKS);
+        return max > 0 ? max : 1;
+    }
+
+
+    public void setMaxConcurrentAsks(int max) {
+        ApplicationProperties.setString(MAX_CONCURRENT_ASKS_KEY, Integer.toString(max));
+    }
 }
 
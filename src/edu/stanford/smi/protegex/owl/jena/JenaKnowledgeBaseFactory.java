@@ -202,6 +202,7 @@ public class JenaKnowledgeBaseFactory implements OWLKnowledgeBaseFactory {
 		        ProtegeOWLParser parser = new ProtegeOWLParser(owlModel);
 		        parser.setMergingImportMode(isMergingImportMode());
 		        parser.run(absoluteURI);
+		        owlModel.getTripleStoreChangeTracker().clear();
 		    }
 	        catch (OntologyLoadException t) {
 	        	handleException(t, owlModel, absoluteURI, errors);
@@ -277,7 +278,8 @@ public class JenaKnowledgeBaseFactory implements OWLKnowledgeBaseFactory {
                     OWLModelAllTripleStoresWriter writer = new OWLModelAllTripleStoresWriter((OWLModel) kb, 
                                                                                              absoluteURI,
                                                                                              ws.isSortAlphabetically());
-                    writer.write();
+                    writer.setParallel(ws.isParallelSave());
+                    writer.write(errors);
                 }
                 catch (Exception ex) {
                     String message = "Failed to save file " + absoluteURI;
@@ -37,6 +37,7 @@ import edu.stanford.smi.protegex.owl.jena.creator.JenaCreator;
 import edu.stanford.smi.protegex.owl.jena.creator.OwlProjectFromReaderCreator;
 import edu.stanford.smi.protegex.owl.jena.creator.OwlProjectFromStreamCreator;
 import edu.stanford.smi.protegex.owl.jena.parser.ProtegeOWLParser;
+import edu.stanford.smi.protegex.owl.jena.protege2jena.OntModelCache;
 import edu.stanford.smi.protegex.owl.jena.protege2jena.Protege2Jena;
 import edu.stanford.smi.protegex.owl.jena.writersettings.JenaWriterSettings;
 import edu.stanford.smi.protegex.owl.model.OWLOntology;
@@ -75,6 +76,8 @@ public class JenaOWLModel extends AbstractOWLModel implements OntModelProvider {
 
     public final static String WRITER_PROTEGE = "protege";
 
+    private OntModelCache ontModelCache = new OntModelCache(this);
+
 
     protected JenaOWLModel(KnowledgeBaseFactory factory) {
         super(factory);
@@ -109,10 +112,17 @@ public class JenaOWLModel extends AbstractOWLModel implements OntModelProvider {
     }
 
 
+    /**
+     * Gets the Jena OntModel of this.  The OntModel is cached and updated
+     * incrementally when this OWLModel changes, so it is shared between all callers
+     * and must not be modified.  Use <CODE>Protege2Jena.createOntModel</CODE> or
+     * <CODE>Jena.cloneOntModel</CODE> to get a private copy.
+     *
+     * @return the current OntModel
+     */
     // Implements OntModelProvider
     public OntModel getOntModel() {
-        // TODO buffer recent OntModel until changed
-        return Protege2Jena.createOntModel(this);
+        return ontModelCache.getOntModel();
 
         //JenaCreator creator = new JenaCreator(this, false, null,
         //        inUI ? new ModalProgressBarManager("Preparing Ontology") : null);
@@ -141,8 +151,32 @@ public class JenaOWLModel extends AbstractOWLModel implements OntModelProvider {
 
 
     public int getOWLSpecies() {
-        OntModel ontModel = Protege2Jena.createOntModel(this);
-        return Jena.getOWLSpecies(ontModel);
+        return Jena.getOWLSpecies(getOntModel());
+    }
+
+
+    @Override
+    public void flushCache() {
+        super.flushCache();
+        if (ontModelCache != null) {
+            ontModelCache.invalidate();
+        }
+    }
+
+
+    @Override
+    public boolean setGenerateEventsEnabled(boolean enabled) {
+        if (ontModelCache != null) {
+            ontModelCache.setEnabled(enabled);
+        }
+        return super.setGenerateEventsEnabled(enabled);
+    }
+
+
+    @Override
+    public synchronized void dispose() {
+        ontModelCache.dispose();
+        super.dispose();
     }
 
 
@@ -197,7 +231,8 @@ public class JenaOWLModel extends AbstractOWLModel implements OntModelProvider {
                 XMLWriterPreferences.getInstance().setUseNamespaceEntities(useEntities);
                 OWLModelAllTripleStoresWriter writer = new OWLModelAllTripleStoresWriter(this, fileURI,
                         ws.isSortAlphabetically());
-                writer.write();
+                writer.setParallel(ws.isParallelSave());
+                writer.write(errors);
             }
             catch (Exception ex) {
                	String message = "Failed to save file " + fileURI;
@@ -214,7 +249,9 @@ public class JenaOWLModel extends AbstractOWLModel implements OntModelProvider {
     @Deprecated
     public void save(OutputStream os, String language, Collection errors) {
         closeRDFLists();
-        save(os, language, errors, getOntModel());
+        // writing languages other than RDF/XML changes the prefixes of the shared OntModel
+        OntModel ontModel = Jena.isXMLLanguage(language) ? getOntModel() : Jena.cloneOntModel(getOntModel());
+        save(os, language, errors, ontModel);
     }
 
 
@@ -18,9 +18,13 @@ public interface OntModelProvider {
 
 
     /**
-     * Gets an OntModel which represents the current state.
+     * Gets an OntModel which represents the current state.  Implementations may
+     * return the same OntModel on every call and update it while the ontology
+     * changes.  Clients must therefore not modify the OntModel, and should work on
+     * a copy (see <CODE>Jena.cloneOntModel</CODE>) if they want to change it or
+     * need a snapshot.
      *
-     * @return an OntModel
+     * @return an OntModel (not to be modified)
      */
     OntModel getOntModel();
 
@@ -1,18 +1,33 @@
 package edu.stanford.smi.protegex.owl.jena.export;
 
+import com.hp.hpl.jena.util.FileUtils;
+
 import edu.stanford.smi.protege.model.KnowledgeBase;
 import edu.stanford.smi.protege.model.Project;
 import edu.stanford.smi.protege.plugin.ExportPlugin;
 import edu.stanford.smi.protege.ui.ProjectView;
+import edu.stanford.smi.protege.util.Log;
+import edu.stanford.smi.protege.util.MessageError;
 import edu.stanford.smi.protegex.owl.jena.JenaKnowledgeBaseFactory;
 import edu.stanford.smi.protegex.owl.jena.JenaOWLModel;
+import edu.stanford.smi.protegex.owl.model.OWLModel;
+import edu.stanford.smi.protegex.owl.model.triplestore.TripleStore;
 import edu.stanford.smi.protegex.owl.ui.ProtegeUI;
 import edu.stanford.smi.protegex.owl.ui.widget.OWLUI;
+import edu.stanford.smi.protegex.owl.writer.triples.AbstractTriplesWriter;
+import edu.stanford.smi.protegex.owl.writer.triples.NTriplesWriter;
+import edu.stanford.smi.protegex.owl.writer.triples.TurtleWriter;
 
 import javax.swing.*;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.net.URI;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.logging.Level;
 
 /**
  * @author Holger Knublauch  <holger@knublauch.com>
@@ -44,7 +59,7 @@ public abstract class AbstractJenaFileExportPlugin implements ExportPlugin {
             JFileChooser fileChooser = OWLUI.createJFileChooser(lang, JenaKnowledgeBaseFactory.getExtension(lang));
             if (fileChooser.showSaveDialog(ProtegeUI.getTopLevelContainer(kb.getProject())) == JFileChooser.APPROVE_OPTION) {
                 URI fileURI = fileChooser.getSelectedFile().toURI();
-                owlModel.save(fileURI, lang, errors);
+                export(owlModel, fileURI, errors);
                 if (errors.isEmpty()) {
                     ProtegeUI.getModalDialogFactory().showMessageDialog(owlModel, "Successfully exported to " + fileURI);
                 }
@@ -59,4 +74,57 @@ public abstract class AbstractJenaFileExportPlugin implements ExportPlugin {
                     "This function can only export OWL File projects.");
         }
     }
+
+
+    /**
+     * Exports the triples of the top TripleStore of a model.  If there is a native
+     * writer for the language, the triples are streamed straight from the
+     * TripleStore to the file; otherwise the model is saved through Jena.
+     */
+    protected void export(JenaOWLModel owlModel, URI fileURI, Collection errors) {
+        TripleStore tripleStore = owlModel.getTripleStoreModel().getTopTripleStore();
+        Writer writer = null;
+        try {
+            writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(new File(fileURI)), "UTF-8"));
+            AbstractTriplesWriter triplesWriter = createTriplesWriter(owlModel, tripleStore, writer);
+            if (triplesWriter == null) {
+                writer.close();
+                writer = null;
+                owlModel.save(fileURI, lang, errors);
+                return;
+            }
+            triplesWriter.write();
+        }
+        catch (Exception ex) {
+            String message = "Failed to export to " + fileURI;
+            Log.getLogger().log(Level.SEVERE, message, ex);
+            errors.add(new MessageError(ex, message));
+        }
+        finally {
+            if (writer != null) {
+                try {
+                    writer.close();
+                }
+                catch (Exception ex) {
+                    Log.emptyCatchBlock(ex);
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Creates the native writer for the language of this plugin.
+     *
+     * @return the writer, or null if there is no native writer for the language
+     */
+    protected AbstractTriplesWriter createTriplesWriter(OWLModel owlModel, TripleStore tripleStore, Writer writer) {
+        if (FileUtils.langNTriple.equals(lang)) {
+            return new NTriplesWriter(owlModel, tripleStore, writer);
+        }
+        else if (FileUtils.langTurtle.equals(lang) || FileUtils.langN3.equals(lang)) {
+            return new TurtleWriter(owlModel, tripleStore, writer);
+        }
+        return null;
+    }
 }
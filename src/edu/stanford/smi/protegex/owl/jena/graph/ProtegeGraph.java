@@ -10,6 +10,9 @@ import com.hp.hpl.jena.rdf.model.AnonId;
 import com.hp.hpl.jena.shared.AddDeniedException;
 import com.hp.hpl.jena.shared.PrefixMapping;
 import com.hp.hpl.jena.util.iterator.ExtendedIterator;
+import com.hp.hpl.jena.util.iterator.Filter;
+import com.hp.hpl.jena.util.iterator.Map1;
+import com.hp.hpl.jena.util.iterator.NiceIterator;
 import com.hp.hpl.jena.util.iterator.NullIterator;
 import com.hp.hpl.jena.util.iterator.SingletonIterator;
 import com.hp.hpl.jena.util.iterator.WrappedIterator;
@@ -17,10 +20,7 @@ import edu.stanford.smi.protegex.owl.model.*;
 import edu.stanford.smi.protegex.owl.model.impl.XMLSchemaDatatypes;
 import edu.stanford.smi.protegex.owl.model.triplestore.TripleStore;
 
-import java.util.ArrayList;
-import java.util.Collection;
 import java.util.Iterator;
-import java.util.List;
 
 /**
  * An experimental implementation of the Jena Graph interface so that
@@ -55,22 +55,25 @@ public class ProtegeGraph extends GraphBase implements Graph {
     }
 
 
-    private ExtendedIterator createExtendedIterator(Iterator protegeTriplesIterator) {
-        List results = createJenaTriplesList(protegeTriplesIterator);
-        return WrappedIterator.create(results.iterator());
+    /**
+     * Wraps an Iterator of Protege triples so that the corresponding Jena triples
+     * are only created while the result is being consumed.
+     */
+    private ExtendedIterator<Triple> createExtendedIterator(Iterator<edu.stanford.smi.protegex.owl.model.triplestore.Triple> protegeTriplesIterator) {
+        return WrappedIterator.create(protegeTriplesIterator).mapWith(
+                new Map1<edu.stanford.smi.protegex.owl.model.triplestore.Triple, Triple>() {
+                    public Triple map1(edu.stanford.smi.protegex.owl.model.triplestore.Triple triple) {
+                        return createJenaTriple(triple);
+                    }
+                });
     }
 
 
-    private List createJenaTriplesList(Iterator protegeTriplesIterator) {
-        List results = new ArrayList();
-        while (protegeTriplesIterator.hasNext()) {
-            edu.stanford.smi.protegex.owl.model.triplestore.Triple triple = (edu.stanford.smi.protegex.owl.model.triplestore.Triple) protegeTriplesIterator.next();
-            Node subjectNode = createNode(triple.getSubject());
-            Node predicateNode = createNode(triple.getPredicate());
-            Node objectNode = createNode(triple.getObject());
-            results.add(new Triple(subjectNode, predicateNode, objectNode));
-        }
-        return results;
+    private Triple createJenaTriple(edu.stanford.smi.protegex.owl.model.triplestore.Triple triple) {
+        Node subjectNode = createNode(triple.getSubject());
+        Node predicateNode = createNode(triple.getPredicate());
+        Node objectNode = createNode(triple.getObject());
+        return new Triple(subjectNode, predicateNode, objectNode);
     }
 
 
@@ -135,22 +138,32 @@ public class ProtegeGraph extends GraphBase implements Graph {
     }
 
 
-    private ExtendedIterator findWithPredicateOnly(Node predicateNode) {
-        RDFProperty property = getRDFProperty(predicateNode);
+    private ExtendedIterator findWithPredicateOnly(final Node predicateNode) {
+        final RDFProperty property = getRDFProperty(predicateNode);
         if (property != null) {
-            Collection results = new ArrayList();
-            Iterator it = ts.listSubjects(property);
-            while (it.hasNext()) {
-                RDFResource subject = (RDFResource) it.next();
-                Node subjectNode = createNode(subject);
-                Iterator vit = subject.listPropertyValues(property);
-                while (vit.hasNext()) {
-                    Object value = vit.next();
-                    Node objectNode = createNode(value);
-                    results.add(new Triple(subjectNode, predicateNode, objectNode));
+            final Iterator<RDFResource> subjects = ts.listSubjects(property);
+            return new NiceIterator<Triple>() {
+                private Node subjectNode;
+                private Iterator values;
+
+                public boolean hasNext() {
+                    while (values == null || !values.hasNext()) {
+                        if (!subjects.hasNext()) {
+                            return false;
+                        }
+                        RDFResource subject = subjects.next();
+                        subjectNode = createNode(subject);
+                        values = subject.listPropertyValues(property);
+                    }
+                    return true;
                 }
-            }
-            return WrappedIterator.create(results.iterator());
+
+                public Triple next() {
+                    ensureHasNext();
+                    Node objectNode = createNode(values.next());
+                    return new Triple(subjectNode, predicateNode, objectNode);
+                }
+            };
         }
         else {
             return new NullIterator();
@@ -158,20 +171,17 @@ public class ProtegeGraph extends GraphBase implements Graph {
     }
 
 
-    private ExtendedIterator findWithPredicateAndObject(Node predicateNode, Node objectNode) {
+    private ExtendedIterator findWithPredicateAndObject(final Node predicateNode, final Node objectNode) {
         RDFProperty predicate = getRDFProperty(predicateNode);
         if (predicate != null) {
             RDFObject object = getRDFObject(objectNode);
             if (object != null) {
-                Collection results = new ArrayList();
-                Iterator it = ts.listSubjects(predicate, object);
-                while (it.hasNext()) {
-                    RDFResource subject = (RDFResource) it.next();
-                    Node subjectNode = createNode(subject);
-                    Triple triple = new Triple(subjectNode, predicateNode, objectNode);
-                    results.add(triple);
-                }
-                return WrappedIterator.create(results.iterator());
+                Iterator<RDFResource> it = ts.listSubjects(predicate, object);
+                return WrappedIterator.create(it).mapWith(new Map1<RDFResource, Triple>() {
+                    public Triple map1(RDFResource subject) {
+                        return new Triple(createNode(subject), predicateNode, objectNode);
+                    }
+                });
             }
         }
         return new NullIterator();
@@ -204,41 +214,35 @@ public class ProtegeGraph extends GraphBase implements Graph {
     }
 
 
-    private ExtendedIterator findWithSubjectOnly(Node subjectNode, RDFResource subject) {
-        // Very inefficient loop over all triples
-        List results = new ArrayList();
-        Iterator it = ts.listTriples();
-        while (it.hasNext()) {
-            edu.stanford.smi.protegex.owl.model.triplestore.Triple triple = (edu.stanford.smi.protegex.owl.model.triplestore.Triple) it.next();
-            if (triple.getSubject().equals(subject)) {
+    private ExtendedIterator findWithSubjectOnly(final Node subjectNode, RDFResource subject) {
+        Iterator<edu.stanford.smi.protegex.owl.model.triplestore.Triple> it = ts.listTriplesWithSubject(subject);
+        return WrappedIterator.create(it).mapWith(new Map1<edu.stanford.smi.protegex.owl.model.triplestore.Triple, Triple>() {
+            public Triple map1(edu.stanford.smi.protegex.owl.model.triplestore.Triple triple) {
                 Node predicateNode = createNode(triple.getPredicate());
                 Node objectNode = createNode(triple.getObject());
-                results.add(new Triple(subjectNode, predicateNode, objectNode));
+                return new Triple(subjectNode, predicateNode, objectNode);
             }
-        }
-        return WrappedIterator.create(results.iterator());
+        });
     }
 
 
-    private ExtendedIterator findWithSubjectAndObject(Node subjectNode, RDFResource subject, Node objectNode) {
-        // Very inefficient loop over all triples
-        List results = new ArrayList();
-        Iterator it = ts.listTriples();
-        while (it.hasNext()) {
-            edu.stanford.smi.protegex.owl.model.triplestore.Triple triple = (edu.stanford.smi.protegex.owl.model.triplestore.Triple) it.next();
-            if (triple.getSubject().equals(subject)) {
-                Node otherObjectNode = createNode(triple.getObject());
-                if (otherObjectNode.equals(objectNode)) {
-                    Node predicateNode = createNode(triple.getPredicate());
-                    results.add(new Triple(subjectNode, predicateNode, objectNode));
-                }
+    private ExtendedIterator findWithSubjectAndObject(final Node subjectNode, RDFResource subject, final Node objectNode) {
+        Iterator<edu.stanford.smi.protegex.owl.model.triplestore.Triple> it = ts.listTriplesWithSubject(subject);
+        return WrappedIterator.create(it).filterKeep(new Filter<edu.stanford.smi.protegex.owl.model.triplestore.Triple>() {
+            @Override
+            public boolean accept(edu.stanford.smi.protegex.owl.model.triplestore.Triple triple) {
+                return createNode(triple.getObject()).equals(objectNode);
             }
-        }
-        return WrappedIterator.create(results.iterator());
+        }).mapWith(new Map1<edu.stanford.smi.protegex.owl.model.triplestore.Triple, Triple>() {
+            public Triple map1(edu.stanford.smi.protegex.owl.model.triplestore.Triple triple) {
+                Node predicateNode = createNode(triple.getPredicate());
+                return new Triple(subjectNode, predicateNode, objectNode);
+            }
+        });
     }
 
 
-    private ExtendedIterator findWithSubjectAndPredicate(Node subjectNode, RDFResource subject, Node predicateNode, RDFProperty predicate, Node objectNode) {
+    private ExtendedIterator findWithSubjectAndPredicate(final Node subjectNode, RDFResource subject, final Node predicateNode, RDFProperty predicate, Node objectNode) {
         if (objectNode != null) {
             Object object = null;
             if (objectNode.isLiteral()) {
@@ -258,14 +262,12 @@ public class ProtegeGraph extends GraphBase implements Graph {
             }
         }
         else {
-            Collection triples = new ArrayList();
-            Iterator it = ts.listObjects(subject, predicate);
-            while (it.hasNext()) {
-                Object object = it.next();
-                Node node = createNode(object);
-                triples.add(new Triple(subjectNode, predicateNode, node));
-            }
-            return WrappedIterator.create(triples.iterator());
+            Iterator<Object> it = ts.listObjects(subject, predicate);
+            return WrappedIterator.create(it).mapWith(new Map1<Object, Triple>() {
+                public Triple map1(Object object) {
+                    return new Triple(subjectNode, predicateNode, createNode(object));
+                }
+            });
         }
     }
 
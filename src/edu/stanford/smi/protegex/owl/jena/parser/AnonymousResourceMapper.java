@@ -0,0 +1,156 @@
+package edu.stanford.smi.protegex.owl.jena.parser;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.hp.hpl.jena.rdf.arp.ALiteral;
+import com.hp.hpl.jena.rdf.arp.AResource;
+import com.hp.hpl.jena.rdf.arp.StatementHandler;
+
+/**
+ * Gives the anonymous resources of a document IDs that are unique to the document.
+ * <p/>
+ * ARP numbers the anonymous nodes without an rdf:nodeID with a global counter
+ * which is not thread safe, so two anonymous nodes may get the same ID while
+ * several documents are parsed at the same time, for example by the
+ * <code>ImportPrefetcher</code>.  ARP passes the same <code>AResource</code> for
+ * all statements of such a node, so these nodes are mapped by identity, and not
+ * by their IDs.  Nodes with an rdf:nodeID are mapped by their node ID, which
+ * does not depend on the counter.
+ */
+class AnonymousResourceMapper {
+
+    private static final AtomicInteger documentCount = new AtomicInteger();
+
+    private String documentId = "P" + documentCount.incrementAndGet() + "_";
+
+    private Map<AResource, AResource> generatedResources = new IdentityHashMap<AResource, AResource>();
+
+    private Map<String, AResource> nodeIDResources = new HashMap<String, AResource>();
+
+
+    /**
+     * Gets the resource to pass on for a resource generated by ARP.  Resources
+     * that have already been mapped and named resources are returned unchanged.
+     */
+    public AResource getResource(AResource resource) {
+        if (!resource.isAnonymous() || resource instanceof AnonymousResource) {
+            return resource;
+        }
+        if (resource.hasNodeID()) {
+            String id = resource.getAnonymousID();
+            AResource anonymousResource = nodeIDResources.get(id);
+            if (anonymousResource == null) {
+                anonymousResource = new AnonymousResource(documentId + id, true);
+                nodeIDResources.put(id, anonymousResource);
+            }
+            return anonymousResource;
+        }
+        else {
+            AResource anonymousResource = generatedResources.get(resource);
+            if (anonymousResource == null) {
+                anonymousResource = new AnonymousResource(documentId + "G" + generatedResources.size(), false);
+                generatedResources.put(resource, anonymousResource);
+            }
+            return anonymousResource;
+        }
+    }
+
+
+    /**
+     * A StatementHandler that maps the anonymous resources of the statements
+     * before passing them on to another StatementHandler.
+     */
+    static class MappingStatementHandler implements StatementHandler {
+
+        private AnonymousResourceMapper mapper = new AnonymousResourceMapper();
+
+        private StatementHandler statementHandler;
+
+
+        MappingStatementHandler(StatementHandler statementHandler) {
+            this.statementHandler = statementHandler;
+        }
+
+
+        public StatementHandler getStatementHandler() {
+            return statementHandler;
+        }
+
+
+        public void statement(AResource subj, AResource pred, AResource obj) {
+            statementHandler.statement(mapper.getResource(subj), pred, mapper.getResource(obj));
+        }
+
+
+        public void statement(AResource subj, AResource pred, ALiteral lit) {
+            statementHandler.statement(mapper.getResource(subj), pred, lit);
+        }
+    }
+
+
+    private static class AnonymousResource implements AResource {
+
+        private String id;
+
+        private boolean nodeID;
+
+        private Object userData;
+
+
+        AnonymousResource(String id, boolean nodeID) {
+            this.id = id;
+            this.nodeID = nodeID;
+        }
+
+
+        public String getAnonymousID() {
+            return id;
+        }
+
+
+        public String getURI() {
+            return null;
+        }
+
+
+        public Object getUserData() {
+            return userData;
+        }
+
+
+        public void setUserData(Object userData) {
+            this.userData = userData;
+        }
+
+
+        public boolean hasNodeID() {
+            return nodeID;
+        }
+
+
+        public boolean isAnonymous() {
+            return true;
+        }
+
+
+        @Override
+        public boolean equals(Object obj) {
+            return obj instanceof AnonymousResource && ((AnonymousResource) obj).id.equals(id);
+        }
+
+
+        @Override
+        public int hashCode() {
+            return id.hashCode();
+        }
+
+
+        @Override
+        public String toString() {
+            return "_:" + id;
+        }
+    }
+}
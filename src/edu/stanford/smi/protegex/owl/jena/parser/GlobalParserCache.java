@@ -24,7 +24,7 @@ public class GlobalParserCache implements Disposable {
 	//We need to make sure that there is only one UndefTripleManager per owlModel
 	private OWLModel owlModel;
 
-	private HashMap<String, Collection<UndefTriple>> undefTriplesMap = new HashMap<String, Collection<UndefTriple>>();
+	private UndefTripleBuffer undefTriples = new UndefTripleBuffer();
 
 	/*
 	 * Global caches
@@ -41,6 +41,15 @@ public class GlobalParserCache implements Disposable {
 
 	private TripleProcessor tripleProcessor;
 
+	/*
+	 * State of the load in progress
+	 */
+	private OWLImportsCache owlImportsCache = new OWLImportsCache();
+	private String topOntologyName;
+	//needed for merging imports to support import by location
+	private String currentlyParsingOntologyLocation;
+	private ImportPrefetcher importPrefetcher;
+
 
 	public GlobalParserCache(OWLModel owlModel) {
 		this.owlModel = owlModel;
@@ -61,50 +70,48 @@ public class GlobalParserCache implements Disposable {
 		}
 
 		if (log.isLoggable(Level.FINE)) {
-			if (undefTriplesMap.keySet().size() % 1000 == 0) {
-				log.fine(" Undef triples count: " + undefTriplesMap.keySet().size());
+			if (undefTriples.getKeyCount() % 1000 == 0) {
+				log.fine(" Undef triples count: " + undefTriples.getKeyCount());
 			}
 		}
 
-		Collection<UndefTriple> undefTriples = getUndefTriples(undef);
-		undefTriples.add(triple);
-		undefTriplesMap.put(undef, undefTriples); //don't think it's necessary
+		undefTriples.add(undef, triple);
 	}
 
+	/**
+	 * Gets the undefined triples of a resource.  The returned collection is
+	 * backed by the cache: triples removed through its iterator are removed
+	 * from the cache.
+	 */
 	public Collection<UndefTriple> getUndefTriples(String uri) {
-		Collection<UndefTriple> undefTriples = undefTriplesMap.get(uri);
-
-		if (undefTriples == null) {
-			return new ArrayList<UndefTriple>();
-		}
-
-		return undefTriples;
+		return undefTriples.get(uri);
 	}
 
+	/**
+	 * Gets a snapshot of the names of the resources that have undefined triples.
+	 */
 	public Set<String> getUndefTriplesKeys() {
-		return undefTriplesMap.keySet();
+		return undefTriples.getKeys();
 	}
 
 	public int getUndefTripleSize() {
-		return undefTriplesMap.size();
+		return undefTriples.getKeyCount();
 	}
 
 	public void removeUndefTriple(String uri, UndefTriple undefTriple) {
             if (log.isLoggable(Level.FINE)) {
             	log.fine(" --- Removing: " + undefTriple);
             }
-            Collection<UndefTriple> undefTriples = getUndefTriples(uri);
-            undefTriples.remove(undefTriple);
+            Collection<UndefTriple> triples = getUndefTriples(uri);
+            triples.remove(undefTriple);
 
-            if (undefTriples.isEmpty()) {
-                undefTriplesMap.remove(uri);
-            } else {
-                undefTriplesMap.put(uri, undefTriples);
+            if (triples.isEmpty()) {
+                undefTriples.remove(uri);
             }
 	}
 
 	public void removeUndefTripleKey(String uri) {
-		undefTriplesMap.remove(uri);
+		undefTriples.remove(uri);
 	}
 
 	public void dumpUndefTriples(Level level) {
@@ -113,9 +120,8 @@ public class GlobalParserCache implements Disposable {
 	    }
 
 		log.log(level, "\n --------------- Begin undef triples dump ----------------");
-		for (String string : undefTriplesMap.keySet()) {
-			String uri = string;
-			for (UndefTriple undefTriple : undefTriplesMap.get(uri)) {
+		for (String uri : undefTriples.getKeys()) {
+			for (UndefTriple undefTriple : undefTriples.get(uri)) {
 				UndefTriple triple = undefTriple;
 				log.log(level, " * " + triple);
 			}
@@ -171,6 +177,39 @@ public class GlobalParserCache implements Disposable {
 		return oneOfTriples;
 	}
 
+	public OWLImportsCache getOWLImportsCache() {
+		return owlImportsCache;
+	}
+
+	public String getTopOntologyName() {
+		return topOntologyName;
+	}
+
+	public void setTopOntologyName(String topOntologyName) {
+		this.topOntologyName = topOntologyName;
+	}
+
+	public String getCurrentlyParsingOntologyLocation() {
+		return currentlyParsingOntologyLocation;
+	}
+
+	public void setCurrentlyParsingOntologyLocation(String currentlyParsingOntologyLocation) {
+		this.currentlyParsingOntologyLocation = currentlyParsingOntologyLocation;
+	}
+
+	/**
+	 * Gets the prefetcher of the imports of the load in progress.
+	 *
+	 * @return the prefetcher, or null if the imports are not prefetched
+	 */
+	public ImportPrefetcher getImportPrefetcher() {
+		return importPrefetcher;
+	}
+
+	public void setImportPrefetcher(ImportPrefetcher importPrefetcher) {
+		this.importPrefetcher = importPrefetcher;
+	}
+
 	public void dispose() {
 		multipleTypesInstanceCache.dispose();
 		framesWithWrongJavaType.clear();
@@ -179,7 +218,14 @@ public class GlobalParserCache implements Disposable {
 		possibleGCIPredicates.clear();
 		gciAxioms.clear();
 		objectToNamedLogicalClassSurrogate.clear();
-		undefTriplesMap.clear();
+		undefTriples.clear();
+		owlImportsCache.dispose();
+		topOntologyName = null;
+		currentlyParsingOntologyLocation = null;
+		if (importPrefetcher != null) {
+			importPrefetcher.dispose();
+			importPrefetcher = null;
+		}
 	}
 
 }
@@ -24,7 +24,7 @@ public class ImplicitImports {
             new File(ProtegeOWL.getPluginFolder(),
                     LOCAL_FILE_NAME);
 
-    private static Set namespaces;
+    private static volatile Set namespaces;
 
 
     /**
@@ -35,7 +35,9 @@ public class ImplicitImports {
      * @return true  if the namespace shall be imported
      */
     public static boolean isImplicitImport(String namespace) {
+        Set namespaces = ImplicitImports.namespaces;
         if (namespaces == null) {
+            // Fill a local set first, so that concurrent loads never see a partial set
             namespaces = new HashSet();
             File file = FILE;
             if (file.exists()) {
@@ -55,6 +57,7 @@ public class ImplicitImports {
                     Log.getLogger().log(Level.WARNING, "Exception caught", ex);
                 }
             }
+            ImplicitImports.namespaces = namespaces;
         }
         return namespaces.contains(namespace);
     }
@@ -0,0 +1,287 @@
+package edu.stanford.smi.protegex.owl.jena.parser;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ThreadFactory;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import edu.stanford.smi.protege.util.ApplicationProperties;
+import edu.stanford.smi.protege.util.Log;
+import edu.stanford.smi.protegex.owl.model.OWLModel;
+import edu.stanford.smi.protegex.owl.repository.Repository;
+import edu.stanford.smi.protegex.owl.repository.RepositoryManager;
+import edu.stanford.smi.protegex.owl.repository.impl.AbstractStreamBasedRepositoryImpl;
+import edu.stanford.smi.protegex.owl.repository.util.XMLBaseExtractor;
+
+/**
+ * Fetches and parses the imports of the ontology being loaded in the background,
+ * while the parser is still busy with the importing ontology.
+ * <p/>
+ * As soon as the parser sees an owl:imports statement, the imported document is
+ * looked up, read and parsed by ARP into a <code>PrefetchedImport</code> on one of
+ * a few background threads.  The imports of the prefetched document are then
+ * prefetched in turn, so that the whole import closure is fetched concurrently.
+ * <p/>
+ * The triples themselves are still processed on the loading thread: when the
+ * parser gets to an import, it takes the prefetched document (waiting for it if
+ * necessary) and replays it through the <code>TripleProcessor</code>, so that
+ * the imports are processed in the same order as before.  If an import could not
+ * be prefetched, it is loaded the usual way.
+ * <p/>
+ * The repositories are looked up in a snapshot of the repositories of the model
+ * taken when the load started.  Repositories that need to be created for an import
+ * are not added to the repository manager until the import is taken.
+ * <p/>
+ * The memory used by the documents and events that have been buffered, but not
+ * yet taken, is limited by <code>BUFFER_SIZE_PROPERTY</code>.  Imports that do not
+ * fit into the buffer any more are loaded the usual way when they are taken.
+ */
+public class ImportPrefetcher {
+    private static transient Logger log = Log.getLogger(ImportPrefetcher.class);
+
+    /**
+     * The number of threads used to prefetch imports.  0 disables prefetching.
+     */
+    public final static String PREFETCH_THREADS_PROPERTY = "protegeowl.parser.import.prefetch.threads";
+
+    private final static int DEFAULT_PREFETCH_THREADS = 4;
+
+    /**
+     * The maximum number of bytes used by the prefetched imports that have not
+     * been taken yet (default 64 MB).
+     */
+    public final static String BUFFER_SIZE_PROPERTY = "protegeowl.parser.import.prefetch.buffer.size";
+
+    private final static int DEFAULT_BUFFER_SIZE = 64 * 1024 * 1024;
+
+    private final static int BUFFER_SIZE = 8192;
+
+    private static final ThreadFactory threadFactory = new ThreadFactory() {
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "Import prefetcher");
+            thread.setDaemon(true);
+            return thread;
+        }
+    };
+
+    private List<Repository> repositories;
+
+    private boolean mergingImportMode;
+
+    private ExecutorService executor;
+
+    // a null value means that the import has been taken
+    private Map<String, FutureTask<PrefetchedImport>> imports = new HashMap<String, FutureTask<PrefetchedImport>>();
+
+    private boolean disposed;
+
+    private long bufferSize = ApplicationProperties.getIntegerProperty(BUFFER_SIZE_PROPERTY, DEFAULT_BUFFER_SIZE);
+
+    // the number of bytes reserved in the buffer
+    private long bufferedSize;
+
+
+    public ImportPrefetcher(OWLModel owlModel, boolean mergingImportMode) {
+        this.repositories = owlModel.getRepositoryManager().getAllRepositories();
+        this.mergingImportMode = mergingImportMode;
+        this.executor = Executors.newFixedThreadPool(getPrefetchThreads(), threadFactory);
+    }
+
+
+    public static boolean isPrefetchingEnabled() {
+        return getPrefetchThreads() > 0;
+    }
+
+
+    private static int getPrefetchThreads() {
+        return ApplicationProperties.getIntegerProperty(PREFETCH_THREADS_PROPERTY, DEFAULT_PREFETCH_THREADS);
+    }
+
+
+    /**
+     * Starts fetching an import in the background, unless it has already been
+     * requested before.
+     *
+     * @param ontologyName The name of the imported ontology
+     */
+    public synchronized void prefetch(String ontologyName) {
+        if (disposed || imports.containsKey(ontologyName)) {
+            return;
+        }
+        FutureTask<PrefetchedImport> task = new FutureTask<PrefetchedImport>(new Prefetch(ontologyName));
+        imports.put(ontologyName, task);
+        executor.execute(task);
+    }
+
+
+    /**
+     * Gets a prefetched import.  If the import is still being fetched, this
+     * waits for it; if it has not been started yet, it is fetched on the calling
+     * thread.  An import can only be taken once.
+     *
+     * @param ontologyName The name of the imported ontology
+     * @return the prefetched import, or null if the import was not prefetched
+     *         or the prefetch failed
+     */
+    public PrefetchedImport take(String ontologyName) {
+        FutureTask<PrefetchedImport> task;
+        synchronized (this) {
+            task = imports.get(ontologyName);
+            if (task == null) {
+                return null;
+            }
+            imports.put(ontologyName, null);
+        }
+        task.run(); // does nothing if the task has already been started
+        try {
+            return task.get();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+        catch (ExecutionException e) {
+            if (log.isLoggable(Level.FINE)) {
+                log.log(Level.FINE, "Could not prefetch import " + ontologyName, e.getCause());
+            }
+            return null;
+        }
+    }
+
+
+    /**
+     * Stops the background threads and discards the imports that have not been taken.
+     */
+    public synchronized void dispose() {
+        disposed = true;
+        executor.shutdownNow();
+        imports.clear();
+    }
+
+
+    /**
+     * Reserves memory for buffering a prefetched import.
+     *
+     * @param size the number of bytes to reserve
+     * @return false if the buffer is full
+     */
+    synchronized boolean reserve(long size) {
+        if (bufferedSize + size > bufferSize) {
+            return false;
+        }
+        bufferedSize += size;
+        return true;
+    }
+
+
+    synchronized void release(long size) {
+        bufferedSize -= size;
+    }
+
+
+    private Repository getRepository(URI ontologyName) {
+        for (Repository repository : repositories) {
+            if (repository.contains(ontologyName)) {
+                return repository;
+            }
+        }
+        // merging imports are read directly from their location
+        return mergingImportMode ? null : RepositoryManager.createRepository(ontologyName);
+    }
+
+
+    /**
+     * Reads a document, reserving the memory used by its contents.  The caller
+     * must release the reserved memory when it no longer needs the contents.
+     *
+     * @return the contents, or null if the document does not fit into the buffer
+     */
+    private byte[] read(InputStream is) throws IOException {
+        long reservedSize = 0;
+        try {
+            ByteArrayOutputStream buffer = new ByteArrayOutputStream(BUFFER_SIZE);
+            byte[] bytes = new byte[BUFFER_SIZE];
+            int count;
+            while ((count = is.read(bytes)) >= 0) {
+                // the copy made by toByteArray is reserved as well
+                if (!reserve(2 * count)) {
+                    release(reservedSize);
+                    return null;
+                }
+                reservedSize += 2 * count;
+                buffer.write(bytes, 0, count);
+            }
+            byte[] document = buffer.toByteArray();
+            release(reservedSize - document.length);
+            return document;
+        }
+        catch (IOException e) {
+            release(reservedSize);
+            throw e;
+        }
+        finally {
+            is.close();
+        }
+    }
+
+
+    private class Prefetch implements Callable<PrefetchedImport> {
+
+        private String ontologyName;
+
+
+        Prefetch(String ontologyName) {
+            this.ontologyName = ontologyName;
+        }
+
+
+        public PrefetchedImport call() throws Exception {
+            URI ontologyURI = new URI(ontologyName);
+            Repository repository = getRepository(ontologyURI);
+            InputStream is;
+            if (repository instanceof AbstractStreamBasedRepositoryImpl) {
+                is = ((AbstractStreamBasedRepositoryImpl) repository).getInputStream(ontologyURI);
+            }
+            else if (repository == null && mergingImportMode) {
+                is = ProtegeOWLParser.getInputStream(ontologyURI.toURL());
+            }
+            else {
+                // not found, or not a document that can be parsed by ARP
+                return new PrefetchedImport(repository);
+            }
+            byte[] document = read(is);
+            if (document == null) {
+                // too large to be buffered now
+                return new PrefetchedImport(repository);
+            }
+
+            PrefetchedImport prefetchedImport;
+            try {
+                URI xmlBase = XMLBaseExtractor.getXMLBase(new ByteArrayInputStream(document));
+                if (xmlBase == null) {
+                    xmlBase = ontologyURI;
+                }
+                prefetchedImport = PrefetchedImport.parse(ImportPrefetcher.this, repository, document, ontologyName, xmlBase);
+            }
+            finally {
+                release(document.length);
+            }
+            for (String imported : prefetchedImport.getImports()) {
+                prefetch(imported);
+            }
+            return prefetchedImport;
+        }
+    }
+}
@@ -2,36 +2,47 @@ package edu.stanford.smi.protegex.owl.jena.parser;
 
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Set;
 
+/**
+ * Records the owl:imports statements found while parsing an ontology and
+ * its imports.  There is one instance per OWLModel, owned by its
+ * <code>GlobalParserCache</code>, so that independent models can be loaded
+ * concurrently.
+ */
 public class OWLImportsCache {
 
-	public static HashMap<String, Set<String>> owlOntoloyToImportsMap = new HashMap<String, Set<String>>();
-	public static HashMap<String, String> owlOntologyLocToOntologName = new HashMap<String, String>();
+	private Map<String, Set<String>> owlOntoloyToImportsMap = new HashMap<String, Set<String>>();
+	private Map<String, String> owlOntologyLocToOntologName = new HashMap<String, String>();
 
-	public static Set<String> getOWLImportsURI(String owlOntologyURI) {
+	public Set<String> getOWLImportsURI(String owlOntologyURI) {
 		Set<String> imports = owlOntoloyToImportsMap.get(owlOntologyURI);
 
 		return imports == null ? new HashSet<String>() : imports;
 	}
 
-	public static void addOWLImport(String owlOntologyURI, String importURI) {
+	/**
+	 * @param owlOntologyURI  the importing ontology
+	 * @param importURI       the imported ontology
+	 * @param ontologyLocation the location of the importing ontology, if known
+	 */
+	public void addOWLImport(String owlOntologyURI, String importURI, String ontologyLocation) {
 		addImport(owlOntologyURI, importURI);
 		
 		//add support for imports by location for merging imports mode
-		String currentlyParsingOntologyLocation = ProtegeOWLParser.getCurrentlyParsingOntologyLocation();
-		if (currentlyParsingOntologyLocation != null) {
-			addImport(currentlyParsingOntologyLocation, importURI);			
+		if (ontologyLocation != null) {
+			addImport(ontologyLocation, importURI);			
 		}
 	}
 	
-	private static void addImport(String owlOntologyURI, String importURI) {
+	private void addImport(String owlOntologyURI, String importURI) {
 		Set<String> imports = getOWLImportsURI(owlOntologyURI);
 		imports.add(importURI);
 		owlOntoloyToImportsMap.put(owlOntologyURI, imports);
 	}
 
-	public static Set<String> getImportedOntologies() {
+	public Set<String> getImportedOntologies() {
 		HashSet<String> set = new HashSet<String>();
 		set.addAll(owlOntologyLocToOntologName.keySet());
 		set.addAll(owlOntologyLocToOntologName.values());
@@ -39,7 +50,7 @@ public class OWLImportsCache {
 		return set;
 	}
 
-	public static Set<String> getAllOntologies() {
+	public Set<String> getAllOntologies() {
 		HashSet<String> set = new HashSet<String>();
 		set.addAll(owlOntologyLocToOntologName.keySet());
 		set.addAll(owlOntologyLocToOntologName.values());
@@ -50,23 +61,23 @@ public class OWLImportsCache {
 		return set;
 	}
 
-	public static boolean isImported(String ontology) {
+	public boolean isImported(String ontology) {
  		return owlOntologyLocToOntologName.keySet().contains(ontology) ||
  			owlOntologyLocToOntologName.values().contains(ontology) ||
  			owlOntoloyToImportsMap.keySet().contains(ontology);
 	}
 
 
-	public static String getOntologyName(String ontologyLoc) {
+	public String getOntologyName(String ontologyLoc) {
 		return owlOntologyLocToOntologName.get(ontologyLoc);
 	}
 
-	public static void setOntologyName(String ontologyLoc, String ontologyName) {
+	public void setOntologyName(String ontologyLoc, String ontologyName) {
 		owlOntologyLocToOntologName.put(ontologyLoc, ontologyName);
 	}
 
 
-	public static void dispose() {
+	public void dispose() {
 		owlOntologyLocToOntologName.clear();
 		owlOntoloyToImportsMap.clear();
 	}
@@ -0,0 +1,393 @@
+package edu.stanford.smi.protegex.owl.jena.parser;
+
+import java.io.ByteArrayInputStream;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.xml.sax.ErrorHandler;
+import org.xml.sax.SAXException;
+import org.xml.sax.SAXParseException;
+
+import com.hp.hpl.jena.rdf.arp.ALiteral;
+import com.hp.hpl.jena.rdf.arp.ARP;
+import com.hp.hpl.jena.rdf.arp.ARPHandlers;
+import com.hp.hpl.jena.rdf.arp.AResource;
+import com.hp.hpl.jena.rdf.arp.NamespaceHandler;
+import com.hp.hpl.jena.rdf.arp.StatementHandler;
+import com.hp.hpl.jena.vocabulary.OWL;
+
+import edu.stanford.smi.protegex.owl.repository.Repository;
+
+/**
+ * An imported ontology that has been fetched and parsed ahead of time by the
+ * <code>ImportPrefetcher</code>.
+ * <p/>
+ * The events that ARP generated for the document (statements, prefix mappings
+ * and errors) are kept in the order in which they were generated, so that they
+ * can later be replayed into the handlers of a <code>ProtegeOWLParser</code>,
+ * exactly as if the document was being parsed at that time.
+ * <p/>
+ * ARP numbers the anonymous nodes with a global counter which is not thread safe,
+ * so the anonymous resources of a prefetched document are given IDs that are
+ * unique to the document instead (see <code>AnonymousResourceMapper</code>).
+ * <p/>
+ * The memory used by the buffered events can be limited by the
+ * <code>ImportPrefetcher</code> that parses the document.  If the limit is
+ * reached, the document is not parsed ahead of time.
+ */
+public class PrefetchedImport {
+
+    // the estimated memory used by a buffered event
+    final static int EVENT_SIZE = 128;
+
+    // the number of events that are reserved at once
+    private final static int EVENT_RESERVATION = 1024;
+
+    private Repository repository;
+
+    private URI xmlBase;
+
+    private List<Event> events;
+
+    private Exception exception;
+
+    private Set<String> imports = new LinkedHashSet<String>();
+
+    private ImportPrefetcher prefetcher;
+
+    // the memory reserved with the prefetcher for the events
+    private long reservedSize;
+
+    private boolean bufferLimitReached;
+
+
+    /**
+     * Creates an import that could not be parsed ahead of time, but for which
+     * the repository has already been looked up.
+     *
+     * @param repository The repository of the import, or null if none was found
+     */
+    public PrefetchedImport(Repository repository) {
+        this.repository = repository;
+    }
+
+
+    /**
+     * Parses a document into a new prefetched import.  Parse errors do not
+     * cause this method to fail: they are reported when the import is replayed.
+     *
+     * @param repository The repository the document was read from (may be null)
+     * @param document   The contents of the document
+     * @param base       The base URI to parse the document with
+     * @param xmlBase    The xml:base of the document
+     */
+    public static PrefetchedImport parse(Repository repository, byte[] document, String base, URI xmlBase) {
+        return parse(null, repository, document, base, xmlBase);
+    }
+
+
+    /**
+     * Parses a document into a new prefetched import, reserving the memory
+     * used by its events with an ImportPrefetcher.  If the memory cannot be
+     * reserved, an import that has not been parsed is returned.
+     *
+     * @param prefetcher The ImportPrefetcher to reserve memory with (may be null)
+     */
+    static PrefetchedImport parse(ImportPrefetcher prefetcher, Repository repository, byte[] document,
+                                  String base, URI xmlBase) {
+        PrefetchedImport prefetchedImport = new PrefetchedImport(repository);
+        prefetchedImport.xmlBase = xmlBase;
+        prefetchedImport.events = new ArrayList<Event>();
+        prefetchedImport.prefetcher = prefetcher;
+
+        Recorder recorder = prefetchedImport.new Recorder();
+        ARP arp = new ARP();
+        ARPHandlers handlers = arp.getHandlers();
+        handlers.setStatementHandler(recorder);
+        handlers.setNamespaceHandler(recorder);
+        handlers.setErrorHandler(recorder);
+        arp.setHandlersWith(handlers);
+        ProtegeOWLParser.setDefaultErrorLevel(arp);
+        try {
+            arp.load(new ByteArrayInputStream(document), base);
+        }
+        catch (Exception e) {
+            prefetchedImport.exception = e;
+        }
+        if (prefetchedImport.bufferLimitReached) {
+            // the exception may have been wrapped by the XML parser
+            prefetchedImport.releaseEvents();
+            return new PrefetchedImport(repository);
+        }
+        return prefetchedImport;
+    }
+
+
+    public Repository getRepository() {
+        return repository;
+    }
+
+
+    /**
+     * Checks whether the document has been parsed, in which case it can be
+     * replayed instead of being read from the repository again.
+     */
+    public boolean isParsed() {
+        return events != null;
+    }
+
+
+    public URI getXMLBase() {
+        return xmlBase;
+    }
+
+
+    /**
+     * Gets the objects of the owl:imports statements of the document.
+     */
+    public Collection<String> getImports() {
+        return Collections.unmodifiableSet(imports);
+    }
+
+
+    /**
+     * Passes the events of the document to a set of ARP handlers.  A document
+     * can only be replayed once.
+     *
+     * @param handlers The handlers to pass the events to
+     * @throws Exception the exception ARP failed with when the document was parsed
+     */
+    public void replay(ARPHandlers handlers) throws Exception {
+        List<Event> events = this.events;
+        this.events = Collections.emptyList();
+        try {
+            for (Event event : events) {
+                event.replay(handlers);
+            }
+        }
+        finally {
+            releaseEvents();
+        }
+        if (exception != null) {
+            throw exception;
+        }
+    }
+
+
+    /**
+     * Discards the events of a document that is not going to be replayed.
+     */
+    public void dispose() {
+        if (events != null) {
+            events = Collections.emptyList();
+            releaseEvents();
+        }
+    }
+
+
+    /**
+     * Releases the memory reserved for the events, which are no longer referenced.
+     */
+    private void releaseEvents() {
+        if (prefetcher != null) {
+            prefetcher.release(reservedSize);
+        }
+        reservedSize = 0;
+    }
+
+
+    private void addEvent(Event event) {
+        if (prefetcher != null && events.size() * (long) EVENT_SIZE >= reservedSize) {
+            long size = EVENT_RESERVATION * (long) EVENT_SIZE;
+            if (!prefetcher.reserve(size)) {
+                bufferLimitReached = true;
+                throw new BufferLimitException();
+            }
+            reservedSize += size;
+        }
+        events.add(event);
+    }
+
+
+    /**
+     * Stops the parse of a document whose events exceed the memory limit.
+     */
+    private static class BufferLimitException extends RuntimeException {
+    }
+
+
+    private abstract static class Event {
+
+        abstract void replay(ARPHandlers handlers) throws SAXException;
+    }
+
+
+    private static class ResourceStatement extends Event {
+
+        private AResource subj;
+
+        private AResource pred;
+
+        private AResource obj;
+
+
+        ResourceStatement(AResource subj, AResource pred, AResource obj) {
+            this.subj = subj;
+            this.pred = pred;
+            this.obj = obj;
+        }
+
+
+        @Override
+        void replay(ARPHandlers handlers) {
+            handlers.getStatementHandler().statement(subj, pred, obj);
+        }
+    }
+
+
+    private static class LiteralStatement extends Event {
+
+        private AResource subj;
+
+        private AResource pred;
+
+        private ALiteral lit;
+
+
+        LiteralStatement(AResource subj, AResource pred, ALiteral lit) {
+            this.subj = subj;
+            this.pred = pred;
+            this.lit = lit;
+        }
+
+
+        @Override
+        void replay(ARPHandlers handlers) {
+            handlers.getStatementHandler().statement(subj, pred, lit);
+        }
+    }
+
+
+    private static class StartPrefixMapping extends Event {
+
+        private String prefix;
+
+        private String namespace;
+
+
+        StartPrefixMapping(String prefix, String namespace) {
+            this.prefix = prefix;
+            this.namespace = namespace;
+        }
+
+
+        @Override
+        void replay(ARPHandlers handlers) {
+            handlers.getNamespaceHandler().startPrefixMapping(prefix, namespace);
+        }
+    }
+
+
+    private static class EndPrefixMapping extends Event {
+
+        private String prefix;
+
+
+        EndPrefixMapping(String prefix) {
+            this.prefix = prefix;
+        }
+
+
+        @Override
+        void replay(ARPHandlers handlers) {
+            handlers.getNamespaceHandler().endPrefixMapping(prefix);
+        }
+    }
+
+
+    private static class Error extends Event {
+
+        private static final int WARNING = 0;
+
+        private static final int ERROR = 1;
+
+        private static final int FATAL_ERROR = 2;
+
+        private int severity;
+
+        private SAXParseException exception;
+
+
+        Error(int severity, SAXParseException exception) {
+            this.severity = severity;
+            this.exception = exception;
+        }
+
+
+        @Override
+        void replay(ARPHandlers handlers) throws SAXException {
+            ErrorHandler errorHandler = handlers.getErrorHandler();
+            if (severity == WARNING) {
+                errorHandler.warning(exception);
+            }
+            else if (severity == ERROR) {
+                errorHandler.error(exception);
+            }
+            else {
+                errorHandler.fatalError(exception);
+            }
+        }
+    }
+
+
+    /**
+     * Records the events of ARP while the document is being parsed.
+     */
+    private class Recorder implements StatementHandler, NamespaceHandler, ErrorHandler {
+
+        private AnonymousResourceMapper mapper = new AnonymousResourceMapper();
+
+
+        public void statement(AResource subj, AResource pred, AResource obj) {
+            if (OWL.imports.getURI().equals(pred.getURI()) && !obj.isAnonymous()) {
+                imports.add(obj.getURI());
+            }
+            addEvent(new ResourceStatement(mapper.getResource(subj), pred, mapper.getResource(obj)));
+        }
+
+
+        public void statement(AResource subj, AResource pred, ALiteral lit) {
+            addEvent(new LiteralStatement(mapper.getResource(subj), pred, lit));
+        }
+
+
+        public void startPrefixMapping(String prefix, String namespace) {
+            addEvent(new StartPrefixMapping(prefix, namespace));
+        }
+
+
+        public void endPrefixMapping(String prefix) {
+            addEvent(new EndPrefixMapping(prefix));
+        }
+
+
+        public void warning(SAXParseException exception) {
+            addEvent(new Error(Error.WARNING, exception));
+        }
+
+
+        public void error(SAXParseException exception) {
+            addEvent(new Error(Error.ERROR, exception));
+        }
+
+
+        public void fatalError(SAXParseException exception) {
+            addEvent(new Error(Error.FATAL_ERROR, exception));
+        }
+    }
+}
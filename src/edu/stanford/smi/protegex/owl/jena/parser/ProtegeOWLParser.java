@@ -25,6 +25,8 @@ import com.hp.hpl.jena.rdf.arp.ARPHandlers;
 import com.hp.hpl.jena.rdf.arp.AResource;
 import com.hp.hpl.jena.rdf.arp.NamespaceHandler;
 import com.hp.hpl.jena.rdf.arp.StatementHandler;
+import com.hp.hpl.jena.vocabulary.OWL;
+import com.hp.hpl.jena.vocabulary.RDF;
 
 import edu.stanford.smi.protege.exception.OntologyLoadException;
 import edu.stanford.smi.protege.util.ApplicationProperties;
@@ -61,10 +63,15 @@ public class ProtegeOWLParser {
     public final static String CREATE_UNTYPED_RESOURCES = "protegeowl.parser.create.untyped.resources";
     public final static String PRINT_LOAD_TRIPLES_LOG = "protegeowl.parser.print.load.triples.log";
     public final static String PRINT_LOAD_TRIPLES_LOG_INCREMENT = "protegeowl.parser.print.load.triples.log.increment";
+    public final static String TWO_PASS_LOADING = "protegeowl.parser.two.pass.loading";
 
-	private static String topOntologyName;
-	//needed for merging imports to support import by location
-	private static String currentlyParsingOntologyLocation;
+    /**
+     * The number of triples that two pass loading buffers in memory before it
+     * moves the triples of other subjects to a temporary file.
+     */
+    public final static String TWO_PASS_SPILL_THRESHOLD = "protegeowl.parser.two.pass.spill.threshold";
+
+    private final static int DEFAULT_TWO_PASS_SPILL_THRESHOLD = 1000000;
 
 	private OWLModel owlModel;
 	private boolean importing = false;
@@ -73,17 +80,30 @@ public class ProtegeOWLParser {
 	private int tripleCount;
 	private boolean printLoadTriplesLog = true;
 	private int printLoadTriplesLogIncrement = 10000;
+	private boolean twoPassLoading;
 
 	private TripleProcessor tripleProcessor;
 
 
 	public ProtegeOWLParser(OWLModel owlModel) {
 		tripleCount = 0;
-		topOntologyName = null;
 		printLoadTriplesLog = ApplicationProperties.getBooleanProperty(PRINT_LOAD_TRIPLES_LOG, true);
 		printLoadTriplesLogIncrement = ApplicationProperties.getIntegerProperty(PRINT_LOAD_TRIPLES_LOG_INCREMENT, 10000);
+		twoPassLoading = ApplicationProperties.getBooleanProperty(TWO_PASS_LOADING, false);
 
 		this.owlModel = owlModel;
+		getGlobalParserCache().setTopOntologyName(null);
+	}
+
+
+	/**
+	 * Gets the cache that holds the state of the load in progress.  All the
+	 * parsers of a load (the top level one, and the ones for the imports)
+	 * share the cache of the model, while loads of different models are
+	 * independent of each other.
+	 */
+	private GlobalParserCache getGlobalParserCache() {
+		return ((AbstractOWLModel) owlModel).getGlobalParserCache();
 	}
 
 
@@ -127,10 +147,25 @@ public class ProtegeOWLParser {
 	}
 
 
+	private ARPInvokation createARPInvokation(final PrefetchedImport prefetchedImport) {
+		ARPInvokation invokation = new ARPInvokation() {
+			public void invokeARP(ARP arp) throws Exception {
+				prefetchedImport.replay(arp.getHandlers());
+			}
+		};
+		return invokation;
+	}
+
+
 	protected ARP createARP(TripleStore tripleStore) {
 		ARP arp = new ARP();
 		ARPHandlers handlers = arp.getHandlers();
-		handlers.setStatementHandler(new ProtegeOWLStatementHandler(tripleStore));
+		StatementHandler statementHandler = twoPassLoading ? new TwoPassStatementHandler(tripleStore) : new ProtegeOWLStatementHandler(tripleStore);
+		if (getGlobalParserCache().getImportPrefetcher() != null) {
+			// the IDs of anonymous nodes are not unique while ARP runs on the prefetching threads
+			statementHandler = new AnonymousResourceMapper.MappingStatementHandler(statementHandler);
+		}
+		handlers.setStatementHandler(statementHandler);
 		handlers.setErrorHandler(new ProtegeOWLErrorHandler());
 		if (isMergingImportMode()) {
 			handlers.setNamespaceHandler(new ProtegeOWLMergingNamespaceHandler(tripleStore));
@@ -143,6 +178,11 @@ public class ProtegeOWLParser {
 
 
 	public void setErrorLevel(ARP arp) {
+		setDefaultErrorLevel(arp);
+	}
+
+
+	static void setDefaultErrorLevel(ARP arp) {
 		String errorLevel = ApplicationProperties.getApplicationOrSystemProperty(ProtegeOWLParser.JENA_ERROR_LEVEL_PROPERTY, "lax");
 
 		if (errorLevel.equalsIgnoreCase("default")) {
@@ -234,6 +274,13 @@ public class ProtegeOWLParser {
 	    loadTriples(ontologyLocation, xmlBase, createARPInvokation(is, ontologyLocation.toString()));
 	}
 
+	/**
+	 * Loads an import that has already been fetched and parsed by the <code>ImportPrefetcher</code>.
+	 */
+	public void loadTriples(String ontologyLocation, PrefetchedImport prefetchedImport) throws OntologyLoadException {
+	    loadTriples(ontologyLocation, prefetchedImport.getXMLBase(), createARPInvokation(prefetchedImport));
+	}
+
 	/*
 	 * ontologyURI - is not clearly defined - it is either the location URL (the top-level parse), or the
 	 *  ontology name (for imports)
@@ -242,7 +289,8 @@ public class ProtegeOWLParser {
 						throws OntologyLoadException {
 		//the triple store where the parsing will write the parsed triples
 	    final TripleStore tripleStore = owlModel.getTripleStoreModel().getActiveTripleStore();
-	    ((AbstractOWLModel) owlModel).getGlobalParserCache().getParsedTripleStores().add(tripleStore);
+	    final GlobalParserCache globalParserCache = getGlobalParserCache();
+	    globalParserCache.getParsedTripleStores().add(tripleStore);
 
 	    if (ontologyURI != null) {
 	    	tripleStore.addIOAddress(ontologyURI.toString());
@@ -253,22 +301,28 @@ public class ProtegeOWLParser {
 	    	tripleStore.setOriginalXMLBase(xmlBase.toString());
 	    }
 
-	    topOntologyName = ontologyURI != null ? ontologyURI :
-	    					xmlBase != null ? xmlBase.toString() : null;
+	    globalParserCache.setTopOntologyName(ontologyURI != null ? ontologyURI :
+	    					xmlBase != null ? xmlBase.toString() : null);
 
 	    boolean eventsEnabled = owlModel.setGenerateEventsEnabled(false);
 	    boolean isExpandShortNamesEnabled = owlModel.isExpandShortNameInMethods();
 	    owlModel.setExpandShortNameInMethods(false);
 
 	    OWLFrameStoreManager frameStoreManager = owlModel.getFrameStoreManager();
+	    boolean prefetchingImports = !importing && globalParserCache.getImportPrefetcher() == null &&
+	    				ImportPrefetcher.isPrefetchingEnabled();
 	    try {
-	        tripleProcessor = ((AbstractOWLModel) owlModel).getGlobalParserCache().getTripleProcessor();
+	        if (prefetchingImports) {
+	            globalParserCache.setImportPrefetcher(new ImportPrefetcher(owlModel, isMergingImportMode()));
+	        }
+
+	        tripleProcessor = globalParserCache.getTripleProcessor();
 
 	        Log.getLogger().info("Loading triples for: " + ontologyURI);
 
 	        ARP arp = createARP(tripleStore);
 
-	        currentlyParsingOntologyLocation = ontologyURI;
+	        globalParserCache.setCurrentlyParsingOntologyLocation(ontologyURI);
 	        
 	        long startTime = System.currentTimeMillis();
 
@@ -281,9 +335,17 @@ public class ProtegeOWLParser {
 	            throw ioe;
 	        }
 
+	        StatementHandler statementHandler = arp.getHandlers().getStatementHandler();
+	        if (statementHandler instanceof AnonymousResourceMapper.MappingStatementHandler) {
+	            statementHandler = ((AnonymousResourceMapper.MappingStatementHandler) statementHandler).getStatementHandler();
+	        }
+	        if (statementHandler instanceof TwoPassStatementHandler) {
+	            ((TwoPassStatementHandler) statementHandler).processDeferredTriples();
+	        }
+
 	        long endTime = System.currentTimeMillis();
 
-	        currentlyParsingOntologyLocation = null;
+	        globalParserCache.setCurrentlyParsingOntologyLocation(null);
 	        
 	        Log.getLogger().info("    Completed triple loading after " + (endTime - startTime) + " ms");
 	        tripleProcessor.getGlobalParserCache().dumpUndefTriples(Level.FINE);
@@ -316,6 +378,10 @@ public class ProtegeOWLParser {
 	        owlModel.getTripleStoreModel().deleteTripleStore(tripleStore);
 	    }
 	    finally {
+	        if (prefetchingImports) {
+	            globalParserCache.getImportPrefetcher().dispose();
+	            globalParserCache.setImportPrefetcher(null);
+	        }
 	        owlModel.setGenerateEventsEnabled(eventsEnabled);
 	        owlModel.setExpandShortNameInMethods(isExpandShortNamesEnabled);
 	    }
@@ -376,7 +442,7 @@ public class ProtegeOWLParser {
 			ont.delete();
 		}
 		//make sure to remove invalid ontologies
-		Collection<String> allOntologies = OWLImportsCache.getAllOntologies();
+		Collection<String> allOntologies = getGlobalParserCache().getOWLImportsCache().getAllOntologies();
 		allOntologies.remove(owlModel.getDefaultOWLOntology().getName());
 		for (String ont : allOntologies) {
 			RDFResource res = owlModel.getRDFResource(ont);
@@ -395,7 +461,7 @@ public class ProtegeOWLParser {
 	}
 
 	private void processImports(TripleStore tripleStore) throws OntologyLoadException {
-		Set<String> thisOntoImports = OWLImportsCache.getOWLImportsURI(tripleStore.getName());
+		Set<String> thisOntoImports = getGlobalParserCache().getOWLImportsCache().getOWLImportsURI(tripleStore.getName());
 		    for (String import_ : new TreeSet<String>(thisOntoImports)) {
 		        URI u = ((AbstractOWLModel) owlModel).loadImportedAssertions(URIUtilities.createURI(import_));
 		        if (u == null) {
@@ -405,6 +471,7 @@ public class ProtegeOWLParser {
 	}
 
 	private void processMergingImports(TripleStore tripleStore, String importingOntologyName) throws OntologyLoadException {
+		String topOntologyName = getGlobalParserCache().getTopOntologyName();
 		if (!importing && topOntologyName != null) {
 			//In the top level parse, we get the ontology name from the triple processor
 			importingOntologyName = topOntologyName;
@@ -414,10 +481,18 @@ public class ProtegeOWLParser {
 			return; // no imports if no ontology declaration
 		}
 
-		Set<String> thisOntoImports = OWLImportsCache.getOWLImportsURI(importingOntologyName);
+		OWLImportsCache owlImportsCache = getGlobalParserCache().getOWLImportsCache();
+		Set<String> thisOntoImports = owlImportsCache.getOWLImportsURI(importingOntologyName);
 
 		for (String importedOntologyName : thisOntoImports) {
-			if (OWLImportsCache.isImported(importedOntologyName)) {
+			if (owlImportsCache.isImported(importedOntologyName)) {
+				continue;
+			}
+
+			ImportPrefetcher prefetcher = getGlobalParserCache().getImportPrefetcher();
+			PrefetchedImport prefetchedImport = prefetcher == null ? null : prefetcher.take(importedOntologyName);
+			if (prefetchedImport != null && prefetchedImport.isParsed()) {
+				createMergingImportParser().loadTriples(importedOntologyName, prefetchedImport);
 				continue;
 			}
 
@@ -433,13 +508,17 @@ public class ProtegeOWLParser {
 				continue;
 			}
 
-			ProtegeOWLParser parser = new ProtegeOWLParser(owlModel);
-			parser.setMergingImportMode(isMergingImportMode());
-			parser.setImporting(true);
-			parser.loadTriples(importedOntologyName, xmlBase , getInputStreamForMerge(ontologyURI));
+			createMergingImportParser().loadTriples(importedOntologyName, xmlBase , getInputStreamForMerge(ontologyURI));
 		}
 	}
 
+	private ProtegeOWLParser createMergingImportParser() {
+		ProtegeOWLParser parser = new ProtegeOWLParser(owlModel);
+		parser.setMergingImportMode(isMergingImportMode());
+		parser.setImporting(true);
+		return parser;
+	}
+
 	private InputStream getInputStreamForMerge(URI ontologyURI) throws OntologyLoadException {
 		AbstractStreamBasedRepositoryImpl rep = (AbstractStreamBasedRepositoryImpl) owlModel.getRepositoryManager().getRepository(ontologyURI);
 		InputStream is = null;
@@ -470,14 +549,6 @@ public class ProtegeOWLParser {
 
 	/*************************************** Management  *******************************/
 
-	static void setTopOntologyName(String ontName) {
-		topOntologyName = ontName;
-	}
-
-	static String getCurrentlyParsingOntologyLocation() {
-		return currentlyParsingOntologyLocation;
-	}
-	
 	public static Collection<MessageError> getParserErrors(OWLModel owlModel) {
 	    return ((AbstractOWLModel) owlModel).getParserErrors();
 	}
@@ -530,7 +601,7 @@ public class ProtegeOWLParser {
 
 			String message = (severity == Severity.WARNING ? "A warning " : "An error " ) + "occurred at parsing the OWL ontology ";
 
-			message = message + "\n\n    " + topOntologyName + "\n\n";
+			message = message + "\n\n    " + getGlobalParserCache().getTopOntologyName() + "\n\n";
            	message = message + "    at line " + ex.getLineNumber() + " and column " + ex.getColumnNumber() + ".\n";
         	message = message + "    Jena parse error message: " + ex.getMessage();
 
@@ -642,6 +713,97 @@ public class ProtegeOWLParser {
 	}
 
 
+	/**
+	 * Processes the triples that do not declare types in a second pass.  While
+	 * ARP parses the document, the rdf:type and owl:imports triples are processed
+	 * right away and all other triples are buffered.  When the document has been
+	 * parsed, the frames of the document already exist with the right Java types,
+	 * so that the buffered triples can mostly be processed without being deferred
+	 * as undefined triples.
+	 * <p/>
+	 * The buffered triples are kept by subject.  At most
+	 * <code>TWO_PASS_SPILL_THRESHOLD</code> triples stay in memory, the triples
+	 * of the other subjects are moved to a temporary file until the second pass
+	 * reads them.
+	 */
+	class TwoPassStatementHandler extends ProtegeOWLStatementHandler {
+
+		private UndefTripleBuffer deferredTriples = new UndefTripleBuffer(
+				ApplicationProperties.getIntegerProperty(TWO_PASS_SPILL_THRESHOLD, DEFAULT_TWO_PASS_SPILL_THRESHOLD));
+
+		public TwoPassStatementHandler(TripleStore tripleStore) {
+			super(tripleStore);
+		}
+
+
+		@Override
+		public void statement(AResource subj, AResource pred, AResource obj) {
+			if (isTypeOrImport(pred)) {
+				super.statement(subj, pred, obj);
+			} else {
+				deferredTriples.add(getSubjectKey(subj), new UndefTriple(subj, pred, obj, tripleStore));
+			}
+		}
+
+
+		@Override
+		public void statement(AResource subj, AResource pred, ALiteral lit) {
+			deferredTriples.add(getSubjectKey(subj), new UndefTriple(subj, pred, lit, tripleStore));
+		}
+
+
+		private String getSubjectKey(AResource subj) {
+			return subj.isAnonymous() ? subj.getAnonymousID() : subj.getURI();
+		}
+
+
+		private boolean isTypeOrImport(AResource pred) {
+			String predName = pred.getURI();
+			return RDF.type.getURI().equals(predName) || OWL.imports.getURI().equals(predName);
+		}
+
+
+		/**
+		 * Processes the buffered triples one subject at a time.  Triples that
+		 * still refer to undefined resources, for example to resources of
+		 * ontologies that have not been imported yet, are deferred by the
+		 * <code>TripleProcessor</code> as usual.
+		 */
+		public void processDeferredTriples() {
+			long startTime = System.currentTimeMillis();
+			int typeTripleCount = tripleCount;
+			try {
+				for (String subject : deferredTriples.getKeys()) {
+					for (UndefTriple triple : deferredTriples.get(subject)) {
+						processDeferredTriple(triple);
+					}
+					deferredTriples.remove(subject);
+				}
+			} finally {
+				deferredTriples.clear();
+			}
+			Log.getLogger().info("    Processed " + (tripleCount - typeTripleCount) + " triples after " + typeTripleCount +
+					" type triples in " + (System.currentTimeMillis() - startTime) + " ms");
+		}
+
+
+		private void processDeferredTriple(UndefTriple triple) {
+			tripleCount++;
+			try {
+				if (triple.getTripleObj() instanceof AResource) {
+					tripleProcessor.processTriple(triple.getTripleSubj(), triple.getTriplePred(),
+							(AResource) triple.getTripleObj(), tripleStore, false);
+				} else {
+					tripleProcessor.processTriple(triple.getTripleSubj(), triple.getTriplePred(),
+							(ALiteral) triple.getTripleObj(), tripleStore, false);
+				}
+			} catch (Exception e) { //specialize
+				Log.getLogger().log(Level.SEVERE, "Error at parsing triple: " + triple, e);
+			}
+		}
+	}
+
+
 	//TODO: Maybe we'll move these methods somewhere else later
 	public boolean isMergingImportMode() {
 		return isMergeImportMode;
@@ -651,4 +813,17 @@ public class ProtegeOWLParser {
 		isMergeImportMode = isMergingImport;
 	}
 
+	public boolean isTwoPassLoading() {
+		return twoPassLoading;
+	}
+
+	/**
+	 * Sets whether the triples that declare types are processed before all
+	 * other triples of a document.  The default is the value of the
+	 * <code>TWO_PASS_LOADING</code> property.
+	 */
+	public void setTwoPassLoading(boolean twoPassLoading) {
+		this.twoPassLoading = twoPassLoading;
+	}
+
 }
\ No newline at end of file
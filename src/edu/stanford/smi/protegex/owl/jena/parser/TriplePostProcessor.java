@@ -5,9 +5,18 @@ import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.Map.Entry;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 import java.util.logging.ConsoleHandler;
 import java.util.logging.Formatter;
 import java.util.logging.Handler;
@@ -20,6 +29,7 @@ import org.protege.editor.owl.model.hierarchy.roots.TerminalElementFinder;
 import edu.stanford.smi.protege.model.Cls;
 import edu.stanford.smi.protege.model.Frame;
 import edu.stanford.smi.protege.model.Instance;
+import edu.stanford.smi.protege.model.Slot;
 import edu.stanford.smi.protege.model.framestore.NarrowFrameStore;
 import edu.stanford.smi.protege.util.ApplicationProperties;
 import edu.stanford.smi.protege.util.ConsoleFormatter;
@@ -39,6 +49,24 @@ import edu.stanford.smi.protegex.owl.model.triplestore.TripleStoreModel;
 
 class TriplePostProcessor extends AbstractStatefulTripleProcessor {
     public static final transient Logger log = Log.getLogger(TriplePostProcessor.class);
+
+    /**
+     * The number of threads that run the read-only part of the post-processing
+     * phases.  The default (1) runs everything on the loading thread.
+     */
+    public final static String POST_PROCESSING_THREADS_PROPERTY = "protegeowl.parser.postprocess.threads";
+
+    // the number of chunks per thread the items of a phase are split into
+    private final static int CHUNKS_PER_THREAD = 4;
+
+    private static final ThreadFactory threadFactory = new ThreadFactory() {
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "OWL post processor");
+            thread.setDaemon(true);
+            return thread;
+        }
+    };
+
     static {
         try {
             initLogger();
@@ -68,6 +96,15 @@ class TriplePostProcessor extends AbstractStatefulTripleProcessor {
     //should rather be a list? Is the order of ts important?
     Collection<TripleStore> parsedTripleStores = new HashSet<TripleStore>();
 
+    // all triple stores of the model, for the reads of the analysis
+    private List<TripleStore> allTripleStores;
+
+    private ExecutorService executor;
+
+    private int threads;
+
+    private Map<String, Long> phaseTimes = new LinkedHashMap<String, Long>();
+
     public TriplePostProcessor(TripleProcessor processor) {
         super(processor);
     }
@@ -83,8 +120,31 @@ class TriplePostProcessor extends AbstractStatefulTripleProcessor {
             return;
         }
 
+        threads = Math.max(1, ApplicationProperties.getIntegerProperty(POST_PROCESSING_THREADS_PROPERTY, 1));
+        if (threads > 1) {
+            executor = Executors.newFixedThreadPool(threads, threadFactory);
+        }
+        phaseTimes.clear();
+        try {
+            doPostProcessingPhases();
+        }
+        finally {
+            if (executor != null) {
+                executor.shutdown();
+                executor = null;
+            }
+            allTripleStores = null;
+        }
+        log.info("Postprocess: Timings " + phaseTimes + "\n");
+    }
+
+    private void doPostProcessingPhases() {
         //undef triples handling
+        log.info("Postprocess: Undefined triples (" + globalParserCache.getUndefTripleSize() + " resources) ... ");
+        long time0 = System.currentTimeMillis();
         processor.processUndefTriples();
+        endPhase("undefined triples", time0);
+        allTripleStores = new ArrayList<TripleStore>(owlModel.getTripleStoreModel().getTripleStores());
 
         /*
          * The reinitCaches() between the post processing calls
@@ -105,7 +165,10 @@ class TriplePostProcessor extends AbstractStatefulTripleProcessor {
 
         //create untyped resources if needed
         if (isCreateUntypedResourcesEnabled()) {
+            log.info("Postprocess: Untyped resources ... ");
+            time0 = System.currentTimeMillis();
             processor.createUntypedResources();
+            endPhase("untyped resources", time0);
             reinitCaches();
         }
 
@@ -135,11 +198,9 @@ class TriplePostProcessor extends AbstractStatefulTripleProcessor {
         log.info("Postprocess: Process metaclasses (" + userMetaClassesCount + " metaclasses) ... ");
         long time0 = System.currentTimeMillis();
 
-        for (TripleStore ts : parsedTripleStores) {
-            processMetaclasses(ts);
-        }
+        processInstancesOfSubclasses(owlModel.getRDFSNamedClassClass(), owlModel.getRDFPropertyClass());
 
-        log.info(System.currentTimeMillis() - time0 + " ms\n");
+        endPhase("metaclasses", time0);
     }
 
     private void processSubclassesOfRdfList() {
@@ -148,48 +209,157 @@ class TriplePostProcessor extends AbstractStatefulTripleProcessor {
                 + " classes) ... ");
         long time0 = System.currentTimeMillis();
 
-        for (TripleStore ts : parsedTripleStores) {
-            processSubclassesOfRdfList(ts);
-        }
-        log.info(System.currentTimeMillis() - time0 + " ms\n");
+        processInstancesOfSubclasses(owlModel.getRDFListClass());
+
+        endPhase("subclasses of rdf:List", time0);
     }
 
     private void processInferredSuperclasses() {
         log.info("Postprocess: Add inferred superclasses ... ");
         long time0 = System.currentTimeMillis();
 
+        Set<RDFSNamedClass> namedClasses = new LinkedHashSet<RDFSNamedClass>();
         for (TripleStore ts : parsedTripleStores) {
-            processInferredSuperclasses(ts);
+            namedClasses.addAll(getNamedClassesWithEquivalentClasses(ts));
         }
+        runPhase(namedClasses, new Analysis<RDFSNamedClass>() {
+            public void analyze(RDFSNamedClass namedClass, List<Runnable> changes) {
+                analyzeInferredSuperclasses(namedClass, changes);
+            }
+        });
 
-        log.info(System.currentTimeMillis() - time0 + " ms\n");
+        endPhase("inferred superclasses", time0);
     }
 
     private void processAbstractClasses() {
         log.info("Postprocess: Abstract classes... ");
         long time0 = System.currentTimeMillis();
 
-        for (TripleStore ts : parsedTripleStores) {
-            processAbstractClasses(ts);
+        final RDFProperty abstractProp = owlModel.getRDFProperty(ProtegeNames.Slot.ABSTRACT);
+        if (abstractProp != null) {
+            runPhase(parsedTripleStores, new Analysis<TripleStore>() {
+                public void analyze(TripleStore ts, List<Runnable> changes) {
+                    analyzeAbstractClasses(ts, abstractProp, changes);
+                }
+            });
         }
-        log.info(System.currentTimeMillis() - time0 + " ms\n");
+
+        endPhase("abstract classes", time0);
     }
 
     private void processDomainAndRange() {
         log.info("Postprocess: Domain and range of properties... ");
         long time0 = System.currentTimeMillis();
 
-        for (TripleStore ts : parsedTripleStores) {
-            processDomainAndRange(ts);
-        }
+        final Collection<RDFSClass> propertyTypes = getClassAndSubclasses(owlModel.getRDFPropertyClass());
+        runPhase(parsedTripleStores, new Analysis<TripleStore>() {
+            public void analyze(TripleStore ts, List<Runnable> changes) {
+                analyzeDomainAndRange(ts, propertyTypes, changes);
+            }
+        });
 
-        log.info(System.currentTimeMillis() - time0 + " ms\n");
+        endPhase("domain and range", time0);
     }
 
     private void reinitCaches() {
         owlModel.getFrameStoreManager().reinitialize();
     }
 
+    private void endPhase(String phase, long time0) {
+        long time = System.currentTimeMillis() - time0;
+        phaseTimes.put(phase, time);
+        log.info(time + " ms\n");
+    }
+
+    /**
+     * The read-only part of a post-processing phase.  The analysis of the items
+     * of a phase may run on several threads at once, so it may only read from
+     * the narrow frame stores of the triple stores.  It adds the changes to make
+     * to the model to a list, and the changes of all items are then made on the
+     * loading thread, in the order of the items.
+     */
+    private interface Analysis<I> {
+
+        void analyze(I item, List<Runnable> changes);
+    }
+
+    private <I> void runPhase(Collection<I> items, final Analysis<I> analysis) {
+        long time0 = System.currentTimeMillis();
+        List<Runnable> changes = new ArrayList<Runnable>();
+        if (executor == null || items.size() < 2) {
+            analyze(items, analysis, changes);
+        }
+        else {
+            List<I> itemList = new ArrayList<I>(items);
+            int chunkSize = Math.max(1, (itemList.size() + threads * CHUNKS_PER_THREAD - 1) / (threads * CHUNKS_PER_THREAD));
+            List<Callable<List<Runnable>>> tasks = new ArrayList<Callable<List<Runnable>>>();
+            for (int start = 0; start < itemList.size(); start += chunkSize) {
+                final List<I> chunk = itemList.subList(start, Math.min(start + chunkSize, itemList.size()));
+                tasks.add(new Callable<List<Runnable>>() {
+                    public List<Runnable> call() {
+                        List<Runnable> chunkChanges = new ArrayList<Runnable>();
+                        analyze(chunk, analysis, chunkChanges);
+                        return chunkChanges;
+                    }
+                });
+            }
+            try {
+                for (Future<List<Runnable>> future : executor.invokeAll(tasks)) {
+                    changes.addAll(future.get());
+                }
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            }
+            catch (ExecutionException e) {
+                throw new RuntimeException(e.getCause());
+            }
+        }
+        long time1 = System.currentTimeMillis();
+        for (Runnable change : changes) {
+            change.run();
+        }
+        if (log.isLoggable(Level.FINE)) {
+            log.fine("Analysis of " + items.size() + " items on " + (executor == null ? 1 : threads) + " threads in "
+                    + (time1 - time0) + " ms, " + changes.size() + " changes in " + (System.currentTimeMillis() - time1)
+                    + " ms\n");
+        }
+    }
+
+    private <I> void analyze(Collection<I> items, Analysis<I> analysis, List<Runnable> changes) {
+        for (I item : items) {
+            try {
+                analysis.analyze(item, changes);
+            } catch (Exception e) {
+                log.log(Level.WARNING, "Error at post processing " + item, e);
+            }
+        }
+    }
+
+    /**
+     * Gets the values of a slot from the narrow frame stores of all triple
+     * stores, which is what the merging narrow frame store would return.
+     */
+    private Collection<Object> getValues(Frame frame, Slot slot) {
+        Collection<Object> values = new LinkedHashSet<Object>();
+        for (TripleStore ts : allTripleStores) {
+            values.addAll(ts.getNarrowFrameStore().getValues(frame, slot, null, false));
+        }
+        return values;
+    }
+
+    private Collection<RDFSClass> getClassAndSubclasses(Cls cls) {
+        Collection<RDFSClass> classes = new ArrayList<RDFSClass>();
+        classes.add((RDFSClass) cls);
+        for (Object subclass : cls.getSubclasses()) {
+            if (subclass instanceof RDFSClass) {
+                classes.add((RDFSClass) subclass);
+            }
+        }
+        return classes;
+    }
+
     private boolean isCreateUntypedResourcesEnabled() {
         return ApplicationProperties.getBooleanProperty(ProtegeOWLParser.CREATE_UNTYPED_RESOURCES, true);
     }
@@ -223,7 +393,7 @@ class TriplePostProcessor extends AbstractStatefulTripleProcessor {
             log.warning("\n    Frames with wrong Java type: " + globalParserCache.getFramesWithWrongJavaType() + "\n");
         }
 
-        log.info(System.currentTimeMillis() - time0 + " ms\n");
+        endPhase("wrong Java types", time0);
     }
 
     private void processWrongOneOfTypes() {
@@ -240,27 +410,40 @@ class TriplePostProcessor extends AbstractStatefulTripleProcessor {
 
     }
 
-    private void processMetaclasses(TripleStore ts) {
-        processMetaclasses(owlModel.getRDFSNamedClassClass(), ts);
-        processMetaclasses(owlModel.getRDFPropertyClass(), ts);
-    }
-
-    private void processMetaclasses(Cls superMetaclass, TripleStore ts) {
-        for (Iterator iterator = superMetaclass.getSubclasses().iterator(); iterator.hasNext();) {
-            RDFSNamedClass metaclass = (RDFSNamedClass) iterator.next();
-
-            if (!metaclass.isSystem()) {
-                for (Object element : ts.getUserDefinedInstancesOf(metaclass, RDFResource.class)) {
-                    Instance inst = (Instance) element;
-                    //this should be fine, because swizzling does not change anything in the NFS
-                    ParserUtil.getSimpleFrameStore(owlModel).swizzleInstance(inst);
+    /*
+     * Swizzles the instances of the user defined subclasses of some metaclasses.
+     */
+    private void processInstancesOfSubclasses(Cls... superMetaclasses) {
+        final Collection<RDFSNamedClass> metaclasses = new ArrayList<RDFSNamedClass>();
+        for (Cls superMetaclass : superMetaclasses) {
+            for (Iterator iterator = superMetaclass.getSubclasses().iterator(); iterator.hasNext();) {
+                RDFSNamedClass metaclass = (RDFSNamedClass) iterator.next();
+                if (!metaclass.isSystem()) {
+                    metaclasses.add(metaclass);
                 }
             }
         }
-    }
 
-    private void processSubclassesOfRdfList(TripleStore ts) {
-        processMetaclasses(owlModel.getRDFListClass(), ts);
+        runPhase(parsedTripleStores, new Analysis<TripleStore>() {
+            public void analyze(TripleStore ts, List<Runnable> changes) {
+                Set<RDFResource> instances = new LinkedHashSet<RDFResource>();
+                for (RDFSNamedClass metaclass : metaclasses) {
+                    instances.addAll(ts.getUserDefinedDirectInstancesOf(metaclass, RDFResource.class));
+                }
+                for (RDFResource instance : instances) {
+                    final String name = instance.getName();
+                    changes.add(new Runnable() {
+                        public void run() {
+                            //this should be fine, because swizzling does not change anything in the NFS
+                            Instance inst = (Instance) simpleFrameStore.getFrame(name);
+                            if (inst != null) {
+                                simpleFrameStore.swizzleInstance(inst);
+                            }
+                        }
+                    });
+                }
+            }
+        });
     }
 
     @SuppressWarnings( { "deprecation" })
@@ -319,20 +502,20 @@ class TriplePostProcessor extends AbstractStatefulTripleProcessor {
             }
         }
 
-        log.info(System.currentTimeMillis() - time0 + " ms\n");
+        endPhase("orphan classes", time0);
     }
 
-    @SuppressWarnings( { "unchecked", "deprecation" })
-    private void processInferredSuperclasses(TripleStore ts) {
-        Collection<RDFSNamedClass> namedClasses = getNamedClassesWithEquivalentClasses(ts);
-
-        for (Object obj : namedClasses) {
-            try {
-                RDFSNamedClass namedClass = (RDFSNamedClass) obj;
-
-                if (!namedClass.isSystem()) {
-                    Collection<Cls> inferredSuperclasses = getInferredSuperClasses(namedClass);
-
+    private void analyzeInferredSuperclasses(final RDFSNamedClass namedClass, List<Runnable> changes) {
+        if (namedClass.isSystem()) {
+            return;
+        }
+        final Collection<Cls> inferredSuperclasses = getInferredSuperClasses(namedClass);
+        if (inferredSuperclasses.isEmpty()) {
+            return;
+        }
+        changes.add(new Runnable() {
+            public void run() {
+                try {
                     for (Cls inferredSupercls : inferredSuperclasses) {
                         if (!FrameCreatorUtility.hasDirectSuperclass(namedClass, inferredSupercls)) {
                             //create the inferred superclass in the same TS and NFS as the class
@@ -340,12 +523,11 @@ class TriplePostProcessor extends AbstractStatefulTripleProcessor {
                             FrameCreatorUtility.createSubclassOf(namedClass, inferredSupercls, homeTs);
                         }
                     }
+                } catch (Exception e) {
+                    Log.getLogger().log(Level.WARNING, " Error at post processing " + namedClass + "\n", e);
                 }
-
-            } catch (Exception e) {
-                Log.getLogger().log(Level.WARNING, " Error at post processing " + obj + "\n", e);
             }
-        }
+        });
     }
 
     private Collection<RDFSNamedClass> getNamedClassesWithEquivalentClasses(TripleStore ts) {
@@ -361,22 +543,27 @@ class TriplePostProcessor extends AbstractStatefulTripleProcessor {
         return classes;
     }
 
+    /*
+     * Only reads the narrow frame stores, as it is called by the analysis.
+     */
     private Collection<Cls> getInferredSuperClasses(RDFSNamedClass namedClass) {
         Collection<Cls> inferredSuperClasses = new ArrayList<Cls>();
+        Slot directSuperclassesSlot = owlModel.getSystemFrames().getDirectSuperclassesSlot();
 
         //make this into a recursive function
-        Collection<RDFSClass> equivClasses = namedClass.getEquivalentClasses(); //can we use here nfs call?
-        for (RDFSClass equivClass : equivClasses) {
+        for (Object superclass : getValues(namedClass, directSuperclassesSlot)) {
+            if (!(superclass instanceof RDFSClass) || !getValues((Frame) superclass, directSuperclassesSlot).contains(namedClass)) {
+                continue;
+            }
+            RDFSClass equivClass = (RDFSClass) superclass;
             try {
                 if (equivClass instanceof RDFSNamedClass) {
                     inferredSuperClasses.add(equivClass);
                 } else if (equivClass instanceof OWLIntersectionClass) {
                     //add operands if defined
-                    Collection<RDFSClass> operands = ((OWLIntersectionClass) equivClass).getOperands();
-
-                    for (RDFSClass operand : operands) {
+                    for (Object operand : getOperands(equivClass, owlModel.getSystemFrames().getOwlIntersectionOfProperty())) {
                         if (operand instanceof RDFSNamedClass) {
-                            inferredSuperClasses.add(operand);
+                            inferredSuperClasses.add((RDFSNamedClass) operand);
                         }
                     }
                 }
@@ -388,6 +575,20 @@ class TriplePostProcessor extends AbstractStatefulTripleProcessor {
         return inferredSuperClasses;
     }
 
+    private Collection<Object> getOperands(RDFSClass logicalClass, RDFProperty operandsProperty) {
+        OWLSystemFrames systemFrames = owlModel.getSystemFrames();
+        Collection<Object> operands = new ArrayList<Object>();
+        Set<Object> visited = new HashSet<Object>();
+        for (Object list : getValues(logicalClass, operandsProperty)) {
+            while (list instanceof Frame && !list.equals(systemFrames.getRdfNil()) && visited.add(list)) {
+                operands.addAll(getValues((Frame) list, systemFrames.getRdfFirstProperty()));
+                Collection<Object> rest = getValues((Frame) list, systemFrames.getRdfRestProperty());
+                list = rest.isEmpty() ? null : rest.iterator().next();
+            }
+        }
+        return operands;
+    }
+
     private void processInstancesWithMultipleTypes() {
         MultipleTypesInstanceCache multipleTypesInstanceCache = globalParserCache.getMultipleTypesInstanceCache();
 
@@ -397,74 +598,95 @@ class TriplePostProcessor extends AbstractStatefulTripleProcessor {
                 + " instances) ... ");
         long time0 = System.currentTimeMillis();
 
-        for (Instance instance : instancesWithMultipleTypes) {
-            Set<Cls> typesSet = multipleTypesInstanceCache.getTypesForInstanceAsSet(instance);
-            adjustTypesOfInstance(instance, typesSet);
-            if (log.isLoggable(Level.FINE)) {
-                log.fine("process instance with multiple types" + instance + ": " + typesSet + "\n");
+        final MultipleTypesInstanceCache cache = multipleTypesInstanceCache;
+        runPhase(instancesWithMultipleTypes, new Analysis<Instance>() {
+            public void analyze(Instance instance, List<Runnable> changes) {
+                Set<Cls> typesSet = cache.getTypesForInstanceAsSet(instance);
+                analyzeTypesOfInstance(instance, typesSet, changes);
+                if (log.isLoggable(Level.FINE)) {
+                    log.fine("process instance with multiple types" + instance + ": " + typesSet + "\n");
+                }
             }
-        }
-        log.info(System.currentTimeMillis() - time0 + " ms\n");
+        });
+        endPhase("multiple types", time0);
     }
 
-    private void adjustTypesOfInstance(Instance instance, Set<Cls> typesSet) {
-        Collection<Cls> existingTypes = FrameCreatorUtility.getDirectTypes(instance);
+    private void analyzeTypesOfInstance(Instance instance, Set<Cls> typesSet, List<Runnable> changes) {
+        Collection<Object> existingTypes = getValues(instance, owlModel.getSystemFrames().getDirectTypesSlot());
         typesSet.removeAll(existingTypes); // types to add
 
-        String instName = instance.getName();
+        final String instName = instance.getName();
+        TripleStoreModel tsm = owlModel.getTripleStoreModel();
 
-        for (Cls type : typesSet) {
-            instance = (Instance) simpleFrameStore.getFrame(instName);
+        for (final Cls type : typesSet) {
             /*
              * This is kind of painful. We have to find out where the type
              * triple came from and add the type in the same TS.
              * (What should happen if the same type comes from different TS-es?
              * Which is very likely...)
              */
+            final TripleStore homeTs = tsm.getHomeTripleStore(instance, owlModel.getRDFTypeProperty(), type);
+            changes.add(new Runnable() {
+                public void run() {
+                    adjustTypeOfInstance(instName, type, homeTs);
+                }
+            });
+        }
+    }
 
-            TripleStoreModel tsm = owlModel.getTripleStoreModel();
-            TripleStore initialActiveTs = tsm.getActiveTripleStore();
+    private void adjustTypeOfInstance(String instName, Cls type, TripleStore homeTs) {
+        Instance instance = (Instance) simpleFrameStore.getFrame(instName);
+        TripleStoreModel tsm = owlModel.getTripleStoreModel();
+        TripleStore initialActiveTs = tsm.getActiveTripleStore();
 
-            try {
-                TripleStore homeTs = tsm.getHomeTripleStore(instance, owlModel.getRDFTypeProperty(), type);
-                if (homeTs != null) {
-                    tsm.setActiveTripleStore(homeTs);
-                    FrameCreatorUtility.addInstanceType(instance, type, homeTs);
-                    simpleFrameStore.swizzleInstance(instance);
-                } else {
-                    log.warning("Could not find home triple store of type triple for " + instance + "\n");
-                }
-            } catch (Exception e) {
-                Log.getLogger().log(Level.WARNING, "Error at adjusting types of: " + instance, e);
-            } finally {
-                tsm.setActiveTripleStore(initialActiveTs);
+        try {
+            if (homeTs != null) {
+                tsm.setActiveTripleStore(homeTs);
+                FrameCreatorUtility.addInstanceType(instance, type, homeTs);
+                simpleFrameStore.swizzleInstance(instance);
+            } else {
+                log.warning("Could not find home triple store of type triple for " + instance + "\n");
             }
+        } catch (Exception e) {
+            Log.getLogger().log(Level.WARNING, "Error at adjusting types of: " + instance, e);
+        } finally {
+            tsm.setActiveTripleStore(initialActiveTs);
         }
     }
 
-    @SuppressWarnings("deprecation")
-    private void processDomainAndRange(TripleStore ts) {
-        for (Object element : ts.getUserDefinedProperties()) {
-            RDFProperty property = (RDFProperty) element;
+    private void analyzeDomainAndRange(TripleStore ts, Collection<RDFSClass> propertyTypes, List<Runnable> changes) {
+        Set<RDFProperty> properties = new LinkedHashSet<RDFProperty>();
+        for (RDFSClass type : propertyTypes) {
+            properties.addAll(ts.getUserDefinedDirectInstancesOf(type, RDFProperty.class));
+        }
+        for (final RDFProperty property : properties) {
+            final TripleStore homeTs = owlModel.getTripleStoreModel().getHomeTripleStore(property);
+            changes.add(new Runnable() {
+                public void run() {
+                    synchronizeDomainAndRange(property, homeTs);
+                }
+            });
+        }
+    }
 
-            // Do this postprocessing in the TS of the property
-            TripleStoreModel tsm = owlModel.getTripleStoreModel();
+    @SuppressWarnings("deprecation")
+    private void synchronizeDomainAndRange(RDFProperty property, TripleStore homeTs) {
+        // Do this postprocessing in the TS of the property
+        TripleStoreModel tsm = owlModel.getTripleStoreModel();
 
-            TripleStore initialActiveTs = tsm.getActiveTripleStore();
+        TripleStore initialActiveTs = tsm.getActiveTripleStore();
 
-            try {
-                TripleStore homeTs = tsm.getHomeTripleStore(property);
-                tsm.setActiveTripleStore(homeTs);
-                owlModel.getFrameStoreManager().getDomainUpdateFrameStore().synchronizeRDFSDomainWithProtegeDomain(
-                        property);
+        try {
+            tsm.setActiveTripleStore(homeTs);
+            owlModel.getFrameStoreManager().getDomainUpdateFrameStore().synchronizeRDFSDomainWithProtegeDomain(
+                    property);
 
-                owlModel.getFrameStoreManager().getRangeUpdateFrameStore()
-                        .synchronizeRDFSRangeWithProtegeAllowedValues(property);
-            } catch (Exception e) {
-                Log.getLogger().log(Level.WARNING, "Errors at post-processing domain and range of: " + property, e);
-            } finally {
-                tsm.setActiveTripleStore(initialActiveTs);
-            }
+            owlModel.getFrameStoreManager().getRangeUpdateFrameStore()
+                    .synchronizeRDFSRangeWithProtegeAllowedValues(property);
+        } catch (Exception e) {
+            Log.getLogger().log(Level.WARNING, "Errors at post-processing domain and range of: " + property, e);
+        } finally {
+            tsm.setActiveTripleStore(initialActiveTs);
         }
     }
 
@@ -501,40 +723,36 @@ class TriplePostProcessor extends AbstractStatefulTripleProcessor {
             }
         }
 
-        log.info(System.currentTimeMillis() - time0 + " ms\n");
+        endPhase("generalized concept inclusions", time0);
     }
 
-    @SuppressWarnings("deprecation")
-    private void processAbstractClasses(TripleStore ts) {
-        RDFProperty abstractProp = owlModel.getRDFProperty(ProtegeNames.Slot.ABSTRACT);
-
-        if (abstractProp == null) {
-            return;
-        }
-
+    private void analyzeAbstractClasses(TripleStore ts, RDFProperty abstractProp, List<Runnable> changes) {
         Collection abstractClses = ts.getNarrowFrameStore().getFrames(abstractProp, null, false, Boolean.TRUE);
 
         for (Iterator iterator = abstractClses.iterator(); iterator.hasNext();) {
-            Object object = iterator.next();
+            final Object object = iterator.next();
 
             if (object instanceof RDFSClass) {
-                // Do this postprocessing in the TS of the property
-                TripleStoreModel tsm = owlModel.getTripleStoreModel();
-
-                TripleStore initialActiveTs = tsm.getActiveTripleStore();
-
-                try {
-                    TripleStore homeTs = tsm.getHomeTripleStore((RDFSClass) object);
-                    tsm.setActiveTripleStore(homeTs);
-                    ((Cls) object).setAbstract(true);
-                } catch (Exception e) {
-                    Log.getLogger().log(Level.WARNING, "Error at post-processing abstract class: " + object, e);
-                } finally {
-                    tsm.setActiveTripleStore(initialActiveTs);
-                }
+                final TripleStore homeTs = owlModel.getTripleStoreModel().getHomeTripleStore((RDFSClass) object);
+                changes.add(new Runnable() {
+                    public void run() {
+                        // Do this postprocessing in the TS of the property
+                        TripleStoreModel tsm = owlModel.getTripleStoreModel();
+
+                        TripleStore initialActiveTs = tsm.getActiveTripleStore();
+
+                        try {
+                            tsm.setActiveTripleStore(homeTs);
+                            ((Cls) object).setAbstract(true);
+                        } catch (Exception e) {
+                            Log.getLogger().log(Level.WARNING, "Error at post-processing abstract class: " + object, e);
+                        } finally {
+                            tsm.setActiveTripleStore(initialActiveTs);
+                        }
+                    }
+                });
             }
         }
-
     }
 
     @SuppressWarnings("deprecation")
@@ -553,7 +771,7 @@ class TriplePostProcessor extends AbstractStatefulTripleProcessor {
         processPossiblyTypedResources(untypedProp);
         processPossiblyTypedResources(untypedRes);
 
-        log.info(System.currentTimeMillis() - time0 + " ms\n");
+        endPhase("possibly typed entities", time0);
     }
 
     private void processPossiblyTypedResources(Cls untypedCls) {
@@ -176,7 +176,12 @@ class TripleProcessorForResourceObjects extends AbstractStatefulTripleProcessor
 			TripleStatus status = TripleStatus.TRIPLE_PROCESSING_SHOULD_CONTINUE;
 
 			if (predName.equals(OWL.imports.getURI())) {
-				OWLImportsCache.addOWLImport(subjName, objName);
+				globalParserCache.getOWLImportsCache().addOWLImport(subjName, objName,
+						globalParserCache.getCurrentlyParsingOntologyLocation());
+				ImportPrefetcher prefetcher = globalParserCache.getImportPrefetcher();
+				if (prefetcher != null) {
+					prefetcher.prefetch(objName);
+				}
 			} else if (predName.equals(RDF.type.getURI())) { // creation
 				status = handleSetType();
 			}
@@ -353,7 +358,7 @@ class TripleProcessorForResourceObjects extends AbstractStatefulTripleProcessor
 				//For the top level ontology, we don't know the name
 				//and we only discover it here..
 				if (!isImporting(tripleStore)) {
-					ProtegeOWLParser.setTopOntologyName(subjName);
+					globalParserCache.setTopOntologyName(subjName);
 				}
 			}
 		}
@@ -0,0 +1,847 @@
+package edu.stanford.smi.protegex.owl.jena.parser;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.util.AbstractCollection;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.hp.hpl.jena.rdf.arp.ALiteral;
+import com.hp.hpl.jena.rdf.arp.AResource;
+
+import edu.stanford.smi.protege.util.ApplicationProperties;
+import edu.stanford.smi.protege.util.Log;
+import edu.stanford.smi.protegex.owl.model.triplestore.TripleStore;
+
+/**
+ * Holds the triples that could not be processed yet because their subject,
+ * predicate or object was not defined, indexed by the name of the undefined
+ * resource.
+ * <p/>
+ * Instead of keeping the <code>UndefTriple</code>s and the ARP nodes, the triples
+ * are stored in parallel int arrays, one slot per triple, which refer to the
+ * strings of the nodes in a table of interned strings.  The slots of each key
+ * are listed in an int array.  <code>UndefTriple</code>s are only created while
+ * the triples of a key are iterated.
+ * <p/>
+ * If the number of buffered triples exceeds the value of
+ * <code>SPILL_THRESHOLD_PROPERTY</code>, the triples of some keys are moved to a
+ * temporary file until they are needed again.  The interned strings always stay
+ * in memory.
+ */
+public class UndefTripleBuffer {
+    private static transient Logger log = Log.getLogger(UndefTripleBuffer.class);
+
+    /**
+     * The number of buffered triples above which triples are moved to disk.
+     * 0 (the default) keeps all triples in memory.
+     */
+    public final static String SPILL_THRESHOLD_PROPERTY = "protegeowl.parser.undef.spill.threshold";
+
+    private final static int INITIAL_CAPACITY = 1024;
+
+    // flags of the info of a slot
+    private final static int LITERAL = 1;
+
+    private final static int WELL_FORMED_XML = 2;
+
+    private final static int INFO_SHIFT = 2;
+
+    // flags of an encoded resource
+    private final static int ANONYMOUS = 1;
+
+    private final static int NODE_ID = 2;
+
+    private final static int RESOURCE_SHIFT = 2;
+
+    private final static int INTS_PER_SPILLED_TRIPLE = 6;
+
+    private StringTable strings = new StringTable();
+
+    private List<TripleStore> tripleStores = new ArrayList<TripleStore>();
+
+    /*
+     * The slots.  For a literal object, obj is the lexical form, and lang and
+     * datatype are string ids or -1.  info holds the flags and the index of the
+     * triple store.  key is the string id of the key of the slot or -1 if the
+     * slot is free, and stamp changes every time the slot is reused.
+     */
+    private int[] subj = new int[INITIAL_CAPACITY];
+
+    private int[] pred = new int[INITIAL_CAPACITY];
+
+    private int[] obj = new int[INITIAL_CAPACITY];
+
+    private int[] lang = new int[INITIAL_CAPACITY];
+
+    private int[] datatype = new int[INITIAL_CAPACITY];
+
+    private int[] info = new int[INITIAL_CAPACITY];
+
+    private int[] key = new int[INITIAL_CAPACITY];
+
+    private int[] stamp = new int[INITIAL_CAPACITY];
+
+    private int slotCount;
+
+    private int[] freeSlots = new int[INITIAL_CAPACITY];
+
+    private int freeSlotCount;
+
+    // indexed by the string id of the key
+    private KeyEntries[] keyEntries = new KeyEntries[INITIAL_CAPACITY];
+
+    // including the spilled triples
+    private int tripleCount;
+
+    private int spilledCount;
+
+    private int keyCount;
+
+    private int spillThreshold;
+
+    private int spillCursor;
+
+    private File spillFile;
+
+    private RandomAccessFile spill;
+
+
+    public UndefTripleBuffer() {
+        this(ApplicationProperties.getIntegerProperty(SPILL_THRESHOLD_PROPERTY, 0));
+    }
+
+
+    /**
+     * @param spillThreshold the number of triples above which triples are moved
+     *                       to disk, or 0 to keep all triples in memory
+     */
+    public UndefTripleBuffer(int spillThreshold) {
+        this.spillThreshold = spillThreshold;
+    }
+
+
+    public void add(String undef, UndefTriple triple) {
+        int keyId = strings.intern(undef);
+        KeyEntries entries = getKeyEntries(keyId, true);
+        int slot = allocateSlot();
+        subj[slot] = encode(triple.getTripleSubj());
+        pred[slot] = encode(triple.getTriplePred());
+        int flags;
+        Object object = triple.getTripleObj();
+        if (object instanceof ALiteral) {
+            ALiteral literal = (ALiteral) object;
+            obj[slot] = strings.intern(literal.toString());
+            lang[slot] = literal.getLang() == null ? -1 : strings.intern(literal.getLang());
+            datatype[slot] = literal.getDatatypeURI() == null ? -1 : strings.intern(literal.getDatatypeURI());
+            flags = LITERAL | (literal.isWellFormedXML() ? WELL_FORMED_XML : 0);
+        }
+        else {
+            obj[slot] = encode((AResource) object);
+            lang[slot] = -1;
+            datatype[slot] = -1;
+            flags = 0;
+        }
+        info[slot] = (getTripleStoreIndex(triple.getTripleStore()) << INFO_SHIFT) | flags;
+        entries.add(keyId, slot);
+        if (spillThreshold > 0 && tripleCount - spilledCount > spillThreshold) {
+            spill(keyId);
+        }
+    }
+
+
+    /**
+     * Gets the triples of a key.  The returned collection is a view: triples
+     * can be removed through its iterator, and it reflects later changes.
+     */
+    public Collection<UndefTriple> get(String undef) {
+        return new KeyView(undef);
+    }
+
+
+    /**
+     * Gets a snapshot of the keys that have triples.
+     */
+    public Set<String> getKeys() {
+        Set<String> keys = new HashSet<String>();
+        for (int keyId = 0; keyId < keyEntries.length; keyId++) {
+            KeyEntries entries = keyEntries[keyId];
+            if (entries != null && entries.getSize() > 0) {
+                keys.add(strings.get(keyId));
+            }
+        }
+        return keys;
+    }
+
+
+    public int getKeyCount() {
+        return keyCount;
+    }
+
+
+    public int getTripleCount() {
+        return tripleCount;
+    }
+
+
+    public void remove(String undef) {
+        int keyId = strings.lookup(undef);
+        KeyEntries entries = getKeyEntries(keyId, false);
+        if (entries != null) {
+            for (int i = 0; i < entries.size; i++) {
+                int slot = entries.slots[i];
+                if (key[slot] == keyId && stamp[slot] == entries.stamps[i]) {
+                    freeSlot(slot);
+                }
+            }
+            tripleCount -= entries.spilledCount;
+            spilledCount -= entries.spilledCount;
+            keyEntries[keyId] = null;
+            keyCount--;
+        }
+    }
+
+
+    public void clear() {
+        strings = new StringTable();
+        tripleStores.clear();
+        subj = new int[INITIAL_CAPACITY];
+        pred = new int[INITIAL_CAPACITY];
+        obj = new int[INITIAL_CAPACITY];
+        lang = new int[INITIAL_CAPACITY];
+        datatype = new int[INITIAL_CAPACITY];
+        info = new int[INITIAL_CAPACITY];
+        key = new int[INITIAL_CAPACITY];
+        stamp = new int[INITIAL_CAPACITY];
+        slotCount = 0;
+        freeSlotCount = 0;
+        keyEntries = new KeyEntries[INITIAL_CAPACITY];
+        tripleCount = 0;
+        keyCount = 0;
+        spillCursor = 0;
+        closeSpillFile();
+    }
+
+
+    private KeyEntries getKeyEntries(int keyId, boolean create) {
+        if (keyId < 0) {
+            return null;
+        }
+        if (keyId >= keyEntries.length) {
+            if (!create) {
+                return null;
+            }
+            keyEntries = grow(keyEntries, keyId + 1);
+        }
+        KeyEntries entries = keyEntries[keyId];
+        if (entries == null && create) {
+            entries = new KeyEntries();
+            keyEntries[keyId] = entries;
+            keyCount++;
+        }
+        return entries;
+    }
+
+
+    private int allocateSlot() {
+        int slot;
+        if (freeSlotCount > 0) {
+            slot = freeSlots[--freeSlotCount];
+        }
+        else {
+            if (slotCount == key.length) {
+                int capacity = slotCount + (slotCount >> 1);
+                subj = grow(subj, capacity);
+                pred = grow(pred, capacity);
+                obj = grow(obj, capacity);
+                lang = grow(lang, capacity);
+                datatype = grow(datatype, capacity);
+                info = grow(info, capacity);
+                key = grow(key, capacity);
+                stamp = grow(stamp, capacity);
+            }
+            slot = slotCount++;
+        }
+        stamp[slot]++;
+        tripleCount++;
+        return slot;
+    }
+
+
+    private void freeSlot(int slot) {
+        key[slot] = -1;
+        if (freeSlotCount == freeSlots.length) {
+            freeSlots = grow(freeSlots, freeSlotCount * 2);
+        }
+        freeSlots[freeSlotCount++] = slot;
+        tripleCount--;
+    }
+
+
+    private int getTripleStoreIndex(TripleStore tripleStore) {
+        for (int i = 0; i < tripleStores.size(); i++) {
+            if (tripleStores.get(i) == tripleStore) {
+                return i;
+            }
+        }
+        tripleStores.add(tripleStore);
+        return tripleStores.size() - 1;
+    }
+
+
+    private int encode(AResource resource) {
+        if (resource.isAnonymous()) {
+            int flags = ANONYMOUS | (resource.hasNodeID() ? NODE_ID : 0);
+            return (strings.intern(resource.getAnonymousID()) << RESOURCE_SHIFT) | flags;
+        }
+        return strings.intern(resource.getURI()) << RESOURCE_SHIFT;
+    }
+
+
+    private AResource decode(int resource) {
+        String name = strings.get(resource >>> RESOURCE_SHIFT);
+        return new BufferedResource(name, (resource & ANONYMOUS) != 0, (resource & NODE_ID) != 0);
+    }
+
+
+    private UndefTriple createUndefTriple(int slot) {
+        TripleStore tripleStore = tripleStores.get(info[slot] >>> INFO_SHIFT);
+        if ((info[slot] & LITERAL) != 0) {
+            ALiteral literal = new BufferedLiteral(strings.get(obj[slot]),
+                                                   lang[slot] < 0 ? null : strings.get(lang[slot]),
+                                                   datatype[slot] < 0 ? null : strings.get(datatype[slot]),
+                                                   (info[slot] & WELL_FORMED_XML) != 0);
+            return new UndefTriple(decode(subj[slot]), decode(pred[slot]), literal, tripleStore);
+        }
+        return new UndefTriple(decode(subj[slot]), decode(pred[slot]), decode(obj[slot]), tripleStore);
+    }
+
+
+    /*
+     * Spilling to disk.  The spilled triples of a key are a chain of blocks,
+     * each of which starts with the offset of the previous block and the number
+     * of triples in the block.
+     */
+
+    private void spill(int excludedKeyId) {
+        int target = spillThreshold / 2;
+        int start = spillCursor;
+        do {
+            spillCursor = (spillCursor + 1) % keyEntries.length;
+            KeyEntries entries = keyEntries[spillCursor];
+            if (spillCursor != excludedKeyId && entries != null && entries.live > 0) {
+                try {
+                    spillKey(spillCursor, entries);
+                }
+                catch (IOException e) {
+                    log.log(Level.WARNING, "Could not move pending triples to disk, keeping them in memory", e);
+                    spillThreshold = 0;
+                    return;
+                }
+            }
+        }
+        while (tripleCount - spilledCount > target && spillCursor != start);
+    }
+
+
+    private void spillKey(int keyId, KeyEntries entries) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(12 + entries.live * INTS_PER_SPILLED_TRIPLE * 4);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeLong(entries.spilled);
+        out.writeInt(entries.live);
+        for (int i = 0; i < entries.size; i++) {
+            int slot = entries.slots[i];
+            if (key[slot] == keyId && stamp[slot] == entries.stamps[i]) {
+                out.writeInt(subj[slot]);
+                out.writeInt(pred[slot]);
+                out.writeInt(obj[slot]);
+                out.writeInt(lang[slot]);
+                out.writeInt(datatype[slot]);
+                out.writeInt(info[slot]);
+            }
+        }
+        out.flush();
+        RandomAccessFile file = getSpillFile();
+        long offset = file.length();
+        file.seek(offset);
+        file.write(bytes.toByteArray());
+
+        for (int i = 0; i < entries.size; i++) {
+            int slot = entries.slots[i];
+            if (key[slot] == keyId && stamp[slot] == entries.stamps[i]) {
+                freeSlot(slot);
+                tripleCount++; // the triple is still in the buffer, on disk
+            }
+        }
+        entries.spilled = offset;
+        entries.spilledCount += entries.live;
+        spilledCount += entries.live;
+        entries.size = 0;
+        entries.live = 0;
+    }
+
+
+    private void load(int keyId, KeyEntries entries) {
+        int[] slots = entries.slots;
+        int[] stamps = entries.stamps;
+        int size = entries.size;
+        entries.slots = new int[Math.max(2, entries.getSize())];
+        entries.stamps = new int[entries.slots.length];
+        entries.size = 0;
+        entries.live = 0;
+        try {
+            RandomAccessFile file = getSpillFile();
+            List<Long> offsets = new ArrayList<Long>();
+            for (long offset = entries.spilled; offset >= 0; offset = file.readLong()) {
+                offsets.add(offset);
+                file.seek(offset);
+            }
+            // the oldest block first, to keep the order in which the triples were added
+            for (int j = offsets.size() - 1; j >= 0; j--) {
+                file.seek(offsets.get(j) + 8);
+                int count = file.readInt();
+                byte[] block = new byte[count * INTS_PER_SPILLED_TRIPLE * 4];
+                file.readFully(block);
+                ByteBuffer in = ByteBuffer.wrap(block);
+                for (int i = 0; i < count; i++) {
+                    int slot = allocateSlot();
+                    tripleCount--; // already counted
+                    subj[slot] = in.getInt();
+                    pred[slot] = in.getInt();
+                    obj[slot] = in.getInt();
+                    lang[slot] = in.getInt();
+                    datatype[slot] = in.getInt();
+                    info[slot] = in.getInt();
+                    entries.add(keyId, slot);
+                }
+            }
+        }
+        catch (IOException e) {
+            throw new RuntimeException("Could not read pending triples from " + spillFile, e);
+        }
+        for (int i = 0; i < size; i++) {
+            int slot = slots[i];
+            if (key[slot] == keyId && stamp[slot] == stamps[i]) {
+                entries.add(keyId, slot);
+            }
+        }
+        spilledCount -= entries.spilledCount;
+        entries.spilled = -1;
+        entries.spilledCount = 0;
+    }
+
+
+    private RandomAccessFile getSpillFile() throws IOException {
+        if (spill == null) {
+            spillFile = File.createTempFile("protege-undef-triples", ".tmp");
+            spillFile.deleteOnExit();
+            spill = new RandomAccessFile(spillFile, "rw");
+        }
+        return spill;
+    }
+
+
+    private void closeSpillFile() {
+        spilledCount = 0;
+        if (spill != null) {
+            try {
+                spill.close();
+            }
+            catch (IOException e) {
+                Log.emptyCatchBlock(e);
+            }
+            spill = null;
+            spillFile.delete();
+            spillFile = null;
+        }
+    }
+
+
+    private static int[] grow(int[] array, int capacity) {
+        int[] newArray = new int[capacity];
+        System.arraycopy(array, 0, newArray, 0, array.length);
+        return newArray;
+    }
+
+
+    private static KeyEntries[] grow(KeyEntries[] array, int minCapacity) {
+        KeyEntries[] newArray = new KeyEntries[Math.max(minCapacity, array.length * 2)];
+        System.arraycopy(array, 0, newArray, 0, array.length);
+        return newArray;
+    }
+
+
+    /**
+     * The slots of a key, with the stamps the slots had when they were added.
+     * Entries of slots that have been freed since are skipped and dropped when
+     * the arrays need to grow.
+     */
+    private class KeyEntries {
+
+        private int[] slots = new int[2];
+
+        private int[] stamps = new int[2];
+
+        private int size;
+
+        private int live;
+
+        private long spilled = -1;
+
+        private int spilledCount;
+
+
+        void add(int keyId, int slot) {
+            key[slot] = keyId;
+            if (size == slots.length) {
+                compact(keyId);
+            }
+            slots[size] = slot;
+            stamps[size] = stamp[slot];
+            size++;
+            live++;
+        }
+
+
+        private void compact(int keyId) {
+            int capacity = live < size / 2 ? slots.length : slots.length * 2;
+            int[] newSlots = new int[capacity];
+            int[] newStamps = new int[capacity];
+            int newSize = 0;
+            for (int i = 0; i < size; i++) {
+                if (isValid(keyId, i)) {
+                    newSlots[newSize] = slots[i];
+                    newStamps[newSize] = stamps[i];
+                    newSize++;
+                }
+            }
+            slots = newSlots;
+            stamps = newStamps;
+            size = newSize;
+        }
+
+
+        boolean isValid(int keyId, int i) {
+            int slot = slots[i];
+            return key[slot] == keyId && stamp[slot] == stamps[i];
+        }
+
+
+        int getSize() {
+            return live + spilledCount;
+        }
+    }
+
+
+    /**
+     * The live view of the triples of a key.
+     */
+    private class KeyView extends AbstractCollection<UndefTriple> {
+
+        private String undef;
+
+
+        KeyView(String undef) {
+            this.undef = undef;
+        }
+
+
+        private KeyEntries getEntries(int keyId) {
+            KeyEntries entries = getKeyEntries(keyId, false);
+            if (entries != null && entries.spilledCount > 0) {
+                load(keyId, entries);
+            }
+            return entries;
+        }
+
+
+        @Override
+        public int size() {
+            int keyId = strings.lookup(undef);
+            KeyEntries entries = getKeyEntries(keyId, false);
+            return entries == null ? 0 : entries.getSize();
+        }
+
+
+        @Override
+        public Iterator<UndefTriple> iterator() {
+            final int keyId = strings.lookup(undef);
+            final KeyEntries entries = getEntries(keyId);
+            if (entries == null) {
+                return new ArrayList<UndefTriple>(0).iterator();
+            }
+            return new Iterator<UndefTriple>() {
+
+                private int index = -1;
+
+                private int next = findNext(0);
+
+
+                private int findNext(int from) {
+                    // the slots of the key are only compacted when triples
+                    // are added to it, which the parser does not do while
+                    // it iterates over them
+                    for (int i = from; i < entries.size; i++) {
+                        if (entries.isValid(keyId, i)) {
+                            return i;
+                        }
+                    }
+                    return -1;
+                }
+
+
+                public boolean hasNext() {
+                    if (next >= 0 && !entries.isValid(keyId, next)) {
+                        next = findNext(next);
+                    }
+                    return next >= 0;
+                }
+
+
+                public UndefTriple next() {
+                    if (!hasNext()) {
+                        throw new NoSuchElementException();
+                    }
+                    index = next;
+                    next = findNext(next + 1);
+                    return createUndefTriple(entries.slots[index]);
+                }
+
+
+                public void remove() {
+                    if (index < 0) {
+                        throw new IllegalStateException();
+                    }
+                    if (entries.isValid(keyId, index)) {
+                        freeSlot(entries.slots[index]);
+                        entries.live--;
+                    }
+                    index = -1;
+                }
+            };
+        }
+    }
+
+
+    /**
+     * An open addressing hash table that assigns consecutive ids to strings.
+     */
+    private static class StringTable {
+
+        private String[] strings = new String[INITIAL_CAPACITY];
+
+        // ids + 1, 0 for empty
+        private int[] table = new int[INITIAL_CAPACITY * 2];
+
+        private int size;
+
+
+        int intern(String s) {
+            int i = indexOf(s);
+            if (table[i] != 0) {
+                return table[i] - 1;
+            }
+            if (size == strings.length) {
+                String[] newStrings = new String[size * 2];
+                System.arraycopy(strings, 0, newStrings, 0, size);
+                strings = newStrings;
+            }
+            strings[size] = s;
+            table[i] = ++size;
+            if (size * 2 > table.length) {
+                rehash();
+            }
+            return size - 1;
+        }
+
+
+        /**
+         * @return the id of a string, or -1 if the string has not been interned
+         */
+        int lookup(String s) {
+            return table[indexOf(s)] - 1;
+        }
+
+
+        String get(int id) {
+            return strings[id];
+        }
+
+
+        private int indexOf(String s) {
+            int mask = table.length - 1;
+            int h = s.hashCode();
+            int i = (h ^ (h >>> 16)) & mask;
+            while (table[i] != 0 && !strings[table[i] - 1].equals(s)) {
+                i = (i + 1) & mask;
+            }
+            return i;
+        }
+
+
+        private void rehash() {
+            table = new int[table.length * 2];
+            for (int id = 0; id < size; id++) {
+                table[indexOf(strings[id])] = id + 1;
+            }
+        }
+    }
+
+
+    private static class BufferedResource implements AResource {
+
+        private String name;
+
+        private boolean anonymous;
+
+        private boolean nodeID;
+
+        private Object userData;
+
+
+        BufferedResource(String name, boolean anonymous, boolean nodeID) {
+            this.name = name;
+            this.anonymous = anonymous;
+            this.nodeID = nodeID;
+        }
+
+
+        public String getAnonymousID() {
+            return anonymous ? name : null;
+        }
+
+
+        public String getURI() {
+            return anonymous ? null : name;
+        }
+
+
+        public Object getUserData() {
+            return userData;
+        }
+
+
+        public void setUserData(Object userData) {
+            this.userData = userData;
+        }
+
+
+        public boolean hasNodeID() {
+            return nodeID;
+        }
+
+
+        public boolean isAnonymous() {
+            return anonymous;
+        }
+
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof BufferedResource)) {
+                return false;
+            }
+            BufferedResource other = (BufferedResource) o;
+            return anonymous == other.anonymous && name.equals(other.name);
+        }
+
+
+        @Override
+        public int hashCode() {
+            return name.hashCode();
+        }
+
+
+        @Override
+        public String toString() {
+            return anonymous ? "_:" + name : name;
+        }
+    }
+
+
+    private static class BufferedLiteral implements ALiteral {
+
+        private String lexicalForm;
+
+        private String lang;
+
+        private String datatypeURI;
+
+        private boolean wellFormedXML;
+
+        private boolean tainted;
+
+
+        BufferedLiteral(String lexicalForm, String lang, String datatypeURI, boolean wellFormedXML) {
+            this.lexicalForm = lexicalForm;
+            this.lang = lang;
+            this.datatypeURI = datatypeURI;
+            this.wellFormedXML = wellFormedXML;
+        }
+
+
+        public boolean isWellFormedXML() {
+            return wellFormedXML;
+        }
+
+
+        public String getParseType() {
+            return wellFormedXML ? "Literal" : null;
+        }
+
+
+        public String getDatatypeURI() {
+            return datatypeURI;
+        }
+
+
+        public String getLang() {
+            return lang;
+        }
+
+
+        public void taint() {
+            tainted = true;
+        }
+
+
+        public boolean isTainted() {
+            return tainted;
+        }
+
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof BufferedLiteral)) {
+                return false;
+            }
+            BufferedLiteral other = (BufferedLiteral) o;
+            return lexicalForm.equals(other.lexicalForm) && wellFormedXML == other.wellFormedXML &&
+                   (lang == null ? other.lang == null : lang.equals(other.lang)) &&
+                   (datatypeURI == null ? other.datatypeURI == null : datatypeURI.equals(other.datatypeURI));
+        }
+
+
+        @Override
+        public int hashCode() {
+            return lexicalForm.hashCode();
+        }
+
+
+        @Override
+        public String toString() {
+            return lexicalForm;
+        }
+    }
+}
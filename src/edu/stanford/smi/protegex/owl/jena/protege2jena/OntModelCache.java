@@ -0,0 +1,339 @@
+package edu.stanford.smi.protegex.owl.jena.protege2jena;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import com.hp.hpl.jena.ontology.OntModel;
+import com.hp.hpl.jena.ontology.OntModelSpec;
+import com.hp.hpl.jena.rdf.model.Model;
+import com.hp.hpl.jena.rdf.model.Property;
+import com.hp.hpl.jena.rdf.model.Resource;
+import com.hp.hpl.jena.rdf.model.Statement;
+import com.hp.hpl.jena.rdf.model.StmtIterator;
+import com.hp.hpl.jena.vocabulary.OWL;
+import com.hp.hpl.jena.vocabulary.RDF;
+import com.hp.hpl.jena.vocabulary.RDFS;
+
+import edu.stanford.smi.protege.event.FrameAdapter;
+import edu.stanford.smi.protege.event.FrameEvent;
+import edu.stanford.smi.protege.event.FrameListener;
+import edu.stanford.smi.protege.model.FrameID;
+import edu.stanford.smi.protege.util.Log;
+import edu.stanford.smi.protegex.owl.model.OWLModel;
+import edu.stanford.smi.protegex.owl.model.RDFList;
+import edu.stanford.smi.protegex.owl.model.RDFProperty;
+import edu.stanford.smi.protegex.owl.model.RDFResource;
+import edu.stanford.smi.protegex.owl.model.RDFSClass;
+import edu.stanford.smi.protegex.owl.model.event.ModelAdapter;
+import edu.stanford.smi.protegex.owl.model.event.ModelListener;
+import edu.stanford.smi.protegex.owl.model.event.PropertyValueAdapter;
+import edu.stanford.smi.protegex.owl.model.event.PropertyValueListener;
+import edu.stanford.smi.protegex.owl.model.impl.OWLSystemFrames;
+import edu.stanford.smi.protegex.owl.model.triplestore.TripleStore;
+
+/**
+ * Holds the OntModel that Protege2Jena has created for an OWLModel and keeps it
+ * up to date while the OWLModel changes.
+ * <p/>
+ * Property value changes are copied into the Jena sub model of each TripleStore.
+ * Changes that would be affected by the clean-up steps of Protege2Jena (such as
+ * equivalent classes or rdf:Lists), renamed or deleted resources and changes to the
+ * set of TripleStores only mark the cache as invalid, so that the OntModel is rebuilt
+ * from scratch on the next request.
+ * <p/>
+ * The cache relies on change events, so it must be disabled while the OWLModel
+ * does not generate events.  While it is disabled, every call to
+ * <CODE>getOntModel</CODE> creates a new OntModel.
+ * The cached OntModel is shared between all clients and must not be modified.
+ */
+public class OntModelCache {
+
+    private static transient final Logger log = Log.getLogger(OntModelCache.class);
+
+    private OWLModel owlModel;
+
+    private OntModel ontModel;
+
+    private Protege2Jena converter;
+
+    private Map<TripleStore, Model> tripleStore2Model;
+
+    private List<TripleStore> tripleStores;
+
+    private boolean listening;
+
+    private boolean enabled = true;
+
+    private Set<RDFProperty> ignoredProperties;
+
+    private Set parseTypeCollectionProperties = Protege2Jena.getParseTypeCollectionProperties();
+
+
+    private ModelListener modelListener = new ModelAdapter() {
+        public void classCreated(RDFSClass cls) {
+            resourceCreated(cls);
+        }
+
+
+        public void classDeleted(RDFSClass cls) {
+            invalidate();
+        }
+
+
+        public void individualCreated(RDFResource resource) {
+            resourceCreated(resource);
+        }
+
+
+        public void individualDeleted(RDFResource resource) {
+            invalidate();
+        }
+
+
+        public void propertyCreated(RDFProperty property) {
+            resourceCreated(property);
+        }
+
+
+        public void propertyDeleted(RDFProperty property) {
+            invalidate();
+        }
+
+
+        public void resourceNameChanged(RDFResource resource, String oldName) {
+            invalidate();
+        }
+    };
+
+
+    private PropertyValueListener propertyValueListener = new PropertyValueAdapter() {
+        public void propertyValueChanged(RDFResource resource, RDFProperty property, Collection oldValues) {
+            OntModelCache.this.propertyValueChanged(resource, property);
+        }
+    };
+
+
+    /**
+     * rdf:type and rdfs:subClassOf are partly maintained through the Protege system
+     * slots, which are not reported to PropertyValueListeners.
+     */
+    private FrameListener systemSlotListener = new FrameAdapter() {
+        @Override
+        public void ownSlotValueChanged(FrameEvent event) {
+            if (event.getFrame() instanceof RDFResource) {
+                FrameID slotID = event.getSlot().getFrameID();
+                if (edu.stanford.smi.protege.model.Model.SlotID.DIRECT_TYPES.equals(slotID)) {
+                    OntModelCache.this.propertyValueChanged((RDFResource) event.getFrame(), owlModel.getRDFTypeProperty());
+                }
+                else if (edu.stanford.smi.protege.model.Model.SlotID.DIRECT_SUPERCLASSES.equals(slotID)) {
+                    OntModelCache.this.propertyValueChanged((RDFResource) event.getFrame(), owlModel.getRDFSSubClassOfProperty());
+                }
+            }
+        }
+    };
+
+
+    public OntModelCache(OWLModel owlModel) {
+        this.owlModel = owlModel;
+    }
+
+
+    /**
+     * Stops listening to the OWLModel and releases the cached OntModel.
+     */
+    public synchronized void dispose() {
+        if (listening) {
+            owlModel.removeModelListener(modelListener);
+            owlModel.removePropertyValueListener(propertyValueListener);
+            owlModel.removeFrameListener(systemSlotListener);
+            listening = false;
+        }
+        invalidate();
+    }
+
+
+    /**
+     * Gets the cached OntModel, and rebuilds it if it has been invalidated since
+     * the last call.
+     *
+     * @return the current OntModel (not to be modified)
+     */
+    public synchronized OntModel getOntModel() {
+        if (!enabled) {
+            return Protege2Jena.createOntModel(owlModel);
+        }
+        if (!isValid()) {
+            rebuild();
+        }
+        return ontModel;
+    }
+
+
+    /**
+     * Marks the cached OntModel as outdated.  The next call to <CODE>getOntModel</CODE>
+     * will rebuild it from the TripleStores.
+     */
+    public synchronized void invalidate() {
+        if (ontModel != null && log.isLoggable(Level.FINE)) {
+            log.fine("Invalidating cached OntModel of " + owlModel);
+        }
+        ontModel = null;
+        tripleStore2Model = null;
+        tripleStores = null;
+    }
+
+
+    /**
+     * Enables or disables caching.  Caching must be disabled while the
+     * OWLModel does not generate events, because the cache would not
+     * be notified of the changes.
+     */
+    public synchronized void setEnabled(boolean enabled) {
+        if (this.enabled != enabled) {
+            this.enabled = enabled;
+            invalidate();
+        }
+    }
+
+
+    private boolean isValid() {
+        return ontModel != null &&
+               tripleStores.equals(owlModel.getTripleStoreModel().getTripleStores());
+    }
+
+
+    private void rebuild() {
+        if (!listening) {
+            owlModel.addModelListener(modelListener);
+            owlModel.addPropertyValueListener(propertyValueListener);
+            owlModel.addFrameListener(systemSlotListener);
+            listening = true;
+        }
+        List<TripleStore> currentTripleStores = new ArrayList<TripleStore>(owlModel.getTripleStoreModel().getTripleStores());
+        Map<TripleStore, Model> map = new HashMap<TripleStore, Model>();
+        ontModel = Protege2Jena.createOntModel(owlModel, OntModelSpec.OWL_MEM, currentTripleStores, map);
+        tripleStore2Model = map;
+        tripleStores = currentTripleStores;
+        converter = new Protege2Jena(owlModel);
+    }
+
+
+    private synchronized void resourceCreated(RDFResource resource) {
+        if (ontModel != null) {
+            copyPropertyValues(resource, owlModel.getRDFTypeProperty());
+        }
+    }
+
+
+    private synchronized void propertyValueChanged(RDFResource resource, RDFProperty property) {
+        if (ontModel == null || isIgnoredProperty(property)) {
+            return;
+        }
+        if (requiresRebuild(resource, property)) {
+            invalidate();
+        }
+        else {
+            copyPropertyValues(resource, property);
+        }
+    }
+
+
+    private void copyPropertyValues(RDFResource resource, RDFProperty property) {
+        try {
+            for (Map.Entry<TripleStore, Model> entry : tripleStore2Model.entrySet()) {
+                Model model = entry.getValue();
+                converter.copyPropertyValues(entry.getKey(), model, resource, property);
+                if (property.equals(owlModel.getRDFSSubClassOfProperty())) {
+                    removeRedundantOWLThing(model, resource, RDFS.subClassOf);
+                }
+                else if (property.equals(owlModel.getRDFSDomainProperty())) {
+                    removeRedundantOWLThing(model, resource, RDFS.domain);
+                }
+            }
+        }
+        catch (Exception ex) {
+            log.log(Level.WARNING, "Could not update cached OntModel - will rebuild it", ex);
+            invalidate();
+        }
+    }
+
+
+    /**
+     * Repeats the Protege2Jena clean-up step that drops rdfs:subClassOf owl:Thing
+     * and rdfs:domain owl:Thing if owl:Thing is the only value.
+     */
+    private void removeRedundantOWLThing(Model model, RDFResource resource, Property property) {
+        if (resource.isAnonymous()) {
+            return;
+        }
+        Resource subject = model.getResource(resource.getURI());
+        StmtIterator it = model.listStatements(subject, property, (Resource) null);
+        try {
+            if (it.hasNext()) {
+                Statement statement = it.nextStatement();
+                if (!it.hasNext() && OWL.Thing.equals(statement.getObject())) {
+                    model.removeAll(subject, property, null);
+                }
+            }
+        }
+        finally {
+            it.close();
+        }
+    }
+
+
+    /**
+     * Checks whether a property is one of the internal Protege properties that
+     * the TripleStores do not report as triples.
+     */
+    private boolean isIgnoredProperty(RDFProperty property) {
+        if (ignoredProperties == null) {
+            Set<RDFProperty> properties = new HashSet<RDFProperty>();
+            OWLSystemFrames systemFrames = owlModel.getSystemFrames();
+            properties.add(systemFrames.getOwlOntologyPrefixesProperty());
+            properties.add(systemFrames.getOwlOntologyPointerProperty());
+            properties.add(systemFrames.getProtegeClassificationStatusProperty());
+            properties.add(systemFrames.getProtegeInferredSubclassesProperty());
+            properties.add(systemFrames.getProtegeInferredSuperclassesProperty());
+            properties.add(systemFrames.getProtegeInferredTypeProperty());
+            ignoredProperties = properties;
+        }
+        return ignoredProperties.contains(property);
+    }
+
+
+    /**
+     * Checks whether a change would require the clean-up steps of Protege2Jena
+     * that look at more than one statement.  Changes on anonymous resources can
+     * be copied like all others, because Protege2Jena derives the IDs of the
+     * blank nodes from the names of the resources.
+     */
+    private boolean requiresRebuild(RDFResource resource, RDFProperty property) {
+        if (resource instanceof RDFList) {
+            return true;
+        }
+        String uri = property.getURI();
+        if (uri == null ||
+                OWL.equivalentClass.getURI().equals(uri) ||
+                RDF.first.getURI().equals(uri) ||
+                RDF.rest.getURI().equals(uri)) {
+            return true;
+        }
+        for (Object o : parseTypeCollectionProperties) {
+            if (uri.equals(((Property) o).getURI())) {
+                return true;
+            }
+        }
+        if (RDFS.subClassOf.getURI().equals(uri)) {
+            return resource.getPropertyValueCount(owlModel.getOWLEquivalentClassProperty()) > 0;
+        }
+        return false;
+    }
+}
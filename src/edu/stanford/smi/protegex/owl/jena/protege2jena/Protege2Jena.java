@@ -37,6 +37,7 @@ import edu.stanford.smi.protegex.owl.model.OWLModel;
 import edu.stanford.smi.protegex.owl.model.RDFProperty;
 import edu.stanford.smi.protegex.owl.model.RDFResource;
 import edu.stanford.smi.protegex.owl.model.RDFSLiteral;
+import edu.stanford.smi.protegex.owl.model.impl.DefaultRDFSLiteral;
 import edu.stanford.smi.protegex.owl.model.impl.XMLSchemaDatatypes;
 import edu.stanford.smi.protegex.owl.model.triplestore.Triple;
 import edu.stanford.smi.protegex.owl.model.triplestore.TripleStore;
@@ -101,6 +102,47 @@ public class Protege2Jena {
     }
 
 
+    /**
+     * Creates an instance that is only used to convert single resources and values,
+     * e.g. to update an existing Jena Model incrementally.
+     *
+     * @param owlModel the source OWLModel
+     */
+    Protege2Jena(OWLModel owlModel) {
+        this.owlModel = owlModel;
+        this.tripleStoreModel = owlModel.getTripleStoreModel();
+    }
+
+
+    /**
+     * Replaces all statements with a given subject and predicate in a Jena Model
+     * with the current values of the subject in a given TripleStore.
+     *
+     * @param tripleStore the TripleStore to take the current values from
+     * @param model       the Model to update
+     * @param subject     the subject of the statements
+     * @param property    the predicate of the statements
+     */
+    void copyPropertyValues(TripleStore tripleStore, Model model, RDFResource subject, RDFProperty property) {
+        Resource resource = getResource(subject, model);
+        Property predicate = getProperty(property, model);
+        model.removeAll(resource, predicate, null);
+        Iterator it = tripleStore.listObjects(subject, property);
+        while (it.hasNext()) {
+            Object object = it.next();
+            if (object instanceof String && DefaultRDFSLiteral.isRawValue((String) object)) {
+                object = DefaultRDFSLiteral.fromRawValue(owlModel, (String) object);
+            }
+            try {
+                model.add(resource, predicate, getRDFNode(object, model));
+            }
+            catch (Exception e) {
+                Log.getLogger().log(Level.WARNING, "Error at creating triple: " + subject + " " + property + " " + object, e);
+            }
+        }
+    }
+
+
     private void copyTriples(TripleStore tripleStore, Model model) {
         Iterator<Triple> it = tripleStore.listTriples();
         while (it.hasNext()) {
@@ -1,16 +1,21 @@
 package edu.stanford.smi.protegex.owl.model;
 
+import java.net.URI;
+import java.net.URISyntaxException;
+
 import com.hp.hpl.jena.rdf.model.impl.Util;
 
-import edu.stanford.smi.protege.util.URIUtilities;
+import edu.stanford.smi.protegex.owl.model.impl.AbstractNamespaceManager;
 import edu.stanford.smi.protegex.owl.model.impl.OWLNamespaceManager;
 
 public class NamespaceUtil {
     
     public static final String PREFIX_TO_NAME_SEPARATOR = ":";
 
+    private static final String ILLEGAL_URI_CHARACTERS = "\"<>\\^`{|}";
+
 	public static String getNameSpace(String fullURI) {
-		if (!URIUtilities.isAbsoluteURI(fullURI)) {
+		if (!isAbsoluteURI(fullURI)) {
 			return null;
 		}
 		return fullURI.substring(0, Util.splitNamespace(fullURI) );
@@ -19,7 +24,7 @@ public class NamespaceUtil {
 	
 	public static String getLocalName(String fullURI)	{
 		if (fullURI == null) { return null; }
-		if (!URIUtilities.isAbsoluteURI(fullURI)) {
+		if (!isAbsoluteURI(fullURI)) {
 			return fullURI;
 		}
 		return fullURI.substring(Util.splitNamespace(fullURI) );
@@ -36,6 +41,10 @@ public class NamespaceUtil {
 	
 	
 	public static String getPrefixedName(NamespaceManager names, String fullURI)   {
+		if (names instanceof AbstractNamespaceManager) {
+			return ((AbstractNamespaceManager) names).getPrefixedName(fullURI);
+		}
+
 		String uri = getNameSpace(fullURI);
 
 		if (uri == null) {
@@ -61,10 +70,14 @@ public class NamespaceUtil {
 	}
 	
 	public static String getFullName(OWLModel owlModel, String prefixedName) {
-		int ind = prefixedName.indexOf(PREFIX_TO_NAME_SEPARATOR);
-		
 		NamespaceManager nsm = owlModel.getNamespaceManager();
 		
+		if (nsm instanceof AbstractNamespaceManager) {
+			return ((AbstractNamespaceManager) nsm).getFullName(prefixedName);
+		}
+		
+		int ind = prefixedName.indexOf(PREFIX_TO_NAME_SEPARATOR);
+		
 		if (ind == -1) { //no ":" in the prefixed name, this is a name in the default namespace
 			String defaultNamespace = nsm.getDefaultNamespace();
 			
@@ -101,4 +114,84 @@ public class NamespaceUtil {
 				
 	}
 	
+	
+	/**
+	 * Gets the namespace of a prefix that is a part of a name, without
+	 * extracting the prefix from the name if the namespace manager allows it.
+	 */
+	public static String getNamespaceForPrefix(NamespaceManager nsm, String name, int start, int end) {
+		if (nsm instanceof AbstractNamespaceManager) {
+			return ((AbstractNamespaceManager) nsm).getNamespaceForPrefix(name, start, end);
+		}
+		return nsm.getNamespaceForPrefix(name.substring(start, end));
+	}
+	
+	
+	/**
+	 * Checks whether a string is an absolute URI, following the rules of
+	 * <code>java.net.URI</code> but without creating a URI object for
+	 * the common cases.
+	 */
+	public static boolean isAbsoluteURI(String uri) {
+		int schemeEnd = getSchemeEnd(uri);
+		if (schemeEnd < 0 || schemeEnd == uri.length() - 1 || uri.charAt(schemeEnd + 1) == '#') {
+			return false;
+		}
+		boolean hasFragment = false;
+		for (int i = schemeEnd + 1; i < uri.length(); i++) {
+			char c = uri.charAt(i);
+			if (c == '#') {
+				if (hasFragment) {
+					return false;
+				}
+				hasFragment = true;
+			}
+			else if (c == '%' || c == '[' || c == ']') {
+				// Escapes and IPv6 addresses are left to the real parser
+				try {
+					return new URI(uri).isAbsolute();
+				}
+				catch (URISyntaxException e) {
+					return false;
+				}
+			}
+			else if (c < 0x80) {
+				if (c <= ' ' || c == 0x7f || ILLEGAL_URI_CHARACTERS.indexOf(c) >= 0) {
+					return false;
+				}
+			}
+			else if (Character.isSpaceChar(c) || Character.isISOControl(c)) {
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	
+	/**
+	 * Gets the index of the colon that ends the scheme of a URI.
+	 * 
+	 * @return the index or -1 if the string does not start with a scheme
+	 */
+	public static int getSchemeEnd(String uri) {
+		if (uri.length() == 0 || !isAsciiLetter(uri.charAt(0))) {
+			return -1;
+		}
+		for (int i = 1; i < uri.length(); i++) {
+			char c = uri.charAt(i);
+			if (c == ':') {
+				return i;
+			}
+			if (!isAsciiLetter(c) && !(c >= '0' && c <= '9') && c != '+' && c != '-' && c != '.') {
+				return -1;
+			}
+		}
+		return -1;
+	}
+	
+	
+	private static boolean isAsciiLetter(char c) {
+		return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+	}
+	
 }
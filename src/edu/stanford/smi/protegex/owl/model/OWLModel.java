@@ -625,6 +625,13 @@ public interface OWLModel extends ProtegeKnowledgeBase, OWLTestManager {
     com.hp.hpl.jena.rdf.model.Model getJenaModel();
 
 
+    /**
+     * Gets a Jena OntModel which represents the current state of this.  The
+     * OntModel may be shared and must not be modified.
+     *
+     * @return an OntModel
+     * @see edu.stanford.smi.protegex.owl.jena.OntModelProvider#getOntModel
+     */
     com.hp.hpl.jena.ontology.OntModel getOntModel();
     
     RDFProperty getOWLDifferentFromProperty();
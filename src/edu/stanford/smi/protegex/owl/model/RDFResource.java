@@ -340,6 +340,57 @@ public interface RDFResource extends ProtegeInstance, RDFObject, Visitable {
     RDFSLiteral getPropertyValueLiteral(RDFProperty property);
 
 
+    /**
+     * Gets the first (direct) value of a given property as an int.
+     * Unlike <CODE>getPropertyValueLiteral(property).getInt()</CODE>, this does
+     * not create an RDFSLiteral: the parsed value is cached until the values of
+     * this resource change.
+     *
+     * @param property     the property to get the value from
+     * @param defaultValue the value to return if the property has no value or
+     *                     if its value is not an int
+     * @return the property value or defaultValue
+     */
+    int getPropertyValueInt(RDFProperty property, int defaultValue);
+
+
+    /**
+     * Gets the first (direct) value of a given property as a long.
+     *
+     * @param property     the property to get the value from
+     * @param defaultValue the value to return if the property has no value or
+     *                     if its value is not a long
+     * @return the property value or defaultValue
+     * @see #getPropertyValueInt
+     */
+    long getPropertyValueLong(RDFProperty property, long defaultValue);
+
+
+    /**
+     * Gets the first (direct) value of a given property as a double.
+     *
+     * @param property     the property to get the value from
+     * @param defaultValue the value to return if the property has no value or
+     *                     if its value is not a number
+     * @return the property value or defaultValue
+     * @see #getPropertyValueInt
+     */
+    double getPropertyValueDouble(RDFProperty property, double defaultValue);
+
+
+    /**
+     * Gets the first (direct) value of a given property as a boolean.
+     * The values "true" and "1" are true, "false" and "0" are false.
+     *
+     * @param property     the property to get the value from
+     * @param defaultValue the value to return if the property has no value or
+     *                     if its value is not a boolean
+     * @return the property value or defaultValue
+     * @see #getPropertyValueInt
+     */
+    boolean getPropertyValueBoolean(RDFProperty property, boolean defaultValue);
+
+
     /**
      * Gets all values of a given property, and optionally its subproperties.
      *
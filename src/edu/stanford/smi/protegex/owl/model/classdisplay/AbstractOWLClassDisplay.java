@@ -12,6 +12,7 @@ import edu.stanford.smi.protegex.owl.model.OWLHasValue;
 import edu.stanford.smi.protegex.owl.model.OWLIntersectionClass;
 import edu.stanford.smi.protegex.owl.model.OWLMaxCardinality;
 import edu.stanford.smi.protegex.owl.model.OWLMinCardinality;
+import edu.stanford.smi.protegex.owl.model.OWLModel;
 import edu.stanford.smi.protegex.owl.model.OWLNAryLogicalClass;
 import edu.stanford.smi.protegex.owl.model.OWLQuantifierRestriction;
 import edu.stanford.smi.protegex.owl.model.OWLRestriction;
@@ -23,6 +24,7 @@ import edu.stanford.smi.protegex.owl.model.RDFResource;
 import edu.stanford.smi.protegex.owl.model.RDFSClass;
 import edu.stanford.smi.protegex.owl.model.RDFSNamedClass;
 import edu.stanford.smi.protegex.owl.model.classparser.ParserUtils;
+import edu.stanford.smi.protegex.owl.model.impl.AbstractOWLModel;
 
 /**
  * A basic implementation of OWLClassRenderer which uses infix notation based on the
@@ -175,10 +177,23 @@ public abstract class AbstractOWLClassDisplay implements OWLClassDisplay {
 
     protected String getNestedDisplayText(RDFSClass cls) {
         if (cls instanceof RDFSNamedClass || cls instanceof OWLEnumeratedClass || cls instanceof OWLComplementClass) {
-            return getDisplayText(cls);
+            return getCachedDisplayText(cls);
         }
         else {
-            return "(" + getDisplayText(cls) + ")";
+            return "(" + getCachedDisplayText(cls) + ")";
         }
     }
+
+
+    /**
+     * Gets the display text of an operand, which is taken from the
+     * ClassExpressionCache of the model if the operand is anonymous.
+     */
+    protected String getCachedDisplayText(RDFSClass cls) {
+        OWLModel owlModel = cls.getOWLModel();
+        if (cls instanceof OWLAnonymousClass && owlModel instanceof AbstractOWLModel) {
+            return ((AbstractOWLModel) owlModel).getClassExpressionCache().getDisplayText((OWLAnonymousClass) cls, this);
+        }
+        return getDisplayText(cls);
+    }
 }
@@ -0,0 +1,270 @@
+package edu.stanford.smi.protegex.owl.model.classparser;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import edu.stanford.smi.protege.event.FrameAdapter;
+import edu.stanford.smi.protege.event.FrameEvent;
+import edu.stanford.smi.protege.event.FrameListener;
+import edu.stanford.smi.protege.event.KnowledgeBaseAdapter;
+import edu.stanford.smi.protege.event.KnowledgeBaseEvent;
+import edu.stanford.smi.protege.event.KnowledgeBaseListener;
+import edu.stanford.smi.protege.model.BrowserSlotPattern;
+import edu.stanford.smi.protege.model.Cls;
+import edu.stanford.smi.protege.model.Frame;
+import edu.stanford.smi.protege.model.Project;
+import edu.stanford.smi.protege.model.Slot;
+import edu.stanford.smi.protege.util.ApplicationProperties;
+import edu.stanford.smi.protegex.owl.model.OWLModel;
+import edu.stanford.smi.protegex.owl.model.RDFResource;
+import edu.stanford.smi.protegex.owl.model.RDFSDatatype;
+import edu.stanford.smi.protegex.owl.model.impl.OWLSystemFrames;
+
+/**
+ * A thread safe cache of the resources that <code>ParserUtils</code> finds for
+ * the names in class expressions, and of the <code>DatatypeNameChecker</code>
+ * of an OWLModel.  The cache is shared by all parsers of the model, so that
+ * parsing many expressions that mention the same names, possibly by several
+ * parser instances in several threads, looks up each name only once.
+ * <p/>
+ * A name is resolved by URI, prefixed name, rdfs:label or browser text, so
+ * the cache is cleared, through its listeners, which must be registered with
+ * the knowledge base, by the creation, rename, deletion or replacement of a
+ * named resource or a datatype, and by a change of the name, the types, the
+ * rdfs:label or a browser slot of a named resource, or of the prefixes.
+ * Other changes, like new superclasses, and changes to anonymous resources,
+ * like the restrictions created by the parsers, do not clear the cache.
+ * Caching is disabled while the knowledge base does not generate events.
+ * <p/>
+ * The browser slot patterns of the classes do not generate events, so
+ * <code>clear</code> must be called after one of them has been changed,
+ * which also updates the browser slots that the cache listens to.  The
+ * OWLModel does this when its browser slots are set.  The
+ * cache is also cleared when it holds more names than the value of
+ * <code>MAX_SIZE_PROPERTY</code>.
+ */
+public class ParserNameCache {
+
+    /**
+     * The maximum number of names whose resources are cached (default 100000).
+     */
+    public final static String MAX_SIZE_PROPERTY = "protegeowl.parser.name.cache.size";
+
+    // the result of a lookup that did not find a resource
+    private final static Object NOT_FOUND = new Object();
+
+    private final int maxSize = ApplicationProperties.getIntegerProperty(MAX_SIZE_PROPERTY, 100000);
+
+    private OWLModel owlModel;
+
+    // target class -> name -> resource or NOT_FOUND
+    private ConcurrentHashMap<Class<?>, ConcurrentMap<String, Object>> resources = new ConcurrentHashMap<Class<?>, ConcurrentMap<String, Object>>();
+
+    private AtomicInteger size = new AtomicInteger();
+
+    private volatile DatatypeNameChecker datatypeNameChecker;
+
+    private AtomicLong generation = new AtomicLong();
+
+    private volatile boolean enabled = true;
+
+    // the slots whose values are used to resolve names, or null if not known yet
+    private volatile Set<Slot> nameSlots;
+
+    private FrameListener frameListener = new FrameAdapter() {
+        @Override
+        public void ownSlotValueChanged(FrameEvent event) {
+            Slot slot = event.getSlot();
+            if (slot == null || isNameSlot(slot)) {
+                frameChanged(event.getFrame());
+            }
+        }
+
+
+        @Override
+        public void nameChanged(FrameEvent event) {
+            clear();
+        }
+
+
+        @Override
+        public void deleted(FrameEvent event) {
+            frameChanged(event.getFrame());
+        }
+    };
+
+    private KnowledgeBaseListener knowledgeBaseListener = new KnowledgeBaseAdapter() {
+        @Override
+        public void instanceCreated(KnowledgeBaseEvent event) {
+            frameChanged(event.getFrame());
+        }
+
+
+        @Override
+        public void instanceDeleted(KnowledgeBaseEvent event) {
+            frameChanged(event.getFrame());
+        }
+
+
+        @Override
+        public void frameReplaced(KnowledgeBaseEvent event) {
+            clear();
+        }
+    };
+
+
+    public ParserNameCache(OWLModel owlModel) {
+        this.owlModel = owlModel;
+    }
+
+
+    /**
+     * Gets the listener that keeps this cache up to date.  It must be added
+     * to the knowledge base as a (global) frame listener.
+     */
+    public FrameListener getFrameListener() {
+        return frameListener;
+    }
+
+
+    /**
+     * Gets the listener that keeps this cache up to date.  It must be added
+     * to the knowledge base as a knowledge base listener.
+     */
+    public KnowledgeBaseListener getKnowledgeBaseListener() {
+        return knowledgeBaseListener;
+    }
+
+
+    /**
+     * Gets a DatatypeNameChecker for the current datatypes of the model.  The
+     * checker is not modified after it has been created, so it may be used by
+     * several parsers at once.
+     */
+    public DatatypeNameChecker getDatatypeNameChecker() {
+        DatatypeNameChecker checker = datatypeNameChecker;
+        if (checker == null) {
+            long generation = this.generation.get();
+            checker = new DatatypeNameChecker(owlModel);
+            if (enabled && this.generation.get() == generation) {
+                datatypeNameChecker = checker;
+                if (this.generation.get() != generation) {
+                    // Lost a race with an invalidation
+                    datatypeNameChecker = null;
+                }
+            }
+        }
+        return checker;
+    }
+
+
+    <X extends RDFResource> X getFrameByName(String name, Class<? extends X> targetClass)
+            throws AmbiguousNameException {
+        if (!enabled) {
+            return ParserUtils.findFrameByName(owlModel, name, targetClass);
+        }
+        ConcurrentMap<String, Object> names = resources.get(targetClass);
+        Object value = names == null ? null : names.get(name);
+        if (value == null) {
+            long generation = this.generation.get();
+            X resource = ParserUtils.findFrameByName(owlModel, name, targetClass);
+            value = resource == null ? NOT_FOUND : resource;
+            put(targetClass, name, value, generation);
+        }
+        return value == NOT_FOUND ? null : targetClass.cast(value);
+    }
+
+
+    private void put(Class<?> targetClass, String name, Object value, long generation) {
+        if (!enabled || this.generation.get() != generation) {
+            return;
+        }
+        if (size.incrementAndGet() > maxSize) {
+            clear();
+            return;
+        }
+        ConcurrentMap<String, Object> names = resources.get(targetClass);
+        if (names == null) {
+            names = new ConcurrentHashMap<String, Object>();
+            ConcurrentMap<String, Object> oldNames = resources.putIfAbsent(targetClass, names);
+            if (oldNames != null) {
+                names = oldNames;
+            }
+        }
+        names.put(name, value);
+        if (this.generation.get() != generation) {
+            // Lost a race with an invalidation
+            names.remove(name);
+        }
+    }
+
+
+    private boolean isNameSlot(Slot slot) {
+        Set<Slot> slots = nameSlots;
+        if (slots == null) {
+            Project project = owlModel.getProject();
+            if (project == null) {
+                return true;
+            }
+            slots = getNameSlots(project);
+            nameSlots = slots;
+        }
+        return slots.contains(slot);
+    }
+
+
+    /**
+     * Gets the slots that <code>ParserUtils</code> reads to find a resource by
+     * its name: the name and type slots, rdfs:label, the ontology prefixes and
+     * the slots of the simple browser slot patterns.
+     */
+    private Set<Slot> getNameSlots(Project project) {
+        Set<Slot> slots = new HashSet<Slot>();
+        OWLSystemFrames systemFrames = owlModel.getSystemFrames();
+        slots.add(systemFrames.getNameSlot());
+        slots.add(systemFrames.getDirectTypesSlot());
+        slots.add(owlModel.getRDFTypeProperty());
+        slots.add(owlModel.getRDFSLabelProperty());
+        slots.add(systemFrames.getOwlOntologyPrefixesProperty());
+        for (Cls cls : project.getClsesWithDirectBrowserSlots()) {
+            BrowserSlotPattern pattern = cls.getBrowserSlotPattern();
+            if (pattern != null && pattern.isSimple()) {
+                slots.add(pattern.getFirstSlot());
+            }
+        }
+        return slots;
+    }
+
+
+    private void frameChanged(Frame frame) {
+        if (!(frame instanceof RDFResource) || !((RDFResource) frame).isAnonymous() || frame instanceof RDFSDatatype) {
+            clear();
+        }
+    }
+
+
+    public void clear() {
+        generation.incrementAndGet();
+        resources.clear();
+        size.set(0);
+        datatypeNameChecker = null;
+        nameSlots = null;
+    }
+
+
+    /**
+     * Enables or disables caching.  Caching must be disabled while the
+     * knowledge base does not generate events, because the cache would not
+     * be notified of the changes.
+     */
+    public void setEnabled(boolean enabled) {
+        if (this.enabled != enabled) {
+            this.enabled = enabled;
+            clear();
+        }
+    }
+}
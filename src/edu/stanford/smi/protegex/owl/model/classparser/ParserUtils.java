@@ -23,6 +23,7 @@ import edu.stanford.smi.protegex.owl.model.RDFProperty;
 import edu.stanford.smi.protegex.owl.model.RDFResource;
 import edu.stanford.smi.protegex.owl.model.RDFSClass;
 import edu.stanford.smi.protegex.owl.model.RDFSNamedClass;
+import edu.stanford.smi.protegex.owl.model.impl.AbstractOWLModel;
 import edu.stanford.smi.protegex.owl.model.impl.DefaultRDFSLiteral;
 import edu.stanford.smi.protegex.owl.ui.widget.OWLUI;
 
@@ -84,6 +85,19 @@ public class ParserUtils {
   throws AmbiguousNameException {
     return getFrameByName(model, name, OWLIndividual.class); 
   }
+
+  /**
+   * Gets a DatatypeNameChecker for the current datatypes of the model.  The checker
+   * of an AbstractOWLModel is shared through its ParserNameCache.
+   */
+  public static DatatypeNameChecker getDatatypeNameChecker(OWLModel model) {
+      ParserNameCache cache = getNameCache(model);
+      return cache == null ? new DatatypeNameChecker(model) : cache.getDatatypeNameChecker();
+  }
+
+  private static ParserNameCache getNameCache(OWLModel model) {
+      return model instanceof AbstractOWLModel ? ((AbstractOWLModel) model).getParserNameCache() : null;
+  }
   
   /**
    * Calculates the frame with the given name using the rdfs:label slot as needed.
@@ -97,10 +111,21 @@ public class ParserUtils {
    *            return whatever is found.
    * @throws AmbiguousNameException
    */
-  @SuppressWarnings("unchecked")
   private static <X extends RDFResource> X getFrameByName(OWLModel model, 
                                                           String name, 
                                                           Class<? extends X> targetClass) 
+  throws AmbiguousNameException {
+    ParserNameCache cache = getNameCache(model);
+    if (cache != null) {
+        return cache.getFrameByName(name, targetClass);
+    }
+    return findFrameByName(model, name, targetClass);
+  }
+
+  @SuppressWarnings("unchecked")
+  static <X extends RDFResource> X findFrameByName(OWLModel model, 
+                                                   String name, 
+                                                   Class<? extends X> targetClass) 
   throws AmbiguousNameException { // there is a priority order here as we get more and more desperate
     X resource;
     if ((resource = getFrameByURI(model, name, targetClass)) != null) {
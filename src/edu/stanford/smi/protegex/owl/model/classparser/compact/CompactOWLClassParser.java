@@ -12,73 +12,79 @@ import edu.stanford.smi.protegex.owl.model.classparser.OWLClassParser;
 public class CompactOWLClassParser implements OWLClassParser {
 
     public void checkClass(OWLModel owlModel, String expression) throws OWLClassParseException {
+        CompactParser parser = new CompactParser(owlModel);
         try {
-            CompactParser.checkClass(owlModel, expression);
+            parser.checkClass(expression);
         }
         catch (ParseException ex) {
-            throw wrapException(ex);
+            throw wrapException(parser, ex);
         }
     }
 
 
     public void checkHasValueFiller(OWLModel owlModel, String expression) throws OWLClassParseException {
+        CompactParser parser = new CompactParser(owlModel);
         try {
-            CompactParser.checkHasValueFiller(owlModel, expression);
+            parser.checkHasValueFiller(expression);
         }
         catch (ParseException ex) {
-            throw wrapException(ex);
+            throw wrapException(parser, ex);
         }
     }
 
 
     public void checkQuantifierFiller(OWLModel owlModel, String expression) throws OWLClassParseException {
+        CompactParser parser = new CompactParser(owlModel);
         try {
-            CompactParser.checkQuantifierFiller(owlModel, expression);
+            parser.checkQuantifierFiller(expression);
         }
         catch (ParseException ex) {
-            throw wrapException(ex);
+            throw wrapException(parser, ex);
         }
     }
 
 
     public RDFSClass parseClass(OWLModel owlModel, String expression) throws OWLClassParseException {
+        CompactParser parser = new CompactParser(owlModel);
         try {
-            return CompactParser.parseClass(owlModel, expression);
+            return parser.parseClass(expression);
         }
         catch (ParseException ex) {
-            throw wrapException(ex);
+            throw wrapException(parser, ex);
         }
     }
 
 
     public Object parseHasValueFiller(OWLModel owlModel, String expression) throws OWLClassParseException {
+        CompactParser parser = new CompactParser(owlModel);
         try {
-            return CompactParser.parseHasValueFiller(owlModel, expression);
+            return parser.parseHasValueFiller(expression);
         }
         catch (ParseException ex) {
-            throw wrapException(ex);
+            throw wrapException(parser, ex);
         }
     }
 
 
     public RDFResource parseQuantifierFiller(OWLModel owlModel, String expression) throws OWLClassParseException {
+        CompactParser parser = new CompactParser(owlModel);
         try {
-            return (RDFResource) CompactParser.parseQuantifierFiller(owlModel, expression);
+            return (RDFResource) parser.parseQuantifierFiller(expression);
         }
         catch (ParseException ex) {
-            throw wrapException(ex);
+            throw wrapException(parser, ex);
         }
     }
 
 
-    private OWLClassParseException wrapException(ParseException ex) {
-        OWLClassParseException e = new OWLClassParseException(CompactParser.errorMessage);
+    private OWLClassParseException wrapException(CompactParser parser, ParseException ex) {
+        OWLClassParseException e = new OWLClassParseException(parser.errorMessage);
         e.currentToken = ex.currentToken == null ? null : ex.currentToken.image;
-        e.nextCouldBeClass = CompactParser.nextCouldBeCls;
-        e.nextCouldBeIndividual = CompactParser.nextCouldBeInstance;
-        e.nextCouldBeProperty = CompactParser.nextCouldBeSlot;
-        e.recentHasValueProperty = CompactParser.recentHasValueProperty;
-	    e.nextCouldBeDatatypeName = CompactParser.nextCouldBeDatatypeName;
+        e.nextCouldBeClass = parser.nextCouldBeCls;
+        e.nextCouldBeIndividual = parser.nextCouldBeInstance;
+        e.nextCouldBeProperty = parser.nextCouldBeSlot;
+        e.recentHasValueProperty = parser.recentHasValueProperty;
+	    e.nextCouldBeDatatypeName = parser.nextCouldBeDatatypeName;
         return e;
     }
 }
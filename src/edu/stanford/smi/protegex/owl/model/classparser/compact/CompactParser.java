@@ -13,30 +13,43 @@ import java.util.*;
 
 class CompactParser implements CompactParserConstants {
 
-    public static boolean nextCouldBeCls;
-    public static boolean nextCouldBeInstance;
-    public static boolean nextCouldBeSlot;
-    public static boolean nextCouldBeDatatypeName;
-    public static RDFProperty recentHasValueProperty;
-    public static String errorMessage;
-    public static DatatypeNameChecker datatypeNameChecker;
+    public boolean nextCouldBeCls;
+    public boolean nextCouldBeInstance;
+    public boolean nextCouldBeSlot;
+    public boolean nextCouldBeDatatypeName;
+    public RDFProperty recentHasValueProperty;
+    public String errorMessage;
+    public DatatypeNameChecker datatypeNameChecker;
 
     private OWLModel owlModel;
 
     private boolean create;
 
-        public static DatatypeNameChecker getDatatypeNameChecker() {
-                return datatypeNameChecker;
-        }
+
+    /**
+     * Creates a parser for the expressions of an OWLModel.  The parser holds the
+     * state of the expression being parsed, so it can be reused for any number of
+     * expressions but must not be shared by several threads at once.
+     */
+    public CompactParser(OWLModel owlModel) {
+        this(new StringReader(""));
+        this.owlModel = owlModel;
+    }
+
+
+    public DatatypeNameChecker getDatatypeNameChecker() {
+        return datatypeNameChecker;
+    }
+
 
     public static void checkClass(OWLModel owlModel, String text) throws ParseException {
-        reset();
-        datatypeNameChecker = new DatatypeNameChecker(owlModel);
-        text = CompactParserUtil.getParseableString(text);
-        CompactParser parser = new CompactParser(new StringReader(text));
-        parser.owlModel = owlModel;
-        parser.create = false;
-        parser.parseFile();
+        new CompactParser(owlModel).checkClass(text);
+    }
+
+
+    public void checkClass(String text) throws ParseException {
+        reset(CompactParserUtil.getParseableString(text), false);
+        parseFile();
     }
 
     private void checkFeatureSupported(OntClass ontClass) throws ParseException {
@@ -52,67 +65,74 @@ class CompactParser implements CompactParserConstants {
 
 
     public static void checkHasValueFiller(OWLModel owlModel, String text) throws ParseException {
-        reset();
-        datatypeNameChecker = new DatatypeNameChecker(owlModel);
-        text = CompactParserUtil.getParseableString(text);
-        CompactParser parser = new CompactParser(new StringReader(text));
-        parser.owlModel = owlModel;
-        parser.create = false;
-        parser.OWLHasValueValue();
+        new CompactParser(owlModel).checkHasValueFiller(text);
+    }
+
+
+    public void checkHasValueFiller(String text) throws ParseException {
+        reset(CompactParserUtil.getParseableString(text), false);
+        OWLHasValueValue();
     }
 
 
     public static void checkQuantifierFiller(OWLModel owlModel, String text) throws ParseException {
-        reset();
-        datatypeNameChecker = new DatatypeNameChecker(owlModel);
+        new CompactParser(owlModel).checkQuantifierFiller(text);
+    }
+
+
+    public void checkQuantifierFiller(String text) throws ParseException {
         text = CompactParserUtil.getParseableString(text);
-        CompactParser parser = new CompactParser(new StringReader(text));
-        parser.owlModel = owlModel;
-        parser.create = false;
-        if(parser.DataType() == null) {
+        reset(text, false);
+        if(DataType() == null) {
             throw new ParseException("Unknown datatype \"" + text + "\".");
         }
     }
 
 
     public static RDFSClass parseClass(OWLModel owlModel, String text) throws ParseException {
-        reset();
-        datatypeNameChecker = new DatatypeNameChecker(owlModel);
-        text = CompactParserUtil.getParseableString(text);
-        CompactParser parser = new CompactParser(new StringReader(text));
-        parser.owlModel = owlModel;
-        parser.create = true;
-        return parser.parseFile();
+        return new CompactParser(owlModel).parseClass(text);
+    }
+
+
+    public RDFSClass parseClass(String text) throws ParseException {
+        reset(CompactParserUtil.getParseableString(text), true);
+        return parseFile();
     }
 
 
     public static Object parseHasValueFiller(OWLModel owlModel, String text) throws ParseException {
-        reset();
-        datatypeNameChecker = new DatatypeNameChecker(owlModel);
-        CompactParser parser = new CompactParser(new StringReader(text));
-        parser.owlModel = owlModel;
-        parser.create = true;
-        return parser.OWLHasValueValue();
+        return new CompactParser(owlModel).parseHasValueFiller(text);
+    }
+
+
+    public Object parseHasValueFiller(String text) throws ParseException {
+        reset(text, true);
+        return OWLHasValueValue();
     }
 
 
     public static Object parseQuantifierFiller(OWLModel owlModel, String text) throws ParseException {
-        reset();
-        datatypeNameChecker = new DatatypeNameChecker(owlModel);
-        text = CompactParserUtil.getParseableString(text);
-        CompactParser parser = new CompactParser(new StringReader(text));
-        parser.owlModel = owlModel;
-        parser.create = false;
-        return parser.DataType();
+        return new CompactParser(owlModel).parseQuantifierFiller(text);
+    }
+
+
+    public Object parseQuantifierFiller(String text) throws ParseException {
+        reset(CompactParserUtil.getParseableString(text), false);
+        return DataType();
     }
 
 
-    private static void reset() {
+    private void reset(String text, boolean create) {
         nextCouldBeCls = false;
         nextCouldBeSlot = false;
         nextCouldBeInstance = false;
         nextCouldBeDatatypeName = false;
+        recentHasValueProperty = null;
         errorMessage = null;
+        datatypeNameChecker = ParserUtils.getDatatypeNameChecker(owlModel);
+        token_source.datatypeNameChecker = datatypeNameChecker;
+        this.create = create;
+        ReInit(new StringReader(text));
     }
 
   final public RDFSClass parseFile() throws ParseException {
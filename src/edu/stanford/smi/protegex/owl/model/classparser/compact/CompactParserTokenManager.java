@@ -11,6 +11,8 @@ import java.util.*;
 
 public class CompactParserTokenManager implements CompactParserConstants
 {
+    DatatypeNameChecker datatypeNameChecker;
+
   public  java.io.PrintStream debugStream = System.out;
   public  void setDebugStream(java.io.PrintStream ds) { debugStream = ds; }
 private final int jjStopStringLiteralDfa_0(int pos, long active0)
@@ -1274,7 +1276,7 @@ void TokenLexicalActions(Token matchedToken)
             image = new StringBuffer();
             image.append(input_stream.GetSuffix(jjimageLen + (lengthOfMatch = jjmatchedPos + 1)));
     String idName = ParserUtils.dequoteIdentifier(matchedToken.image);
-    if(CompactParser.getDatatypeNameChecker().isDatatypeName(idName)) {
+    if(datatypeNameChecker.isDatatypeName(idName)) {
                 matchedToken.kind = DATATYPEID;
     }
          break;
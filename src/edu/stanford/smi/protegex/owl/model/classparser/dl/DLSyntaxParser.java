@@ -9,14 +9,18 @@ import java.util.*;
 
 public class DLSyntaxParser implements DLSyntaxParserConstants {
 
-    private static DatatypeNameChecker datatypeChecker;
-
     private boolean create;
 
     private OWLModel owlModel;
 
-    public static DatatypeNameChecker getDatatypeNameChecker() {
-        return datatypeChecker;
+    /**
+     * Creates a parser for the expressions of an OWLModel.  The parser holds the
+     * state of the expression being parsed, so it can be reused for any number of
+     * expressions but must not be shared by several threads at once.
+     */
+    public DLSyntaxParser(OWLModel owlModel) {
+        this(new StringReader(""));
+        this.owlModel = owlModel;
     }
 
     public OWLModel getOWLModel() {
@@ -28,13 +32,14 @@ public class DLSyntaxParser implements DLSyntaxParserConstants {
     }
 
     public static OWLClass parseExpression(OWLModel owlModel, String expression, boolean create) throws ParseException {
-        DLSyntaxParserTokenManager tokMan = new DLSyntaxParserTokenManager(new JavaCharStream(new StringReader(expression)));
-        tokMan.setOWLModel(owlModel);
-        DLSyntaxParser parser = new DLSyntaxParser(tokMan);
-        parser.setCreate(create);
-        parser.owlModel = owlModel;
-        datatypeChecker = new DatatypeNameChecker(owlModel);
-        return parser.parse();
+        return new DLSyntaxParser(owlModel).parseExpression(expression, create);
+    }
+
+    public OWLClass parseExpression(String expression, boolean create) throws ParseException {
+        ReInit(new StringReader(expression));
+        token_source.setOWLModel(owlModel);
+        setCreate(create);
+        return parse();
     }
 
   final public OWLClass parse() throws ParseException {
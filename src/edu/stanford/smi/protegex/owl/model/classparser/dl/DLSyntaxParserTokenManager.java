@@ -14,7 +14,7 @@ public class DLSyntaxParserTokenManager implements DLSyntaxParserConstants
 
     public void setOWLModel(OWLModel owlModel) {
         this.owlModel = owlModel;
-        datatypeChecker = new DatatypeNameChecker(owlModel);
+        datatypeChecker = ParserUtils.getDatatypeNameChecker(owlModel);
     }
   public  java.io.PrintStream debugStream = System.out;
   public  void setDebugStream(java.io.PrintStream ds) { debugStream = ds; }
@@ -1580,7 +1580,7 @@ void TokenLexicalActions(Token matchedToken)
             image = new StringBuffer();
             image.append(input_stream.GetSuffix(jjimageLen + (lengthOfMatch = jjmatchedPos + 1)));
     String idName = ParserUtils.dequoteIdentifier(matchedToken.image);
-    if(DLSyntaxParser.getDatatypeNameChecker().isDatatypeName(idName)) {
+    if(datatypeChecker.isDatatypeName(idName)) {
                 matchedToken.kind = DATATYPE_ID;
     }
     else {
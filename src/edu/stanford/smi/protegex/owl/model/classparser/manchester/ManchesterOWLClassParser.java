@@ -20,11 +20,12 @@ public class ManchesterOWLClassParser implements OWLClassParser {
     public void checkClass(OWLModel owlModel,
                            String expression)
             throws OWLClassParseException {
+        ManchesterOWLParser parser = new ManchesterOWLParser(owlModel);
         try {
-            ManchesterOWLParser.checkClass(owlModel, expression);
+            parser.checkClass(expression);
         }
         catch (ParseException e) {
-            throw wrapException(e);
+            throw wrapException(parser, e);
         }
     }
 
@@ -32,11 +33,12 @@ public class ManchesterOWLClassParser implements OWLClassParser {
     public void checkHasValueFiller(OWLModel owlModel,
                                     String expression)
             throws OWLClassParseException {
+        ManchesterOWLParser parser = new ManchesterOWLParser(owlModel);
         try {
-            ManchesterOWLParser.parseHasValueFiller(owlModel, expression);
+            parser.parseHasValueFiller(expression);
         }
         catch (ParseException e) {
-            throw wrapException(e);
+            throw wrapException(parser, e);
         }
     }
 
@@ -44,11 +46,12 @@ public class ManchesterOWLClassParser implements OWLClassParser {
     public void checkQuantifierFiller(OWLModel owlModel,
                                       String expression)
             throws OWLClassParseException {
+        ManchesterOWLParser parser = new ManchesterOWLParser(owlModel);
         try {
-            ManchesterOWLParser.parseQuantifierFiller(owlModel, expression);
+            parser.parseQuantifierFiller(expression);
         }
         catch (ParseException e) {
-            throw wrapException(e);
+            throw wrapException(parser, e);
         }
     }
 
@@ -56,11 +59,12 @@ public class ManchesterOWLClassParser implements OWLClassParser {
     public RDFSClass parseClass(OWLModel owlModel,
                                 String expression)
             throws OWLClassParseException {
+        ManchesterOWLParser parser = new ManchesterOWLParser(owlModel);
         try {
-            return ManchesterOWLParser.parseClass(owlModel, expression);
+            return parser.parseClass(expression);
         }
         catch (ParseException e) {
-            throw wrapException(e);
+            throw wrapException(parser, e);
         }
     }
 
@@ -68,11 +72,12 @@ public class ManchesterOWLClassParser implements OWLClassParser {
     public Object parseHasValueFiller(OWLModel owlModel,
                                       String expression)
             throws OWLClassParseException {
+        ManchesterOWLParser parser = new ManchesterOWLParser(owlModel);
         try {
-            return ManchesterOWLParser.parseHasValueFiller(owlModel, expression);
+            return parser.parseHasValueFiller(expression);
         }
         catch (ParseException e) {
-            throw wrapException(e);
+            throw wrapException(parser, e);
         }
     }
 
@@ -80,23 +85,24 @@ public class ManchesterOWLClassParser implements OWLClassParser {
     public RDFResource parseQuantifierFiller(OWLModel owlModel,
                                              String expression)
             throws OWLClassParseException {
+        ManchesterOWLParser parser = new ManchesterOWLParser(owlModel);
         try {
-            return (RDFResource) ManchesterOWLParser.parseQuantifierFiller(owlModel, expression);
+            return (RDFResource) parser.parseQuantifierFiller(expression);
         }
         catch (ParseException e) {
-            throw wrapException(e);
+            throw wrapException(parser, e);
         }
     }
 
 
-    private OWLClassParseException wrapException(ParseException ex) {
-        OWLClassParseException e = new OWLClassParseException(ManchesterOWLParser.errorMessage);
+    private OWLClassParseException wrapException(ManchesterOWLParser parser, ParseException ex) {
+        OWLClassParseException e = new OWLClassParseException(parser.errorMessage);
         e.currentToken = ex.currentToken == null ? null : ex.currentToken.image;
-        e.nextCouldBeClass = ManchesterOWLParser.nextCouldBeCls;
-        e.nextCouldBeIndividual = ManchesterOWLParser.nextCouldBeInstance;
-        e.nextCouldBeProperty = ManchesterOWLParser.nextCouldBeSlot;
-        e.recentHasValueProperty = ManchesterOWLParser.recentHasValueProperty;
-	    e.nextCouldBeDatatypeName = ManchesterOWLParser.nextCouldBeDatatypeName;
+        e.nextCouldBeClass = parser.nextCouldBeCls;
+        e.nextCouldBeIndividual = parser.nextCouldBeInstance;
+        e.nextCouldBeProperty = parser.nextCouldBeSlot;
+        e.recentHasValueProperty = parser.recentHasValueProperty;
+	    e.nextCouldBeDatatypeName = parser.nextCouldBeDatatypeName;
         return e;
     }
 }
@@ -40,34 +40,51 @@ import edu.stanford.smi.protegex.owl.ui.profiles.ProfilesManager;
 
 public class ManchesterOWLParser implements ManchesterOWLParserConstants {
 
-    public static boolean nextCouldBeCls;
-    public static boolean nextCouldBeInstance;
-    public static boolean nextCouldBeSlot;
-    public static RDFProperty recentHasValueProperty;
-    public static String errorMessage;
-    public static boolean nextCouldBeDatatypeName;
+    public boolean nextCouldBeCls;
+    public boolean nextCouldBeInstance;
+    public boolean nextCouldBeSlot;
+    public RDFProperty recentHasValueProperty;
+    public String errorMessage;
+    public boolean nextCouldBeDatatypeName;
 
-    private static DatatypeNameChecker datatypeNameChecker;
+    private DatatypeNameChecker datatypeNameChecker;
 
     private OWLModel owlModel;
 
     private boolean create;
 
-        public static DatatypeNameChecker getDatatypeNameChecker() {
-                return datatypeNameChecker;
-        }
 
-        private static void createDatatypeNameChecker(OWLModel owlModel) {
-                datatypeNameChecker = new DatatypeNameChecker(owlModel);
-        }
+    /**
+     * Creates a parser for the expressions of an OWLModel.  The parser holds the
+     * state of the expression being parsed, including the details of a failed parse,
+     * so it can be reused for any number of expressions but must not be shared by
+     * several threads at once.  The name lookups are cached per model, so that
+     * several parsers of the same model can work in parallel.
+     */
+    public ManchesterOWLParser(OWLModel owlModel) {
+        this(new StringReader(""));
+        this.owlModel = owlModel;
+    }
+
+
+    public DatatypeNameChecker getDatatypeNameChecker() {
+        return datatypeNameChecker;
+    }
+
+
+    public OWLModel getOWLModel() {
+        return owlModel;
+    }
+
 
     public static void checkClass(OWLModel owlModel, String text) throws ParseException {
-        reset();
-        createDatatypeNameChecker(owlModel);
-        ManchesterOWLParser parser = new ManchesterOWLParser(new StringReader(text));
-        parser.owlModel = owlModel;
-        parser.create = false;
-        parser.parseFile();
+        new ManchesterOWLParser(owlModel).checkClass(text);
+    }
+
+
+    public void checkClass(String text) throws ParseException {
+        reset(text, false);
+        parseFile();
     }
 
 
@@ -84,63 +101,73 @@ public class ManchesterOWLParser implements ManchesterOWLParserConstants {
 
 
     public static void checkHasValueFiller(OWLModel owlModel, String text) throws ParseException {
-        reset();
-        createDatatypeNameChecker(owlModel);
-        ManchesterOWLParser parser = new ManchesterOWLParser(new StringReader(text));
-        parser.owlModel = owlModel;
-        parser.create = false;
-        parser.OWLHasValueValue();
+        new ManchesterOWLParser(owlModel).checkHasValueFiller(text);
+    }
+
+
+    public void checkHasValueFiller(String text) throws ParseException {
+        reset(text, false);
+        OWLHasValueValue();
     }
 
 
     public static void checkQuantifierFiller(OWLModel owlModel, String text) throws ParseException {
-        reset();
-        createDatatypeNameChecker(owlModel);
-        ManchesterOWLParser parser = new ManchesterOWLParser(new StringReader(text));
-        parser.owlModel = owlModel;
-        parser.create = false;
-        if(parser.DataType() == null) {
+        new ManchesterOWLParser(owlModel).checkQuantifierFiller(text);
+    }
+
+
+    public void checkQuantifierFiller(String text) throws ParseException {
+        reset(text, false);
+        if(DataType() == null) {
             throw new ParseException("Unknown datatype \"" + text + "\".");
         }
     }
 
 
     public static RDFSClass parseClass(OWLModel owlModel, String text) throws ParseException {
-        reset();
-        createDatatypeNameChecker(owlModel);
-        ManchesterOWLParser parser = new ManchesterOWLParser(new StringReader(text));
-        parser.owlModel = owlModel;
-        parser.create = true;
-        return parser.parseFile();
+        return new ManchesterOWLParser(owlModel).parseClass(text);
+    }
+
+
+    public RDFSClass parseClass(String text) throws ParseException {
+        reset(text, true);
+        return parseFile();
     }
 
 
     public static Object parseHasValueFiller(OWLModel owlModel, String text) throws ParseException {
-        reset();
-        createDatatypeNameChecker(owlModel);
-        ManchesterOWLParser parser = new ManchesterOWLParser(new StringReader(text));
-        parser.owlModel = owlModel;
-        parser.create = true;
-        return parser.OWLHasValueValue();
+        return new ManchesterOWLParser(owlModel).parseHasValueFiller(text);
+    }
+
+
+    public Object parseHasValueFiller(String text) throws ParseException {
+        reset(text, true);
+        return OWLHasValueValue();
     }
 
 
     public static Object parseQuantifierFiller(OWLModel owlModel, String text) throws ParseException {
-        reset();
-        createDatatypeNameChecker(owlModel);
-        ManchesterOWLParser parser = new ManchesterOWLParser(new StringReader(text));
-        parser.owlModel = owlModel;
-        parser.create = false;
-        return parser.DataType();
+        return new ManchesterOWLParser(owlModel).parseQuantifierFiller(text);
+    }
+
+
+    public Object parseQuantifierFiller(String text) throws ParseException {
+        reset(text, false);
+        return DataType();
     }
 
 
-    private static void reset() {
+    private void reset(String text, boolean create) {
         nextCouldBeCls = false;
         nextCouldBeSlot = false;
         nextCouldBeInstance = false;
         nextCouldBeDatatypeName = false;
+        recentHasValueProperty = null;
         errorMessage = null;
+        datatypeNameChecker = ParserUtils.getDatatypeNameChecker(owlModel);
+        token_source.datatypeNameChecker = datatypeNameChecker;
+        this.create = create;
+        ReInit(new StringReader(text));
     }
 
   final public RDFSClass parseFile() throws ParseException {
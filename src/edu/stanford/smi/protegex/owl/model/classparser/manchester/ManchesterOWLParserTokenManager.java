@@ -36,6 +36,8 @@ import edu.stanford.smi.protegex.owl.ui.profiles.ProfilesManager;
 
 public class ManchesterOWLParserTokenManager implements ManchesterOWLParserConstants
 {
+    DatatypeNameChecker datatypeNameChecker;
+
   public  java.io.PrintStream debugStream = System.out;
   public  void setDebugStream(java.io.PrintStream ds) { debugStream = ds; }
 private final int jjStopStringLiteralDfa_0(int pos, long active0)
@@ -1328,7 +1330,7 @@ void TokenLexicalActions(Token matchedToken)
         if (image == null)
             image = new StringBuffer();
             image.append(input_stream.GetSuffix(jjimageLen + (lengthOfMatch = jjmatchedPos + 1)));
-    if(ManchesterOWLParser.getDatatypeNameChecker().isDatatypeName(ParserUtils.dequoteIdentifier(matchedToken.image))) {
+    if(datatypeNameChecker.isDatatypeName(ParserUtils.dequoteIdentifier(matchedToken.image))) {
                 matchedToken.kind = DATATYPEID;
     }
          break;
@@ -0,0 +1,267 @@
+package edu.stanford.smi.protegex.owl.model.framestore;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * The values of a single multi-valued slot, stored as edges between integer
+ * ids in both directions, so that the values of a subject and the subjects
+ * of a value can both be found without scanning the other entries.
+ * <p/>
+ * Each subject or value that takes part in an edge gets an id, which is
+ * recycled when its last edge is removed.  Memory is therefore proportional
+ * to the number of edges.  Each edge also records its position in the list of
+ * the opposite node, so that it can be removed from that list in constant
+ * time by moving the last entry into its place.  Setting the values of a
+ * subject therefore takes time proportional to the number of its old and new
+ * values, however many subjects share these values.  The values of a subject
+ * keep their order; the subjects of a value do not.
+ * <p/>
+ * This class is not thread safe: like the other frame stores, it relies on
+ * the lock of the knowledge base.
+ */
+class AdjacencyIndex {
+
+    private final static int[] NO_EDGES = new int[0];
+
+    private Map<Object, Integer> ids = new HashMap<Object, Integer>();
+
+    private Object[] nodes = new Object[16];
+
+    // id -> ids of the values, and the number of values
+    private int[][] out = new int[16][];
+
+    // id -> the position of each out edge in the in list of its value
+    private int[][] outPos = new int[16][];
+
+    private int[] outSize = new int[16];
+
+    // id -> ids of the subjects that have this value, and the number of subjects
+    private int[][] in = new int[16][];
+
+    // id -> the position of each in edge in the out list of its subject
+    private int[][] inPos = new int[16][];
+
+    private int[] inSize = new int[16];
+
+    private int[] freeIds = new int[16];
+
+    private int freeCount;
+
+    private int nextId;
+
+    private int subjectCount;
+
+
+    /**
+     * Gets the values of a subject, in the order in which they were set.
+     *
+     * @return a new list
+     */
+    public List getValues(Object subject) {
+        Integer id = ids.get(subject);
+        if (id == null || outSize[id] == 0) {
+            return new ArrayList<Object>();
+        }
+        int[] edges = out[id];
+        List<Object> values = new ArrayList<Object>(outSize[id]);
+        for (int i = 0; i < outSize[id]; i++) {
+            values.add(nodes[edges[i]]);
+        }
+        return values;
+    }
+
+
+    public int getValueCount(Object subject) {
+        Integer id = ids.get(subject);
+        return id == null ? 0 : outSize[id];
+    }
+
+
+    /**
+     * Gets the subjects that have a given value.
+     *
+     * @return a new set
+     */
+    public Set<Object> getSubjects(Object value) {
+        Integer id = ids.get(value);
+        if (id == null || inSize[id] == 0) {
+            return new LinkedHashSet<Object>();
+        }
+        int[] edges = in[id];
+        Set<Object> subjects = new LinkedHashSet<Object>();
+        for (int i = 0; i < inSize[id]; i++) {
+            subjects.add(nodes[edges[i]]);
+        }
+        return subjects;
+    }
+
+
+    /**
+     * Gets all subjects that have at least one value.
+     */
+    public Collection<Object> getSubjects() {
+        List<Object> subjects = new ArrayList<Object>(subjectCount);
+        for (int id = 0; id < nextId; id++) {
+            if (outSize[id] > 0) {
+                subjects.add(nodes[id]);
+            }
+        }
+        return subjects;
+    }
+
+
+    /**
+     * Replaces the values of a subject.  An empty collection removes the subject.
+     */
+    public void setValues(Object subject, Collection values) {
+        Integer oldId = ids.get(subject);
+        if (oldId == null && values.isEmpty()) {
+            return;
+        }
+        int id = oldId == null ? createId(subject) : oldId;
+        int size = outSize[id];
+        if (size > 0) {
+            int[] edges = out[id];
+            subjectCount--;
+            for (int i = 0; i < size; i++) {
+                // outPos[id] is read in the loop, as removing a self edge moves its entries
+                removeInEdge(edges[i], outPos[id][i]);
+            }
+            out[id] = NO_EDGES;
+            outPos[id] = NO_EDGES;
+            outSize[id] = 0;
+            for (int i = 0; i < size; i++) {
+                if (edges[i] != id) {
+                    release(edges[i]);
+                }
+            }
+        }
+        if (!values.isEmpty()) {
+            subjectCount++;
+            out[id] = new int[values.size()];
+            outPos[id] = new int[values.size()];
+            for (Object value : values) {
+                addEdge(id, getId(value));
+            }
+        }
+        release(id);
+    }
+
+
+    /**
+     * Removes all values, so that the subject and value objects can be
+     * garbage collected.
+     */
+    public void clear() {
+        ids.clear();
+        nodes = new Object[16];
+        out = new int[16][];
+        outPos = new int[16][];
+        outSize = new int[16];
+        in = new int[16][];
+        inPos = new int[16][];
+        inSize = new int[16];
+        freeCount = 0;
+        nextId = 0;
+        subjectCount = 0;
+    }
+
+
+    private int getId(Object node) {
+        Integer id = ids.get(node);
+        return id == null ? createId(node) : id;
+    }
+
+
+    private int createId(Object node) {
+        int id;
+        if (freeCount > 0) {
+            id = freeIds[--freeCount];
+        }
+        else {
+            id = nextId++;
+            if (id == nodes.length) {
+                grow();
+            }
+        }
+        nodes[id] = node;
+        out[id] = NO_EDGES;
+        outPos[id] = NO_EDGES;
+        in[id] = NO_EDGES;
+        inPos[id] = NO_EDGES;
+        ids.put(node, id);
+        return id;
+    }
+
+
+    // recycles the id of a node without edges, unless it has already been recycled
+    private void release(int id) {
+        if (nodes[id] != null && outSize[id] == 0 && inSize[id] == 0) {
+            ids.remove(nodes[id]);
+            nodes[id] = null;
+            out[id] = null;
+            outPos[id] = null;
+            in[id] = null;
+            inPos[id] = null;
+            if (freeCount == freeIds.length) {
+                freeIds = Arrays.copyOf(freeIds, freeIds.length * 2);
+            }
+            freeIds[freeCount++] = id;
+        }
+    }
+
+
+    private void grow() {
+        int capacity = nodes.length * 2;
+        nodes = Arrays.copyOf(nodes, capacity);
+        out = Arrays.copyOf(out, capacity);
+        outPos = Arrays.copyOf(outPos, capacity);
+        in = Arrays.copyOf(in, capacity);
+        inPos = Arrays.copyOf(inPos, capacity);
+        outSize = Arrays.copyOf(outSize, capacity);
+        inSize = Arrays.copyOf(inSize, capacity);
+    }
+
+
+    private void addEdge(int from, int to) {
+        int outIndex = outSize[from];
+        int inIndex = inSize[to];
+        if (outIndex == out[from].length) {
+            int capacity = Math.max(2, outIndex * 2);
+            out[from] = Arrays.copyOf(out[from], capacity);
+            outPos[from] = Arrays.copyOf(outPos[from], capacity);
+        }
+        if (inIndex == in[to].length) {
+            int capacity = Math.max(2, inIndex * 2);
+            in[to] = Arrays.copyOf(in[to], capacity);
+            inPos[to] = Arrays.copyOf(inPos[to], capacity);
+        }
+        out[from][outIndex] = to;
+        outPos[from][outIndex] = inIndex;
+        outSize[from] = outIndex + 1;
+        in[to][inIndex] = from;
+        inPos[to][inIndex] = outIndex;
+        inSize[to] = inIndex + 1;
+    }
+
+
+    // removes the in edge at a position of a value by moving its last in edge there
+    private void removeInEdge(int valueId, int index) {
+        int last = inSize[valueId] - 1;
+        if (index != last) {
+            int subjectId = in[valueId][last];
+            int outIndex = inPos[valueId][last];
+            in[valueId][index] = subjectId;
+            inPos[valueId][index] = outIndex;
+            outPos[subjectId][outIndex] = index;
+        }
+        inSize[valueId] = last;
+    }
+}
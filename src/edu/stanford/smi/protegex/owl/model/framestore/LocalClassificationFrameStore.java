@@ -1,6 +1,5 @@
 package edu.stanford.smi.protegex.owl.model.framestore;
 
-import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -25,6 +24,13 @@ import edu.stanford.smi.protegex.owl.model.ProtegeNames;
 /**
  * A FrameStore that intercepts any access to those slots that store the
  * classification results and redirects them to values stored in local maps.
+ * <p/>
+ * The classification status and the inferred types, subclasses and
+ * superclasses are stored in an <code>AdjacencyIndex</code> per slot, which
+ * also indexes the frames that have a given value, so that reading, replacing
+ * and deleting the inferred hierarchy of a class, or finding the classes with
+ * a given status, takes time proportional to the number of values involved
+ * rather than to the size of the hierarchy.
  *
  * @author Holger Knublauch  <holger@knublauch.com>
  */
@@ -33,27 +39,26 @@ public class LocalClassificationFrameStore extends FrameStoreAdapter {
     private OWLModel owlModel;
 
     /**
-     * Slot -> instancesMap
+     * Slot -> values of the classification status, inferred types, subclasses and superclasses
      */
-    private Map<Slot, Map<Frame, List>> slotsMap = null;
+    private Map<Slot, AdjacencyIndex> slotsMap = null;
 
 
     public LocalClassificationFrameStore(OWLModel owlModel) {
         this.owlModel = owlModel;
     }
     
-    @SuppressWarnings("unchecked")
-    private Map<Slot, Map<Frame, List>> getSlotsMap() {
+    private Map<Slot, AdjacencyIndex> getSlotsMap() {
         if (slotsMap == null) {
-            slotsMap = new HashMap<Slot, Map<Frame, List>>();
-            slotsMap.put(owlModel.getRDFProperty(ProtegeNames.Slot.CLASSIFICATION_STATUS), new HashMap<Frame, List>());
-            slotsMap.put(owlModel.getRDFProperty(ProtegeNames.Slot.INFERRED_TYPE), new HashMap<Frame, List>());
-            slotsMap.put(owlModel.getRDFProperty(ProtegeNames.Slot.INFERRED_SUBCLASSES), new HashMap<Frame, List>());
-            slotsMap.put(owlModel.getRDFProperty(ProtegeNames.Slot.INFERRED_SUPERCLASSES), new HashMap<Frame, List>());
+            slotsMap = new HashMap<Slot, AdjacencyIndex>();
+            slotsMap.put(owlModel.getRDFProperty(ProtegeNames.Slot.CLASSIFICATION_STATUS), new AdjacencyIndex());
+            slotsMap.put(owlModel.getRDFProperty(ProtegeNames.Slot.INFERRED_TYPE), new AdjacencyIndex());
+            slotsMap.put(owlModel.getRDFProperty(ProtegeNames.Slot.INFERRED_SUBCLASSES), new AdjacencyIndex());
+            slotsMap.put(owlModel.getRDFProperty(ProtegeNames.Slot.INFERRED_SUPERCLASSES), new AdjacencyIndex());
         }
         return slotsMap;
     }
-    
+
     public static boolean isLocalClassificationProperty(Slot s) {
     	String name = s.getName();
     	return name.equals(ProtegeNames.Slot.CLASSIFICATION_STATUS) ||
@@ -63,19 +68,15 @@ public class LocalClassificationFrameStore extends FrameStoreAdapter {
     }
     
     public void deleteCls(Cls cls) {
-        for (Iterator<Slot> it = getSlotsMap().keySet().iterator(); it.hasNext();) {
-            Slot slot = it.next();
-            Map<Frame, List> instancesMap = getSlotsMap().get(slot);
-            instancesMap.remove(cls);
-            for (Iterator<Frame> jt = new ArrayList<Frame>(instancesMap.keySet()).iterator(); 
-                 jt.hasNext();) {
-                Frame frame = jt.next();
-                Collection values = instancesMap.get(frame);
-                if (values.contains(cls)) {
-                    List newValues = new ArrayList(values);
-                    newValues.remove(cls);
-                    frame.setDirectOwnSlotValues(slot, newValues);
-                }
+        for (Entry<Slot, AdjacencyIndex> entry : getSlotsMap().entrySet()) {
+            Slot slot = entry.getKey();
+            AdjacencyIndex index = entry.getValue();
+            index.setValues(cls, Collections.EMPTY_LIST);
+            for (Object o : index.getSubjects(cls)) {
+                Frame frame = (Frame) o;
+                List newValues = index.getValues(frame);
+                newValues.remove(cls);
+                frame.setDirectOwnSlotValues(slot, newValues);
             }
         }
         super.deleteCls(cls);
@@ -83,15 +84,9 @@ public class LocalClassificationFrameStore extends FrameStoreAdapter {
 
 
     public List getDirectOwnSlotValues(Frame frame, Slot slot) {
-        final Map<Frame,List> instancesMap = getSlotsMap().get(slot);
-        if (instancesMap != null) {
-            final List values = instancesMap.get(frame);
-            if (values == null) {
-                return Collections.EMPTY_LIST;
-            }
-            else {
-                return values;
-            }
+        final AdjacencyIndex index = getSlotsMap().get(slot);
+        if (index != null) {
+            return index.getValues(frame);
         }
         else {
             return super.getDirectOwnSlotValues(frame, slot);
@@ -100,26 +95,19 @@ public class LocalClassificationFrameStore extends FrameStoreAdapter {
     
     @Override
     public Collection getOwnSlotValues(Frame frame, Slot slot) {
-        final Map<Frame,List> instancesMap = getSlotsMap().get(slot);
-        if (instancesMap != null) {
-            final List values = instancesMap.get(frame);
-            if (values == null) {
-                return Collections.EMPTY_LIST;
-            }
-            else {
-                return values;
-            }
+        final AdjacencyIndex index = getSlotsMap().get(slot);
+        if (index != null) {
+            return index.getValues(frame);
         }
         else {
             return super.getOwnSlotValues(frame, slot);
         }
     }
 
-
     public int getDirectOwnSlotValuesCount(Frame frame, Slot slot) {
-        final Map<Frame, List> instancesMap = getSlotsMap().get(slot);
-        if (instancesMap != null) {
-            return getDirectOwnSlotValues(frame, slot).size();
+        final AdjacencyIndex index = getSlotsMap().get(slot);
+        if (index != null) {
+            return index.getValueCount(frame);
         }
         else {
             return super.getDirectOwnSlotValuesCount(frame, slot);
@@ -138,18 +126,11 @@ public class LocalClassificationFrameStore extends FrameStoreAdapter {
     }
 
 
+    @SuppressWarnings("unchecked")
     public Set getFramesWithDirectOwnSlotValue(Slot slot, Object value) {
-        final Map<Frame, List> instancesMap = getSlotsMap().get(slot);
-        if (instancesMap != null) {
-            final Set<Frame> result = new HashSet<Frame>();
-            for (Iterator<Frame> it = instancesMap.keySet().iterator(); it.hasNext();) {
-                final Frame key = it.next();
-                final Collection values = instancesMap.get(key);
-                if (values != null && values.contains(value)) {
-                    result.add(key);
-                }
-            }
-            return result;
+        final AdjacencyIndex index = getSlotsMap().get(slot);
+        if (index != null) {
+            return index.getSubjects(value);
         }
         else {
             return super.getFramesWithDirectOwnSlotValue(slot, value);
@@ -160,14 +141,13 @@ public class LocalClassificationFrameStore extends FrameStoreAdapter {
     @Override
     public Set<Frame> getFramesWithMatchingDirectOwnSlotValue(Slot slot, String regexp,
                                                        int maxMatches) {
-        final Map<Frame, List> instancesMap = getSlotsMap().get(slot);
-        if (instancesMap != null) {
+        final AdjacencyIndex index = getSlotsMap().get(slot);
+        if (index != null) {
             SimpleStringMatcher matcher = new SimpleStringMatcher(regexp);
             final Set<Frame> result = new HashSet<Frame>();
-            for (Entry<Frame, List> entry : instancesMap.entrySet()) {
-                Frame frame = entry.getKey();
-                List values = entry.getValue();
-                for (Object value : values) {
+            for (Iterator it = index.getSubjects().iterator(); it.hasNext();) {
+                Frame frame = (Frame) it.next();
+                for (Object value : getDirectOwnSlotValues(frame, slot)) {
                     if (value instanceof String && matcher.isMatch((String) value)) {
                         result.add(frame);
                     }
@@ -181,14 +161,9 @@ public class LocalClassificationFrameStore extends FrameStoreAdapter {
     }
 
     public void setDirectOwnSlotValues(Frame frame, Slot slot, Collection values) {
-        final Map<Frame, List> instancesMap = getSlotsMap().get(slot);
-        if (instancesMap != null) {
-            if (values.isEmpty()) {
-                instancesMap.remove(frame);
-            }
-            else {
-                instancesMap.put(frame, new ArrayList(values));
-            }
+        final AdjacencyIndex index = getSlotsMap().get(slot);
+        if (index != null) {
+            index.setValues(frame, values);
             // dispatchEvent(frame, slot);
         }
         else {
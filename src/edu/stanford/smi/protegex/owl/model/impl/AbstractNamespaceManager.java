@@ -12,6 +12,7 @@ import edu.stanford.smi.protege.model.Localizable;
 import edu.stanford.smi.protege.util.Log;
 import edu.stanford.smi.protegex.owl.model.NamespaceManager;
 import edu.stanford.smi.protegex.owl.model.NamespaceManagerListener;
+import edu.stanford.smi.protegex.owl.model.NamespaceUtil;
 import edu.stanford.smi.protegex.owl.model.triplestore.TripleStore;
 import edu.stanford.smi.protegex.owl.model.triplestore.TripleStoreModel;
 
@@ -25,6 +26,11 @@ public abstract class AbstractNamespaceManager implements NamespaceManager, Seri
 
     private int last_prefix_index = 0;
 
+    private transient volatile NamespaceTable namespaceTable;
+
+    // incremented whenever the prefix mappings change
+    private transient volatile int namespaceGeneration;
+
     
     /*
      * Utilities
@@ -91,6 +97,66 @@ public abstract class AbstractNamespaceManager implements NamespaceManager, Seri
         setPrefix(namespace, getNextAvailablePrefixName());
     }
     
+    /*
+     * name conversions
+     */
+
+    /**
+     * Gets the full name of a (possibly) prefixed name.
+     *
+     * @see NamespaceUtil#getFullName
+     */
+    public String getFullName(String prefixedName) {
+        return getNamespaceTable().getFullName(prefixedName);
+    }
+
+
+    /**
+     * Gets the prefixed name of a full URI.
+     *
+     * @see NamespaceUtil#getPrefixedName
+     */
+    public String getPrefixedName(String fullURI) {
+        return getNamespaceTable().getPrefixedName(fullURI);
+    }
+
+
+    /**
+     * Gets the namespace of a prefix that is a part of a name, without
+     * extracting the prefix from the name.
+     */
+    public String getNamespaceForPrefix(String name, int start, int end) {
+        return getNamespaceTable().getNamespaceForPrefix(name, start, end);
+    }
+
+
+    /**
+     * Gets the table of the current prefix mappings.  A table that was built
+     * while the mappings changed may still be published, but it carries the
+     * old generation and is therefore never used again.
+     */
+    private NamespaceTable getNamespaceTable() {
+        int generation = namespaceGeneration;
+        NamespaceTable table = namespaceTable;
+        if (table == null || table.getGeneration() != generation) {
+            table = new NamespaceTable(this, generation);
+            if (namespaceGeneration == generation) {
+                namespaceTable = table;
+            }
+        }
+        return table;
+    }
+
+
+    /**
+     * Discards the cached name conversions.  Must be called by subclasses
+     * whenever their prefix mappings change.
+     */
+    protected synchronized void flushNamespaceTable() {
+        namespaceGeneration++;
+        namespaceTable = null;
+    }
+
     /*
      * listener support
      */
@@ -110,6 +176,7 @@ public abstract class AbstractNamespaceManager implements NamespaceManager, Seri
      */
 
     protected void tellNamespaceChanged(String prefix, String oldNamespace, String newNamespace) {
+        flushNamespaceTable();
         if (prefix == null
                 || (oldNamespace == newNamespace)
                 || (oldNamespace != null && oldNamespace.equals(newNamespace))) {
@@ -156,6 +223,7 @@ public abstract class AbstractNamespaceManager implements NamespaceManager, Seri
     }
     
     protected void tellPrefixChanged(String namespace, String oldPrefix, String newPrefix) {
+        flushNamespaceTable();
         if (namespace == null
                 || (oldPrefix == newPrefix) 
                 || (oldPrefix != null && oldPrefix.equals(newPrefix))) {
@@ -185,5 +253,6 @@ public abstract class AbstractNamespaceManager implements NamespaceManager, Seri
 
     public void localize(KnowledgeBase kb) {
         listeners = new HashSet<NamespaceManagerListener>();
+        flushNamespaceTable();
     }
 }
@@ -5,6 +5,7 @@ import edu.stanford.smi.protege.model.KnowledgeBase;
 import edu.stanford.smi.protege.model.Reference;
 import edu.stanford.smi.protege.util.Log;
 import edu.stanford.smi.protegex.owl.model.OWLAnonymousClass;
+import edu.stanford.smi.protegex.owl.model.OWLModel;
 import edu.stanford.smi.protegex.owl.model.OWLNamedClass;
 import edu.stanford.smi.protegex.owl.model.RDFList;
 import edu.stanford.smi.protegex.owl.model.RDFProperty;
@@ -34,7 +35,11 @@ public abstract class AbstractOWLAnonymousClass extends AbstractRDFSClass
 
 
     public String getBrowserText() {
-        return getOWLModel().getOWLClassDisplay().getDisplayText(this);
+        OWLModel owlModel = getOWLModel();
+        if (owlModel instanceof AbstractOWLModel) {
+            return ((AbstractOWLModel) owlModel).getClassExpressionCache().getDisplayText(this, owlModel.getOWLClassDisplay());
+        }
+        return owlModel.getOWLClassDisplay().getDisplayText(this);
     }
 
 
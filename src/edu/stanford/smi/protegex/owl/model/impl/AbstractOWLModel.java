@@ -45,7 +45,8 @@ import edu.stanford.smi.protegex.owl.inference.protegeowl.ReasonerManager;
 import edu.stanford.smi.protegex.owl.jena.JenaOWLModel;
 import edu.stanford.smi.protegex.owl.jena.graph.JenaModelFactory;
 import edu.stanford.smi.protegex.owl.jena.parser.GlobalParserCache;
-import edu.stanford.smi.protegex.owl.jena.parser.OWLImportsCache;
+import edu.stanford.smi.protegex.owl.jena.parser.ImportPrefetcher;
+import edu.stanford.smi.protegex.owl.jena.parser.PrefetchedImport;
 import edu.stanford.smi.protegex.owl.jena.parser.UnresolvedImportHandler;
 import edu.stanford.smi.protegex.owl.jena.writersettings.JenaWriterSettings;
 import edu.stanford.smi.protegex.owl.jena.writersettings.WriterSettings;
@@ -90,6 +91,7 @@ import edu.stanford.smi.protegex.owl.model.TaskManager;
 import edu.stanford.smi.protegex.owl.model.classdisplay.OWLClassDisplay;
 import edu.stanford.smi.protegex.owl.model.classdisplay.OWLClassDisplayFactory;
 import edu.stanford.smi.protegex.owl.model.classparser.OWLClassParser;
+import edu.stanford.smi.protegex.owl.model.classparser.ParserNameCache;
 import edu.stanford.smi.protegex.owl.model.event.ClassAdapter;
 import edu.stanford.smi.protegex.owl.model.event.ClassListener;
 import edu.stanford.smi.protegex.owl.model.event.ModelAdapter;
@@ -117,16 +119,19 @@ import edu.stanford.smi.protegex.owl.model.triplestore.TripleStore;
 import edu.stanford.smi.protegex.owl.model.triplestore.TripleStoreModel;
 import edu.stanford.smi.protegex.owl.model.triplestore.impl.DefaultTriple;
 import edu.stanford.smi.protegex.owl.model.triplestore.impl.DefaultTuple;
+import edu.stanford.smi.protegex.owl.model.triplestore.impl.TripleStoreChangeTracker;
 import edu.stanford.smi.protegex.owl.model.triplestore.impl.TripleStoreModelImpl;
 import edu.stanford.smi.protegex.owl.model.validator.DefaultPropertyValueValidator;
 import edu.stanford.smi.protegex.owl.model.validator.PropertyValueValidator;
 import edu.stanford.smi.protegex.owl.repository.Repository;
 import edu.stanford.smi.protegex.owl.repository.RepositoryManager;
+import edu.stanford.smi.protegex.owl.repository.impl.AbstractStreamBasedRepositoryImpl;
 import edu.stanford.smi.protegex.owl.repository.util.RepositoryFileManager;
 import edu.stanford.smi.protegex.owl.server.OwlStateMachine;
 import edu.stanford.smi.protegex.owl.server.triplestore.ClientTripleStoreModel;
 import edu.stanford.smi.protegex.owl.swrl.SWRLSystemFrames;
 import edu.stanford.smi.protegex.owl.swrl.model.factory.SWRLJavaFactory;
+import edu.stanford.smi.protegex.owl.swrl.model.impl.SWRLImpIndex;
 import edu.stanford.smi.protegex.owl.testing.OWLTest;
 import edu.stanford.smi.protegex.owl.testing.OWLTestLibrary;
 import edu.stanford.smi.protegex.owl.ui.menu.preferences.RenderingPanel;
@@ -249,6 +254,20 @@ public abstract class AbstractOWLModel extends DefaultKnowledgeBase
     private boolean defaultLanguageInitialized = false;
     private FrameListener defaultLanguageListener;
 
+    private BrowserTextCache browserTextCache = new BrowserTextCache();
+
+    private TripleStoreChangeTracker tripleStoreChangeTracker = new TripleStoreChangeTracker(this);
+
+    private RDFSLiteralCache rdfsLiteralCache = new RDFSLiteralCache(this);
+
+    private PropertyValueCache propertyValueCache = new PropertyValueCache();
+
+    private SWRLImpIndex swrlImpIndex = new SWRLImpIndex(this);
+
+    private ParserNameCache parserNameCache = new ParserNameCache(this);
+
+    private ClassExpressionCache classExpressionCache = new ClassExpressionCache(this);
+
 
     public AbstractOWLModel(KnowledgeBaseFactory factory) {
         super(factory);
@@ -261,6 +280,17 @@ public abstract class AbstractOWLModel extends DefaultKnowledgeBase
 
         initialize();
 
+        addFrameListener(browserTextCache.getFrameListener());
+        addFrameListener(propertyValueCache.getFrameListener());
+        addFrameListener(swrlImpIndex.getFrameListener());
+        addKnowledgeBaseListener(swrlImpIndex.getKnowledgeBaseListener());
+        addFrameListener(parserNameCache.getFrameListener());
+        addKnowledgeBaseListener(parserNameCache.getKnowledgeBaseListener());
+        addFrameListener(classExpressionCache.getFrameListener());
+        addKnowledgeBaseListener(classExpressionCache.getKnowledgeBaseListener());
+        addFrameListener(tripleStoreChangeTracker.getFrameListener());
+        addKnowledgeBaseListener(tripleStoreChangeTracker.getKnowledgeBaseListener());
+
         //init namespace manager
         //getNamespaceManager();
     }
@@ -391,11 +421,22 @@ public abstract class AbstractOWLModel extends DefaultKnowledgeBase
                 }
             }
             TripleStore activeTripleStore = tripleStoreModel.getActiveTripleStore();
-            Repository rep = getRepository(activeTripleStore, ontologyName);
+            ImportPrefetcher prefetcher = getGlobalParserCache().getImportPrefetcher();
+            PrefetchedImport prefetchedImport = prefetcher == null ? null : prefetcher.take(ontologyName.toString());
+            Repository rep = getRepository(activeTripleStore, ontologyName, prefetchedImport);
             if(rep != null) {
                 log.info("Importing " + ontologyName + " from location: " + rep.getOntologyLocationDescription(ontologyName));
                 // ParserUtil.resetUniqueSessionId(); //needed to handle properly anonymous nodeIds across imports
-                TripleStore importedTripleStore = rep.loadImportedAssertions(this, ontologyName);
+                TripleStore importedTripleStore;
+                if (prefetchedImport != null && prefetchedImport.isParsed() && prefetchedImport.getRepository() == rep) {
+                    importedTripleStore = ((AbstractStreamBasedRepositoryImpl) rep).loadImportedAssertions(this, ontologyName, prefetchedImport);
+                }
+                else {
+                    if (prefetchedImport != null) {
+                        prefetchedImport.dispose();
+                    }
+                    importedTripleStore = rep.loadImportedAssertions(this, ontologyName);
+                }
                 importedTripleStore.addIOAddress(ontologyName.toString());
                 if (log.isLoggable(Level.FINE)) {
                     log.fine("Import Processing of " + ontologyName  + " done");
@@ -414,10 +455,23 @@ public abstract class AbstractOWLModel extends DefaultKnowledgeBase
     }
 
     private Repository getRepository(TripleStore tripleStore,
-                                            URI ontologyName) {
+                                            URI ontologyName,
+                                            PrefetchedImport prefetchedImport) {
         RepositoryManager rm = getRepositoryManager();
-        // Get the repository (ask the system to create a HTTP repository if necessary)
-        Repository rep = rm.getRepository(ontologyName, true);
+        Repository rep = rm.getRepository(ontologyName);
+        if (rep == null) {
+            if (prefetchedImport != null) {
+                // The prefetcher has already tried to create a repository
+                rep = prefetchedImport.getRepository();
+                if (rep != null) {
+                    rm.addProjectRepository(rep);
+                }
+            }
+            else {
+                // Ask the system to create a HTTP repository if necessary
+                rep = rm.getRepository(ontologyName, true);
+            }
+        }
         if(rep == null) {
             rep = unresolvedImportHandler.handleUnresolvableImport(this, tripleStore, ontologyName);
             if(rep != null) {
@@ -1237,8 +1291,14 @@ public abstract class AbstractOWLModel extends DefaultKnowledgeBase
     }
 
 
+    /**
+     * Gets the browser text of an instance.  The browser texts of named
+     * resources are cached, so that renderers can get them without taking
+     * the model lock; the model lock is only held while a browser text that
+     * is not in the cache is computed.
+     */
     @Override
-	public synchronized String getBrowserText(Instance instance) {
+	public String getBrowserText(Instance instance) {
     	if (!(instance instanceof RDFResource)) {
 			return super.getBrowserText(instance);
 		}
@@ -1248,6 +1308,24 @@ public abstract class AbstractOWLModel extends DefaultKnowledgeBase
     	if (instance instanceof OWLAnonymousClass) {
 			return instance.getBrowserText();
 		}
+
+    	browserTextCache.validate(getDefaultLanguage(), getNamespaceManager());
+    	String text = browserTextCache.get(instance);
+    	if (text == null) {
+    		synchronized (this) {
+    			long generation = browserTextCache.getGeneration();
+    			BrowserSlotPattern[] slotPattern = new BrowserSlotPattern[1];
+    			text = computeBrowserText(instance, slotPattern);
+    			if (getProject() != null && !instance.isDeleted()) {
+    				browserTextCache.put(instance, text, generation, isDependentBrowserText(instance, slotPattern[0]));
+    			}
+    		}
+    	}
+    	return text;
+    }
+
+
+    private String computeBrowserText(Instance instance, BrowserSlotPattern[] usedSlotPattern) {
     	if (getProject() == null) {
 			return getName(instance);
 		}
@@ -1279,6 +1357,7 @@ public abstract class AbstractOWLModel extends DefaultKnowledgeBase
 			return getDisplaySlotNotSetString(instance);
 		}
 
+         usedSlotPattern[0] = slotPattern;
          String value = slotPattern.getBrowserText(instance);
          if (value == null) {
              value = getDisplaySlotPatternValueNotSetString(instance, slotPattern);
@@ -1288,6 +1367,69 @@ public abstract class AbstractOWLModel extends DefaultKnowledgeBase
 	}
 
 
+    /**
+     * Checks whether a browser text includes the browser texts of other
+     * frames, in which case it cannot be invalidated by the events of the
+     * instance alone.
+     */
+    private boolean isDependentBrowserText(Instance instance, BrowserSlotPattern slotPattern) {
+    	if (slotPattern == null) {
+    		return false;
+    	}
+    	Slot nameSlot = getSystemFrames().getNameSlot();
+    	for (Object element : slotPattern.getElements()) {
+    		if (element instanceof Slot && !element.equals(nameSlot)) {
+    			for (Object value : instance.getDirectOwnSlotValues((Slot) element)) {
+    				if (value instanceof Frame) {
+    					return true;
+    				}
+    			}
+    		}
+    	}
+    	return false;
+    }
+
+
+    @Override
+    public void setDirectBrowserSlot(Cls cls, Slot slot) {
+    	super.setDirectBrowserSlot(cls, slot);
+    	browserTextCache.clear();
+    	parserNameCache.clear();
+    }
+
+
+    @Override
+    public void setDirectBrowserSlotPattern(Cls cls, BrowserSlotPattern slotPattern) {
+    	super.setDirectBrowserSlotPattern(cls, slotPattern);
+    	browserTextCache.clear();
+    	parserNameCache.clear();
+    }
+
+
+    @Override
+    public boolean setGenerateEventsEnabled(boolean enabled) {
+    	if (browserTextCache != null) {
+    		browserTextCache.setEnabled(enabled);
+    	}
+    	if (propertyValueCache != null) {
+    		propertyValueCache.setEnabled(enabled);
+    	}
+    	if (swrlImpIndex != null) {
+    		swrlImpIndex.setEnabled(enabled);
+    	}
+    	if (parserNameCache != null) {
+    		parserNameCache.setEnabled(enabled);
+    	}
+    	if (classExpressionCache != null) {
+    		classExpressionCache.setEnabled(enabled);
+    	}
+    	if (tripleStoreChangeTracker != null) {
+    		tripleStoreChangeTracker.setObserving(enabled);
+    	}
+    	return super.setGenerateEventsEnabled(enabled);
+    }
+
+
     @Override
 	protected String getDisplaySlotPatternValueNotSetString(Instance instance, BrowserSlotPattern slotPattern) {
     	return NamespaceUtil.getPrefixedName(this, instance.getName());
@@ -1495,6 +1637,62 @@ public abstract class AbstractOWLModel extends DefaultKnowledgeBase
     }
 
 
+    /**
+     * Gets the tracker of the TripleStores that have been modified since the model
+     * was loaded or last saved.
+     */
+    public TripleStoreChangeTracker getTripleStoreChangeTracker() {
+        return tripleStoreChangeTracker;
+    }
+
+
+    /**
+     * Gets the cache of the literals of the raw values stored in the frame store.
+     *
+     * @see DefaultRDFSLiteral#fromRawValue
+     */
+    public RDFSLiteralCache getRDFSLiteralCache() {
+        return rdfsLiteralCache;
+    }
+
+
+    /**
+     * Gets the cache of the parsed property values used by the primitive
+     * accessors of the resources.
+     *
+     * @see edu.stanford.smi.protegex.owl.model.RDFResource#getPropertyValueInt
+     */
+    public PropertyValueCache getPropertyValueCache() {
+        return propertyValueCache;
+    }
+
+
+    /**
+     * Gets the index of the SWRL rules used by the SWRLFactory.
+     */
+    public SWRLImpIndex getSWRLImpIndex() {
+        return swrlImpIndex;
+    }
+
+
+    /**
+     * Gets the cache of the name lookups and datatype names shared by the
+     * class expression parsers.
+     */
+    public ParserNameCache getParserNameCache() {
+        return parserNameCache;
+    }
+
+
+    /**
+     * Gets the cache of the structure and the display texts of the anonymous
+     * class expressions.
+     */
+    public ClassExpressionCache getClassExpressionCache() {
+        return classExpressionCache;
+    }
+
+
     public GlobalParserCache getGlobalParserCache() {
     	if (globalParserCache == null) {
     		globalParserCache = new GlobalParserCache(this);
@@ -3672,6 +3870,11 @@ public abstract class AbstractOWLModel extends DefaultKnowledgeBase
     @Override
     public synchronized void dispose() {
         detachDefaultLanguageListener();
+        browserTextCache.dispose();
+        propertyValueCache.clear();
+        swrlImpIndex.invalidate();
+        parserNameCache.clear();
+        classExpressionCache.clear();
 
     	super.dispose();
 
@@ -3686,8 +3889,6 @@ public abstract class AbstractOWLModel extends DefaultKnowledgeBase
     		globalParserCache = null;
     	}
 
-    	OWLImportsCache.dispose();
-
     	if (tripleStoreModel != null) {
     		tripleStoreModel.dispose();
     		tripleStoreModel = null;
@@ -0,0 +1,247 @@
+package edu.stanford.smi.protegex.owl.model.impl;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import edu.stanford.smi.protege.event.FrameAdapter;
+import edu.stanford.smi.protege.event.FrameEvent;
+import edu.stanford.smi.protege.event.FrameListener;
+import edu.stanford.smi.protege.model.Cls;
+import edu.stanford.smi.protege.model.Frame;
+import edu.stanford.smi.protegex.owl.model.NamespaceManager;
+import edu.stanford.smi.protegex.owl.model.NamespaceManagerAdapter;
+import edu.stanford.smi.protegex.owl.model.NamespaceManagerListener;
+
+/**
+ * A thread safe cache of the browser texts of the resources of an OWLModel,
+ * so that renderers can look up the browser text of a resource without
+ * taking the model lock and without evaluating the browser slot pattern
+ * each time the resource is painted.
+ * <p/>
+ * Entries are invalidated through the frame listener of the cache, which
+ * must be registered with the knowledge base: any own slot value change
+ * (including type changes), rename or deletion of a frame removes its entry,
+ * and any change of a metaclass clears the cache, since browser slot patterns
+ * are inherited along the metaclass hierarchy.
+ * A browser text that was built from the browser texts of other frames
+ * (for example, if the browser slot is an object property) cannot be
+ * tracked this way, so once such a text has been cached any change clears
+ * the whole cache.  The whole cache is also cleared if the default language
+ * or the namespace prefixes change, and by <code>clear()</code>, which the
+ * model calls when a browser slot pattern is changed.
+ * <p/>
+ * Each invalidation advances a generation counter.  Callers obtain the
+ * current generation before they compute a browser text, and the text is
+ * only cached if no invalidation has happened in the meantime.
+ */
+public class BrowserTextCache {
+
+    private Map<Frame, String> texts = new ConcurrentHashMap<Frame, String>();
+
+    private AtomicLong generation = new AtomicLong();
+
+    private volatile boolean dependentTextsCached;
+
+    private volatile boolean enabled = true;
+
+    private volatile String language;
+
+    private volatile NamespaceManager namespaceManager;
+
+    private FrameListener frameListener = new FrameAdapter() {
+        @Override
+        public void ownSlotValueChanged(FrameEvent event) {
+            Frame frame = event.getFrame();
+            if (frame instanceof Cls && ((Cls) frame).isMetaCls()) {
+                // The browser slot patterns of the subclasses may have changed
+                clear();
+            }
+            else {
+                invalidate(frame);
+            }
+        }
+
+
+        @Override
+        public void browserTextChanged(FrameEvent event) {
+            invalidate(event.getFrame());
+        }
+
+
+        @Override
+        public void nameChanged(FrameEvent event) {
+            invalidate(event.getFrame());
+        }
+
+
+        @Override
+        public void deleted(FrameEvent event) {
+            invalidate(event.getFrame());
+        }
+    };
+
+    private NamespaceManagerListener namespaceManagerListener = new NamespaceManagerAdapter() {
+        @Override
+        public void defaultNamespaceChanged(String oldValue, String newValue) {
+            clear();
+        }
+
+
+        @Override
+        public void namespaceChanged(String prefix, String oldValue, String newValue) {
+            clear();
+        }
+
+
+        @Override
+        public void prefixAdded(String prefix) {
+            clear();
+        }
+
+
+        @Override
+        public void prefixChanged(String namespace, String oldPrefix, String newPrefix) {
+            clear();
+        }
+
+
+        @Override
+        public void prefixRemoved(String prefix) {
+            clear();
+        }
+    };
+
+
+    /**
+     * Gets the listener that keeps this cache up to date.  It must be added
+     * to the knowledge base as a (global) frame listener.
+     */
+    public FrameListener getFrameListener() {
+        return frameListener;
+    }
+
+
+    /**
+     * Gets the cached browser text of a frame.
+     *
+     * @param frame The frame
+     * @return The browser text or null if it is not cached
+     */
+    public String get(Frame frame) {
+        return texts.get(frame);
+    }
+
+
+    /**
+     * Gets the current generation of the cache, which must be passed to
+     * <code>put</code> after the browser text has been computed.
+     */
+    public long getGeneration() {
+        return generation.get();
+    }
+
+
+    /**
+     * Caches the browser text of a frame, unless the cache has been
+     * invalidated since the specified generation was obtained.
+     *
+     * @param frame      The frame
+     * @param text       The browser text of the frame
+     * @param generation The generation of the cache before the text was computed
+     * @param dependent  true if the text includes the browser texts of other frames
+     */
+    public void put(Frame frame, String text, long generation, boolean dependent) {
+        if (!enabled || this.generation.get() != generation) {
+            return;
+        }
+        if (dependent) {
+            dependentTextsCached = true;
+        }
+        texts.put(frame, text);
+        if (this.generation.get() != generation) {
+            // Lost a race with an invalidation
+            texts.remove(frame);
+        }
+    }
+
+
+    /**
+     * Removes the browser text of a frame, or all browser texts if a text
+     * that may depend on this frame has been cached.
+     */
+    public void invalidate(Frame frame) {
+        generation.incrementAndGet();
+        if (dependentTextsCached) {
+            clearTexts();
+        }
+        else {
+            texts.remove(frame);
+        }
+    }
+
+
+    public void clear() {
+        generation.incrementAndGet();
+        clearTexts();
+    }
+
+
+    private void clearTexts() {
+        dependentTextsCached = false;
+        texts.clear();
+    }
+
+
+    /**
+     * Enables or disables caching.  Caching must be disabled while the
+     * knowledge base does not generate events, because the cache would not
+     * be notified of the changes.
+     */
+    public void setEnabled(boolean enabled) {
+        if (this.enabled != enabled) {
+            this.enabled = enabled;
+            clear();
+        }
+    }
+
+
+    /**
+     * Clears the cache if the default language or the namespace manager
+     * used to compute the browser texts have changed since the last call.
+     *
+     * @param language         The current default language (may be null)
+     * @param namespaceManager The current namespace manager of the model
+     */
+    public void validate(String language, NamespaceManager namespaceManager) {
+        String oldLanguage = this.language;
+        if (language == null ? oldLanguage != null : !language.equals(oldLanguage)) {
+            this.language = language;
+            clear();
+        }
+        if (namespaceManager != this.namespaceManager) {
+            setNamespaceManager(namespaceManager);
+        }
+    }
+
+
+    private synchronized void setNamespaceManager(NamespaceManager namespaceManager) {
+        if (namespaceManager == this.namespaceManager) {
+            return;
+        }
+        if (this.namespaceManager != null) {
+            this.namespaceManager.removeNamespaceManagerListener(namespaceManagerListener);
+        }
+        this.namespaceManager = namespaceManager;
+        if (namespaceManager != null) {
+            namespaceManager.addNamespaceManagerListener(namespaceManagerListener);
+        }
+        clear();
+    }
+
+
+    public void dispose() {
+        setNamespaceManager(null);
+        clear();
+    }
+}
@@ -0,0 +1,666 @@
+package edu.stanford.smi.protegex.owl.model.impl;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import edu.stanford.smi.protege.event.FrameAdapter;
+import edu.stanford.smi.protege.event.FrameEvent;
+import edu.stanford.smi.protege.event.FrameListener;
+import edu.stanford.smi.protege.event.KnowledgeBaseAdapter;
+import edu.stanford.smi.protege.event.KnowledgeBaseEvent;
+import edu.stanford.smi.protege.event.KnowledgeBaseListener;
+import edu.stanford.smi.protege.model.Frame;
+import edu.stanford.smi.protege.util.ApplicationProperties;
+import edu.stanford.smi.protegex.owl.model.OWLAllValuesFrom;
+import edu.stanford.smi.protegex.owl.model.OWLAnonymousClass;
+import edu.stanford.smi.protegex.owl.model.OWLCardinality;
+import edu.stanford.smi.protegex.owl.model.OWLCardinalityBase;
+import edu.stanford.smi.protegex.owl.model.OWLComplementClass;
+import edu.stanford.smi.protegex.owl.model.OWLDataRange;
+import edu.stanford.smi.protegex.owl.model.OWLEnumeratedClass;
+import edu.stanford.smi.protegex.owl.model.OWLHasValue;
+import edu.stanford.smi.protegex.owl.model.OWLIntersectionClass;
+import edu.stanford.smi.protegex.owl.model.OWLMaxCardinality;
+import edu.stanford.smi.protegex.owl.model.OWLMinCardinality;
+import edu.stanford.smi.protegex.owl.model.OWLModel;
+import edu.stanford.smi.protegex.owl.model.OWLNAryLogicalClass;
+import edu.stanford.smi.protegex.owl.model.OWLNames;
+import edu.stanford.smi.protegex.owl.model.OWLQuantifierRestriction;
+import edu.stanford.smi.protegex.owl.model.OWLRestriction;
+import edu.stanford.smi.protegex.owl.model.OWLSomeValuesFrom;
+import edu.stanford.smi.protegex.owl.model.OWLUnionClass;
+import edu.stanford.smi.protegex.owl.model.ProtegeNames;
+import edu.stanford.smi.protegex.owl.model.RDFList;
+import edu.stanford.smi.protegex.owl.model.RDFProperty;
+import edu.stanford.smi.protegex.owl.model.RDFResource;
+import edu.stanford.smi.protegex.owl.model.RDFSClass;
+import edu.stanford.smi.protegex.owl.model.classdisplay.OWLClassDisplay;
+
+/**
+ * A thread safe, hash-consed representation of the anonymous class expressions
+ * of an OWLModel, used to memoize their display texts and to detect equal
+ * expressions.
+ * <p/>
+ * Each restriction, logical class, enumerated class and data range is mapped
+ * to an immutable expression: its kind, its operands and its comment flag,
+ * where anonymous operands are replaced by their own expressions.  Equal
+ * expressions are interned, so that the anonymous classes that have been
+ * created separately for the same expression, for example by parsing the same
+ * text twice, share one expression.  The display text of an expression is
+ * memoized in the expression itself, together with the OWLClassDisplay that
+ * produced it and the browser texts of the named resources it mentions, so it
+ * is rendered once for all equal anonymous classes and rendered again only if
+ * the display or one of these browser texts has changed.
+ * <p/>
+ * The expression of an anonymous class is built on demand and removed, through
+ * the listeners of the cache, which must be registered with the knowledge
+ * base, when the class, one of its anonymous operands or one of the nodes of
+ * its operand list is changed or deleted.  Changes to named resources do not
+ * remove any expression.  The interned expressions count the anonymous classes
+ * that are mapped to them, and an expression and its key are no longer interned
+ * once no anonymous class is mapped to it.  Since expressions and keys are
+ * compared by their structure, this only affects which instance is shared.
+ * Caching is disabled while the knowledge base does not generate events.  The
+ * cache is cleared when it holds more expressions than the value of
+ * <code>MAX_SIZE_PROPERTY</code>.
+ */
+public class ClassExpressionCache {
+
+    /**
+     * The maximum number of distinct expressions that are cached (default 100000).
+     */
+    public final static String MAX_SIZE_PROPERTY = "protegeowl.class.expression.cache.size";
+
+    private final int maxSize = ApplicationProperties.getIntegerProperty(MAX_SIZE_PROPERTY, 100000);
+
+    private OWLModel owlModel;
+
+    // anonymous resource -> its interned expression
+    private ConcurrentHashMap<Frame, Expression> expressions = new ConcurrentHashMap<Frame, Expression>();
+
+    private ConcurrentHashMap<Expression, Expression> internedExpressions = new ConcurrentHashMap<Expression, Expression>();
+
+    private ConcurrentHashMap<Key, Key> internedKeys = new ConcurrentHashMap<Key, Key>();
+
+    // anonymous resource -> the anonymous resources whose expressions were built from it
+    private ConcurrentHashMap<Frame, Set<Frame>> dependents = new ConcurrentHashMap<Frame, Set<Frame>>();
+
+    private AtomicLong generation = new AtomicLong();
+
+    private volatile boolean enabled = true;
+
+    private FrameListener frameListener = new FrameAdapter() {
+        @Override
+        public void ownSlotValueChanged(FrameEvent event) {
+            Frame frame = event.getFrame();
+            if (frame instanceof RDFResource && ((RDFResource) frame).isAnonymous()) {
+                invalidate(frame);
+            }
+            else {
+                generation.incrementAndGet();
+            }
+        }
+
+
+        @Override
+        public void browserTextChanged(FrameEvent event) {
+            generation.incrementAndGet();
+        }
+
+
+        @Override
+        public void nameChanged(FrameEvent event) {
+            generation.incrementAndGet();
+        }
+
+
+        @Override
+        public void deleted(FrameEvent event) {
+            invalidate(event.getFrame());
+        }
+    };
+
+    private KnowledgeBaseListener knowledgeBaseListener = new KnowledgeBaseAdapter() {
+        @Override
+        public void instanceDeleted(KnowledgeBaseEvent event) {
+            invalidate(event.getFrame());
+        }
+
+
+        @Override
+        public void frameReplaced(KnowledgeBaseEvent event) {
+            clear();
+        }
+    };
+
+
+    public ClassExpressionCache(OWLModel owlModel) {
+        this.owlModel = owlModel;
+    }
+
+
+    /**
+     * Gets the listener that keeps this cache up to date.  It must be added
+     * to the knowledge base as a (global) frame listener.
+     */
+    public FrameListener getFrameListener() {
+        return frameListener;
+    }
+
+
+    /**
+     * Gets the listener that keeps this cache up to date.  It must be added
+     * to the knowledge base as a knowledge base listener.
+     */
+    public KnowledgeBaseListener getKnowledgeBaseListener() {
+        return knowledgeBaseListener;
+    }
+
+
+    /**
+     * Gets the display text of an anonymous class, which is only rendered by
+     * the display if the memoized text of its expression is missing or out
+     * of date.
+     *
+     * @param cls     the anonymous class
+     * @param display the display that renders the class
+     * @return the display text
+     */
+    public String getDisplayText(OWLAnonymousClass cls, OWLClassDisplay display) {
+        if (!enabled) {
+            return display.getDisplayText(cls);
+        }
+        long generation = this.generation.get();
+        Expression expression = getExpression(cls, generation);
+        if (expression == null) {
+            return display.getDisplayText(cls);
+        }
+        Rendering rendering = expression.rendering;
+        if (rendering != null && rendering.display == display && rendering.isValid(expression.leaves)) {
+            return rendering.text;
+        }
+        String[] leafTexts = getBrowserTexts(expression.leaves);
+        String text = display.getDisplayText(cls);
+        if (enabled && this.generation.get() == generation) {
+            expression.rendering = new Rendering(display, text, leafTexts);
+        }
+        return text;
+    }
+
+
+    /**
+     * Gets an object that represents the structure of a class expression.
+     * The keys of two anonymous class expressions are the same object if the
+     * expressions are of the same kind and have equal operands, where the order
+     * of the operands of intersections, unions and enumerations is ignored and
+     * anonymous operands are compared by their keys.  The key of a named
+     * resource, or of an anonymous resource that is not a class expression, is
+     * the resource itself.
+     *
+     * @param resource the class expression
+     * @return the key of the expression (not null)
+     */
+    public Object getStructuralKey(RDFResource resource) {
+        if (!resource.isAnonymous()) {
+            return resource;
+        }
+        Expression expression = getExpression(resource, generation.get());
+        return expression == null ? resource : getKey(expression);
+    }
+
+
+    /**
+     * Checks whether two class expressions have the same structural key.
+     *
+     * @see #getStructuralKey
+     */
+    public boolean isEqualExpression(RDFResource a, RDFResource b) {
+        return a.equals(b) || getStructuralKey(a).equals(getStructuralKey(b));
+    }
+
+
+    /**
+     * Finds a class expression that is equal to a given expression, for example
+     * to check whether a parsed expression is already among the superclasses
+     * of a class before adding it.
+     *
+     * @param expression the expression to look for
+     * @param candidates the RDFSClasses to search
+     * @return one of the candidates or null
+     */
+    public RDFSClass findEqualExpression(RDFSClass expression, Collection candidates) {
+        Object key = getStructuralKey(expression);
+        for (Object candidate : candidates) {
+            if (candidate instanceof RDFSClass && getStructuralKey((RDFSClass) candidate).equals(key)) {
+                return (RDFSClass) candidate;
+            }
+        }
+        return null;
+    }
+
+
+    private Expression getExpression(RDFResource resource, long generation) {
+        Expression expression = expressions.get(resource);
+        if (expression == null) {
+            expression = createExpression(resource, generation, new HashSet<RDFResource>());
+        }
+        return expression;
+    }
+
+
+    /**
+     * Builds and caches the expression of an anonymous resource.
+     *
+     * @return the interned expression, or null if the resource or one of its
+     *         operands is not a class expression, or if the operands contain a cycle
+     */
+    private Expression createExpression(RDFResource resource, long generation, Set<RDFResource> visiting) {
+        Object kind = getKind(resource);
+        if (kind == null || !visiting.add(resource)) {
+            return null;
+        }
+        List<Object> values = new ArrayList<Object>();
+        List<RDFResource> parts = new ArrayList<RDFResource>();
+        boolean ordered = true;
+        if (resource instanceof OWLRestriction) {
+            values.add(((OWLRestriction) resource).getOnProperty());
+            if (resource instanceof OWLQuantifierRestriction) {
+                values.add(((OWLQuantifierRestriction) resource).getFiller());
+            }
+            else if (resource instanceof OWLHasValue) {
+                values.add(((OWLHasValue) resource).getHasValue());
+            }
+            else {
+                OWLCardinalityBase cardinalityBase = (OWLCardinalityBase) resource;
+                values.add(Integer.valueOf(cardinalityBase.getCardinality()));
+                values.add(cardinalityBase.getValuesFrom());
+            }
+        }
+        else if (resource instanceof OWLComplementClass) {
+            values.add(((OWLComplementClass) resource).getComplement());
+        }
+        else {
+            ordered = false;
+            RDFProperty listProperty = resource instanceof OWLNAryLogicalClass ?
+                    ((OWLNAryLogicalClass) resource).getOperandsProperty() :
+                    owlModel.getRDFProperty(OWLNames.Slot.ONE_OF);
+            RDFList nil = owlModel.getRDFNil();
+            Object list = resource.getPropertyValue(listProperty);
+            while (list instanceof RDFList && !list.equals(nil)) {
+                if (parts.contains(list)) {
+                    return null;
+                }
+                parts.add((RDFList) list);
+                values.add(((RDFList) list).getFirst());
+                list = ((RDFList) list).getRest();
+            }
+        }
+
+        Set<RDFResource> leaves = new LinkedHashSet<RDFResource>();
+        Object[] components = values.toArray();
+        for (int i = 0; i < components.length; i++) {
+            Object value = components[i];
+            if (value instanceof RDFResource) {
+                RDFResource valueResource = (RDFResource) value;
+                if (valueResource.isAnonymous()) {
+                    Expression child = expressions.get(valueResource);
+                    if (child == null) {
+                        child = createExpression(valueResource, generation, visiting);
+                        if (child == null) {
+                            return null;
+                        }
+                    }
+                    parts.add(valueResource);
+                    leaves.addAll(Arrays.asList(child.leaves));
+                    components[i] = child;
+                }
+                else {
+                    leaves.add(valueResource);
+                }
+            }
+        }
+        visiting.remove(resource);
+
+        RDFProperty commentProperty = owlModel.getRDFProperty(ProtegeNames.Slot.IS_COMMENTED_OUT);
+        boolean commented = commentProperty != null && resource.getPropertyValue(commentProperty) != null;
+        Expression expression = new Expression(kind, components, ordered, commented,
+                                               leaves.toArray(new RDFResource[leaves.size()]));
+        Expression interned = internedExpressions.putIfAbsent(expression, expression);
+        if (interned != null) {
+            expression = interned;
+        }
+        else if (internedExpressions.size() > maxSize) {
+            clear();
+            return expression;
+        }
+        for (RDFResource part : parts) {
+            addDependent(part, resource);
+        }
+        put(resource, expression, generation);
+        return expression;
+    }
+
+
+    private static Object getKind(RDFResource resource) {
+        Class<?>[] kinds = {
+                OWLSomeValuesFrom.class, OWLAllValuesFrom.class, OWLHasValue.class,
+                OWLCardinality.class, OWLMinCardinality.class, OWLMaxCardinality.class,
+                OWLIntersectionClass.class, OWLUnionClass.class, OWLComplementClass.class,
+                OWLEnumeratedClass.class, OWLDataRange.class
+        };
+        for (Class<?> kind : kinds) {
+            if (kind.isInstance(resource)) {
+                return kind;
+            }
+        }
+        return null;
+    }
+
+
+    private Key getKey(Expression expression) {
+        Key key = expression.key;
+        if (key == null) {
+            Object[] components = new Object[expression.components.length];
+            for (int i = 0; i < components.length; i++) {
+                Object component = expression.components[i];
+                components[i] = component instanceof Expression ? getKey((Expression) component) : component;
+            }
+            key = new Key(expression.kind, components, expression.ordered);
+            Key interned = internedKeys.putIfAbsent(key, key);
+            if (interned != null) {
+                key = interned;
+            }
+            synchronized (expression) {
+                if (expression.key == null) {
+                    key.users.incrementAndGet();
+                    expression.key = key;
+                }
+                else {
+                    key = expression.key;
+                }
+            }
+        }
+        return key;
+    }
+
+
+    private void addDependent(Frame frame, Frame dependent) {
+        Set<Frame> frames = dependents.get(frame);
+        if (frames == null) {
+            frames = Collections.newSetFromMap(new ConcurrentHashMap<Frame, Boolean>(4, 0.75f, 1));
+            Set<Frame> oldFrames = dependents.putIfAbsent(frame, frames);
+            if (oldFrames != null) {
+                frames = oldFrames;
+            }
+        }
+        frames.add(dependent);
+    }
+
+
+    private void put(Frame frame, Expression expression, long generation) {
+        if (!enabled || this.generation.get() != generation) {
+            if (expression.users.get() == 0) {
+                prune(expression);
+            }
+            return;
+        }
+        expression.users.incrementAndGet();
+        Expression oldExpression = expressions.put(frame, expression);
+        if (oldExpression != null) {
+            release(oldExpression);
+        }
+        if (this.generation.get() != generation) {
+            // Lost a race with an invalidation
+            if (expressions.remove(frame, expression)) {
+                release(expression);
+            }
+        }
+    }
+
+
+    private void release(Expression expression) {
+        if (expression.users.decrementAndGet() == 0) {
+            prune(expression);
+        }
+    }
+
+
+    /**
+     * Removes an expression that no anonymous class is mapped to from the
+     * interned expressions, and its key from the interned keys if no other
+     * interned expression has this key.
+     */
+    private void prune(Expression expression) {
+        if (expression.users.compareAndSet(0, -1)) {
+            internedExpressions.remove(expression, expression);
+            Key key = expression.key;
+            if (key != null && key.users.decrementAndGet() == 0) {
+                internedKeys.remove(key, key);
+            }
+        }
+    }
+
+
+    private static String[] getBrowserTexts(RDFResource[] resources) {
+        String[] texts = new String[resources.length];
+        for (int i = 0; i < resources.length; i++) {
+            texts[i] = resources[i].getBrowserText();
+        }
+        return texts;
+    }
+
+
+    /**
+     * Removes the expression of a frame and of all anonymous resources that
+     * were built from it.
+     */
+    public void invalidate(Frame frame) {
+        generation.incrementAndGet();
+        Set<Frame> visited = new HashSet<Frame>();
+        LinkedList<Frame> queue = new LinkedList<Frame>();
+        queue.add(frame);
+        while (!queue.isEmpty()) {
+            Frame current = queue.removeFirst();
+            if (visited.add(current)) {
+                Expression expression = expressions.remove(current);
+                if (expression != null) {
+                    release(expression);
+                }
+                Set<Frame> frames = dependents.remove(current);
+                if (frames != null) {
+                    queue.addAll(frames);
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Gets the number of distinct expressions that are currently interned.
+     */
+    public int size() {
+        return internedExpressions.size();
+    }
+
+
+    public void clear() {
+        generation.incrementAndGet();
+        expressions.clear();
+        dependents.clear();
+        internedExpressions.clear();
+        internedKeys.clear();
+    }
+
+
+    /**
+     * Enables or disables caching.  Caching must be disabled while the
+     * knowledge base does not generate events, because the cache would not
+     * be notified of the changes.
+     */
+    public void setEnabled(boolean enabled) {
+        if (this.enabled != enabled) {
+            this.enabled = enabled;
+            clear();
+        }
+    }
+
+
+    /**
+     * An immutable class expression.  The anonymous operands are interned
+     * expressions, so that two expressions can be compared without
+     * comparing their whole trees.
+     */
+    private static class Expression {
+
+        private final Object kind;
+
+        // the operands, with interned expressions for the anonymous operands
+        private final Object[] components;
+
+        // false if the order of the components does not matter for the key
+        private final boolean ordered;
+
+        private final boolean commented;
+
+        // the named resources of the whole expression
+        private final RDFResource[] leaves;
+
+        private final int hashCode;
+
+        private volatile Rendering rendering;
+
+        private volatile Key key;
+
+        // the number of anonymous resources mapped to this expression, or -1 once pruned
+        private final AtomicInteger users = new AtomicInteger();
+
+
+        Expression(Object kind, Object[] components, boolean ordered, boolean commented, RDFResource[] leaves) {
+            this.kind = kind;
+            this.components = components;
+            this.ordered = ordered;
+            this.commented = commented;
+            this.leaves = leaves;
+            this.hashCode = kind.hashCode() * 31 + Arrays.hashCode(components) + (commented ? 1 : 0);
+        }
+
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj == this) {
+                return true;
+            }
+            if (!(obj instanceof Expression)) {
+                return false;
+            }
+            Expression other = (Expression) obj;
+            return hashCode == other.hashCode && kind == other.kind && commented == other.commented &&
+                   Arrays.equals(components, other.components);
+        }
+
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
+
+    /**
+     * The structural key of an expression, which ignores the comment flag
+     * and, for lists of operands, the order of the operands.
+     */
+    private static class Key {
+
+        private final Object kind;
+
+        private final Object[] components;
+
+        private final Set<Object> unorderedComponents;
+
+        private final int hashCode;
+
+        // the number of interned expressions with this key
+        private final AtomicInteger users = new AtomicInteger();
+
+
+        Key(Object kind, Object[] components, boolean ordered) {
+            this.kind = kind;
+            if (ordered) {
+                this.components = components;
+                this.unorderedComponents = null;
+                this.hashCode = kind.hashCode() * 31 + Arrays.hashCode(components);
+            }
+            else {
+                this.components = null;
+                this.unorderedComponents = new HashSet<Object>(Arrays.asList(components));
+                this.hashCode = kind.hashCode() * 31 + unorderedComponents.hashCode();
+            }
+        }
+
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj == this) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            if (hashCode != other.hashCode || kind != other.kind) {
+                return false;
+            }
+            return components != null ?
+                   Arrays.equals(components, other.components) :
+                   unorderedComponents.equals(other.unorderedComponents);
+        }
+
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
+
+    /**
+     * A memoized display text and the browser texts of the named resources
+     * it was rendered with.
+     */
+    private static class Rendering {
+
+        private final OWLClassDisplay display;
+
+        private final String text;
+
+        private final String[] leafTexts;
+
+
+        Rendering(OWLClassDisplay display, String text, String[] leafTexts) {
+            this.display = display;
+            this.text = text;
+            this.leafTexts = leafTexts;
+        }
+
+
+        boolean isValid(RDFResource[] leaves) {
+            for (int i = 0; i < leaves.length; i++) {
+                if (!leaves[i].getBrowserText().equals(leafTexts[i])) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
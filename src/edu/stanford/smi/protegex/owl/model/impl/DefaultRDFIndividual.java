@@ -230,6 +230,26 @@ public class DefaultRDFIndividual extends DefaultSimpleInstance implements RDFIn
     }
 
 
+    public int getPropertyValueInt(RDFProperty property, int defaultValue) {
+        return OWLUtil.getPropertyValueInt(this, property, defaultValue);
+    }
+
+
+    public long getPropertyValueLong(RDFProperty property, long defaultValue) {
+        return OWLUtil.getPropertyValueLong(this, property, defaultValue);
+    }
+
+
+    public double getPropertyValueDouble(RDFProperty property, double defaultValue) {
+        return OWLUtil.getPropertyValueDouble(this, property, defaultValue);
+    }
+
+
+    public boolean getPropertyValueBoolean(RDFProperty property, boolean defaultValue) {
+        return OWLUtil.getPropertyValueBoolean(this, property, defaultValue);
+    }
+
+
     public int getPropertyValueCount(RDFProperty property) {
         return OWLUtil.getPropertyValueCount(this, property);
     }
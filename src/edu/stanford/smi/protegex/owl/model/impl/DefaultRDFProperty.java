@@ -708,6 +708,26 @@ public class DefaultRDFProperty extends DefaultSlot implements RDFProperty {
     }
 
 
+    public int getPropertyValueInt(RDFProperty property, int defaultValue) {
+        return OWLUtil.getPropertyValueInt(this, property, defaultValue);
+    }
+
+
+    public long getPropertyValueLong(RDFProperty property, long defaultValue) {
+        return OWLUtil.getPropertyValueLong(this, property, defaultValue);
+    }
+
+
+    public double getPropertyValueDouble(RDFProperty property, double defaultValue) {
+        return OWLUtil.getPropertyValueDouble(this, property, defaultValue);
+    }
+
+
+    public boolean getPropertyValueBoolean(RDFProperty property, boolean defaultValue) {
+        return OWLUtil.getPropertyValueBoolean(this, property, defaultValue);
+    }
+
+
     public Collection getPropertyValueLiterals(RDFProperty property) {
         return OWLUtil.getPropertyValueLiterals(this, property);
     }
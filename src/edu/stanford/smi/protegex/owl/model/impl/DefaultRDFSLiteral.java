@@ -6,8 +6,17 @@ import edu.stanford.smi.protegex.owl.model.visitor.OWLModelVisitor;
 
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
+ * An immutable literal.  In the frame store, typed and language tagged literals
+ * are stored as raw strings, which start with <code>DATATYPE_PREFIX</code> or
+ * <code>LANGUAGE_PREFIX</code>.  The raw value is parsed once when the literal is
+ * created, and the datatype and the plain value are computed at most once.
+ * Use <code>fromRawValue</code> to get the literal of a raw value
+ * read from the frame store, which may return a cached literal.
+ *
  * @author Holger Knublauch  <holger@knublauch.com>
  */
 public class DefaultRDFSLiteral implements RDFSLiteral {
@@ -16,15 +25,50 @@ public class DefaultRDFSLiteral implements RDFSLiteral {
     public static final String LANGUAGE_PREFIX = "~#";
     public static final char SEPARATOR = ' ';       
 
-    private OWLModel owlModel;
-    private String rawValue;    
-    private String language; 
+    // datatype names and languages, so that the literals share them
+    private static final ConcurrentMap<String, String> names = new ConcurrentHashMap<String, String>();
+
+    private final OWLModel owlModel;
+    private final String rawValue;    
+    private final String language; 
+    // null for string literals
+    private final String datatypeName;
+    // the index of the lexical value in the raw value
+    private final int valueIndex;
+
+    // the caches may be filled by several threads, but they all compute the same values
+    private String string;
+    // only system datatypes are cached, other datatypes could be renamed or deleted
+    private RDFSDatatype datatype;
+    // null until the plain value has been cached
+    private volatile PlainValue plainValue;
 
 
     public DefaultRDFSLiteral(OWLModel owlModel, String rawValue) {
     	this.owlModel = owlModel;
     	this.rawValue = rawValue;
-        this.language = getLanguageFromRawValue();
+        String language = null;
+        String datatypeName = null;
+        int valueIndex = 0;
+        if (isRawValue(rawValue)) {
+            int index = rawValue.indexOf(SEPARATOR);
+            valueIndex = index + 1;
+            if (rawValue.startsWith(LANGUAGE_PREFIX)) {
+                language = intern(index > 0 ? rawValue.substring(2, index) : rawValue.substring(2));
+            }
+            else if (index != -1) { // no separator - should not be the case
+                datatypeName = intern(rawValue.substring(2, index));
+            }
+        }
+        this.language = language;
+        this.datatypeName = datatypeName;
+        this.valueIndex = valueIndex;
+    }
+
+
+    private static String intern(String name) {
+        String interned = names.putIfAbsent(name, name);
+        return interned == null ? name : interned;
     }
     
     public void accept(OWLModelVisitor visitor) {
@@ -76,7 +120,7 @@ public class DefaultRDFSLiteral implements RDFSLiteral {
         }
         else if (value instanceof String) {
         	if (isRawValue((String)value)) {
-        		return new DefaultRDFSLiteral(owlModel, (String)value);
+        		return fromRawValue(owlModel, (String)value);
         	}
             datatype = owlModel.getXSDstring();
         }
@@ -97,6 +141,18 @@ public class DefaultRDFSLiteral implements RDFSLiteral {
         return new DefaultRDFSLiteral(owlModel, getRawValue(String.valueOf(value), datatype));
     }
 
+    /**
+     * Gets the literal of a value as it is stored in the frame store.  A value
+     * without a datatype or language prefix is an xsd:string literal.
+     */
+    public static DefaultRDFSLiteral fromRawValue(OWLModel owlModel, String rawValue) {
+        if (owlModel instanceof AbstractOWLModel) {
+            return ((AbstractOWLModel) owlModel).getRDFSLiteralCache().get(rawValue);
+        }
+        return new DefaultRDFSLiteral(owlModel, rawValue);
+    }
+
+
     public static RDFSLiteral create(OWLModel owlModel, String lexicalValue, RDFSDatatype datatype) {
         return new DefaultRDFSLiteral(owlModel, getRawValue(lexicalValue, datatype));
     }
@@ -108,6 +164,9 @@ public class DefaultRDFSLiteral implements RDFSLiteral {
 
 
     public boolean equals(Object obj) {
+        if (obj == this) {
+            return true;
+        }
         if (obj instanceof DefaultRDFSLiteral) {
             return rawValue.equals(((DefaultRDFSLiteral) obj).rawValue);
         }
@@ -140,19 +199,20 @@ public class DefaultRDFSLiteral implements RDFSLiteral {
 
 
     public RDFSDatatype getDatatype() {
-        if (rawValue.startsWith(LANGUAGE_PREFIX)) {
-            return owlModel.getXSDstring();
+        RDFSDatatype datatype = this.datatype;
+        if (datatype != null) {
+            return datatype;
+        }
+        if (datatypeName == null) {
+            datatype = owlModel.getXSDstring();
         }
         else {
-            int index = rawValue.indexOf(SEPARATOR);
-            
-            if (index == -1) { // no separator - should not be the case
-            	return owlModel.getXSDstring();
-            }
-            String datatypeName = rawValue.substring(2, index);
-            RDFSDatatype datatype = owlModel.getRDFSDatatypeByName(datatypeName);                  
-            return datatype; 
+            datatype = owlModel.getRDFSDatatypeByName(datatypeName);
         }
+        if (datatype != null && datatype.isSystem()) {
+            this.datatype = datatype;
+        }
+        return datatype;
     }
 
 
@@ -173,20 +233,6 @@ public class DefaultRDFSLiteral implements RDFSLiteral {
     public String getLanguage() {
     	return language;
     }
-    
-    protected String getLanguageFromRawValue() {
-        String lang = null;
-        if (rawValue.startsWith(LANGUAGE_PREFIX)) {
-            int endIndex = rawValue.indexOf(SEPARATOR);
-            if (endIndex > 0) {
-                lang = rawValue.substring(2, endIndex);
-            }
-            else {
-                lang = rawValue.substring(2);
-            }
-        }
-        return lang;
-    }
 
 
     public long getLong() {
@@ -199,6 +245,20 @@ public class DefaultRDFSLiteral implements RDFSLiteral {
 
 
     public Object getPlainValue() {
+        PlainValue plainValue = this.plainValue;
+        if (plainValue != null) {
+            return plainValue.value;
+        }
+        Object value = computePlainValue();
+        // the plain value only depends on the datatype if it is a system datatype
+        if (language != null || datatype != null) {
+            this.plainValue = new PlainValue(value);
+        }
+        return value;
+    }
+
+
+    private Object computePlainValue() {
         String lang = getLanguage();
         if (lang != null) {
             if (lang.length() == 0) {
@@ -260,10 +320,12 @@ public class DefaultRDFSLiteral implements RDFSLiteral {
 
 
     public String getString() {
-        if (rawValue.startsWith(LANGUAGE_PREFIX) || rawValue.startsWith(DATATYPE_PREFIX)) {
-            return rawValue.substring(rawValue.indexOf(SEPARATOR) + 1);
+        String string = this.string;
+        if (string == null) {
+            string = valueIndex == 0 ? rawValue : rawValue.substring(valueIndex);
+            this.string = string;
         }
-        return rawValue;
+        return string;
     }
 
 
@@ -296,11 +358,25 @@ public class DefaultRDFSLiteral implements RDFSLiteral {
 
 
     public final static boolean isRawValue(String value) {
-        return value.startsWith(LANGUAGE_PREFIX) || value.startsWith(DATATYPE_PREFIX);
+        return value.length() > 1 && value.charAt(0) == '~' && (value.charAt(1) == '@' || value.charAt(1) == '#');
     }
 
 
     public String toString() {
         return getString();
     }
+
+
+    /**
+     * Holds a cached plain value, which may be null.
+     */
+    private static class PlainValue {
+
+        private final Object value;
+
+
+        PlainValue(Object value) {
+            this.value = value;
+        }
+    }
 }
@@ -35,6 +35,7 @@ public class ImportingOwlNamespaceManager extends AbstractNamespaceManager {
     @Override
     public void addImport(TripleStore imported) {
         needsRebuild = true;
+        flushNamespaceTable();
         super.addImport(imported);
     }
     
@@ -89,6 +90,7 @@ public class ImportingOwlNamespaceManager extends AbstractNamespaceManager {
             }
         }
         needsRebuild = false;
+        flushNamespaceTable();
     }
     
     private void tellDiffs(Map<String, String> oldPrefix2namespaceMap,
@@ -0,0 +1,200 @@
+package edu.stanford.smi.protegex.owl.model.impl;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.hp.hpl.jena.rdf.model.impl.Util;
+
+import edu.stanford.smi.protegex.owl.model.NamespaceMap;
+import edu.stanford.smi.protegex.owl.model.NamespaceUtil;
+
+/**
+ * An immutable snapshot of the prefix mappings of a namespace manager, used
+ * to convert between full and prefixed names without allocating.
+ * <p/>
+ * Prefixes and namespaces are kept in open addressing hash tables that are
+ * searched with a range of characters of a name, so that the prefix or the
+ * namespace part of a name never needs to be extracted as a substring.
+ * The results of the conversions are cached (up to a fixed number of names),
+ * so that names that are looked up repeatedly are not rebuilt each time.
+ * <p/>
+ * A namespace manager throws away its table whenever its mappings change,
+ * and ignores tables that were built for an older generation of its mappings.
+ */
+class NamespaceTable {
+
+    private static final int MAX_CACHED_NAMES = 10000;
+
+    private String[] prefixKeys;
+
+    private String[] namespaceValues;
+
+    private String[] namespaceKeys;
+
+    private String[] prefixValues;
+
+    private int mask;
+
+    private final int generation;
+
+    private Map<String, String> fullNames = new ConcurrentHashMap<String, String>();
+
+    private Map<String, String> prefixedNames = new ConcurrentHashMap<String, String>();
+
+
+    NamespaceTable(NamespaceMap names, int generation) {
+        this.generation = generation;
+        int capacity = 4;
+        while (capacity < names.getPrefixes().size() * 2) {
+            capacity <<= 1;
+        }
+        mask = capacity - 1;
+        prefixKeys = new String[capacity];
+        namespaceValues = new String[capacity];
+        namespaceKeys = new String[capacity];
+        prefixValues = new String[capacity];
+        for (String prefix : names.getPrefixes()) {
+            String namespace = names.getNamespaceForPrefix(prefix);
+            if (namespace != null) {
+                put(prefixKeys, namespaceValues, prefix, namespace);
+                String namespacePrefix = names.getPrefix(namespace);
+                if (namespacePrefix != null) {
+                    put(namespaceKeys, prefixValues, namespace, namespacePrefix);
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Gets the generation of the mappings this table was built from.
+     */
+    int getGeneration() {
+        return generation;
+    }
+
+
+    /**
+     * Gets the namespace of a prefix that is a part of a name.
+     *
+     * @param name  The name containing the prefix
+     * @param start The index of the first character of the prefix
+     * @param end   The index after the last character of the prefix
+     * @return The namespace or null if the prefix is not defined
+     */
+    String getNamespaceForPrefix(String name, int start, int end) {
+        return get(prefixKeys, namespaceValues, name, start, end);
+    }
+
+
+    /**
+     * Gets the prefix of a namespace that is a part of a name.
+     *
+     * @param name  The name containing the namespace
+     * @param start The index of the first character of the namespace
+     * @param end   The index after the last character of the namespace
+     * @return The prefix or null if the namespace has no prefix
+     */
+    String getPrefixForNamespace(String name, int start, int end) {
+        return get(namespaceKeys, prefixValues, name, start, end);
+    }
+
+
+    /**
+     * @see NamespaceUtil#getFullName
+     */
+    String getFullName(String prefixedName) {
+        String fullName = fullNames.get(prefixedName);
+        if (fullName == null) {
+            int ind = prefixedName.indexOf(NamespaceUtil.PREFIX_TO_NAME_SEPARATOR);
+            if (ind == -1) { // a name in the default namespace
+                String defaultNamespace = getNamespaceForPrefix(prefixedName, 0, 0);
+                fullName = defaultNamespace == null ? prefixedName : defaultNamespace.concat(prefixedName);
+            }
+            else if (ind == 0) {
+                fullName = prefixedName;
+            }
+            else {
+                String namespace = getNamespaceForPrefix(prefixedName, 0, ind);
+                if (namespace == null) {
+                    return null;
+                }
+                StringBuffer buffer = new StringBuffer(namespace.length() + prefixedName.length() - ind - 1);
+                buffer.append(namespace);
+                buffer.append(prefixedName, ind + 1, prefixedName.length());
+                fullName = buffer.toString();
+            }
+            cache(fullNames, prefixedName, fullName);
+        }
+        return fullName;
+    }
+
+
+    /**
+     * @see NamespaceUtil#getPrefixedName
+     */
+    String getPrefixedName(String fullURI) {
+        String prefixedName = prefixedNames.get(fullURI);
+        if (prefixedName == null) {
+            if (!NamespaceUtil.isAbsoluteURI(fullURI)) {
+                return fullURI;
+            }
+            int split = Util.splitNamespace(fullURI);
+            String prefix = getPrefixForNamespace(fullURI, 0, split);
+            if (prefix == null) {
+                prefixedName = fullURI;
+            }
+            else if (prefix.equals(AbstractNamespaceManager.DEFAULT_NAMESPACE_PREFIX)) {
+                prefixedName = fullURI.substring(split);
+            }
+            else {
+                StringBuffer buffer = new StringBuffer(prefix.length() + 1 + fullURI.length() - split);
+                buffer.append(prefix);
+                buffer.append(':');
+                buffer.append(fullURI, split, fullURI.length());
+                prefixedName = buffer.toString();
+            }
+            cache(prefixedNames, fullURI, prefixedName);
+        }
+        return prefixedName;
+    }
+
+
+    private static void cache(Map<String, String> names, String key, String value) {
+        if (names.size() >= MAX_CACHED_NAMES) {
+            names.clear();
+        }
+        names.put(key, value);
+    }
+
+
+    private void put(String[] keys, String[] values, String key, String value) {
+        int i = hash(key, 0, key.length()) & mask;
+        while (keys[i] != null && !keys[i].equals(key)) {
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        values[i] = value;
+    }
+
+
+    private String get(String[] keys, String[] values, String name, int start, int end) {
+        int length = end - start;
+        for (int i = hash(name, start, end) & mask; keys[i] != null; i = (i + 1) & mask) {
+            String key = keys[i];
+            if (key.length() == length && key.regionMatches(0, name, start, length)) {
+                return values[i];
+            }
+        }
+        return null;
+    }
+
+
+    private static int hash(String s, int start, int end) {
+        int h = 0;
+        for (int i = start; i < end; i++) {
+            h = 31 * h + s.charAt(i);
+        }
+        return h ^ (h >>> 16);
+    }
+}
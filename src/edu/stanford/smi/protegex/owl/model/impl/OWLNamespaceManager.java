@@ -123,11 +123,13 @@ public class OWLNamespaceManager extends AbstractNamespaceManager {
     public void removePrefixMappingSimple(String namespace, String prefix) {
         prefix2namespaceMap.remove(prefix);
         namespace2prefixMap.remove(namespace);
+        flushNamespaceTable();
     }
 
     private void addPrefixMappingSimple(String namespace, String prefix) {
         prefix2namespaceMap.put(prefix, namespace);
         namespace2prefixMap.put(namespace, prefix);
+        flushNamespaceTable();
     }
 
 
@@ -719,6 +719,26 @@ public class OWLUtil {
         return null;
     }
 
+    public static int getPropertyValueInt(RDFResource resource, RDFProperty property, int defaultValue) {
+        return getPropertyValueCache(resource).getInt(resource, property, defaultValue);
+    }
+
+    public static long getPropertyValueLong(RDFResource resource, RDFProperty property, long defaultValue) {
+        return getPropertyValueCache(resource).getLong(resource, property, defaultValue);
+    }
+
+    public static double getPropertyValueDouble(RDFResource resource, RDFProperty property, double defaultValue) {
+        return getPropertyValueCache(resource).getDouble(resource, property, defaultValue);
+    }
+
+    public static boolean getPropertyValueBoolean(RDFResource resource, RDFProperty property, boolean defaultValue) {
+        return getPropertyValueCache(resource).getBoolean(resource, property, defaultValue);
+    }
+
+    private static PropertyValueCache getPropertyValueCache(RDFResource resource) {
+        return ((AbstractOWLModel) resource.getOWLModel()).getPropertyValueCache();
+    }
+
     public static Collection getRDFProperties(RDFResource resource) {
         Collection<RDFProperty> result = new ArrayList<RDFProperty>();
         final OWLModel owlModel = resource.getOWLModel();
@@ -1063,23 +1083,12 @@ public class OWLUtil {
     }
 
     protected static boolean isAbsoluteURI(OWLModel owlModel, String uriString) {
-        if (!uriString.contains(":")) {
-            return false;
-        }
-
-        URI uri = null;
-
-        try {
-            uri = new URI(uriString);
-        } catch (URISyntaxException e) {
-            //do nothing - uri will be null. Hopefully this won't be the case
-        }
-        if (uri == null || !uri.isAbsolute()) {
+        if (!NamespaceUtil.isAbsoluteURI(uriString)) {
             return false;
         }
-        if (uri.isOpaque()) {
-            String scheme = uri.getScheme();
-            return owlModel.getNamespaceManager().getNamespaceForPrefix(scheme) == null ? true : false;
+        int schemeEnd = NamespaceUtil.getSchemeEnd(uriString);
+        if (uriString.charAt(schemeEnd + 1) != '/') { // opaque, e.g. a prefixed name
+            return NamespaceUtil.getNamespaceForPrefix(owlModel.getNamespaceManager(), uriString, 0, schemeEnd) == null;
         }
         return true;
     }
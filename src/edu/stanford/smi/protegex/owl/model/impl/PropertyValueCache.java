@@ -0,0 +1,274 @@
+package edu.stanford.smi.protegex.owl.model.impl;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import edu.stanford.smi.protege.event.FrameAdapter;
+import edu.stanford.smi.protege.event.FrameEvent;
+import edu.stanford.smi.protege.event.FrameListener;
+import edu.stanford.smi.protege.model.Frame;
+import edu.stanford.smi.protege.model.KnowledgeBase;
+import edu.stanford.smi.protege.model.Slot;
+import edu.stanford.smi.protege.util.ApplicationProperties;
+import edu.stanford.smi.protegex.owl.model.RDFProperty;
+import edu.stanford.smi.protegex.owl.model.RDFResource;
+
+/**
+ * A thread safe cache of the parsed values of the datatype properties of the
+ * resources of an OWLModel, used by the primitive accessors such as
+ * <code>RDFResource.getPropertyValueInt</code>.  For each resource, the cache
+ * holds the first direct value of the properties that have been read, and the
+ * int, long, double or boolean that was parsed from it, so that reading the
+ * value again neither creates an RDFSLiteral nor parses the lexical form.
+ * <p/>
+ * Entries are invalidated like the entries of the <code>BrowserTextCache</code>,
+ * through the frame listener of the cache, which must be registered with the
+ * knowledge base: any own slot value change, rename or deletion of a frame
+ * removes the entries of the frame, and the rename or deletion of a property
+ * clears the cache.  Caching is disabled while the knowledge base does not
+ * generate events.
+ * <p/>
+ * The cache is cleared when it holds the values of more resources than the
+ * value of <code>MAX_SIZE_PROPERTY</code>.
+ */
+public class PropertyValueCache {
+
+    /**
+     * The maximum number of resources whose values are cached (default 100000).
+     */
+    public final static String MAX_SIZE_PROPERTY = "protegeowl.property.value.cache.size";
+
+    // a value that is missing or that cannot be parsed
+    private final static Object INVALID = new Object();
+
+    private final int maxSize = ApplicationProperties.getIntegerProperty(MAX_SIZE_PROPERTY, 100000);
+
+    private ConcurrentHashMap<Frame, Map<Slot, Entry>> entries = new ConcurrentHashMap<Frame, Map<Slot, Entry>>();
+
+    private AtomicLong generation = new AtomicLong();
+
+    private volatile boolean enabled = true;
+
+    private FrameListener frameListener = new FrameAdapter() {
+        @Override
+        public void ownSlotValueChanged(FrameEvent event) {
+            invalidate(event.getFrame());
+        }
+
+
+        @Override
+        public void nameChanged(FrameEvent event) {
+            frameChanged(event.getFrame());
+        }
+
+
+        @Override
+        public void deleted(FrameEvent event) {
+            frameChanged(event.getFrame());
+        }
+    };
+
+
+    /**
+     * Gets the listener that keeps this cache up to date.  It must be added
+     * to the knowledge base as a (global) frame listener.
+     */
+    public FrameListener getFrameListener() {
+        return frameListener;
+    }
+
+
+    public int getInt(RDFResource resource, RDFProperty property, int defaultValue) {
+        Object value = getEntry(resource, property).getLong();
+        if (value != INVALID) {
+            long l = ((Long) value).longValue();
+            if (l >= Integer.MIN_VALUE && l <= Integer.MAX_VALUE) {
+                return (int) l;
+            }
+        }
+        return defaultValue;
+    }
+
+
+    public long getLong(RDFResource resource, RDFProperty property, long defaultValue) {
+        Object value = getEntry(resource, property).getLong();
+        return value == INVALID ? defaultValue : ((Long) value).longValue();
+    }
+
+
+    public double getDouble(RDFResource resource, RDFProperty property, double defaultValue) {
+        Object value = getEntry(resource, property).getDouble();
+        return value == INVALID ? defaultValue : ((Double) value).doubleValue();
+    }
+
+
+    public boolean getBoolean(RDFResource resource, RDFProperty property, boolean defaultValue) {
+        Object value = getEntry(resource, property).getBoolean();
+        return value == INVALID ? defaultValue : ((Boolean) value).booleanValue();
+    }
+
+
+    private Entry getEntry(RDFResource resource, RDFProperty property) {
+        Map<Slot, Entry> values = entries.get(resource);
+        Entry entry = values == null ? null : values.get(property);
+        if (entry == null) {
+            long generation = this.generation.get();
+            KnowledgeBase kb = resource.getOWLModel();
+            entry = new Entry(kb.getDirectOwnSlotValue(resource, property));
+            put(resource, property, entry, generation);
+        }
+        return entry;
+    }
+
+
+    private void put(Frame frame, Slot slot, Entry entry, long generation) {
+        if (!enabled || this.generation.get() != generation) {
+            return;
+        }
+        Map<Slot, Entry> values = entries.get(frame);
+        if (values == null) {
+            if (entries.size() >= maxSize) {
+                clear();
+                return;
+            }
+            values = new ConcurrentHashMap<Slot, Entry>(4, 0.75f, 1);
+            Map<Slot, Entry> oldValues = entries.putIfAbsent(frame, values);
+            if (oldValues != null) {
+                values = oldValues;
+            }
+        }
+        values.put(slot, entry);
+        if (this.generation.get() != generation) {
+            // Lost a race with an invalidation
+            entries.remove(frame);
+        }
+    }
+
+
+    /**
+     * Removes the cached values of a frame.
+     */
+    public void invalidate(Frame frame) {
+        generation.incrementAndGet();
+        entries.remove(frame);
+    }
+
+
+    private void frameChanged(Frame frame) {
+        if (frame instanceof Slot) {
+            clear();
+        }
+        else {
+            invalidate(frame);
+        }
+    }
+
+
+    public void clear() {
+        generation.incrementAndGet();
+        entries.clear();
+    }
+
+
+    /**
+     * Enables or disables caching.  Caching must be disabled while the
+     * knowledge base does not generate events, because the cache would not
+     * be notified of the changes.
+     */
+    public void setEnabled(boolean enabled) {
+        if (this.enabled != enabled) {
+            this.enabled = enabled;
+            clear();
+        }
+    }
+
+
+    /**
+     * The first value of a property and the values parsed from it.  The parsed
+     * values are immutable, so they can be computed by several threads at once.
+     */
+    private static class Entry {
+
+        private Object value;
+
+        private Object longValue;
+
+        private Object doubleValue;
+
+        private Object booleanValue;
+
+
+        Entry(Object value) {
+            if (value instanceof String && DefaultRDFSLiteral.isRawValue((String) value)) {
+                String rawValue = (String) value;
+                value = rawValue.substring(rawValue.indexOf(DefaultRDFSLiteral.SEPARATOR) + 1);
+            }
+            this.value = value;
+        }
+
+
+        Object getLong() {
+            Object result = longValue;
+            if (result == null) {
+                result = INVALID;
+                if (value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte) {
+                    result = Long.valueOf(((Number) value).longValue());
+                }
+                else if (value instanceof String) {
+                    try {
+                        result = Long.valueOf(((String) value).trim());
+                    }
+                    catch (NumberFormatException e) {
+                        // not a long
+                    }
+                }
+                longValue = result;
+            }
+            return result;
+        }
+
+
+        Object getDouble() {
+            Object result = doubleValue;
+            if (result == null) {
+                result = INVALID;
+                if (value instanceof Number) {
+                    result = Double.valueOf(((Number) value).doubleValue());
+                }
+                else if (value instanceof String) {
+                    try {
+                        result = Double.valueOf(((String) value).trim());
+                    }
+                    catch (NumberFormatException e) {
+                        // not a double
+                    }
+                }
+                doubleValue = result;
+            }
+            return result;
+        }
+
+
+        Object getBoolean() {
+            Object result = booleanValue;
+            if (result == null) {
+                result = INVALID;
+                if (value instanceof Boolean) {
+                    result = value;
+                }
+                else if (value instanceof String) {
+                    String str = ((String) value).trim();
+                    if (str.equalsIgnoreCase("true") || str.equals("1")) {
+                        result = Boolean.TRUE;
+                    }
+                    else if (str.equalsIgnoreCase("false") || str.equals("0")) {
+                        result = Boolean.FALSE;
+                    }
+                }
+                booleanValue = result;
+            }
+            return result;
+        }
+    }
+}
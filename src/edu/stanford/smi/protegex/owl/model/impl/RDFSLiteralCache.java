@@ -0,0 +1,43 @@
+package edu.stanford.smi.protegex.owl.model.impl;
+
+import edu.stanford.smi.protegex.owl.model.OWLModel;
+
+/**
+ * A small cache of the literals of the raw values of an OWLModel, so that a
+ * value that is read repeatedly from the frame store is not parsed again
+ * and its plain value is not computed again.
+ * <p/>
+ * The cache is direct mapped: each raw value has a single entry, which holds
+ * the literal of the raw value that was looked up last.  As the literals are
+ * immutable, the cache can be used by several threads without locking.
+ */
+public class RDFSLiteralCache {
+
+    private final static int SIZE = 1024;
+
+    private OWLModel owlModel;
+
+    private DefaultRDFSLiteral[] literals = new DefaultRDFSLiteral[SIZE];
+
+
+    public RDFSLiteralCache(OWLModel owlModel) {
+        this.owlModel = owlModel;
+    }
+
+
+    public DefaultRDFSLiteral get(String rawValue) {
+        int hash = rawValue.hashCode();
+        int index = (hash ^ (hash >>> 16)) & (SIZE - 1);
+        DefaultRDFSLiteral literal = literals[index];
+        if (literal == null || !literal.getRawValue().equals(rawValue)) {
+            literal = new DefaultRDFSLiteral(owlModel, rawValue);
+            literals[index] = literal;
+        }
+        return literal;
+    }
+
+
+    public void clear() {
+        literals = new DefaultRDFSLiteral[SIZE];
+    }
+}
@@ -88,6 +88,18 @@ public interface TripleStore extends NamespaceMap, Disposable {
     Iterator<RDFResource> listSubjects(RDFProperty property);
 
 
+    /**
+     * Gets the subjects of all triples in this TripleStore, i.e. the resources
+     * that there are statements about in this TripleStore.
+     * This is computed in a single pass over the underlying storage, and is much
+     * cheaper than calling <code>listSubjects(RDFProperty)</code> for each property.
+     * The Iterator does not contain duplicates.
+     *
+     * @return an Iterator of RDFResources
+     */
+    Iterator<RDFResource> listSubjects();
+
+
     /**
      * Gets the subjects of all triples with a given predicate and object.
      *
@@ -98,8 +110,40 @@ public interface TripleStore extends NamespaceMap, Disposable {
     Iterator listSubjects(RDFProperty predicate, Object object);
 
 
+    /**
+     * Lists all Triples in this TripleStore.
+     * The Iterator walks the underlying storage lazily and creates the Triple objects
+     * only while it is consumed, so the TripleStore must not be modified during the
+     * iteration.
+     *
+     * @return an Iterator of Triples
+     */
     Iterator<Triple> listTriples();
 
+
+    /**
+     * Passes all triples in this TripleStore to a TripleVisitor.
+     * This is the cheapest way of traversing all triples because no Triple
+     * or literal objects are created.
+     * The TripleStore must not be modified during the traversal.
+     *
+     * @param visitor the TripleVisitor to call for each triple
+     */
+    void visitTriples(TripleVisitor visitor);
+
+
+    /**
+     * Passes all triples in this TripleStore to a TripleVisitor, so that the
+     * triples of each subject are visited one after the other, and the triples
+     * with the same subject and predicate are visited consecutively.
+     * This is meant for writers that group the triples by subject, and it only
+     * keeps references to the existing storage for the grouping.
+     * The TripleStore must not be modified during the traversal.
+     *
+     * @param visitor the TripleVisitor to call for each triple
+     */
+    void visitTriplesBySubject(TripleVisitor visitor);
+
     /**
      * @return All the user defined classes (non-system) defined in this triplestore.
      */
@@ -133,7 +177,11 @@ public interface TripleStore extends NamespaceMap, Disposable {
     /**
      * Lists all Triples that have a given subject.
      * In other words, this returns all property-value pairs of a given resource.
-     * Note that this operation is currently not efficiently implemented.
+     * Only the own slots of the subject are looked up, so the cost depends on
+     * the subject rather than on the size of the triple store or the number of
+     * properties.  Triples are created lazily while the Iterator is consumed,
+     * from copies of the values of each property, so that the subject may be
+     * changed while the Iterator is used.
      *
      * @param subject the subject in the triples
      * @return an Iterator of Triples
@@ -25,6 +25,7 @@ import edu.stanford.smi.protegex.owl.model.RDFProperty;
 import edu.stanford.smi.protegex.owl.model.RDFResource;
 import edu.stanford.smi.protegex.owl.model.RDFSNamedClass;
 import edu.stanford.smi.protegex.owl.model.triplestore.impl.DefaultTriple;
+import edu.stanford.smi.protegex.owl.model.triplestore.impl.TripleStoreChangeTracker;
 import edu.stanford.smi.protegex.owl.ui.ProtegeUI;
 import edu.stanford.smi.protegex.owl.util.job.GetTripleStoreOfTripleJob;
 
@@ -126,6 +127,8 @@ public class TripleStoreUtil {
                 RDFResource resource = (RDFResource) it.next();
                 moveResource(resource, slots, sourceFS, targetFS);
             }
+            TripleStoreChangeTracker.markModified(owlModel, sourceTS);
+            TripleStoreChangeTracker.markModified(owlModel, targetTS);
             owlModel.flushCache();
         }
     }
@@ -0,0 +1,25 @@
+package edu.stanford.smi.protegex.owl.model.triplestore;
+
+import edu.stanford.smi.protegex.owl.model.RDFProperty;
+import edu.stanford.smi.protegex.owl.model.RDFResource;
+
+/**
+ * A callback that receives the triples of a TripleStore one by one,
+ * without the need to create Triple objects.
+ *
+ * @see TripleStore#visitTriples(TripleVisitor)
+ */
+public interface TripleVisitor {
+
+    /**
+     * Called for each triple.
+     * The object is passed in the form in which it is stored in the triple store,
+     * i.e. typed and language-tagged literals arrive as raw Strings
+     * (see <CODE>DefaultRDFSLiteral.isRawValue</CODE>).
+     *
+     * @param subject   the subject of the triple
+     * @param predicate the predicate of the triple
+     * @param object    the object of the triple
+     */
+    void visit(RDFResource subject, RDFProperty predicate, Object object);
+}
@@ -0,0 +1,224 @@
+package edu.stanford.smi.protegex.owl.model.triplestore.impl;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import edu.stanford.smi.protege.event.FrameAdapter;
+import edu.stanford.smi.protege.event.FrameEvent;
+import edu.stanford.smi.protege.event.FrameListener;
+import edu.stanford.smi.protege.event.KnowledgeBaseAdapter;
+import edu.stanford.smi.protege.event.KnowledgeBaseEvent;
+import edu.stanford.smi.protege.event.KnowledgeBaseListener;
+import edu.stanford.smi.protege.model.framestore.MergingNarrowFrameStore;
+import edu.stanford.smi.protege.model.framestore.NarrowFrameStore;
+import edu.stanford.smi.protegex.owl.model.OWLModel;
+import edu.stanford.smi.protegex.owl.model.impl.AbstractOWLModel;
+import edu.stanford.smi.protegex.owl.model.triplestore.TripleStore;
+
+/**
+ * Keeps track of the TripleStores that have been modified since the model was
+ * loaded or since they were last saved, so that a save only needs to write the
+ * files of the modified TripleStores.
+ * <p/>
+ * The tracker is fed by the frame and knowledge base events of the model: most
+ * changes go into the active TripleStore, so each event marks the TripleStore
+ * that is active when the event is delivered.  Deleting or replacing a frame
+ * removes or replaces its references in every TripleStore, so these events mark
+ * all TripleStores.  Changes that are made while the
+ * knowledge base does not generate events cannot be observed, so during such
+ * periods every TripleStore that becomes active is marked as modified.
+ * Code that writes into the NarrowFrameStore of a TripleStore directly must call
+ * <code>markModified</code> itself.
+ */
+public class TripleStoreChangeTracker {
+
+    private OWLModel owlModel;
+
+    // the names of the frame stores of the modified triple stores
+    private Set<String> modifiedTripleStores = Collections.synchronizedSet(new HashSet<String>());
+
+    private volatile boolean observing = true;
+
+    private FrameListener frameListener = new FrameAdapter() {
+        @Override
+        public void ownSlotValueChanged(FrameEvent event) {
+            markActiveTripleStoreModified();
+        }
+
+
+        @Override
+        public void ownSlotAdded(FrameEvent event) {
+            markActiveTripleStoreModified();
+        }
+
+
+        @Override
+        public void ownSlotRemoved(FrameEvent event) {
+            markActiveTripleStoreModified();
+        }
+
+
+        @Override
+        public void nameChanged(FrameEvent event) {
+            markActiveTripleStoreModified();
+        }
+    };
+
+    private KnowledgeBaseListener knowledgeBaseListener = new KnowledgeBaseAdapter() {
+        @Override
+        public void clsCreated(KnowledgeBaseEvent event) {
+            markActiveTripleStoreModified();
+        }
+
+
+        @Override
+        public void clsDeleted(KnowledgeBaseEvent event) {
+            markAllTripleStoresModified();
+        }
+
+
+        @Override
+        public void slotCreated(KnowledgeBaseEvent event) {
+            markActiveTripleStoreModified();
+        }
+
+
+        @Override
+        public void slotDeleted(KnowledgeBaseEvent event) {
+            markAllTripleStoresModified();
+        }
+
+
+        @Override
+        public void instanceCreated(KnowledgeBaseEvent event) {
+            markActiveTripleStoreModified();
+        }
+
+
+        @Override
+        public void instanceDeleted(KnowledgeBaseEvent event) {
+            markAllTripleStoresModified();
+        }
+
+
+        @Override
+        public void frameReplaced(KnowledgeBaseEvent event) {
+            markAllTripleStoresModified();
+        }
+    };
+
+
+    public TripleStoreChangeTracker(OWLModel owlModel) {
+        this.owlModel = owlModel;
+    }
+
+
+    /**
+     * Marks a TripleStore of a model as modified.  This does nothing if the
+     * model does not track changes.
+     *
+     * @param owlModel    the model
+     * @param tripleStore the modified TripleStore
+     */
+    public static void markModified(OWLModel owlModel, TripleStore tripleStore) {
+        if (owlModel instanceof AbstractOWLModel) {
+            ((AbstractOWLModel) owlModel).getTripleStoreChangeTracker().markModified(tripleStore);
+        }
+    }
+
+
+    public FrameListener getFrameListener() {
+        return frameListener;
+    }
+
+
+    public KnowledgeBaseListener getKnowledgeBaseListener() {
+        return knowledgeBaseListener;
+    }
+
+
+    public boolean isModified(TripleStore tripleStore) {
+        return modifiedTripleStores.contains(getKey(tripleStore));
+    }
+
+
+    public void markModified(TripleStore tripleStore) {
+        if (tripleStore != null) {
+            modifiedTripleStores.add(getKey(tripleStore));
+        }
+    }
+
+
+    /**
+     * Marks a TripleStore as unmodified, typically after it has been saved.
+     */
+    public void markSaved(TripleStore tripleStore) {
+        modifiedTripleStores.remove(getKey(tripleStore));
+    }
+
+
+    /**
+     * Marks all TripleStores as unmodified, typically after the model has been loaded.
+     */
+    public void clear() {
+        modifiedTripleStores.clear();
+    }
+
+
+    public void markActiveTripleStoreModified() {
+        // Not using the TripleStoreModel, which may not have been created yet
+        MergingNarrowFrameStore mnfs = MergingNarrowFrameStore.get(owlModel);
+        if (mnfs != null) {
+            NarrowFrameStore activeFrameStore = mnfs.getActiveFrameStore();
+            if (activeFrameStore != null) {
+                modifiedTripleStores.add(activeFrameStore.getName());
+            }
+        }
+    }
+
+
+    /**
+     * Marks all TripleStores except the system TripleStore as modified.
+     */
+    public void markAllTripleStoresModified() {
+        MergingNarrowFrameStore mnfs = MergingNarrowFrameStore.get(owlModel);
+        if (mnfs != null) {
+            NarrowFrameStore systemFrameStore = mnfs.getSystemFrameStore();
+            for (Object o : mnfs.getAllFrameStores()) {
+                NarrowFrameStore frameStore = (NarrowFrameStore) o;
+                if (frameStore != systemFrameStore) {
+                    modifiedTripleStores.add(frameStore.getName());
+                }
+            }
+        }
+    }
+
+
+    /**
+     * Must be called whenever the generation of events is switched on or off.
+     */
+    public void setObserving(boolean observing) {
+        if (this.observing != observing) {
+            this.observing = observing;
+            if (!observing) {
+                markActiveTripleStoreModified();
+            }
+        }
+    }
+
+
+    /**
+     * Must be called whenever the active TripleStore changes.
+     */
+    public void activeTripleStoreChanged() {
+        if (!observing) {
+            markActiveTripleStoreModified();
+        }
+    }
+
+
+    private static String getKey(TripleStore tripleStore) {
+        return tripleStore.getNarrowFrameStore().getName();
+    }
+}
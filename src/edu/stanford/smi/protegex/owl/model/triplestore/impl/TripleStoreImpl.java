@@ -5,9 +5,13 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -42,6 +46,7 @@ import edu.stanford.smi.protegex.owl.model.triplestore.Triple;
 import edu.stanford.smi.protegex.owl.model.triplestore.TripleStore;
 import edu.stanford.smi.protegex.owl.model.triplestore.TripleStoreModel;
 import edu.stanford.smi.protegex.owl.model.triplestore.TripleStoreUtil;
+import edu.stanford.smi.protegex.owl.model.triplestore.TripleVisitor;
 
 /**
  * A TripleStore that acts as a view on an existing NarrowFrameStore.
@@ -67,6 +72,8 @@ public class TripleStoreImpl implements TripleStore {
 
     private String name;
 
+    private Collection<Slot> ignoreProperties;
+
     public TripleStoreImpl(OWLModel owlModel, NarrowFrameStore frameStore, TripleStoreModel tripleStoreModel) {
         this(owlModel, frameStore, tripleStoreModel, new OWLNamespaceManager(), null);
     }
@@ -101,46 +108,114 @@ public class TripleStoreImpl implements TripleStore {
 
 
     public Iterator<Triple> listTriples() {
-	    Collection<Slot> ignoreProperties = new HashSet<Slot>();
-        OWLSystemFrames systemFrames = owlModel.getSystemFrames();
-        ignoreProperties.add(systemFrames.getOwlOntologyPrefixesProperty());
-        ignoreProperties.add(systemFrames.getOwlOntologyPointerProperty());
-        ignoreProperties.add(systemFrames.getDirectInstancesSlot());
-        ignoreProperties.add(systemFrames.getDirectTypesSlot());
-
-        ignoreProperties.add(systemFrames.getProtegeClassificationStatusProperty());
-        ignoreProperties.add(systemFrames.getProtegeInferredSubclassesProperty());
-        ignoreProperties.add(systemFrames.getProtegeInferredSuperclassesProperty());
-        ignoreProperties.add(systemFrames.getProtegeInferredTypeProperty());
+        return new RecordTriplesIterator(((InMemoryFrameDb) narrowFrameStore).getRecords().iterator());
+    }
 
 
-        List<Triple> triples = new ArrayList<Triple>();
+    public void visitTriples(TripleVisitor visitor) {
         for (Record record : ((InMemoryFrameDb) narrowFrameStore).getRecords()) {
-            Frame subject = record.getFrame();
-            if (subject instanceof RDFResource) {
-                Slot predicate = record.getSlot();
-                if (log.isLoggable(Level.FINE)) {
-                    log.fine("listTriples -- " + subject.getName() + " . " + predicate.getName());
+            if (isTripleRecord(record)) {
+                visitRecord(record, visitor);
+            }
+        }
+    }
+
+
+    public void visitTriplesBySubject(TripleVisitor visitor) {
+        if (narrowFrameStore instanceof InMemoryFrameDb) {
+            Map<Frame, List<Record>> subjectRecords = new HashMap<Frame, List<Record>>();
+            for (Record record : ((InMemoryFrameDb) narrowFrameStore).getRecords()) {
+                if (isTripleRecord(record) && !record.getValues().isEmpty()) {
+                    List<Record> records = subjectRecords.get(record.getFrame());
+                    if (records == null) {
+                        records = new ArrayList<Record>(4);
+                        subjectRecords.put(record.getFrame(), records);
+                    }
+                    records.add(record);
                 }
-                if (predicate instanceof RDFProperty) {
-                    if (record.getFacet() == null && !record.isTemplate() && !ignoreProperties.contains(predicate)) {
-                        for (Object object : record.getValues()) {
-                            if (log.isLoggable(Level.FINER)) {
-                                log.finer("\tObject = " + object);
-                            }
-                            if (object instanceof String && DefaultRDFSLiteral.isRawValue((String) object)) {
-                                object = new DefaultRDFSLiteral(owlModel, (String) object);
+            }
+            for (List<Record> records : subjectRecords.values()) {
+                for (Record record : records) {
+                    visitRecord(record, visitor);
+                }
+            }
+        }
+        else {
+            for (Iterator<RDFResource> subjects = listSubjects(); subjects.hasNext();) {
+                RDFResource subject = subjects.next();
+                for (Object o : owlModel.getRDFProperties()) {
+                    if (!getIgnoredProperties().contains(o)) {
+                        Collection values = getValues(subject, (RDFProperty) o);
+                        if (values != null) {
+                            for (Object object : values) {
+                                visitor.visit(subject, (RDFProperty) o, object);
                             }
-                            Triple triple = new DefaultTriple((RDFResource) subject, (RDFProperty) predicate, object);
-                            triples.add(triple);
                         }
                     }
                 }
             }
         }
-        return triples.iterator();
     }
 
+
+    private static void visitRecord(Record record, TripleVisitor visitor) {
+        RDFResource subject = (RDFResource) record.getFrame();
+        RDFProperty predicate = (RDFProperty) record.getSlot();
+        for (Object object : record.getValues()) {
+            visitor.visit(subject, predicate, object);
+        }
+    }
+
+
+    private boolean isTripleRecord(Record record) {
+        Frame subject = record.getFrame();
+        if (subject instanceof RDFResource) {
+            Slot predicate = record.getSlot();
+            if (log.isLoggable(Level.FINE)) {
+                log.fine("listTriples -- " + subject.getName() + " . " + predicate.getName());
+            }
+            return predicate instanceof RDFProperty &&
+                   record.getFacet() == null &&
+                   !record.isTemplate() &&
+                   !getIgnoredProperties().contains(predicate);
+        }
+        return false;
+    }
+
+
+    /**
+     * Gets the internal Protege properties that are not reported as triples, such as
+     * the classification results and the ontology prefix bookkeeping.
+     *
+     * @return the Slots to skip when listing triples
+     */
+    protected Collection<Slot> getIgnoredProperties() {
+        if (ignoreProperties == null) {
+            Collection<Slot> slots = new HashSet<Slot>();
+            OWLSystemFrames systemFrames = owlModel.getSystemFrames();
+            slots.add(systemFrames.getOwlOntologyPrefixesProperty());
+            slots.add(systemFrames.getOwlOntologyPointerProperty());
+            slots.add(systemFrames.getDirectInstancesSlot());
+            slots.add(systemFrames.getDirectTypesSlot());
+
+            slots.add(systemFrames.getProtegeClassificationStatusProperty());
+            slots.add(systemFrames.getProtegeInferredSubclassesProperty());
+            slots.add(systemFrames.getProtegeInferredSuperclassesProperty());
+            slots.add(systemFrames.getProtegeInferredTypeProperty());
+            ignoreProperties = slots;
+        }
+        return ignoreProperties;
+    }
+
+
+    private Object asTripleObject(Object object) {
+        if (object instanceof String && DefaultRDFSLiteral.isRawValue((String) object)) {
+            return DefaultRDFSLiteral.fromRawValue(owlModel, (String) object);
+        }
+        return object;
+    }
+
+
     @Override
     public int hashCode() {
     	return 0;
@@ -290,6 +365,31 @@ public class TripleStoreImpl implements TripleStore {
     }
 
 
+    public Iterator<RDFResource> listSubjects() {
+        Set<RDFResource> subjects = new HashSet<RDFResource>();
+        if (narrowFrameStore instanceof InMemoryFrameDb) {
+            for (Record record : ((InMemoryFrameDb) narrowFrameStore).getRecords()) {
+                if (isTripleRecord(record) && !record.getValues().isEmpty()) {
+                    subjects.add((RDFResource) record.getFrame());
+                }
+            }
+        }
+        else {
+            for (Object o : owlModel.getRDFProperties()) {
+                RDFProperty property = (RDFProperty) o;
+                if (!getIgnoredProperties().contains(property)) {
+                    for (Object frame : narrowFrameStore.getFramesWithAnyValue(property, null, false)) {
+                        if (frame instanceof RDFResource) {
+                            subjects.add((RDFResource) frame);
+                        }
+                    }
+                }
+            }
+        }
+        return subjects.iterator();
+    }
+
+
     public Iterator listSubjects(RDFProperty predicate, Object object) {
         if (object instanceof DefaultRDFSLiteral) {
             object = DefaultRDFSLiteral.getPlainValueIfPossible(object);
@@ -331,19 +431,11 @@ public class TripleStoreImpl implements TripleStore {
     }
 
 
-    public Iterator listTriplesWithSubject(RDFResource subject) {
-        Collection triples = new ArrayList();
-        Iterator properties = subject.getOWLModel().listRDFProperties();
-        while (properties.hasNext()) {
-            RDFProperty property = (RDFProperty) properties.next();
-            Iterator it = listObjects(subject, property);
-            while (it.hasNext()) {
-                Object object = it.next();
-                Triple triple = new DefaultTriple(subject, property, object);
-                triples.add(triple);
-            }
-        }
-        return triples.iterator();
+    public Iterator<Triple> listTriplesWithSubject(RDFResource subject) {
+        Set<Slot> slots = new LinkedHashSet<Slot>();
+        slots.add(owlModel.getRDFTypeProperty());
+        slots.addAll(((KnowledgeBase) owlModel).getOwnSlots(subject));
+        return new SubjectTriplesIterator(subject, slots.iterator());
     }
 
 
@@ -419,6 +511,7 @@ public class TripleStoreImpl implements TripleStore {
         name = value;
         if (name != null) {
             getNarrowFrameStore().setName(value);
+            TripleStoreChangeTracker.markModified(owlModel, this);
         }
     }
 
@@ -507,4 +600,133 @@ public class TripleStoreImpl implements TripleStore {
         }
     }
 
+
+
+    /**
+     * Lazily walks the values of a single subject, one own slot at a time, directly on the
+     * NarrowFrameStore.  The values of each slot are copied when the iterator gets to the
+     * slot, and Triples are only created when they are requested.
+     */
+    private class SubjectTriplesIterator implements Iterator<Triple> {
+
+        private RDFResource subject;
+
+        private Iterator properties;
+
+        private RDFProperty property;
+
+        private Iterator values;
+
+        private Triple next;
+
+
+        SubjectTriplesIterator(RDFResource subject, Iterator properties) {
+            this.subject = subject;
+            this.properties = properties;
+            advance();
+        }
+
+
+        private void advance() {
+            next = null;
+            while (values == null || !values.hasNext()) {
+                if (!properties.hasNext()) {
+                    return;
+                }
+                Object o = properties.next();
+                if (o instanceof RDFProperty && !getIgnoredProperties().contains(o)) {
+                    property = (RDFProperty) o;
+                    Collection propertyValues = getValues(subject, property);
+                    values = propertyValues == null || propertyValues.isEmpty() ?
+                             null : new ArrayList(propertyValues).iterator();
+                }
+            }
+            next = new DefaultTriple(subject, property, asTripleObject(values.next()));
+        }
+
+
+        public boolean hasNext() {
+            return next != null;
+        }
+
+
+        public Triple next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            Triple result = next;
+            advance();
+            return result;
+        }
+
+
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+
+    /**
+     * Walks the Records of the InMemoryFrameDb lazily and creates the Triples
+     * (and literals) only when they are requested.
+     */
+    private class RecordTriplesIterator implements Iterator<Triple> {
+
+        private Iterator<Record> records;
+
+        private RDFResource subject;
+
+        private RDFProperty predicate;
+
+        private Iterator values;
+
+        private Triple next;
+
+
+        RecordTriplesIterator(Iterator<Record> records) {
+            this.records = records;
+            advance();
+        }
+
+
+        private void advance() {
+            next = null;
+            while (values == null || !values.hasNext()) {
+                if (!records.hasNext()) {
+                    return;
+                }
+                Record record = records.next();
+                if (isTripleRecord(record)) {
+                    subject = (RDFResource) record.getFrame();
+                    predicate = (RDFProperty) record.getSlot();
+                    values = record.getValues().iterator();
+                }
+            }
+            Object object = values.next();
+            if (log.isLoggable(Level.FINER)) {
+                log.finer("\tObject = " + object);
+            }
+            next = new DefaultTriple(subject, predicate, asTripleObject(object));
+        }
+
+
+        public boolean hasNext() {
+            return next != null;
+        }
+
+
+        public Triple next() {
+            if (next == null) {
+                throw new NoSuchElementException();
+            }
+            Triple result = next;
+            advance();
+            return result;
+        }
+
+
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
 }
@@ -21,6 +21,7 @@ import edu.stanford.smi.protege.util.CollectionUtilities;
 import edu.stanford.smi.protegex.owl.model.OWLModel;
 import edu.stanford.smi.protegex.owl.model.RDFProperty;
 import edu.stanford.smi.protegex.owl.model.RDFResource;
+import edu.stanford.smi.protegex.owl.model.impl.AbstractOWLModel;
 import edu.stanford.smi.protegex.owl.model.impl.DefaultRDFSLiteral;
 import edu.stanford.smi.protegex.owl.model.triplestore.Triple;
 import edu.stanford.smi.protegex.owl.model.triplestore.TripleStore;
@@ -61,6 +62,7 @@ public class TripleStoreModelImpl implements TripleStoreModel {
         allTripleStores.add(tripleStore);
         tripleStoreMap.put(frameStore, tripleStore);
         updateRemoveFrameStores();
+        activeTripleStoreChanged();
         return tripleStore;
     }
 
@@ -266,6 +268,14 @@ public class TripleStoreModelImpl implements TripleStoreModel {
     public void setActiveTripleStore(TripleStore tripleStore) {
         if (mnfs.getActiveFrameStore() != tripleStore.getNarrowFrameStore()) {
             mnfs.setActiveFrameStore(tripleStore.getNarrowFrameStore());
+            activeTripleStoreChanged();
+        }
+    }
+
+
+    private void activeTripleStoreChanged() {
+        if (owlModel instanceof AbstractOWLModel) {
+            ((AbstractOWLModel) owlModel).getTripleStoreChangeTracker().activeTripleStoreChanged();
         }
     }
 
@@ -277,6 +287,8 @@ public class TripleStoreModelImpl implements TripleStoreModel {
             String name = (String) values.get(0);
             home.getNarrowFrameStore().removeValue(resource, nameSlot, null, false, name);
             tripleStore.getNarrowFrameStore().addValues(resource, nameSlot, null, false, Collections.singleton(name));
+            TripleStoreChangeTracker.markModified(owlModel, home);
+            TripleStoreChangeTracker.markModified(owlModel, tripleStore);
         }
     }
 
@@ -156,32 +156,41 @@ public class RepositoryManager {
 
     public Repository getRepository(URI ontologyName, boolean createRep) {
         Repository rep = getRepository(ontologyName);
-        if (rep == null) {
-            if (createRep) {
-                try {
-                    rep = new HTTPRepository(ontologyName.toURL());
-                    if (rep.contains(ontologyName)) {
-                        addProjectRepository(rep);
-                    }
-                    else {
-                        ForcedURLRetrievalRepository fr = new ForcedURLRetrievalRepository(ontologyName.toURL());
-                        if (fr.contains(ontologyName)) {
-                            addProjectRepository(fr);
-                            return fr;
-                        }
-                        else {
-                            return null;
-                        }
-                    }
-                }
-                catch (MalformedURLException e) {
-                    return null;
-                }
+        if (rep == null && createRep) {
+            rep = createRepository(ontologyName);
+            if (rep != null) {
+                addProjectRepository(rep);
             }
         }
         return rep;
     }
 
 
+    /**
+     * Creates a repository that retrieves an ontology from the location given
+     * by its name.  The repository is not added to any repository manager, and
+     * this method can be called from any thread.
+     *
+     * @param ontologyName The name of the ontology
+     * @return the new repository, or null if the ontology cannot be found at that location
+     */
+    public static Repository createRepository(URI ontologyName) {
+        try {
+            Repository rep = new HTTPRepository(ontologyName.toURL());
+            if (rep.contains(ontologyName)) {
+                return rep;
+            }
+            ForcedURLRetrievalRepository fr = new ForcedURLRetrievalRepository(ontologyName.toURL());
+            if (fr.contains(ontologyName)) {
+                return fr;
+            }
+            return null;
+        }
+        catch (MalformedURLException e) {
+            return null;
+        }
+    }
+
+
 }
 
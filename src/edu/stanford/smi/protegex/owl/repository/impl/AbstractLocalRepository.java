@@ -88,6 +88,17 @@ public abstract class AbstractLocalRepository extends AbstractStreamBasedReposit
     }
 
 
+    /**
+     * Gets the file of an ontology in this repository.
+     *
+     * @param ontologyName The name of the ontology
+     * @return The file, or null if the ontology is not in this repository
+     */
+    public File getOntologyFile(URI ontologyName) {
+        return ontologies.get(ontologyName);
+    }
+
+
     public OutputStream getOutputStream(URI ontologyName)
             throws IOException {
         if (isWritable(ontologyName)) {
@@ -169,7 +180,7 @@ public abstract class AbstractLocalRepository extends AbstractStreamBasedReposit
         } catch (Exception e) {
           Log.emptyCatchBlock(e);
         }
-
+
         return ontologyName;
     }
 }
@@ -7,6 +7,7 @@ import java.net.URI;
 import edu.stanford.smi.protege.exception.OntologyLoadException;
 import edu.stanford.smi.protege.model.framestore.InMemoryFrameDb;
 import edu.stanford.smi.protege.model.framestore.NarrowFrameStore;
+import edu.stanford.smi.protegex.owl.jena.parser.PrefetchedImport;
 import edu.stanford.smi.protegex.owl.jena.parser.ProtegeOWLParser;
 import edu.stanford.smi.protegex.owl.model.OWLModel;
 import edu.stanford.smi.protegex.owl.model.triplestore.TripleStore;
@@ -52,6 +53,25 @@ public abstract class AbstractStreamBasedRepositoryImpl implements Repository {
         return importedTripleStore;
     }
     
+    /**
+     * Loads an ontology of this repository that has already been fetched and
+     * parsed by the <code>ImportPrefetcher</code>.
+     */
+    public TripleStore loadImportedAssertions(OWLModel owlModel, URI ontologyName, PrefetchedImport prefetchedImport) throws OntologyLoadException {
+        ProtegeOWLParser parser = new ProtegeOWLParser(owlModel);
+        parser.setImporting(true);
+        TripleStore importedTripleStore = null;
+        TripleStore importingTripleStore = owlModel.getTripleStoreModel().getActiveTripleStore();
+        try {
+            NarrowFrameStore frameStore = new InMemoryFrameDb(ontologyName.toString());
+            importedTripleStore = owlModel.getTripleStoreModel().createActiveImportedTripleStore(frameStore);
+            parser.loadTriples(ontologyName.toString(), prefetchedImport);
+        } finally {
+            owlModel.getTripleStoreModel().setActiveTripleStore(importingTripleStore);
+        }
+        return importedTripleStore;
+    }
+    
     public boolean hasOutputStream(URI ontologyName) {
         return isWritable(ontologyName);
     }
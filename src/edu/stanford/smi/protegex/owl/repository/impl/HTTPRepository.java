@@ -5,7 +5,6 @@ import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
-import java.io.PrintStream;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.net.URL;
@@ -67,18 +66,8 @@ public class HTTPRepository extends AbstractStreamBasedRepositoryImpl {
 
     private void update() {
         try {
-            PrintStream oldErr = System.err;
-            System.setErr(new PrintStream(new OutputStream() {
-                @Override
-                public void write(int b)
-                        throws IOException {
-                }
-            }));
-            
             OntologyNameExtractor extractor = new OntologyNameExtractor(new URLInputSource(ontologyURL));
             ontologyName = extractor.getOntologyName();
-            
-            System.setErr(oldErr);
         } catch (IOException e) {
         	Log.getLogger().warning("Could not get ontology from URL: " + ontologyURL);
 		}
@@ -10,9 +10,11 @@ import java.util.logging.Level;
 import org.apache.xerces.parsers.SAXParser;
 import org.xml.sax.Attributes;
 import org.xml.sax.ContentHandler;
+import org.xml.sax.ErrorHandler;
 import org.xml.sax.InputSource;
 import org.xml.sax.Locator;
 import org.xml.sax.SAXException;
+import org.xml.sax.SAXParseException;
 
 import edu.stanford.smi.protege.exception.OntologyLoadException;
 import edu.stanford.smi.protege.util.Log;
@@ -60,6 +62,7 @@ public class XMLBaseExtractor {
     public URI getXMLBase() {
         SAXParser parser = new SAXParser();
         parser.setContentHandler(new MyHandler());
+        parser.setErrorHandler(new QuietErrorHandler());
         try {
             parser.parse(new InputSource(is));
         }
@@ -80,6 +83,27 @@ public class XMLBaseExtractor {
     }
 
 
+    /**
+     * Keeps the parser from printing the errors of documents that are not XML
+     * (or not well formed) to System.err.
+     */
+    private static class QuietErrorHandler implements ErrorHandler {
+
+        public void warning(SAXParseException exception) {
+        }
+
+
+        public void error(SAXParseException exception) {
+        }
+
+
+        public void fatalError(SAXParseException exception)
+                throws SAXException {
+            throw exception;
+        }
+    }
+
+
     private class MyHandler implements ContentHandler {
 
         private boolean startElement;
@@ -0,0 +1,71 @@
+package edu.stanford.smi.protegex.owl.swrl.engine;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import edu.stanford.smi.protegex.owl.model.RDFResource;
+
+/**
+ * The facts of one predicate, indexed by subject and object, together with the join nodes that match them.
+ */
+class AlphaMemory
+{
+	final RDFResource predicate;
+	final List<Fact> facts = new ArrayList<Fact>();
+	private final Map<Object, List<Fact>> factsBySubject = new HashMap<Object, List<Fact>>();
+	private final Map<Object, List<Fact>> factsByObject = new HashMap<Object, List<Fact>>();
+	// ordered by decreasing depth, so that a new fact is never joined twice with the same tokens
+	private final List<JoinNode> successors = new ArrayList<JoinNode>();
+
+	AlphaMemory(RDFResource predicate)
+	{
+		this.predicate = predicate;
+	}
+
+	void addSuccessor(JoinNode node)
+	{
+		int index = 0;
+		while (index < successors.size() && successors.get(index).depth >= node.depth)
+			index++;
+		successors.add(index, node);
+	}
+
+	void activate(Fact fact)
+	{
+		facts.add(fact);
+		add(factsBySubject, fact.subject, fact);
+		if (fact.object != null)
+			add(factsByObject, fact.object, fact);
+		for (JoinNode node : successors)
+			node.rightActivate(fact);
+	}
+
+	List<Fact> getFactsBySubject(Object subject)
+	{
+		return get(factsBySubject, subject);
+	}
+
+	List<Fact> getFactsByObject(Object object)
+	{
+		return get(factsByObject, object);
+	}
+
+	private static void add(Map<Object, List<Fact>> index, Object key, Fact fact)
+	{
+		List<Fact> facts = index.get(key);
+		if (facts == null) {
+			facts = new ArrayList<Fact>(2);
+			index.put(key, facts);
+		}
+		facts.add(fact);
+	}
+
+	private static List<Fact> get(Map<Object, List<Fact>> index, Object key)
+	{
+		List<Fact> facts = index.get(key);
+		return facts == null ? Collections.<Fact> emptyList() : facts;
+	}
+}
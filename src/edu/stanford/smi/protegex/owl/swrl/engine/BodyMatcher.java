@@ -0,0 +1,346 @@
+package edu.stanford.smi.protegex.owl.swrl.engine;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+import edu.stanford.smi.protegex.owl.model.OWLModel;
+import edu.stanford.smi.protegex.owl.model.RDFProperty;
+import edu.stanford.smi.protegex.owl.model.RDFResource;
+import edu.stanford.smi.protegex.owl.model.RDFSClass;
+
+/**
+ * Enumerates the bindings of the variables of a rule body that match the OWLModel, one at a time.
+ * <p>
+ * The atoms are evaluated in a nested loop with backtracking, so that only one candidate iterator per atom is alive at
+ * any time.  The atoms are reordered so that an atom with bound arguments is preferred to one without, and each
+ * built-in is evaluated as soon as its arguments are bound.  Atoms with a bound subject look up the values of the
+ * subject, atoms with a bound resource object use the value index of the model, and only atoms without bound
+ * arguments scan all subjects of their predicate.
+ */
+class BodyMatcher implements Iterator<Object[]>
+{
+	private final OWLModel owlModel;
+	private final SWRLBuiltinLibrary builtinLibrary;
+	private final int width;
+	private final RuleAtom[] plan;
+	private final Iterator<Object[]>[] iterators;
+	private int level = -1;
+	private boolean started;
+	private Object[] next;
+
+	@SuppressWarnings("unchecked")
+	BodyMatcher(OWLModel owlModel, SWRLBuiltinLibrary builtinLibrary, List<RuleAtom> body, int width)
+	{
+		this.owlModel = owlModel;
+		this.builtinLibrary = builtinLibrary;
+		this.width = width;
+		this.plan = createPlan(body, width);
+		this.iterators = new Iterator[plan.length];
+	}
+
+	public boolean hasNext()
+	{
+		if (next == null)
+			next = advance();
+		return next != null;
+	}
+
+	public Object[] next()
+	{
+		if (!hasNext())
+			throw new NoSuchElementException();
+		Object[] result = next;
+		next = null;
+		return result;
+	}
+
+	public void remove()
+	{
+		throw new UnsupportedOperationException();
+	}
+
+	private Object[] advance()
+	{
+		if (!started) {
+			started = true;
+			if (plan.length == 0)
+				return new Object[width];
+			iterators[0] = match(plan[0], new Object[width]);
+			level = 0;
+		}
+		while (level >= 0) {
+			if (iterators[level].hasNext()) {
+				Object[] token = iterators[level].next();
+				if (level == plan.length - 1)
+					return token;
+				level++;
+				iterators[level] = match(plan[level], token);
+			} else
+				iterators[level--] = null;
+		}
+		return null;
+	}
+
+	private RuleAtom[] createPlan(List<RuleAtom> body, int width)
+	{
+		List<RuleAtom> atoms = new ArrayList<RuleAtom>();
+		List<RuleAtom> builtins = new ArrayList<RuleAtom>();
+		for (RuleAtom atom : body)
+			(atom.kind == RuleAtom.BUILTIN ? builtins : atoms).add(atom);
+
+		List<RuleAtom> plan = new ArrayList<RuleAtom>();
+		boolean[] bound = new boolean[width];
+		addReadyBuiltins(builtins, bound, plan);
+		while (!atoms.isEmpty()) {
+			RuleAtom best = null;
+			int bestScore = -1;
+			for (RuleAtom atom : atoms) {
+				int score = 0;
+				for (int i = 0; i < atom.getArity(); i++)
+					if (isBound(atom, i, bound))
+						score++;
+				if (score > bestScore) {
+					best = atom;
+					bestScore = score;
+				}
+			}
+			atoms.remove(best);
+			plan.add(best);
+			bind(best, bound);
+			addReadyBuiltins(builtins, bound, plan);
+		}
+		plan.addAll(builtins);
+		return plan.toArray(new RuleAtom[plan.size()]);
+	}
+
+	private void addReadyBuiltins(List<RuleAtom> builtins, boolean[] bound, List<RuleAtom> plan)
+	{
+		boolean added = true;
+		while (added) {
+			added = false;
+			for (Iterator<RuleAtom> it = builtins.iterator(); it.hasNext();) {
+				RuleAtom atom = it.next();
+				boolean ready = atom.getArity() == 0 || isBound(atom, 0, bound) || builtinLibrary.isFunction((String)atom.predicate);
+				for (int i = 1; ready && i < atom.getArity(); i++)
+					ready = isBound(atom, i, bound);
+				if (ready) {
+					it.remove();
+					plan.add(atom);
+					bind(atom, bound);
+					added = true;
+				}
+			}
+		}
+	}
+
+	private static boolean isBound(RuleAtom atom, int argument, boolean[] bound)
+	{
+		int variable = atom.variables[argument];
+		return variable < 0 || bound[variable];
+	}
+
+	private static void bind(RuleAtom atom, boolean[] bound)
+	{
+		for (int i = 0; i < atom.getArity(); i++)
+			if (atom.variables[i] >= 0)
+				bound[atom.variables[i]] = true;
+	}
+
+	/**
+	 * Gets the extensions of a token that match an atom.
+	 */
+	private Iterator<Object[]> match(RuleAtom atom, Object[] token)
+	{
+		if (atom.kind == RuleAtom.BUILTIN)
+			return matchBuiltin(atom, token);
+		else if (atom.kind == RuleAtom.CLASS)
+			return matchClass(atom, token);
+		else
+			return matchProperty(atom, token);
+	}
+
+	private Iterator<Object[]> matchBuiltin(RuleAtom atom, Object[] token)
+	{
+		String uri = (String)atom.predicate;
+		Object[] arguments = new Object[atom.getArity()];
+		for (int i = 0; i < arguments.length; i++)
+			arguments[i] = atom.getValue(i, token);
+		if (arguments.length > 0 && arguments[0] == null) {
+			Object value = builtinLibrary.compute(uri, arguments);
+			if (value != null) {
+				Object[] result = token.clone();
+				result[atom.variables[0]] = value;
+				return Collections.singletonList(result).iterator();
+			}
+		} else if (builtinLibrary.evaluate(uri, arguments))
+			return Collections.singletonList(token).iterator();
+		return Collections.<Object[]> emptyList().iterator();
+	}
+
+	private Iterator<Object[]> matchClass(final RuleAtom atom, final Object[] token)
+	{
+		RDFSClass cls = (RDFSClass)atom.predicate;
+		Object value = atom.getValue(0, token);
+		if (value != null) {
+			if (value instanceof RDFResource && ((RDFResource)value).hasRDFType(cls, true))
+				return Collections.singletonList(token).iterator();
+			return Collections.<Object[]> emptyList().iterator();
+		}
+		final Iterator instances = cls.getInstances(true).iterator();
+		return new MatchIterator() {
+			@Override
+			Object[] computeNext()
+			{
+				while (instances.hasNext()) {
+					Object instance = instances.next();
+					if (instance instanceof RDFResource)
+						return bind(atom, token, instance, null);
+				}
+				return null;
+			}
+		};
+	}
+
+	private Iterator<Object[]> matchProperty(final RuleAtom atom, final Object[] token)
+	{
+		RDFProperty property = (RDFProperty)atom.predicate;
+		final Object subject = atom.getValue(0, token);
+		final Object object = atom.getValue(1, token);
+		if (subject != null) {
+			if (!(subject instanceof RDFResource))
+				return Collections.<Object[]> emptyList().iterator();
+			final Iterator values = ((RDFResource)subject).getPropertyValues(property, true).iterator();
+			return new MatchIterator() {
+				@Override
+				Object[] computeNext()
+				{
+					while (values.hasNext()) {
+						Object[] result = bind(atom, token, subject, builtinLibrary.normalize(values.next()));
+						if (result != null)
+							return result;
+					}
+					return null;
+				}
+			};
+		}
+		final Iterator<RDFProperty> properties = getProperties(property).iterator();
+		if (object instanceof RDFResource) {
+			return new MatchIterator() {
+				private Iterator subjects = Collections.emptyList().iterator();
+
+				@Override
+				Object[] computeNext()
+				{
+					while (true) {
+						while (subjects.hasNext()) {
+							Object[] result = bind(atom, token, subjects.next(), object);
+							if (result != null)
+								return result;
+						}
+						if (!properties.hasNext())
+							return null;
+						subjects = owlModel.getRDFResourcesWithPropertyValue(properties.next(), object).iterator();
+					}
+				}
+			};
+		}
+		return new MatchIterator() {
+			private RDFProperty currentProperty;
+			private Iterator<RDFResource> subjects = Collections.<RDFResource> emptyList().iterator();
+			private RDFResource currentSubject;
+			private Iterator values = Collections.emptyList().iterator();
+
+			@Override
+			Object[] computeNext()
+			{
+				while (true) {
+					while (values.hasNext()) {
+						Object[] result = bind(atom, token, currentSubject, builtinLibrary.normalize(values.next()));
+						if (result != null)
+							return result;
+					}
+					if (subjects.hasNext()) {
+						currentSubject = subjects.next();
+						values = currentSubject.getPropertyValues(currentProperty).iterator();
+					} else if (properties.hasNext()) {
+						currentProperty = properties.next();
+						subjects = owlModel.getTripleStoreModel().listSubjects(currentProperty);
+					} else
+						return null;
+				}
+			}
+		};
+	}
+
+	private Collection<RDFProperty> getProperties(RDFProperty property)
+	{
+		List<RDFProperty> properties = new ArrayList<RDFProperty>();
+		properties.add(property);
+		for (Iterator it = property.getSubproperties(true).iterator(); it.hasNext();)
+			properties.add((RDFProperty)it.next());
+		return properties;
+	}
+
+	/**
+	 * Extends a token with the values of the arguments of an atom, or returns null if they conflict with the constants
+	 * or the bound variables of the atom.
+	 */
+	private Object[] bind(RuleAtom atom, Object[] token, Object subject, Object object)
+	{
+		Object[] result = token;
+		for (int i = 0; i < atom.getArity(); i++) {
+			Object value = i == 0 ? subject : object;
+			int variable = atom.variables[i];
+			if (variable < 0) {
+				if (!atom.constants[i].equals(value))
+					return null;
+			} else if (result[variable] != null) {
+				if (!result[variable].equals(value))
+					return null;
+			} else {
+				if (result == token)
+					result = token.clone();
+				result[variable] = value;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * An iterator that computes its elements one at a time.
+	 */
+	private static abstract class MatchIterator implements Iterator<Object[]>
+	{
+		private Object[] next;
+
+		/**
+		 * Computes the next element, or returns null if there are no more elements.
+		 */
+		abstract Object[] computeNext();
+
+		public boolean hasNext()
+		{
+			if (next == null)
+				next = computeNext();
+			return next != null;
+		}
+
+		public Object[] next()
+		{
+			if (!hasNext())
+				throw new NoSuchElementException();
+			Object[] result = next;
+			next = null;
+			return result;
+		}
+
+		public void remove()
+		{
+			throw new UnsupportedOperationException();
+		}
+	}
+}
@@ -0,0 +1,44 @@
+package edu.stanford.smi.protegex.owl.swrl.engine;
+
+/**
+ * Filters the tokens of its parent with a built-in.  If the first argument of a function is not bound yet, the node
+ * binds it to the computed value instead.
+ */
+class BuiltinNode extends ReteNode
+{
+	final RuleAtom atom;
+	private final SWRLBuiltinLibrary builtinLibrary;
+
+	BuiltinNode(ReteNode parent, RuleAtom atom, SWRLBuiltinLibrary builtinLibrary)
+	{
+		super(parent, getWidth(parent, atom), atom.getKey());
+		this.atom = atom;
+		this.builtinLibrary = builtinLibrary;
+	}
+
+	@Override
+	void leftActivate(Object[] token)
+	{
+		String uri = (String)atom.predicate;
+		Object[] arguments = new Object[atom.getArity()];
+		for (int i = 0; i < arguments.length; i++)
+			arguments[i] = atom.getValue(i, token);
+		if (arguments.length > 0 && arguments[0] == null) {
+			Object value = builtinLibrary.compute(uri, arguments);
+			if (value != null) {
+				Object[] result = new Object[width];
+				System.arraycopy(token, 0, result, 0, token.length);
+				result[atom.variables[0]] = value;
+				emit(result);
+			}
+		} else if (builtinLibrary.evaluate(uri, arguments))
+			emit(token.length == width ? token : copy(token));
+	}
+
+	private Object[] copy(Object[] token)
+	{
+		Object[] result = new Object[width];
+		System.arraycopy(token, 0, result, 0, token.length);
+		return result;
+	}
+}
@@ -0,0 +1,27 @@
+package edu.stanford.smi.protegex.owl.swrl.engine;
+
+import java.util.List;
+
+import edu.stanford.smi.protegex.owl.swrl.model.SWRLImp;
+
+/**
+ * A rule whose atoms have been compiled by the <code>RuleCompiler</code>.  The body atoms are ordered so that the
+ * class and property atoms come first, followed by the built-ins, and the variables are numbered in the order in
+ * which they first occur in the ordered body.
+ */
+class CompiledRule
+{
+	final SWRLImp imp;
+	final List<RuleAtom> body;
+	final List<RuleAtom> head;
+	// the names of the variables, by index
+	final List<String> variableNames;
+
+	CompiledRule(SWRLImp imp, List<RuleAtom> body, List<RuleAtom> head, List<String> variableNames)
+	{
+		this.imp = imp;
+		this.body = body;
+		this.head = head;
+		this.variableNames = variableNames;
+	}
+}
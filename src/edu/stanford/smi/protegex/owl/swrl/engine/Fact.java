@@ -0,0 +1,45 @@
+package edu.stanford.smi.protegex.owl.swrl.engine;
+
+import edu.stanford.smi.protegex.owl.model.RDFResource;
+
+/**
+ * A fact of the working memory of the engine: either a class fact <code>C(subject)</code>, whose object is null, or a
+ * property fact <code>p(subject, object)</code>.  Objects of datatype properties are normalized literals.
+ */
+class Fact
+{
+	final RDFResource predicate;
+	final RDFResource subject;
+	final Object object;
+	private final int hashCode;
+
+	Fact(RDFResource predicate, RDFResource subject, Object object)
+	{
+		this.predicate = predicate;
+		this.subject = subject;
+		this.object = object;
+		this.hashCode = (predicate.hashCode() * 31 + subject.hashCode()) * 31 + (object == null ? 0 : object.hashCode());
+	}
+
+	@Override
+	public boolean equals(Object obj)
+	{
+		if (!(obj instanceof Fact))
+			return false;
+		Fact other = (Fact)obj;
+		return predicate.equals(other.predicate) && subject.equals(other.subject)
+				&& (object == null ? other.object == null : object.equals(other.object));
+	}
+
+	@Override
+	public int hashCode()
+	{
+		return hashCode;
+	}
+
+	@Override
+	public String toString()
+	{
+		return predicate.getName() + "(" + subject.getName() + (object == null ? "" : ", " + object) + ")";
+	}
+}
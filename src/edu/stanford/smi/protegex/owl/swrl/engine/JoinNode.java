@@ -0,0 +1,83 @@
+package edu.stanford.smi.protegex.owl.swrl.engine;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Joins the tokens of its parent with the facts of an alpha memory that match a class or property atom.
+ * <p>
+ * New tokens are matched against the facts with the same subject (or object) and new facts against the tokens of the
+ * parent with the same binding of a shared variable, so that neither side is scanned completely if the atom has a
+ * bound argument.
+ */
+class JoinNode extends ReteNode
+{
+	final RuleAtom atom;
+	final AlphaMemory alphaMemory;
+
+	JoinNode(ReteNode parent, RuleAtom atom, AlphaMemory alphaMemory)
+	{
+		super(parent, getWidth(parent, atom), atom.getKey());
+		this.atom = atom;
+		this.alphaMemory = alphaMemory;
+	}
+
+	@Override
+	void leftActivate(Object[] token)
+	{
+		Collection<Fact> facts;
+		Object subject = atom.getValue(0, token);
+		Object object = atom.getArity() > 1 ? atom.getValue(1, token) : null;
+		if (subject != null)
+			facts = alphaMemory.getFactsBySubject(subject);
+		else if (object != null)
+			facts = alphaMemory.getFactsByObject(object);
+		else
+			facts = alphaMemory.facts;
+		for (Fact fact : facts) {
+			Object[] joined = join(token, fact);
+			if (joined != null)
+				emit(joined);
+		}
+	}
+
+	void rightActivate(Fact fact)
+	{
+		List<Object[]> candidates = parent.tokens;
+		for (int i = 0; i < atom.getArity(); i++) {
+			int variable = atom.variables[i];
+			if (variable >= 0 && variable < parent.width) {
+				candidates = parent.getTokens(variable, i == 0 ? fact.subject : fact.object);
+				break;
+			}
+		}
+		for (Object[] token : candidates) {
+			Object[] joined = join(token, fact);
+			if (joined != null)
+				emit(joined);
+		}
+	}
+
+	private Object[] join(Object[] token, Fact fact)
+	{
+		Object[] result = token;
+		for (int i = 0; i < atom.getArity(); i++) {
+			Object value = i == 0 ? fact.subject : fact.object;
+			int variable = atom.variables[i];
+			if (variable < 0) {
+				if (!atom.constants[i].equals(value))
+					return null;
+			} else if (variable < result.length && result[variable] != null) {
+				if (!result[variable].equals(value))
+					return null;
+			} else {
+				if (result == token) {
+					result = new Object[width];
+					System.arraycopy(token, 0, result, 0, token.length);
+				}
+				result[variable] = value;
+			}
+		}
+		return result;
+	}
+}
@@ -0,0 +1,98 @@
+package edu.stanford.smi.protegex.owl.swrl.engine;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A node of the join network.  A node stores the tokens (arrays of variable bindings) that match the atoms on the
+ * path from the root, and passes each new token to its children.  Nodes are shared by all rules whose bodies start
+ * with the same atoms.
+ */
+abstract class ReteNode
+{
+	final ReteNode parent;
+	final int depth;
+	// the number of variables bound by the tokens of this node
+	final int width;
+	// identifies the atom of this node among the children of its parent, or null if the node cannot be shared
+	final String key;
+	final List<ReteNode> children = new ArrayList<ReteNode>();
+	final List<Object[]> tokens = new ArrayList<Object[]>();
+	// variable -> value -> tokens, built on demand by the join nodes below this node
+	private final Map<Integer, Map<Object, List<Object[]>>> indexes = new HashMap<Integer, Map<Object, List<Object[]>>>();
+
+	ReteNode(ReteNode parent, int width, String key)
+	{
+		this.parent = parent;
+		this.depth = parent == null ? 0 : parent.depth + 1;
+		this.width = width;
+		this.key = key;
+	}
+
+	/**
+	 * Called when the parent has a new token.
+	 */
+	abstract void leftActivate(Object[] token);
+
+	ReteNode getChild(String key)
+	{
+		for (ReteNode child : children)
+			if (key.equals(child.key))
+				return child;
+		return null;
+	}
+
+	/**
+	 * Adds a child and passes the existing tokens to it.
+	 */
+	void addChild(ReteNode child)
+	{
+		children.add(child);
+		for (Object[] token : new ArrayList<Object[]>(tokens))
+			child.leftActivate(token);
+	}
+
+	void emit(Object[] token)
+	{
+		tokens.add(token);
+		for (Map.Entry<Integer, Map<Object, List<Object[]>>> entry : indexes.entrySet())
+			add(entry.getValue(), token[entry.getKey().intValue()], token);
+		for (ReteNode child : children)
+			child.leftActivate(token);
+	}
+
+	List<Object[]> getTokens(int variable, Object value)
+	{
+		Integer key = Integer.valueOf(variable);
+		Map<Object, List<Object[]>> index = indexes.get(key);
+		if (index == null) {
+			index = new HashMap<Object, List<Object[]>>();
+			for (Object[] token : tokens)
+				add(index, token[variable], token);
+			indexes.put(key, index);
+		}
+		List<Object[]> result = index.get(value);
+		return result == null ? Collections.<Object[]> emptyList() : result;
+	}
+
+	private static void add(Map<Object, List<Object[]>> index, Object value, Object[] token)
+	{
+		List<Object[]> tokens = index.get(value);
+		if (tokens == null) {
+			tokens = new ArrayList<Object[]>(2);
+			index.put(value, tokens);
+		}
+		tokens.add(token);
+	}
+
+	static int getWidth(ReteNode parent, RuleAtom atom)
+	{
+		int width = parent.width;
+		for (int i = 0; i < atom.getArity(); i++)
+			width = Math.max(width, atom.variables[i] + 1);
+		return width;
+	}
+}
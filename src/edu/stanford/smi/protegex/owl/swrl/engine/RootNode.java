@@ -0,0 +1,19 @@
+package edu.stanford.smi.protegex.owl.swrl.engine;
+
+/**
+ * The root of the join network, which holds a single empty token.
+ */
+class RootNode extends ReteNode
+{
+	RootNode()
+	{
+		super(null, 0, null);
+		tokens.add(new Object[0]);
+	}
+
+	@Override
+	void leftActivate(Object[] token)
+	{
+		throw new UnsupportedOperationException();
+	}
+}
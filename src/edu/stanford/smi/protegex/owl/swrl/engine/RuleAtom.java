@@ -0,0 +1,83 @@
+package edu.stanford.smi.protegex.owl.swrl.engine;
+
+import edu.stanford.smi.protegex.owl.model.RDFResource;
+import edu.stanford.smi.protegex.owl.model.RDFSLiteral;
+
+/**
+ * A compiled SWRL atom.  The predicate is a named class, a property (owl:sameAs and owl:differentFrom for same and
+ * different individuals atoms) or the URI of a built-in.  Each argument is either a variable, identified by its index
+ * in the bindings of a rule, or a normalized constant.
+ */
+class RuleAtom
+{
+	static final int CLASS = 0;
+	static final int PROPERTY = 1;
+	static final int BUILTIN = 2;
+
+	final int kind;
+	final Object predicate;
+	// the index of the variable of each argument, or -1 for a constant
+	final int[] variables;
+	final Object[] constants;
+
+	RuleAtom(int kind, Object predicate, int[] variables, Object[] constants)
+	{
+		this.kind = kind;
+		this.predicate = predicate;
+		this.variables = variables;
+		this.constants = constants;
+	}
+
+	int getArity()
+	{
+		return variables.length;
+	}
+
+	/**
+	 * Gets the value of an argument, or null if it is a variable that is not bound.
+	 */
+	Object getValue(int argument, Object[] bindings)
+	{
+		int variable = variables[argument];
+		if (variable < 0)
+			return constants[argument];
+		return variable < bindings.length ? bindings[variable] : null;
+	}
+
+	/**
+	 * Gets a key that identifies this atom together with the numbering of its variables, so that the atoms of
+	 * different rules can share a node of the network.
+	 */
+	String getKey()
+	{
+		StringBuffer buffer = new StringBuffer();
+		buffer.append(kind);
+		buffer.append(':');
+		buffer.append(getKey(predicate));
+		for (int i = 0; i < variables.length; i++) {
+			buffer.append(i == 0 ? '(' : ',');
+			if (variables[i] < 0)
+				buffer.append(getKey(constants[i]));
+			else
+				buffer.append('?').append(variables[i]);
+		}
+		buffer.append(')');
+		return buffer.toString();
+	}
+
+	private static String getKey(Object value)
+	{
+		if (value instanceof RDFResource)
+			return "<" + ((RDFResource)value).getName() + ">";
+		else if (value instanceof RDFSLiteral)
+			return "\"" + ((RDFSLiteral)value).getRawValue() + "\"";
+		else
+			return String.valueOf(value);
+	}
+
+	@Override
+	public String toString()
+	{
+		return getKey();
+	}
+}
@@ -0,0 +1,180 @@
+package edu.stanford.smi.protegex.owl.swrl.engine;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import edu.stanford.smi.protegex.owl.model.OWLModel;
+import edu.stanford.smi.protegex.owl.model.RDFList;
+import edu.stanford.smi.protegex.owl.model.RDFSClass;
+import edu.stanford.smi.protegex.owl.model.RDFSNamedClass;
+import edu.stanford.smi.protegex.owl.swrl.model.SWRLAtom;
+import edu.stanford.smi.protegex.owl.swrl.model.SWRLAtomList;
+import edu.stanford.smi.protegex.owl.swrl.model.SWRLBuiltin;
+import edu.stanford.smi.protegex.owl.swrl.model.SWRLBuiltinAtom;
+import edu.stanford.smi.protegex.owl.swrl.model.SWRLClassAtom;
+import edu.stanford.smi.protegex.owl.swrl.model.SWRLDatavaluedPropertyAtom;
+import edu.stanford.smi.protegex.owl.swrl.model.SWRLDifferentIndividualsAtom;
+import edu.stanford.smi.protegex.owl.swrl.model.SWRLImp;
+import edu.stanford.smi.protegex.owl.swrl.model.SWRLIndividualPropertyAtom;
+import edu.stanford.smi.protegex.owl.swrl.model.SWRLSameIndividualAtom;
+import edu.stanford.smi.protegex.owl.swrl.model.SWRLVariable;
+
+/**
+ * Compiles the atoms of an SWRLImp into <code>RuleAtom</code>s.
+ * <p>
+ * The class and property atoms of the body are compiled first, in the order of the rule, and the built-ins after
+ * them, so that only the first argument of a built-in can be unbound (in which case the built-in must be a function
+ * that binds it).  All variables of the head must be bound by the body.
+ */
+class RuleCompiler
+{
+	private final OWLModel owlModel;
+	private final SWRLBuiltinLibrary builtinLibrary;
+
+	RuleCompiler(OWLModel owlModel, SWRLBuiltinLibrary builtinLibrary)
+	{
+		this.owlModel = owlModel;
+		this.builtinLibrary = builtinLibrary;
+	}
+
+	CompiledRule compile(SWRLImp imp) throws SWRLRuleEngineException
+	{
+		Map<SWRLVariable, Integer> variables = new HashMap<SWRLVariable, Integer>();
+		List<String> variableNames = new ArrayList<String>();
+		List<RuleAtom> body = compileBody(imp, variables, variableNames);
+		List<RuleAtom> head = new ArrayList<RuleAtom>();
+		for (SWRLAtom atom : getAtoms(imp.getHead())) {
+			if (atom instanceof SWRLBuiltinAtom)
+				throw new SWRLRuleEngineException("built-in " + getBuiltinURI((SWRLBuiltinAtom)atom) + " in the head of rule "
+						+ imp.getLocalName() + " is not supported");
+			head.add(compileAtom(atom, variables, variableNames, true));
+		}
+		return new CompiledRule(imp, body, head, variableNames);
+	}
+
+	/**
+	 * Compiles the body of a rule, numbering its variables.
+	 *
+	 * @param variables     receives the index of each variable
+	 * @param variableNames receives the names of the variables, by index
+	 */
+	List<RuleAtom> compileBody(SWRLImp imp, Map<SWRLVariable, Integer> variables, List<String> variableNames)
+			throws SWRLRuleEngineException
+	{
+		List<RuleAtom> body = new ArrayList<RuleAtom>();
+		List<SWRLAtom> bodyAtoms = getAtoms(imp.getBody());
+		List<SWRLAtom> orderedAtoms = new ArrayList<SWRLAtom>();
+		for (SWRLAtom atom : bodyAtoms)
+			if (!(atom instanceof SWRLBuiltinAtom))
+				orderedAtoms.add(atom);
+		for (SWRLAtom atom : bodyAtoms)
+			if (atom instanceof SWRLBuiltinAtom)
+				orderedAtoms.add(atom);
+
+		for (SWRLAtom atom : orderedAtoms)
+			body.add(compileAtom(atom, variables, variableNames, false));
+		return body;
+	}
+
+	@SuppressWarnings("unchecked")
+	// To deal with non generics Protege-OWL API
+	List<SWRLAtom> getAtoms(SWRLAtomList atomList)
+	{
+		List<SWRLAtom> atoms = new ArrayList<SWRLAtom>();
+		if (atomList != null) {
+			for (Iterator it = atomList.getValues().iterator(); it.hasNext();)
+				atoms.add((SWRLAtom)it.next());
+		}
+		return atoms;
+	}
+
+	RuleAtom compileAtom(SWRLAtom atom, Map<SWRLVariable, Integer> variables, List<String> variableNames, boolean inHead)
+			throws SWRLRuleEngineException
+	{
+		int kind;
+		Object predicate;
+		Object[] arguments;
+		if (atom instanceof SWRLClassAtom) {
+			SWRLClassAtom classAtom = (SWRLClassAtom)atom;
+			RDFSClass cls = classAtom.getClassPredicate();
+			if (!(cls instanceof RDFSNamedClass))
+				throw new SWRLRuleEngineException("class atom with anonymous class " + (cls == null ? null : cls.getBrowserText())
+						+ " is not supported");
+			kind = RuleAtom.CLASS;
+			predicate = cls;
+			arguments = new Object[] { classAtom.getArgument1() };
+		} else if (atom instanceof SWRLIndividualPropertyAtom) {
+			SWRLIndividualPropertyAtom propertyAtom = (SWRLIndividualPropertyAtom)atom;
+			kind = RuleAtom.PROPERTY;
+			predicate = propertyAtom.getPropertyPredicate();
+			arguments = new Object[] { propertyAtom.getArgument1(), propertyAtom.getArgument2() };
+		} else if (atom instanceof SWRLDatavaluedPropertyAtom) {
+			SWRLDatavaluedPropertyAtom propertyAtom = (SWRLDatavaluedPropertyAtom)atom;
+			kind = RuleAtom.PROPERTY;
+			predicate = propertyAtom.getPropertyPredicate();
+			arguments = new Object[] { propertyAtom.getArgument1(), propertyAtom.getArgument2() };
+		} else if (atom instanceof SWRLSameIndividualAtom) {
+			SWRLSameIndividualAtom sameAtom = (SWRLSameIndividualAtom)atom;
+			kind = RuleAtom.PROPERTY;
+			predicate = owlModel.getOWLSameAsProperty();
+			arguments = new Object[] { sameAtom.getArgument1(), sameAtom.getArgument2() };
+		} else if (atom instanceof SWRLDifferentIndividualsAtom) {
+			SWRLDifferentIndividualsAtom differentAtom = (SWRLDifferentIndividualsAtom)atom;
+			kind = RuleAtom.PROPERTY;
+			predicate = owlModel.getOWLDifferentFromProperty();
+			arguments = new Object[] { differentAtom.getArgument1(), differentAtom.getArgument2() };
+		} else if (atom instanceof SWRLBuiltinAtom) {
+			SWRLBuiltinAtom builtinAtom = (SWRLBuiltinAtom)atom;
+			String uri = getBuiltinURI(builtinAtom);
+			if (!builtinLibrary.isSupported(uri))
+				throw new SWRLRuleEngineException("built-in " + uri + " is not supported");
+			RDFList list = builtinAtom.getArguments();
+			Collection values = list == null ? new ArrayList() : list.getValues();
+			kind = RuleAtom.BUILTIN;
+			predicate = uri;
+			arguments = values.toArray();
+		} else
+			throw new SWRLRuleEngineException("atom " + atom.getBrowserText() + " is not supported");
+
+		if (predicate == null)
+			throw new SWRLRuleEngineException("atom " + atom.getBrowserText() + " has no predicate");
+
+		int[] variableIndexes = new int[arguments.length];
+		Object[] constants = new Object[arguments.length];
+		for (int i = 0; i < arguments.length; i++) {
+			Object argument = arguments[i];
+			if (argument instanceof SWRLVariable) {
+				SWRLVariable variable = (SWRLVariable)argument;
+				Integer index = variables.get(variable);
+				if (index == null) {
+					if (inHead)
+						throw new SWRLRuleEngineException("variable " + variable.getLocalName() + " of the head is not bound by the body");
+					if (kind == RuleAtom.BUILTIN && (i > 0 || !builtinLibrary.isFunction((String)predicate)))
+						throw new SWRLRuleEngineException("argument " + (i + 1) + " of built-in " + predicate + " is not bound");
+					index = Integer.valueOf(variableNames.size());
+					variables.put(variable, index);
+					variableNames.add(variable.getLocalName());
+				}
+				variableIndexes[i] = index.intValue();
+			} else {
+				if (argument == null)
+					throw new SWRLRuleEngineException("atom " + atom.getBrowserText() + " has a missing argument");
+				variableIndexes[i] = -1;
+				constants[i] = builtinLibrary.normalize(argument);
+			}
+		}
+		return new RuleAtom(kind, predicate, variableIndexes, constants);
+	}
+
+	String getBuiltinURI(SWRLBuiltinAtom atom) throws SWRLRuleEngineException
+	{
+		SWRLBuiltin builtin = atom.getBuiltin();
+		if (builtin == null)
+			throw new SWRLRuleEngineException("built-in atom " + atom.getBrowserText() + " has no built-in");
+		return builtin.getURI();
+	}
+}
@@ -0,0 +1,31 @@
+package edu.stanford.smi.protegex.owl.swrl.engine;
+
+import edu.stanford.smi.protegex.owl.model.RDFResource;
+
+/**
+ * The terminal node of a rule, which infers the facts of the head for each token that matches the body.
+ */
+class RuleNode extends ReteNode
+{
+	final CompiledRule rule;
+	private final SWRLRuleEngine engine;
+
+	RuleNode(ReteNode parent, CompiledRule rule, SWRLRuleEngine engine)
+	{
+		super(parent, parent.width, null);
+		this.rule = rule;
+		this.engine = engine;
+	}
+
+	@Override
+	void leftActivate(Object[] token)
+	{
+		for (RuleAtom atom : rule.head) {
+			Object subject = atom.getValue(0, token);
+			if (subject instanceof RDFResource) {
+				Object object = atom.getArity() > 1 ? atom.getValue(1, token) : null;
+				engine.infer(new Fact((RDFResource)atom.predicate, (RDFResource)subject, object), rule);
+			}
+		}
+	}
+}
@@ -0,0 +1,76 @@
+package edu.stanford.smi.protegex.owl.swrl.engine;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import edu.stanford.smi.protegex.owl.swrl.model.SWRLImp;
+
+/**
+ * A compiled SQWRL query: the compiled body of the rule, and the columns, ordering and limit declared by the
+ * SQWRL built-ins of its head.
+ */
+class SQWRLQuery
+{
+	// the kinds of columns
+	static final int VALUE = 0;
+	static final int COUNT = 1;
+	static final int COUNT_DISTINCT = 2;
+	static final int MIN = 3;
+	static final int MAX = 4;
+	static final int SUM = 5;
+	static final int AVG = 6;
+
+	static class Column
+	{
+		String name;
+		final int kind;
+		// the index of the variable of this column, or -1 for a constant
+		final int variable;
+		final Object constant;
+
+		Column(String name, int kind, int variable, Object constant)
+		{
+			this.name = name;
+			this.kind = kind;
+			this.variable = variable;
+			this.constant = constant;
+		}
+
+		boolean isAggregate()
+		{
+			return kind != VALUE;
+		}
+	}
+
+	final SWRLImp imp;
+	final List<RuleAtom> body;
+	// the number of variables of the body
+	final int width;
+	final List<Column> columns = new ArrayList<Column>();
+	// the indexes of the columns to order by, and for each whether the order is descending
+	final List<Integer> orderColumns = new ArrayList<Integer>();
+	final List<Boolean> orderDescending = new ArrayList<Boolean>();
+	boolean distinct;
+	// the maximum number of rows, or -1
+	int limit = -1;
+
+	SQWRLQuery(SWRLImp imp, List<RuleAtom> body, int width)
+	{
+		this.imp = imp;
+		this.body = body;
+		this.width = width;
+	}
+
+	boolean hasAggregates()
+	{
+		for (Column column : columns)
+			if (column.isAggregate())
+				return true;
+		return false;
+	}
+
+	boolean isOrdered()
+	{
+		return !orderColumns.isEmpty();
+	}
+}
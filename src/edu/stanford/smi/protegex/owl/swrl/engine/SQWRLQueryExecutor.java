@@ -0,0 +1,208 @@
+package edu.stanford.smi.protegex.owl.swrl.engine;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import edu.stanford.smi.protegex.owl.model.OWLModel;
+import edu.stanford.smi.protegex.owl.model.RDFList;
+import edu.stanford.smi.protegex.owl.model.RDFResource;
+import edu.stanford.smi.protegex.owl.model.RDFSLiteral;
+import edu.stanford.smi.protegex.owl.swrl.model.SQWRLNames;
+import edu.stanford.smi.protegex.owl.swrl.model.SWRLAtom;
+import edu.stanford.smi.protegex.owl.swrl.model.SWRLBuiltin;
+import edu.stanford.smi.protegex.owl.swrl.model.SWRLBuiltinAtom;
+import edu.stanford.smi.protegex.owl.swrl.model.SWRLImp;
+import edu.stanford.smi.protegex.owl.swrl.model.SWRLVariable;
+
+/**
+ * Executes SQWRL queries, i.e. rules whose head consists of SQWRL built-ins, against an OWLModel.
+ * <p>
+ * The body is matched with the same atoms and built-ins as supported by <code>SWRLRuleEngine</code>, directly against
+ * the model.  The head may contain <code>sqwrl:select</code>, <code>sqwrl:selectDistinct</code>,
+ * <code>sqwrl:count</code>, <code>sqwrl:countDistinct</code>, <code>sqwrl:min</code>, <code>sqwrl:max</code>,
+ * <code>sqwrl:sum</code>, <code>sqwrl:avg</code>, <code>sqwrl:orderBy</code>, <code>sqwrl:orderByDescending</code>,
+ * <code>sqwrl:columnNames</code> and <code>sqwrl:limit</code>.  Collection and slicing built-ins are not supported.
+ * <p>
+ * The results are computed while they are read, see <code>SQWRLQueryResults</code>.
+ */
+public class SQWRLQueryExecutor
+{
+	private final OWLModel owlModel;
+	private final SWRLBuiltinLibrary builtinLibrary;
+	private final RuleCompiler ruleCompiler;
+
+	public SQWRLQueryExecutor(OWLModel owlModel)
+	{
+		this.owlModel = owlModel;
+		this.builtinLibrary = new SWRLBuiltinLibrary(owlModel);
+		this.ruleCompiler = new RuleCompiler(owlModel, builtinLibrary);
+	}
+
+	/**
+	 * Checks whether the head of a rule contains a SQWRL built-in.
+	 */
+	public boolean isQuery(SWRLImp imp)
+	{
+		for (SWRLAtom atom : ruleCompiler.getAtoms(imp.getHead()))
+			if (atom instanceof SWRLBuiltinAtom && getSQWRLName((SWRLBuiltinAtom)atom) != null)
+				return true;
+		return false;
+	}
+
+	/**
+	 * Executes a query.  The body of the query is only matched while the results are read.
+	 */
+	public SQWRLQueryResults execute(SWRLImp imp) throws SWRLRuleEngineException
+	{
+		SQWRLQuery query = compile(imp);
+		return new SQWRLQueryResults(query, builtinLibrary, new BodyMatcher(owlModel, builtinLibrary, query.body,
+				query.width));
+	}
+
+	private SQWRLQuery compile(SWRLImp imp) throws SWRLRuleEngineException
+	{
+		Map<SWRLVariable, Integer> variables = new HashMap<SWRLVariable, Integer>();
+		List<String> variableNames = new ArrayList<String>();
+		List<RuleAtom> body = ruleCompiler.compileBody(imp, variables, variableNames);
+		SQWRLQuery query = new SQWRLQuery(imp, body, variableNames.size());
+
+		List<SWRLBuiltinAtom> orderAtoms = new ArrayList<SWRLBuiltinAtom>();
+		List<String> columnNames = new ArrayList<String>();
+		for (SWRLAtom atom : ruleCompiler.getAtoms(imp.getHead())) {
+			String name = atom instanceof SWRLBuiltinAtom ? getSQWRLName((SWRLBuiltinAtom)atom) : null;
+			if (name == null)
+				throw new SWRLRuleEngineException("the head of query " + imp.getLocalName() + " may only contain SQWRL built-ins");
+			SWRLBuiltinAtom builtinAtom = (SWRLBuiltinAtom)atom;
+			Object[] arguments = getArguments(builtinAtom);
+			if (name.equals(SQWRLNames.Select) || name.equals(SQWRLNames.SelectDistinct)) {
+				query.distinct |= name.equals(SQWRLNames.SelectDistinct);
+				for (Object argument : arguments)
+					query.columns.add(createColumn(SQWRLQuery.VALUE, name, argument, variables, variableNames));
+			} else if (SQWRLNames.isSQWRLHeadAggregationBuiltIn(name)) {
+				if (arguments.length != 1)
+					throw new SWRLRuleEngineException(name + " expects one argument");
+				query.columns.add(createColumn(getAggregateKind(name), name, arguments[0], variables, variableNames));
+			} else if (name.equals(SQWRLNames.OrderBy) || name.equals(SQWRLNames.OrderByDescending))
+				orderAtoms.add(builtinAtom);
+			else if (name.equals(SQWRLNames.ColumnNames)) {
+				for (Object argument : arguments)
+					columnNames.add(getString(argument));
+			} else if (name.equals(SQWRLNames.Limit)) {
+				Object limit = arguments.length == 1 ? builtinLibrary.normalize(arguments[0]) : null;
+				if (!(limit instanceof RDFSLiteral))
+					throw new SWRLRuleEngineException(name + " expects a number");
+				try {
+					query.limit = Math.max(0, Integer.parseInt(((RDFSLiteral)limit).getString()));
+				} catch (NumberFormatException e) {
+					throw new SWRLRuleEngineException(name + " expects an integer", e);
+				}
+			} else
+				throw new SWRLRuleEngineException("SQWRL built-in " + name + " is not supported");
+		}
+		if (query.columns.isEmpty())
+			throw new SWRLRuleEngineException("query " + imp.getLocalName() + " does not select anything");
+
+		for (SWRLBuiltinAtom atom : orderAtoms) {
+			Boolean descending = Boolean.valueOf(getSQWRLName(atom).equals(SQWRLNames.OrderByDescending));
+			for (Object argument : getArguments(atom)) {
+				int column = findColumn(query, argument, variables);
+				if (column < 0)
+					throw new SWRLRuleEngineException("the arguments of " + getSQWRLName(atom) + " must be selected");
+				query.orderColumns.add(Integer.valueOf(column));
+				query.orderDescending.add(descending);
+			}
+		}
+		for (int i = 0; i < columnNames.size() && i < query.columns.size(); i++)
+			query.columns.get(i).name = columnNames.get(i);
+		return query;
+	}
+
+	private SQWRLQuery.Column createColumn(int kind, String builtinName, Object argument,
+			Map<SWRLVariable, Integer> variables, List<String> variableNames) throws SWRLRuleEngineException
+	{
+		if (argument instanceof SWRLVariable) {
+			Integer variable = variables.get(argument);
+			if (variable == null)
+				throw new SWRLRuleEngineException("variable " + ((SWRLVariable)argument).getLocalName()
+						+ " of the head is not bound by the body");
+			String name = variableNames.get(variable.intValue());
+			if (kind != SQWRLQuery.VALUE)
+				name = builtinName.substring(SQWRLNames.SQWRLPrefix.length()) + "(" + name + ")";
+			return new SQWRLQuery.Column(name, kind, variable.intValue(), null);
+		}
+		if (kind != SQWRLQuery.VALUE)
+			throw new SWRLRuleEngineException("the argument of " + builtinName + " must be a variable");
+		if (argument == null)
+			throw new SWRLRuleEngineException(builtinName + " has a missing argument");
+		return new SQWRLQuery.Column(getString(argument), kind, -1, builtinLibrary.normalize(argument));
+	}
+
+	private int findColumn(SQWRLQuery query, Object argument, Map<SWRLVariable, Integer> variables)
+	{
+		Integer variable = variables.get(argument);
+		if (variable == null)
+			return -1;
+		int result = -1;
+		for (int i = 0; i < query.columns.size(); i++) {
+			SQWRLQuery.Column column = query.columns.get(i);
+			if (column.variable == variable.intValue()) {
+				if (!column.isAggregate())
+					return i;
+				if (result < 0)
+					result = i;
+			}
+		}
+		return result;
+	}
+
+	private static int getAggregateKind(String name)
+	{
+		if (name.equals(SQWRLNames.Count))
+			return SQWRLQuery.COUNT;
+		else if (name.equals(SQWRLNames.CountDistinct))
+			return SQWRLQuery.COUNT_DISTINCT;
+		else if (name.equals(SQWRLNames.Min))
+			return SQWRLQuery.MIN;
+		else if (name.equals(SQWRLNames.Max))
+			return SQWRLQuery.MAX;
+		else if (name.equals(SQWRLNames.Sum))
+			return SQWRLQuery.SUM;
+		else
+			return SQWRLQuery.AVG;
+	}
+
+	/**
+	 * Gets the name of the SQWRL built-in of an atom in the form used by <code>SQWRLNames</code>, or null if the atom
+	 * does not use a SQWRL built-in.
+	 */
+	private String getSQWRLName(SWRLBuiltinAtom atom)
+	{
+		SWRLBuiltin builtin = atom.getBuiltin();
+		if (builtin == null)
+			return null;
+		String uri = builtin.getURI();
+		String name;
+		if (uri != null && uri.startsWith(SQWRLNames.SQWRLNamespace))
+			name = SQWRLNames.SQWRLPrefix + uri.substring(SQWRLNames.SQWRLNamespace.length());
+		else
+			name = builtin.getPrefixedName();
+		return SQWRLNames.isSQWRLBuiltIn(name) ? name : null;
+	}
+
+	private static Object[] getArguments(SWRLBuiltinAtom atom)
+	{
+		RDFList list = atom.getArguments();
+		Collection values = list == null ? new ArrayList() : list.getValues();
+		return values.toArray();
+	}
+
+	private String getString(Object value)
+	{
+		if (value instanceof RDFResource)
+			return ((RDFResource)value).getBrowserText();
+		return owlModel.asRDFSLiteral(value).getString();
+	}
+}
@@ -0,0 +1,304 @@
+package edu.stanford.smi.protegex.owl.swrl.engine;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+import edu.stanford.smi.protegex.owl.model.RDFResource;
+import edu.stanford.smi.protegex.owl.model.query.QueryResults;
+import edu.stanford.smi.protegex.owl.swrl.model.SWRLNames;
+
+/**
+ * The results of a SQWRL query, which are computed while they are read.
+ * <p>
+ * The keys of the Maps returned by <code>next</code> are the column names of the query.  Each value is an RDFResource,
+ * an RDFSLiteral, or null for an aggregate without values (such as the minimum of no values).
+ * <p>
+ * Rows of queries without aggregates and ordering are computed from the matches of the body one at a time, so that
+ * reading the first rows of a large result (or a result with <code>sqwrl:limit</code>) does not enumerate the
+ * others.  Aggregates are computed while the matches are enumerated and only keep one accumulator per group, and an
+ * ordered result with a limit only keeps the best rows in a heap.  Only <code>sqwrl:selectDistinct</code> and
+ * ordered results without a limit have to keep all rows.
+ */
+public class SQWRLQueryResults implements QueryResults
+{
+	private final SQWRLQuery query;
+	private final SWRLBuiltinLibrary builtinLibrary;
+	private final Iterator<Object[]> bindings;
+	private final List<String> columnNames = new ArrayList<String>();
+
+	private Iterator<Object[]> rows;
+	private int rowCount;
+
+	SQWRLQueryResults(SQWRLQuery query, SWRLBuiltinLibrary builtinLibrary, Iterator<Object[]> bindings)
+	{
+		this.query = query;
+		this.builtinLibrary = builtinLibrary;
+		this.bindings = bindings;
+		for (SQWRLQuery.Column column : query.columns)
+			columnNames.add(column.name);
+	}
+
+	/**
+	 * Gets the column names of the query.
+	 */
+	public List getVariables()
+	{
+		return Collections.unmodifiableList(columnNames);
+	}
+
+	public boolean hasNext()
+	{
+		if (query.limit >= 0 && rowCount >= query.limit)
+			return false;
+		return getRows().hasNext();
+	}
+
+	public Map next()
+	{
+		if (!hasNext())
+			throw new NoSuchElementException();
+		Object[] row = rows.next();
+		rowCount++;
+		Map<String, Object> result = new LinkedHashMap<String, Object>();
+		for (int i = 0; i < row.length; i++)
+			result.put(columnNames.get(i), row[i]);
+		return result;
+	}
+
+	/**
+	 * Gets the number of rows that have been read so far.
+	 */
+	public int getRowCount()
+	{
+		return rowCount;
+	}
+
+	private Iterator<Object[]> getRows()
+	{
+		if (rows == null) {
+			rows = query.hasAggregates() ? aggregate() : project();
+			if (query.isOrdered())
+				rows = sort(rows);
+		}
+		return rows;
+	}
+
+	private Object[] getRow(Object[] binding)
+	{
+		Object[] row = new Object[query.columns.size()];
+		for (int i = 0; i < row.length; i++) {
+			SQWRLQuery.Column column = query.columns.get(i);
+			row[i] = column.variable < 0 ? column.constant : binding[column.variable];
+		}
+		return row;
+	}
+
+	private Iterator<Object[]> project()
+	{
+		final Set<List<Object>> distinctRows = query.distinct ? new HashSet<List<Object>>() : null;
+		return new Iterator<Object[]>() {
+			private Object[] next;
+
+			public boolean hasNext()
+			{
+				while (next == null && bindings.hasNext()) {
+					Object[] row = getRow(bindings.next());
+					if (distinctRows == null || distinctRows.add(Arrays.asList(row)))
+						next = row;
+				}
+				return next != null;
+			}
+
+			public Object[] next()
+			{
+				if (!hasNext())
+					throw new NoSuchElementException();
+				Object[] row = next;
+				next = null;
+				return row;
+			}
+
+			public void remove()
+			{
+				throw new UnsupportedOperationException();
+			}
+		};
+	}
+
+	private Iterator<Object[]> aggregate()
+	{
+		int columnCount = query.columns.size();
+		Map<List<Object>, Aggregate[]> groups = new LinkedHashMap<List<Object>, Aggregate[]>();
+		boolean grouped = false;
+		for (SQWRLQuery.Column column : query.columns)
+			grouped |= !column.isAggregate();
+		if (!grouped)
+			groups.put(Collections.emptyList(), createAggregates());
+		while (bindings.hasNext()) {
+			Object[] row = getRow(bindings.next());
+			List<Object> key = new ArrayList<Object>();
+			for (int i = 0; i < columnCount; i++)
+				if (!query.columns.get(i).isAggregate())
+					key.add(row[i]);
+			Aggregate[] aggregates = groups.get(key);
+			if (aggregates == null) {
+				aggregates = createAggregates();
+				groups.put(key, aggregates);
+			}
+			for (int i = 0; i < columnCount; i++)
+				if (aggregates[i] != null)
+					aggregates[i].add(row[i]);
+		}
+
+		List<Object[]> result = new ArrayList<Object[]>(groups.size());
+		for (Map.Entry<List<Object>, Aggregate[]> entry : groups.entrySet()) {
+			Object[] row = new Object[columnCount];
+			Iterator<Object> key = entry.getKey().iterator();
+			for (int i = 0; i < columnCount; i++) {
+				Aggregate aggregate = entry.getValue()[i];
+				row[i] = aggregate == null ? key.next() : aggregate.getValue();
+			}
+			result.add(row);
+		}
+		return result.iterator();
+	}
+
+	private Aggregate[] createAggregates()
+	{
+		Aggregate[] aggregates = new Aggregate[query.columns.size()];
+		for (int i = 0; i < aggregates.length; i++) {
+			SQWRLQuery.Column column = query.columns.get(i);
+			if (column.isAggregate())
+				aggregates[i] = new Aggregate(column.kind);
+		}
+		return aggregates;
+	}
+
+	private Iterator<Object[]> sort(Iterator<Object[]> rows)
+	{
+		Comparator<Object[]> comparator = new Comparator<Object[]>() {
+			public int compare(Object[] row1, Object[] row2)
+			{
+				for (int i = 0; i < query.orderColumns.size(); i++) {
+					int column = query.orderColumns.get(i).intValue();
+					int result = compareValues(row1[column], row2[column]);
+					if (result != 0)
+						return query.orderDescending.get(i).booleanValue() ? -result : result;
+				}
+				return 0;
+			}
+		};
+		List<Object[]> result;
+		if (query.limit >= 0) {
+			// keep the best rows only: the head of the heap is the worst of them
+			PriorityQueue<Object[]> heap = new PriorityQueue<Object[]>(Math.max(1, Math.min(query.limit + 1, 64)),
+					Collections.reverseOrder(comparator));
+			while (rows.hasNext()) {
+				heap.add(rows.next());
+				if (heap.size() > query.limit)
+					heap.poll();
+			}
+			result = new ArrayList<Object[]>(heap);
+		} else {
+			result = new ArrayList<Object[]>();
+			while (rows.hasNext())
+				result.add(rows.next());
+		}
+		Collections.sort(result, comparator);
+		return result.iterator();
+	}
+
+	/**
+	 * Compares two values of a column: numbers and strings by value, literals before resources, and resources by
+	 * their browser text.
+	 */
+	private int compareValues(Object a, Object b)
+	{
+		if (a == null || b == null)
+			return a == null ? (b == null ? 0 : -1) : 1;
+		Integer result = builtinLibrary.compare(a, b);
+		if (result != null)
+			return result.intValue();
+		if (a instanceof RDFResource)
+			return b instanceof RDFResource ? ((RDFResource)a).getBrowserText().compareTo(((RDFResource)b).getBrowserText()) : 1;
+		return b instanceof RDFResource ? -1 : a.toString().compareTo(b.toString());
+	}
+
+	/**
+	 * The accumulator of an aggregate column for one group.
+	 */
+	private class Aggregate
+	{
+		private final int kind;
+		private long count;
+		private Set<Object> distinctValues;
+		// the minimum, maximum or sum of the values
+		private Object value;
+		// the number of numeric values in the sum
+		private long sumCount;
+
+		Aggregate(int kind)
+		{
+			this.kind = kind;
+			if (kind == SQWRLQuery.COUNT_DISTINCT)
+				distinctValues = new HashSet<Object>();
+		}
+
+		void add(Object v)
+		{
+			count++;
+			if (kind == SQWRLQuery.COUNT_DISTINCT)
+				distinctValues.add(v);
+			else if (kind == SQWRLQuery.MIN) {
+				if (value == null || compareValues(v, value) < 0)
+					value = v;
+			} else if (kind == SQWRLQuery.MAX) {
+				if (value == null || compareValues(v, value) > 0)
+					value = v;
+			} else if (kind == SQWRLQuery.SUM || kind == SQWRLQuery.AVG) {
+				Object sum = builtinLibrary.compute(SWRLNames.CoreBuiltIns.ADD, value == null ? new Object[] { null, v }
+						: new Object[] { null, value, v });
+				if (sum != null) {
+					value = sum;
+					sumCount++;
+				}
+			}
+		}
+
+		Object getValue()
+		{
+			switch (kind) {
+			case SQWRLQuery.COUNT:
+				return createCount(count);
+			case SQWRLQuery.COUNT_DISTINCT:
+				return createCount(distinctValues.size());
+			case SQWRLQuery.SUM:
+				return value == null ? createCount(0) : value;
+			case SQWRLQuery.AVG:
+				if (value == null)
+					return null;
+				return builtinLibrary.compute(SWRLNames.CoreBuiltIns.DIVIDE, new Object[] { null, value,
+						builtinLibrary.normalize(Double.valueOf(sumCount)) });
+			default:
+				return value;
+			}
+		}
+
+		private Object createCount(long n)
+		{
+			if (n <= Integer.MAX_VALUE)
+				return builtinLibrary.normalize(Integer.valueOf((int)n));
+			return builtinLibrary.normalize(Long.valueOf(n));
+		}
+	}
+}
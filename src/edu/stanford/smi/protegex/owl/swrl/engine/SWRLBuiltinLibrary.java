@@ -0,0 +1,420 @@
+package edu.stanford.smi.protegex.owl.swrl.engine;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import edu.stanford.smi.protegex.owl.model.OWLModel;
+import edu.stanford.smi.protegex.owl.model.RDFResource;
+import edu.stanford.smi.protegex.owl.model.RDFSDatatype;
+import edu.stanford.smi.protegex.owl.model.RDFSLiteral;
+import edu.stanford.smi.protegex.owl.model.impl.DefaultRDFSLiteral;
+import edu.stanford.smi.protegex.owl.swrl.model.SWRLNames;
+
+/**
+ * The implementation of the core swrlb comparison, math, boolean and string built-ins.
+ * <p>
+ * Built-ins are identified by their URI.  A built-in is either a test, which succeeds or fails for bound arguments
+ * (such as <code>swrlb:lessThan</code>), or a function, which computes its first argument from the others (such as
+ * <code>swrlb:add</code>).  If the first argument of a function is already bound, the function succeeds if the
+ * computed value equals it.
+ * <p>
+ * Data values are represented as RDFSLiterals.  <code>normalize</code> converts the values stored in the model into
+ * canonical literals, so that equal values are also equal Java objects.
+ */
+public class SWRLBuiltinLibrary
+{
+	private static final String SWRLB = SWRLNames.SWRLB_NAMESPACE;
+
+	private static final Set<String> tests = new HashSet<String>();
+	private static final Set<String> functions = new HashSet<String>();
+
+	static {
+		for (String name : new String[] { "equal", "notEqual", "lessThan", "lessThanOrEqual", "greaterThan",
+				"greaterThanOrEqual", "stringEqualIgnoreCase", "contains", "containsIgnoreCase", "startsWith", "endsWith",
+				"matches" })
+			tests.add(SWRLB + name);
+		for (String name : new String[] { "add", "subtract", "multiply", "divide", "integerDivide", "mod", "pow",
+				"unaryPlus", "unaryMinus", "abs", "ceiling", "floor", "round", "roundHalfToEven", "sin", "cos", "tan",
+				"booleanNot", "stringConcat", "substring", "stringLength", "normalizeSpace", "upperCase", "lowerCase",
+				"substringBefore", "substringAfter", "replace" })
+			functions.add(SWRLB + name);
+	}
+
+	// Ranks of the numeric datatypes: the result of a math built-in has the highest rank of its arguments
+	private static final int NOT_NUMERIC = -1;
+	private static final int INT = 0;
+	private static final int LONG = 1;
+	private static final int FLOAT = 2;
+	private static final int DOUBLE = 3;
+
+	private final OWLModel owlModel;
+
+	public SWRLBuiltinLibrary(OWLModel owlModel)
+	{
+		this.owlModel = owlModel;
+	}
+
+	public boolean isSupported(String builtinURI)
+	{
+		return tests.contains(builtinURI) || functions.contains(builtinURI);
+	}
+
+	/**
+	 * Checks whether the first argument of a built-in may be unbound, in which case it is bound to the computed value.
+	 */
+	public boolean isFunction(String builtinURI)
+	{
+		return functions.contains(builtinURI);
+	}
+
+	/**
+	 * Converts a value stored in the model or used in a rule into the form used by the engine: resources are returned
+	 * unchanged, all other values are converted into literals with a canonical raw value.
+	 */
+	public Object normalize(Object value)
+	{
+		if (value == null || value instanceof RDFResource)
+			return value;
+		RDFSLiteral literal = owlModel.asRDFSLiteral(value);
+		if (literal.getLanguage() == null) {
+			RDFSDatatype datatype = literal.getDatatype();
+			if (datatype != null)
+				return DefaultRDFSLiteral.create(owlModel, literal.getString(), datatype);
+		}
+		return literal;
+	}
+
+	/**
+	 * Evaluates a test, or a function whose first argument is bound.
+	 *
+	 * @param arguments the normalized values of all arguments
+	 */
+	public boolean evaluate(String builtinURI, Object[] arguments)
+	{
+		if (functions.contains(builtinURI)) {
+			Object value = compute(builtinURI, arguments);
+			return value != null && areEqual(arguments[0], value);
+		}
+		if (arguments.length < 2)
+			return false;
+		Object a = arguments[0];
+		Object b = arguments[1];
+		String name = builtinURI.substring(SWRLB.length());
+		if (name.equals("equal"))
+			return areEqual(a, b);
+		else if (name.equals("notEqual"))
+			return !areEqual(a, b);
+		else if (name.startsWith("lessThan") || name.startsWith("greaterThan")) {
+			Integer comparison = compare(a, b);
+			if (comparison == null)
+				return false;
+			int c = comparison.intValue();
+			if (name.equals("lessThan"))
+				return c < 0;
+			else if (name.equals("lessThanOrEqual"))
+				return c <= 0;
+			else if (name.equals("greaterThan"))
+				return c > 0;
+			else
+				return c >= 0;
+		}
+		String s1 = getString(a);
+		String s2 = getString(b);
+		if (s1 == null || s2 == null)
+			return false;
+		if (name.equals("stringEqualIgnoreCase"))
+			return s1.equalsIgnoreCase(s2);
+		else if (name.equals("contains"))
+			return s1.contains(s2);
+		else if (name.equals("containsIgnoreCase"))
+			return s1.toLowerCase().contains(s2.toLowerCase());
+		else if (name.equals("startsWith"))
+			return s1.startsWith(s2);
+		else if (name.equals("endsWith"))
+			return s1.endsWith(s2);
+		else if (name.equals("matches"))
+			return matches(s1, s2);
+		return false;
+	}
+
+	/**
+	 * Computes the value of the first argument of a function.
+	 *
+	 * @param arguments the normalized values of the arguments; the first one is ignored
+	 * @return the value, or null if the arguments do not have the types expected by the function
+	 */
+	public Object compute(String builtinURI, Object[] arguments)
+	{
+		String name = builtinURI.substring(SWRLB.length());
+		int argumentCount = arguments.length - 1;
+		if (argumentCount < 1)
+			return null;
+		if (name.equals("stringConcat")) {
+			StringBuffer buffer = new StringBuffer();
+			for (int i = 1; i < arguments.length; i++) {
+				String s = getString(arguments[i]);
+				if (s == null)
+					return null;
+				buffer.append(s);
+			}
+			return createString(buffer.toString());
+		} else if (name.equals("booleanNot")) {
+			RDFSLiteral literal = getLiteral(arguments[1]);
+			if (literal == null || !owlModel.getXSDboolean().equals(literal.getDatatype()))
+				return null;
+			return normalize(Boolean.valueOf(!literal.getBoolean()));
+		} else if (isStringFunction(name))
+			return computeString(name, arguments);
+		else
+			return computeNumber(name, arguments);
+	}
+
+	private boolean isStringFunction(String name)
+	{
+		return name.equals("substring") || name.equals("stringLength") || name.equals("normalizeSpace")
+				|| name.equals("upperCase") || name.equals("lowerCase") || name.equals("substringBefore")
+				|| name.equals("substringAfter") || name.equals("replace");
+	}
+
+	private Object computeString(String name, Object[] arguments)
+	{
+		String s = getString(arguments[1]);
+		if (s == null)
+			return null;
+		if (name.equals("stringLength"))
+			return normalize(Integer.valueOf(s.length()));
+		else if (name.equals("normalizeSpace"))
+			return createString(s.trim().replaceAll("\\s+", " "));
+		else if (name.equals("upperCase"))
+			return createString(s.toUpperCase());
+		else if (name.equals("lowerCase"))
+			return createString(s.toLowerCase());
+		if (arguments.length < 3)
+			return null;
+		if (name.equals("substring")) {
+			// XPath semantics: the start position is 1-based and the characters are rounded
+			Number start = getNumber(arguments[2]);
+			Number length = arguments.length > 3 ? getNumber(arguments[3]) : null;
+			if (start == null || (arguments.length > 3 && length == null))
+				return null;
+			long from = Math.max(1, Math.round(start.doubleValue()));
+			long to = length == null ? s.length() + 1 : Math.round(start.doubleValue()) + Math.round(length.doubleValue());
+			to = Math.min(to, s.length() + 1);
+			return createString(from < to ? s.substring((int)from - 1, (int)to - 1) : "");
+		}
+		String t = getString(arguments[2]);
+		if (t == null)
+			return null;
+		if (name.equals("substringBefore")) {
+			int index = s.indexOf(t);
+			return createString(index < 0 ? "" : s.substring(0, index));
+		} else if (name.equals("substringAfter")) {
+			int index = s.indexOf(t);
+			return createString(index < 0 ? "" : s.substring(index + t.length()));
+		} else if (name.equals("replace") && arguments.length > 3) {
+			String replacement = getString(arguments[3]);
+			if (replacement == null)
+				return null;
+			try {
+				return createString(s.replaceAll(t, replacement));
+			} catch (PatternSyntaxException e) {
+				return null;
+			} catch (IndexOutOfBoundsException e) {
+				return null;
+			}
+		}
+		return null;
+	}
+
+	private Object computeNumber(String name, Object[] arguments)
+	{
+		int rank = INT;
+		for (int i = 1; i < arguments.length; i++) {
+			int argumentRank = getRank(arguments[i]);
+			if (argumentRank == NOT_NUMERIC)
+				return null;
+			rank = Math.max(rank, argumentRank);
+		}
+		Number a = getNumber(arguments[1]);
+		Number b = arguments.length > 2 ? getNumber(arguments[2]) : null;
+		if (a == null)
+			return null;
+		boolean integral = rank <= LONG;
+		if (name.equals("add") || name.equals("multiply")) {
+			boolean add = name.equals("add");
+			long l = add ? 0 : 1;
+			double d = add ? 0 : 1;
+			for (int i = 1; i < arguments.length; i++) {
+				Number n = getNumber(arguments[i]);
+				if (add) {
+					l += n.longValue();
+					d += n.doubleValue();
+				} else {
+					l *= n.longValue();
+					d *= n.doubleValue();
+				}
+			}
+			return integral ? createInteger(l, rank) : createReal(d, rank);
+		} else if (name.equals("unaryPlus"))
+			return integral ? createInteger(a.longValue(), rank) : createReal(a.doubleValue(), rank);
+		else if (name.equals("unaryMinus"))
+			return integral ? createInteger(-a.longValue(), rank) : createReal(-a.doubleValue(), rank);
+		else if (name.equals("abs"))
+			return integral ? createInteger(Math.abs(a.longValue()), rank) : createReal(Math.abs(a.doubleValue()), rank);
+		else if (name.equals("ceiling"))
+			return integral ? createInteger(a.longValue(), rank) : createReal(Math.ceil(a.doubleValue()), rank);
+		else if (name.equals("floor"))
+			return integral ? createInteger(a.longValue(), rank) : createReal(Math.floor(a.doubleValue()), rank);
+		else if (name.equals("round"))
+			return integral ? createInteger(a.longValue(), rank) : createReal(Math.floor(a.doubleValue() + 0.5), rank);
+		else if (name.equals("roundHalfToEven"))
+			return integral ? createInteger(a.longValue(), rank) : createReal(Math.rint(a.doubleValue()), rank);
+		else if (name.equals("sin"))
+			return createReal(Math.sin(a.doubleValue()), DOUBLE);
+		else if (name.equals("cos"))
+			return createReal(Math.cos(a.doubleValue()), DOUBLE);
+		else if (name.equals("tan"))
+			return createReal(Math.tan(a.doubleValue()), DOUBLE);
+		if (b == null)
+			return null;
+		if (name.equals("subtract"))
+			return integral ? createInteger(a.longValue() - b.longValue(), rank) : createReal(a.doubleValue()
+					- b.doubleValue(), rank);
+		else if (name.equals("divide"))
+			return b.doubleValue() == 0 ? null : createReal(a.doubleValue() / b.doubleValue(), Math.max(rank, FLOAT));
+		else if (name.equals("integerDivide"))
+			return b.longValue() == 0 ? null : createInteger(a.longValue() / b.longValue(), Math.min(rank, LONG));
+		else if (name.equals("mod")) {
+			if (integral)
+				return b.longValue() == 0 ? null : createInteger(a.longValue() % b.longValue(), rank);
+			return createReal(a.doubleValue() % b.doubleValue(), rank);
+		} else if (name.equals("pow"))
+			return integral && b.longValue() >= 0 ? createInteger((long)Math.pow(a.longValue(), b.longValue()), rank)
+					: createReal(Math.pow(a.doubleValue(), b.doubleValue()), Math.max(rank, FLOAT));
+		return null;
+	}
+
+	/**
+	 * Compares two values for equality: numbers are compared by value, other values by their normalized form.
+	 */
+	public boolean areEqual(Object a, Object b)
+	{
+		if (a == null || b == null)
+			return a == b;
+		if (getRank(a) != NOT_NUMERIC && getRank(b) != NOT_NUMERIC) {
+			Integer comparison = compare(a, b);
+			return comparison != null && comparison.intValue() == 0;
+		}
+		return a.equals(b);
+	}
+
+	/**
+	 * Compares two numbers or two strings.
+	 *
+	 * @return the result of the comparison, or null if the values cannot be compared
+	 */
+	public Integer compare(Object a, Object b)
+	{
+		int rankA = getRank(a);
+		int rankB = getRank(b);
+		if (rankA != NOT_NUMERIC && rankB != NOT_NUMERIC) {
+			Number n1 = getNumber(a);
+			Number n2 = getNumber(b);
+			if (n1 == null || n2 == null)
+				return null;
+			if (rankA <= LONG && rankB <= LONG)
+				return Integer.valueOf(n1.longValue() < n2.longValue() ? -1 : (n1.longValue() == n2.longValue() ? 0 : 1));
+			return Integer.valueOf(Double.compare(n1.doubleValue(), n2.doubleValue()));
+		}
+		if (rankA == NOT_NUMERIC && rankB == NOT_NUMERIC) {
+			String s1 = getString(a);
+			String s2 = getString(b);
+			if (s1 != null && s2 != null)
+				return Integer.valueOf(s1.compareTo(s2));
+		}
+		return null;
+	}
+
+	private boolean matches(String s, String regex)
+	{
+		try {
+			return Pattern.compile(regex).matcher(s).find();
+		} catch (PatternSyntaxException e) {
+			return false;
+		}
+	}
+
+	private RDFSLiteral getLiteral(Object value)
+	{
+		return value instanceof RDFSLiteral ? (RDFSLiteral)value : null;
+	}
+
+	private String getString(Object value)
+	{
+		RDFSLiteral literal = getLiteral(value);
+		if (literal == null || getRank(literal) != NOT_NUMERIC)
+			return null;
+		RDFSDatatype datatype = literal.getDatatype();
+		if (literal.getLanguage() != null || owlModel.getXSDstring().equals(datatype)
+				|| owlModel.getXSDanyURI().equals(datatype))
+			return literal.getString();
+		return null;
+	}
+
+	private int getRank(Object value)
+	{
+		RDFSLiteral literal = getLiteral(value);
+		if (literal == null || literal.getLanguage() != null)
+			return NOT_NUMERIC;
+		RDFSDatatype datatype = literal.getDatatype();
+		if (datatype == null)
+			return NOT_NUMERIC;
+		if (datatype.equals(owlModel.getXSDint()) || datatype.equals(owlModel.getXSDshort())
+				|| datatype.equals(owlModel.getXSDbyte()))
+			return INT;
+		else if (datatype.equals(owlModel.getXSDlong()) || datatype.equals(owlModel.getXSDinteger())
+				|| datatype.equals(owlModel.getXSDNonNegativeInteger()))
+			return LONG;
+		else if (datatype.equals(owlModel.getXSDfloat()))
+			return FLOAT;
+		else if (datatype.equals(owlModel.getXSDdouble()) || datatype.equals(owlModel.getXSDdecimal()))
+			return DOUBLE;
+		return NOT_NUMERIC;
+	}
+
+	private Number getNumber(Object value)
+	{
+		int rank = getRank(value);
+		if (rank == NOT_NUMERIC)
+			return null;
+		String lexical = ((RDFSLiteral)value).getString().trim();
+		try {
+			if (rank <= LONG)
+				return Long.valueOf(lexical);
+			return Double.valueOf(lexical);
+		} catch (NumberFormatException e) {
+			return null;
+		}
+	}
+
+	private Object createString(String value)
+	{
+		return DefaultRDFSLiteral.create(owlModel, value, owlModel.getXSDstring());
+	}
+
+	private Object createInteger(long value, int rank)
+	{
+		if (rank == INT && value >= Integer.MIN_VALUE && value <= Integer.MAX_VALUE)
+			return DefaultRDFSLiteral.create(owlModel, String.valueOf(value), owlModel.getXSDint());
+		return DefaultRDFSLiteral.create(owlModel, String.valueOf(value), owlModel.getXSDlong());
+	}
+
+	private Object createReal(double value, int rank)
+	{
+		if (rank <= FLOAT)
+			return DefaultRDFSLiteral.create(owlModel, String.valueOf((float)value), owlModel.getXSDfloat());
+		return DefaultRDFSLiteral.create(owlModel, String.valueOf(value), owlModel.getXSDdouble());
+	}
+}
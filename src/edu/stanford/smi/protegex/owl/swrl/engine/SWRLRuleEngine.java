@@ -0,0 +1,425 @@
+package edu.stanford.smi.protegex.owl.swrl.engine;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+import edu.stanford.smi.protege.event.FrameAdapter;
+import edu.stanford.smi.protege.event.FrameEvent;
+import edu.stanford.smi.protege.event.FrameListener;
+import edu.stanford.smi.protege.model.Frame;
+import edu.stanford.smi.protege.storage.database.InMemoryFrameDb;
+import edu.stanford.smi.protege.util.Log;
+import edu.stanford.smi.protegex.owl.model.OWLModel;
+import edu.stanford.smi.protegex.owl.model.RDFProperty;
+import edu.stanford.smi.protegex.owl.model.RDFResource;
+import edu.stanford.smi.protegex.owl.model.RDFSClass;
+import edu.stanford.smi.protegex.owl.model.RDFSNamedClass;
+import edu.stanford.smi.protegex.owl.model.triplestore.TripleStore;
+import edu.stanford.smi.protegex.owl.model.triplestore.TripleStoreModel;
+import edu.stanford.smi.protegex.owl.swrl.model.SWRLFactory;
+import edu.stanford.smi.protegex.owl.swrl.model.SWRLImp;
+
+/**
+ * A forward chaining engine that executes the SWRL rules of an OWLModel.
+ * <p>
+ * The rules are compiled into a Rete style join network: the facts of each class and property used in a rule body
+ * are kept in an alpha memory, and the partial matches of rule bodies in the nodes of the network, which are shared by
+ * rules with the same leading atoms.  New facts are matched against the stored partial matches only, so that running
+ * the engine again after adding facts (or a rule) does not re-evaluate the rules from scratch.
+ * <p>
+ * Class, individual property, datavalued property, same and different individuals atoms and the core swrlb built-ins
+ * of <code>SWRLBuiltinLibrary</code> are supported.  Rules with other atoms are reported by
+ * <code>getUnsupportedRules</code> and ignored.
+ * <p>
+ * The engine is monotonic: facts that are removed from the model are not retracted, and a rule that is changed or
+ * removed is only taken into account after <code>reset</code>.  Inferred facts are written to a separate TripleStore
+ * (see <code>getInferredTripleStore</code>), so that they are not saved with the ontology.
+ * <p>
+ * Typical use:
+ * <pre>
+ * SWRLRuleEngine engine = new SWRLRuleEngine(owlModel);
+ * engine.loadRules();
+ * engine.loadFacts();
+ * engine.run();
+ * </pre>
+ */
+public class SWRLRuleEngine
+{
+	private static final Logger log = Log.getLogger(SWRLRuleEngine.class);
+
+	public static final String INFERRED_TRIPLE_STORE_NAME = "http://protege.stanford.edu/swrl/inferred";
+
+	private final OWLModel owlModel;
+	private final SWRLBuiltinLibrary builtinLibrary;
+	private final RuleCompiler ruleCompiler;
+
+	private RootNode root;
+	private final Map<RDFResource, AlphaMemory> alphaMemories = new HashMap<RDFResource, AlphaMemory>();
+	private final Map<SWRLImp, CompiledRule> rules = new LinkedHashMap<SWRLImp, CompiledRule>();
+	private final Map<SWRLImp, String> unsupportedRules = new LinkedHashMap<SWRLImp, String>();
+
+	private final Set<Fact> facts = new HashSet<Fact>();
+	private final LinkedList<Fact> agenda = new LinkedList<Fact>();
+	private final List<Fact> inferredFacts = new ArrayList<Fact>();
+	// inferred facts that have not been written to the inferred TripleStore yet
+	private final List<Fact> pendingFacts = new ArrayList<Fact>();
+
+	private boolean factsLoaded;
+	private boolean running;
+	private boolean writing;
+
+	private FrameListener frameListener = new FrameAdapter() {
+		@Override
+		public void ownSlotValueChanged(FrameEvent event)
+		{
+			if (!writing && !running)
+				addFacts(event.getFrame(), event.getSlot());
+		}
+	};
+	private boolean listening;
+
+	public SWRLRuleEngine(OWLModel owlModel)
+	{
+		this.owlModel = owlModel;
+		this.builtinLibrary = new SWRLBuiltinLibrary(owlModel);
+		this.ruleCompiler = new RuleCompiler(owlModel, builtinLibrary);
+		this.root = new RootNode();
+	}
+
+	public OWLModel getOWLModel()
+	{
+		return owlModel;
+	}
+
+	public SWRLBuiltinLibrary getBuiltinLibrary()
+	{
+		return builtinLibrary;
+	}
+
+	/**
+	 * Adds all enabled rules of the model.  Rules that cannot be executed are logged and can be retrieved with
+	 * <code>getUnsupportedRules</code>.
+	 */
+	public void loadRules()
+	{
+		for (SWRLImp imp : new SWRLFactory(owlModel).getEnabledImps()) {
+			if (rules.containsKey(imp) || unsupportedRules.containsKey(imp))
+				continue;
+			try {
+				addRule(imp);
+			} catch (SWRLRuleEngineException e) {
+				unsupportedRules.put(imp, e.getMessage());
+				log.warning("Rule " + imp.getLocalName() + " is ignored: " + e.getMessage());
+			}
+		}
+	}
+
+	/**
+	 * Adds a rule to the network.  If facts have been loaded already, the rule is matched against them by the next
+	 * call of <code>run</code>.
+	 */
+	public void addRule(SWRLImp imp) throws SWRLRuleEngineException
+	{
+		if (rules.containsKey(imp))
+			return;
+		CompiledRule rule = ruleCompiler.compile(imp);
+		rules.put(imp, rule);
+		ReteNode node = root;
+		for (RuleAtom atom : rule.body) {
+			ReteNode child = node.getChild(atom.getKey());
+			if (child == null) {
+				if (atom.kind == RuleAtom.BUILTIN)
+					child = new BuiltinNode(node, atom, builtinLibrary);
+				else {
+					AlphaMemory alphaMemory = getAlphaMemory((RDFResource)atom.predicate);
+					JoinNode joinNode = new JoinNode(node, atom, alphaMemory);
+					alphaMemory.addSuccessor(joinNode);
+					child = joinNode;
+				}
+				node.addChild(child);
+			}
+			node = child;
+		}
+		node.addChild(new RuleNode(node, rule, this));
+	}
+
+	public Collection<SWRLImp> getRules()
+	{
+		return Collections.unmodifiableCollection(rules.keySet());
+	}
+
+	/**
+	 * Gets the rules that could not be compiled, together with the reason.
+	 */
+	public Map<SWRLImp, String> getUnsupportedRules()
+	{
+		return Collections.unmodifiableMap(unsupportedRules);
+	}
+
+	/**
+	 * Adds the facts of the model for all classes and properties that are used in rule bodies.  Facts of classes and
+	 * properties that are used by rules added later are loaded when the rule is added.
+	 */
+	public void loadFacts()
+	{
+		factsLoaded = true;
+		for (AlphaMemory alphaMemory : new ArrayList<AlphaMemory>(alphaMemories.values()))
+			loadFacts(alphaMemory);
+	}
+
+	/**
+	 * Matches the pending facts against the rules until no more facts can be inferred, and writes the inferred facts
+	 * into the inferred TripleStore.
+	 *
+	 * @return the number of facts inferred by this call
+	 */
+	public int run()
+	{
+		int count = inferredFacts.size();
+		running = true;
+		try {
+			while (!agenda.isEmpty()) {
+				Fact fact = agenda.removeFirst();
+				AlphaMemory alphaMemory = alphaMemories.get(fact.predicate);
+				if (alphaMemory != null)
+					alphaMemory.activate(fact);
+			}
+		} finally {
+			running = false;
+		}
+		writePendingFacts();
+		return inferredFacts.size() - count;
+	}
+
+	public int getInferredFactCount()
+	{
+		return inferredFacts.size();
+	}
+
+	/**
+	 * Gets the TripleStore that holds the inferred facts, creating it if needed.
+	 */
+	public TripleStore getInferredTripleStore()
+	{
+		TripleStoreModel tripleStoreModel = owlModel.getTripleStoreModel();
+		TripleStore tripleStore = tripleStoreModel.getTripleStore(INFERRED_TRIPLE_STORE_NAME);
+		if (tripleStore == null) {
+			TripleStore activeTripleStore = tripleStoreModel.getActiveTripleStore();
+			try {
+				tripleStore = tripleStoreModel.createActiveImportedTripleStore(new InMemoryFrameDb(INFERRED_TRIPLE_STORE_NAME));
+				tripleStore.setName(INFERRED_TRIPLE_STORE_NAME);
+			} finally {
+				tripleStoreModel.setActiveTripleStore(activeTripleStore);
+			}
+		}
+		return tripleStore;
+	}
+
+	/**
+	 * Specifies whether the engine listens to changes of the model.  While listening, new class memberships and
+	 * property values of the model are matched against the rules immediately.
+	 */
+	public void setListening(boolean listening)
+	{
+		if (listening != this.listening) {
+			this.listening = listening;
+			if (listening)
+				owlModel.addFrameListener(frameListener);
+			else
+				owlModel.removeFrameListener(frameListener);
+		}
+	}
+
+	public boolean isListening()
+	{
+		return listening;
+	}
+
+	/**
+	 * Removes all rules and facts from the engine.  The inferred TripleStore is not changed.
+	 */
+	public void reset()
+	{
+		root = new RootNode();
+		alphaMemories.clear();
+		rules.clear();
+		unsupportedRules.clear();
+		facts.clear();
+		agenda.clear();
+		inferredFacts.clear();
+		pendingFacts.clear();
+		factsLoaded = false;
+	}
+
+	public void dispose()
+	{
+		setListening(false);
+		reset();
+	}
+
+	void infer(Fact fact, CompiledRule rule)
+	{
+		if (addFact(fact)) {
+			if (log.isLoggable(Level.FINE))
+				log.fine("Rule " + rule.imp.getLocalName() + " inferred " + fact);
+			inferredFacts.add(fact);
+			pendingFacts.add(fact);
+			addEntailedFacts(fact);
+		}
+	}
+
+	private boolean addFact(Fact fact)
+	{
+		if (!facts.add(fact))
+			return false;
+		agenda.add(fact);
+		if (fact.object instanceof RDFResource
+				&& (fact.predicate.equals(owlModel.getOWLSameAsProperty()) || fact.predicate.equals(owlModel.getOWLDifferentFromProperty())))
+			addFact(new Fact(fact.predicate, (RDFResource)fact.object, fact.subject));
+		return true;
+	}
+
+	/**
+	 * Adds the facts of the superclasses or superproperties of the predicate of a fact that are used in rules.
+	 */
+	private void addEntailedFacts(Fact fact)
+	{
+		for (AlphaMemory alphaMemory : new ArrayList<AlphaMemory>(alphaMemories.values())) {
+			if (isSubsumedBy(fact.predicate, alphaMemory.predicate))
+				addFact(new Fact(alphaMemory.predicate, fact.subject, fact.object));
+		}
+	}
+
+	private boolean isSubsumedBy(RDFResource predicate, RDFResource superPredicate)
+	{
+		if (predicate.equals(superPredicate))
+			return false;
+		if (predicate instanceof RDFSClass && superPredicate instanceof RDFSClass)
+			return ((RDFSClass)predicate).isSubclassOf((RDFSClass)superPredicate);
+		if (predicate instanceof RDFProperty && superPredicate instanceof RDFProperty)
+			return ((RDFProperty)predicate).isSubpropertyOf((RDFProperty)superPredicate, true);
+		return false;
+	}
+
+	private AlphaMemory getAlphaMemory(RDFResource predicate)
+	{
+		AlphaMemory alphaMemory = alphaMemories.get(predicate);
+		if (alphaMemory == null) {
+			alphaMemory = new AlphaMemory(predicate);
+			alphaMemories.put(predicate, alphaMemory);
+			if (factsLoaded)
+				loadFacts(alphaMemory);
+			// The facts that are already known, in particular the facts inferred by earlier runs, have only activated
+			// the alpha memories that existed when they were taken from the agenda
+			Set<Fact> queuedFacts = new HashSet<Fact>(agenda);
+			for (Fact fact : new ArrayList<Fact>(facts)) {
+				if (fact.predicate.equals(predicate)) {
+					if (!queuedFacts.contains(fact))
+						agenda.add(fact);
+				} else if (isSubsumedBy(fact.predicate, predicate))
+					addFact(new Fact(predicate, fact.subject, fact.object));
+			}
+		}
+		return alphaMemory;
+	}
+
+	private void loadFacts(AlphaMemory alphaMemory)
+	{
+		RDFResource predicate = alphaMemory.predicate;
+		if (predicate instanceof RDFSNamedClass) {
+			for (Iterator it = ((RDFSNamedClass)predicate).getInstances(true).iterator(); it.hasNext();) {
+				Object instance = it.next();
+				if (instance instanceof RDFResource)
+					addFact(new Fact(predicate, (RDFResource)instance, null));
+			}
+		} else if (predicate instanceof RDFProperty) {
+			RDFProperty property = (RDFProperty)predicate;
+			List<RDFProperty> properties = new ArrayList<RDFProperty>();
+			properties.add(property);
+			for (Iterator it = property.getSubproperties(true).iterator(); it.hasNext();)
+				properties.add((RDFProperty)it.next());
+			for (RDFProperty subproperty : properties) {
+				for (Iterator<RDFResource> it = owlModel.getTripleStoreModel().listSubjects(subproperty); it.hasNext();) {
+					RDFResource subject = it.next();
+					for (Iterator vit = subject.getPropertyValues(subproperty).iterator(); vit.hasNext();)
+						addFact(new Fact(property, subject, builtinLibrary.normalize(vit.next())));
+				}
+			}
+		}
+	}
+
+	/**
+	 * Adds the facts for the values of a slot of a frame that has been changed in the model.
+	 */
+	private void addFacts(Frame frame, Object slot)
+	{
+		if (!(frame instanceof RDFResource) || !(slot instanceof RDFProperty) || !factsLoaded)
+			return;
+		RDFResource resource = (RDFResource)frame;
+		boolean added = false;
+		if (slot.equals(owlModel.getRDFTypeProperty())) {
+			for (Iterator it = resource.getRDFTypes().iterator(); it.hasNext();) {
+				Object type = it.next();
+				if (type instanceof RDFSNamedClass)
+					for (AlphaMemory alphaMemory : alphaMemories.values())
+						if (type.equals(alphaMemory.predicate) || isSubsumedBy((RDFSNamedClass)type, alphaMemory.predicate))
+							added |= addFact(new Fact(alphaMemory.predicate, resource, null));
+			}
+		} else {
+			RDFProperty property = (RDFProperty)slot;
+			for (AlphaMemory alphaMemory : alphaMemories.values())
+				if (property.equals(alphaMemory.predicate) || isSubsumedBy(property, alphaMemory.predicate))
+					for (Iterator it = resource.getPropertyValues(property).iterator(); it.hasNext();)
+						added |= addFact(new Fact(alphaMemory.predicate, resource, builtinLibrary.normalize(it.next())));
+		}
+		if (added)
+			run();
+	}
+
+	private void writePendingFacts()
+	{
+		if (pendingFacts.isEmpty())
+			return;
+		TripleStoreModel tripleStoreModel = owlModel.getTripleStoreModel();
+		TripleStore inferredTripleStore = getInferredTripleStore();
+		TripleStore activeTripleStore = tripleStoreModel.getActiveTripleStore();
+		writing = true;
+		try {
+			tripleStoreModel.setActiveTripleStore(inferredTripleStore);
+			for (Fact fact : pendingFacts) {
+				if (fact.object == null) {
+					RDFSClass cls = (RDFSClass)fact.predicate;
+					if (!fact.subject.hasRDFType(cls))
+						fact.subject.addRDFType(cls);
+				} else {
+					RDFProperty property = (RDFProperty)fact.predicate;
+					if (!hasPropertyValue(fact.subject, property, fact.object))
+						fact.subject.addPropertyValue(property, fact.object);
+				}
+			}
+		} finally {
+			tripleStoreModel.setActiveTripleStore(activeTripleStore);
+			writing = false;
+			pendingFacts.clear();
+		}
+	}
+
+	private boolean hasPropertyValue(RDFResource subject, RDFProperty property, Object value)
+	{
+		for (Iterator it = subject.getPropertyValues(property).iterator(); it.hasNext();)
+			if (value.equals(builtinLibrary.normalize(it.next())))
+				return true;
+		return false;
+	}
+}
@@ -0,0 +1,14 @@
+package edu.stanford.smi.protegex.owl.swrl.engine;
+
+public class SWRLRuleEngineException extends Exception
+{
+	public SWRLRuleEngineException(String message)
+	{
+		super(message);
+	}
+
+	public SWRLRuleEngineException(String message, Throwable cause)
+	{
+		super(message, cause);
+	}
+}
@@ -19,7 +19,9 @@ import edu.stanford.smi.protegex.owl.model.RDFResource;
 import edu.stanford.smi.protegex.owl.model.RDFSClass;
 import edu.stanford.smi.protegex.owl.model.RDFSLiteral;
 import edu.stanford.smi.protegex.owl.model.RDFSNamedClass;
+import edu.stanford.smi.protegex.owl.model.impl.AbstractOWLModel;
 import edu.stanford.smi.protegex.owl.swrl.SWRLSystemFrames;
+import edu.stanford.smi.protegex.owl.swrl.model.impl.SWRLImpIndex;
 import edu.stanford.smi.protegex.owl.swrl.parser.SWRLParseException;
 import edu.stanford.smi.protegex.owl.swrl.parser.SWRLParser;
 
@@ -226,6 +228,10 @@ public class SWRLFactory
 
 	public Collection<SWRLImp> getImps()
 	{
+		SWRLImpIndex index = getImpIndex();
+		if (index != null)
+			return index.getImps();
+
 		Collection<SWRLImp> imps = new HashSet<SWRLImp>();
 
 		for (Object o : this.systemFrames.getImpCls().getInstances(true))
@@ -255,6 +261,10 @@ public class SWRLFactory
 	// If the ruleGroupNames is empty, return all imps.
 	private Collection<SWRLImp> getImps(Set<String> ruleGroupNames, boolean isEnabled)
 	{
+		SWRLImpIndex index = getImpIndex();
+		if (index != null)
+			return index.getImps(ruleGroupNames, isEnabled);
+
 		Collection<SWRLImp> result = new ArrayList<SWRLImp>();
 		Collection<SWRLImp> imps = getImps();
 
@@ -327,6 +337,14 @@ public class SWRLFactory
 		return (resource != null) && (resource instanceof SWRLImp);
 	}
 
+	// The index of the rules of the model, or null if the model does not maintain one
+	private SWRLImpIndex getImpIndex()
+	{
+		if (this.owlModel instanceof AbstractOWLModel)
+			return ((AbstractOWLModel)this.owlModel).getSWRLImpIndex();
+		return null;
+	}
+
 	public String getNewImpName()
 	{
 		String prefix = this.owlModel.getNamespaceManager().getDefaultNamespace();
@@ -358,8 +376,11 @@ public class SWRLFactory
 	public Collection<SWRLImp> getReferencedImps(RDFResource rdfResource)
 	{
 		Collection<SWRLImp> result = new ArrayList<SWRLImp>();
+		SWRLImpIndex index = getImpIndex();
 
-		if (rdfResource != null) {
+		if (rdfResource != null && index != null)
+			result = index.getReferencedImps(rdfResource);
+		else if (rdfResource != null) {
 			for (SWRLImp imp : getImps()) {
 				Set<RDFResource> resources = imp.getReferencedInstances();
 				if (resources.contains(rdfResource) && !result.contains(imp))
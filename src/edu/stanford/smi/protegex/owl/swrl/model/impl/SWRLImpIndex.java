@@ -0,0 +1,373 @@
+package edu.stanford.smi.protegex.owl.swrl.model.impl;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+import edu.stanford.smi.protege.event.FrameAdapter;
+import edu.stanford.smi.protege.event.FrameEvent;
+import edu.stanford.smi.protege.event.FrameListener;
+import edu.stanford.smi.protege.event.KnowledgeBaseAdapter;
+import edu.stanford.smi.protege.event.KnowledgeBaseEvent;
+import edu.stanford.smi.protege.event.KnowledgeBaseListener;
+import edu.stanford.smi.protege.model.Frame;
+import edu.stanford.smi.protegex.owl.model.OWLModel;
+import edu.stanford.smi.protegex.owl.model.RDFList;
+import edu.stanford.smi.protegex.owl.model.RDFProperty;
+import edu.stanford.smi.protegex.owl.model.RDFResource;
+import edu.stanford.smi.protegex.owl.swrl.model.SWRLBuiltinAtom;
+import edu.stanford.smi.protegex.owl.swrl.model.SWRLImp;
+import edu.stanford.smi.protegex.owl.swrl.model.SWRLIndividual;
+import edu.stanford.smi.protegex.owl.swrl.model.SWRLNames;
+
+/**
+ * An index of the SWRL rules of an OWLModel by the resources they reference, by their rule groups and by their
+ * enabled state, used by <code>SWRLFactory</code> to find rules without visiting all of them.
+ * <p>
+ * The index is built on the first query and then kept up to date by its frame and knowledge base listeners, which
+ * must be registered with the model: a change of a rule, of one of its atoms or atom lists, or of one of its rule
+ * groups re-indexes the rule.  The index is discarded while the model does not generate events and rebuilt on the
+ * next query after that.
+ * <p>
+ * Queries return copies, so the results may be modified by the caller.  The model is never accessed while the lock of
+ * the index is held, so that the index cannot deadlock with the model in multi-user mode.
+ */
+public class SWRLImpIndex
+{
+	private final OWLModel owlModel;
+
+	// guarded by this: null while the index is not built
+	private State state;
+	// incremented by every change, so that a build that overlaps with a change is not kept
+	private long generation;
+	private volatile boolean enabled = true;
+
+	private FrameListener frameListener = new FrameAdapter() {
+		@Override
+		public void ownSlotValueChanged(FrameEvent event)
+		{
+			Frame frame = event.getFrame();
+			if (frame instanceof SWRLImp)
+				update((SWRLImp)frame);
+			else if (frame instanceof SWRLIndividual || frame instanceof RDFList)
+				update(getDependentImps(frame));
+		}
+
+		@Override
+		public void nameChanged(FrameEvent event)
+		{
+			Frame frame = event.getFrame();
+			if (isRuleGroup(frame))
+				update(getDependentImps(frame));
+		}
+
+		@Override
+		public void deleted(FrameEvent event)
+		{
+			frameDeleted(event.getFrame());
+		}
+	};
+
+	private KnowledgeBaseListener knowledgeBaseListener = new KnowledgeBaseAdapter() {
+		@Override
+		public void instanceCreated(KnowledgeBaseEvent event)
+		{
+			if (event.getFrame() instanceof SWRLImp)
+				update((SWRLImp)event.getFrame());
+		}
+
+		@Override
+		public void instanceDeleted(KnowledgeBaseEvent event)
+		{
+			frameDeleted(event.getFrame());
+		}
+
+		@Override
+		public void frameReplaced(KnowledgeBaseEvent event)
+		{
+			invalidate();
+		}
+	};
+
+	public SWRLImpIndex(OWLModel owlModel)
+	{
+		this.owlModel = owlModel;
+	}
+
+	/**
+	 * Gets the listener that keeps this index up to date.  It must be added to the model as a (global) frame listener.
+	 */
+	public FrameListener getFrameListener()
+	{
+		return frameListener;
+	}
+
+	/**
+	 * Gets the listener that keeps this index up to date.  It must be added to the model as a knowledge base listener.
+	 */
+	public KnowledgeBaseListener getKnowledgeBaseListener()
+	{
+		return knowledgeBaseListener;
+	}
+
+	public Collection<SWRLImp> getImps()
+	{
+		State state = getState();
+		synchronized (this) {
+			Set<SWRLImp> result = new HashSet<SWRLImp>(state.enabledImps);
+			result.addAll(state.disabledImps);
+			return result;
+		}
+	}
+
+	/**
+	 * Gets the rules with a given enabled state that belong to one of the given rule groups, or to any group if the set
+	 * of names is empty.
+	 */
+	public Collection<SWRLImp> getImps(Set<String> ruleGroupNames, boolean isEnabled)
+	{
+		State state = getState();
+		synchronized (this) {
+			Set<SWRLImp> imps = isEnabled ? state.enabledImps : state.disabledImps;
+			if (ruleGroupNames.isEmpty())
+				return new ArrayList<SWRLImp>(imps);
+			Set<SWRLImp> result = new LinkedHashSet<SWRLImp>();
+			for (String ruleGroupName : ruleGroupNames) {
+				Set<SWRLImp> groupImps = state.impsByGroupName.get(ruleGroupName);
+				if (groupImps != null)
+					for (SWRLImp imp : groupImps)
+						if (imps.contains(imp))
+							result.add(imp);
+			}
+			return new ArrayList<SWRLImp>(result);
+		}
+	}
+
+	/**
+	 * Gets the rules whose <code>getReferencedInstances</code> contain a given resource.
+	 */
+	public Collection<SWRLImp> getReferencedImps(RDFResource resource)
+	{
+		State state = getState();
+		synchronized (this) {
+			Set<SWRLImp> imps = state.impsByResource.get(resource);
+			return imps == null ? new ArrayList<SWRLImp>() : new ArrayList<SWRLImp>(imps);
+		}
+	}
+
+	/**
+	 * Must be called whenever the generation of events is switched on or off.
+	 */
+	public synchronized void setEnabled(boolean enabled)
+	{
+		this.enabled = enabled;
+		state = null;
+		generation++;
+	}
+
+	public synchronized void invalidate()
+	{
+		state = null;
+		generation++;
+	}
+
+	private State getState()
+	{
+		long generation;
+		synchronized (this) {
+			if (state != null)
+				return state;
+			generation = this.generation;
+		}
+		State newState = new State();
+		for (Object o : owlModel.getSystemFrames().getImpCls().getInstances(true))
+			if (o instanceof SWRLImp) {
+				SWRLImp imp = (SWRLImp)o;
+				newState.add(imp, createEntry(imp));
+			}
+		synchronized (this) {
+			if (enabled && generation == this.generation && state == null)
+				state = newState;
+		}
+		return newState;
+	}
+
+	private void update(Collection<SWRLImp> imps)
+	{
+		for (SWRLImp imp : imps)
+			update(imp);
+	}
+
+	private void update(SWRLImp imp)
+	{
+		synchronized (this) {
+			generation++;
+			if (state == null)
+				return;
+		}
+		Entry entry = createEntry(imp);
+		synchronized (this) {
+			if (state != null) {
+				state.remove(imp);
+				state.add(imp, entry);
+			}
+		}
+	}
+
+	private void frameDeleted(Frame frame)
+	{
+		synchronized (this) {
+			generation++;
+			if (state == null)
+				return;
+			if (frame instanceof SWRLImp) {
+				state.remove((SWRLImp)frame);
+				return;
+			}
+		}
+		update(getDependentImps(frame));
+		synchronized (this) {
+			if (state != null)
+				state.removeResource(frame);
+		}
+	}
+
+	/**
+	 * Gets the indexed rules that may change when a frame changes.
+	 */
+	private synchronized Collection<SWRLImp> getDependentImps(Frame frame)
+	{
+		if (state == null)
+			return Collections.emptyList();
+		Set<SWRLImp> result = new HashSet<SWRLImp>();
+		addAll(result, state.impsByResource.get(frame));
+		addAll(result, state.impsByListNode.get(frame));
+		addAll(result, state.impsByGroup.get(frame));
+		return result;
+	}
+
+	private synchronized boolean isRuleGroup(Frame frame)
+	{
+		return state != null && state.impsByGroup.containsKey(frame);
+	}
+
+	private Entry createEntry(SWRLImp imp)
+	{
+		Entry entry = new Entry();
+		entry.enabled = imp.isEnabled();
+		entry.resources = imp.getReferencedInstances();
+		entry.listNodes = new HashSet<RDFResource>();
+		for (RDFResource resource : entry.resources)
+			if (resource instanceof SWRLBuiltinAtom) {
+				RDFList list = ((SWRLBuiltinAtom)resource).getArguments();
+				while (list != null && !list.equals(owlModel.getRDFNil()) && entry.listNodes.add(list))
+					list = list.getRest();
+			}
+		entry.groups = new HashSet<RDFResource>();
+		entry.groupNames = new HashSet<String>();
+		RDFProperty ruleGroupProperty = owlModel.getOWLObjectProperty(SWRLNames.Annotations.HAS_RULE_GROUP);
+		if (ruleGroupProperty != null)
+			for (Iterator it = imp.getPropertyValues(ruleGroupProperty).iterator(); it.hasNext();) {
+				Object group = it.next();
+				if (group instanceof RDFResource) {
+					entry.groups.add((RDFResource)group);
+					entry.groupNames.add(((RDFResource)group).getLocalName());
+				}
+			}
+		return entry;
+	}
+
+	private static void addAll(Set<SWRLImp> result, Set<SWRLImp> imps)
+	{
+		if (imps != null)
+			result.addAll(imps);
+	}
+
+	/**
+	 * The indexed information of one rule.
+	 */
+	private static class Entry
+	{
+		boolean enabled;
+		Set<RDFResource> resources;
+		// the nodes of the argument lists of the built-in atoms
+		Set<RDFResource> listNodes;
+		Set<RDFResource> groups;
+		Set<String> groupNames;
+	}
+
+	private static class State
+	{
+		final Map<SWRLImp, Entry> entries = new HashMap<SWRLImp, Entry>();
+		final Set<SWRLImp> enabledImps = new HashSet<SWRLImp>();
+		final Set<SWRLImp> disabledImps = new HashSet<SWRLImp>();
+		final Map<Object, Set<SWRLImp>> impsByResource = new HashMap<Object, Set<SWRLImp>>();
+		final Map<Object, Set<SWRLImp>> impsByListNode = new HashMap<Object, Set<SWRLImp>>();
+		final Map<Object, Set<SWRLImp>> impsByGroup = new HashMap<Object, Set<SWRLImp>>();
+		final Map<Object, Set<SWRLImp>> impsByGroupName = new HashMap<Object, Set<SWRLImp>>();
+
+		void add(SWRLImp imp, Entry entry)
+		{
+			entries.put(imp, entry);
+			(entry.enabled ? enabledImps : disabledImps).add(imp);
+			add(impsByResource, entry.resources, imp);
+			add(impsByListNode, entry.listNodes, imp);
+			add(impsByGroup, entry.groups, imp);
+			add(impsByGroupName, entry.groupNames, imp);
+		}
+
+		void remove(SWRLImp imp)
+		{
+			Entry entry = entries.remove(imp);
+			if (entry != null) {
+				enabledImps.remove(imp);
+				disabledImps.remove(imp);
+				remove(impsByResource, entry.resources, imp);
+				remove(impsByListNode, entry.listNodes, imp);
+				remove(impsByGroup, entry.groups, imp);
+				remove(impsByGroupName, entry.groupNames, imp);
+			}
+		}
+
+		/**
+		 * Removes a deleted resource that is still referenced by a rule.
+		 */
+		void removeResource(Frame frame)
+		{
+			Set<SWRLImp> imps = impsByResource.remove(frame);
+			if (imps != null)
+				for (SWRLImp imp : imps)
+					entries.get(imp).resources.remove(frame);
+		}
+
+		private static void add(Map<Object, Set<SWRLImp>> index, Collection<?> keys, SWRLImp imp)
+		{
+			for (Object key : keys) {
+				Set<SWRLImp> imps = index.get(key);
+				if (imps == null) {
+					imps = new HashSet<SWRLImp>(2);
+					index.put(key, imps);
+				}
+				imps.add(imp);
+			}
+		}
+
+		private static void remove(Map<Object, Set<SWRLImp>> index, Collection<?> keys, SWRLImp imp)
+		{
+			for (Object key : keys) {
+				Set<SWRLImp> imps = index.get(key);
+				if (imps != null) {
+					imps.remove(imp);
+					if (imps.isEmpty())
+						index.remove(key);
+				}
+			}
+		}
+	}
+}
@@ -41,6 +41,8 @@ import edu.stanford.smi.protegex.owl.model.classparser.OWLClassParseException;
 import edu.stanford.smi.protegex.owl.model.classparser.OWLClassParser;
 import edu.stanford.smi.protegex.owl.model.event.ClassAdapter;
 import edu.stanford.smi.protegex.owl.model.event.ClassListener;
+import edu.stanford.smi.protegex.owl.model.impl.AbstractOWLModel;
+import edu.stanford.smi.protegex.owl.model.impl.ClassExpressionCache;
 import edu.stanford.smi.protegex.owl.model.impl.DefaultOWLIntersectionClass;
 import edu.stanford.smi.protegex.owl.ui.ProtegeUI;
 import edu.stanford.smi.protegex.owl.ui.owltable.OWLTableModel;
@@ -1189,6 +1191,22 @@ implements ConditionsTableConstants, OWLTableModel {
 	}
 
 
+	/**
+	 * Gets the direct superclass of the host class that is structurally equal
+	 * to a parsed anonymous class, e.g. the same intersection with its operands
+	 * in a different order.
+	 * @param newRestriction the parsed class
+	 * @return the equal superclass or null
+	 */
+	private RDFSClass getEqualSuperclass(RDFSClass newRestriction) {
+		if (!(newRestriction instanceof OWLAnonymousClass) || !(owlModel instanceof AbstractOWLModel)) {
+			return null;
+		}
+		ClassExpressionCache cache = ((AbstractOWLModel) owlModel).getClassExpressionCache();
+		return cache.findEqualExpression(newRestriction, hostClass.getSuperclasses(false));
+	}
+
+
 	/**
 	 * This method handles the addion or replacement of a restriction
 	 * in the Conditions Table.
@@ -1210,6 +1228,16 @@ implements ConditionsTableConstants, OWLTableModel {
 
 		// treat superclasses
 		if (getType(selectedRow) == TYPE_SUPERCLASS) {
+			RDFSClass equalSuperclass = getEqualSuperclass(newRestriction);
+			if (equalSuperclass != null) {
+				// the condition is already there: keep it instead of adding a duplicate
+				newRestriction.delete();
+				if (oldRestriction != null && !oldRestriction.equals(equalSuperclass)) {
+					hostClass.removeSuperclass(oldRestriction);
+				}
+				return true;
+			}
+
 			hostClass.addSuperclass(newRestriction);
 
 			if (oldRestriction != null) {
@@ -35,6 +35,8 @@ public class WriterSettingsPanel extends JComponent {
 
     private JCheckBox useXMLEntitiesBox;
 
+    private JCheckBox parallelSaveBox;
+
 
     public WriterSettingsPanel(OWLModel owlModel) {
         this.owlModel = owlModel;
@@ -65,6 +67,12 @@ public class WriterSettingsPanel extends JComponent {
                 setUseXMLEntities(useXMLEntitiesBox.isSelected());
             }
         });
+        parallelSaveBox = new JCheckBox("Save imported ontologies in parallel");
+        parallelSaveBox.addActionListener(new ActionListener() {
+            public void actionPerformed(ActionEvent e) {
+                setParallelSave(parallelSaveBox.isSelected());
+            }
+        });
 
         jenaButton.addActionListener(new ActionListener() {
             public void actionPerformed(ActionEvent e) {
@@ -88,6 +96,7 @@ public class WriterSettingsPanel extends JComponent {
         Box protegePanel = Box.createVerticalBox();
         protegePanel.add(useXMLEntitiesBox);
         protegePanel.add(sortAlphabeticallyBox);
+        protegePanel.add(parallelSaveBox);
 
         updateProtegePanel();
 
@@ -115,6 +124,12 @@ public class WriterSettingsPanel extends JComponent {
     }
 
 
+    private void setParallelSave(boolean selected) {
+        ProtegeWriterSettings p = (ProtegeWriterSettings) owlModel.getWriterSettings();
+        p.setParallelSave(selected);
+    }
+
+
     private void setUseXMLEntities(boolean selected) {
         ProtegeWriterSettings p = (ProtegeWriterSettings) owlModel.getWriterSettings();
         p.setUseXMLEntities(selected);
@@ -128,8 +143,10 @@ public class WriterSettingsPanel extends JComponent {
             ProtegeWriterSettings p = (ProtegeWriterSettings) settings;
             sortAlphabeticallyBox.setSelected(p.isSortAlphabetically());
             useXMLEntitiesBox.setSelected(p.getUseXMLEntities());
+            parallelSaveBox.setSelected(p.isParallelSave());
         }
         sortAlphabeticallyBox.setEnabled(enabled);
         useXMLEntitiesBox.setEnabled(enabled);
+        parallelSaveBox.setEnabled(enabled);
     }
 }
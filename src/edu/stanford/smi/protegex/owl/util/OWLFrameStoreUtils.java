@@ -43,7 +43,7 @@ public class OWLFrameStoreUtils {
         if (o instanceof String) {
             final String str = (String) o;
             if (DefaultRDFSLiteral.isRawValue(str)) {
-                result.add(new DefaultRDFSLiteral(owlModel, str));
+                result.add(DefaultRDFSLiteral.fromRawValue(owlModel, str));
             }
             else {
                 result.add(o);
@@ -1,15 +1,31 @@
 package edu.stanford.smi.protegex.owl.writer.rdfxml.rdfwriter;
 
+import edu.stanford.smi.protege.util.ApplicationProperties;
 import edu.stanford.smi.protege.util.FileUtilities;
 import edu.stanford.smi.protege.util.Log;
+import edu.stanford.smi.protege.util.MessageError;
 import edu.stanford.smi.protegex.owl.model.OWLModel;
+import edu.stanford.smi.protegex.owl.model.impl.AbstractOWLModel;
 import edu.stanford.smi.protegex.owl.model.triplestore.TripleStore;
+import edu.stanford.smi.protegex.owl.model.triplestore.impl.TripleStoreChangeTracker;
 import edu.stanford.smi.protegex.owl.repository.Repository;
+import edu.stanford.smi.protegex.owl.repository.impl.AbstractLocalRepository;
+import edu.stanford.smi.protegex.owl.repository.impl.HTTPRepository;
 import edu.stanford.smi.protegex.owl.repository.util.RepositoryFileManager;
 
 import java.io.*;
 import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.logging.Level;
 
 /**
  * User: matthewhorridge<br>
@@ -19,15 +35,46 @@ import java.util.Iterator;
  * <p/>
  * matthew.horridge@cs.man.ac.uk<br>
  * www.cs.man.ac.uk/~horridgm<br><br>
+ * <p/>
+ * The main file is always written.  The files of the imported TripleStores are
+ * only written if the TripleStores have been modified since they were loaded or
+ * last saved (or if the files do not exist yet).  Files are first written to a
+ * temporary file in the same directory which then replaces the original, so that
+ * a failed save does not leave a truncated ontology behind.
+ * <p/>
+ * In parallel mode the TripleStores are written concurrently, as each of them
+ * goes to its own file.
  */
 public class OWLModelAllTripleStoresWriter {
 
+    /**
+     * If true, the imported ontologies are saved even if they have not been modified.
+     */
+    public final static String SAVE_UNMODIFIED_IMPORTS_PROPERTY = "protegeowl.save.unmodified.imports";
+
+    /**
+     * The maximum number of threads used by a parallel save.
+     */
+    public final static String SAVE_THREADS_PROPERTY = "protegeowl.save.threads";
+
+    private final static int DEFAULT_MAX_SAVE_THREADS = 4;
+
+    private static final ThreadFactory threadFactory = new ThreadFactory() {
+        public Thread newThread(Runnable r) {
+            Thread thread = new Thread(r, "OWL file writer");
+            thread.setDaemon(true);
+            return thread;
+        }
+    };
+
     private OWLModel model;
 
     private URI uri;
 
     private boolean ordered;
 
+    private boolean parallel;
+
 
     public OWLModelAllTripleStoresWriter(OWLModel model, URI mainFileURI, boolean ordered) {
         this.model = model;
@@ -36,41 +83,132 @@ public class OWLModelAllTripleStoresWriter {
     }
 
 
+    /**
+     * Sets whether the TripleStores are rendered concurrently, each on one of a
+     * bounded number of worker threads.  The calling thread waits until all files
+     * have been written, so the model is not changed by the thread that normally
+     * edits it while the TripleStores are being read.
+     */
+    public void setParallel(boolean parallel) {
+        this.parallel = parallel;
+    }
+
+
     public void write() throws Exception {
-        Iterator ts = model.getTripleStoreModel().listUserTripleStores();        
+        for (SaveTask task : getSaveTasks()) {
+            task.call();
+        }
+        saveRepositories();
+    }
+
+
+    /**
+     * Writes all TripleStores, reporting the files that could not be written to
+     * a collection of errors instead of stopping at the first failure.
+     *
+     * @param errors the collection to add <code>MessageError</code>s to
+     */
+    public void write(Collection errors) {
+        List<SaveTask> tasks;
+        try {
+            tasks = getSaveTasks();
+        }
+        catch (Exception ex) {
+            addError(errors, ex, "Failed to save file " + uri);
+            return;
+        }
+        int errorCount = errors.size();
+        if (parallel && tasks.size() > 1) {
+            writeInParallel(tasks, errors);
+        }
+        else {
+            for (SaveTask task : tasks) {
+                try {
+                    task.call();
+                }
+                catch (Exception ex) {
+                    addError(errors, ex, task.getErrorMessage());
+                }
+            }
+        }
+        if (errors.size() == errorCount) {
+            try {
+                saveRepositories();
+            }
+            catch (Exception ex) {
+                addError(errors, ex, "Failed to save the repositories of " + uri);
+            }
+        }
+    }
+
+
+    public static int getSaveThreads() {
+        int threads = Math.min(Runtime.getRuntime().availableProcessors(), DEFAULT_MAX_SAVE_THREADS);
+        return Math.max(1, ApplicationProperties.getIntegerProperty(SAVE_THREADS_PROPERTY, threads));
+    }
+
+
+    private void writeInParallel(List<SaveTask> tasks, Collection errors) {
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(tasks.size(), getSaveThreads()), threadFactory);
+        try {
+            List<Future<Object>> futures = executor.invokeAll(tasks);
+            for (int i = 0; i < tasks.size(); i++) {
+                try {
+                    futures.get(i).get();
+                }
+                catch (ExecutionException ex) {
+                    addError(errors, ex.getCause(), tasks.get(i).getErrorMessage());
+                }
+            }
+        }
+        catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            addError(errors, ex, "Interrupted while saving " + uri);
+        }
+        finally {
+            executor.shutdownNow();
+        }
+    }
+
+
+    private static void addError(Collection errors, Throwable t, String message) {
+        Log.getLogger().log(Level.SEVERE, message, t);
+        errors.add(new MessageError(t, message));
+    }
+
+
+    /**
+     * Determines which TripleStores need to be written and where.  This reads the
+     * TripleStoreModel and the repositories, so it is done on the calling thread.
+     */
+    private List<SaveTask> getSaveTasks() throws Exception {
+        TripleStoreChangeTracker tracker = getChangeTracker();
+        boolean saveUnmodified = tracker == null ||
+                ApplicationProperties.getBooleanProperty(SAVE_UNMODIFIED_IMPORTS_PROPERTY, false);
+
+        List<SaveTask> tasks = new ArrayList<SaveTask>();
+        Iterator ts = model.getTripleStoreModel().listUserTripleStores();
         TripleStore mainTS = (TripleStore) ts.next();
-        
-        File file = new File(uri);
-        FileOutputStream mainOS = new FileOutputStream(file);
-        String encoding = FileUtilities.getWriteEncoding();
-	    OutputStreamWriter osw = new OutputStreamWriter(mainOS, encoding);
-        BufferedWriter bw = new BufferedWriter(osw);
-        
-        OWLModelWriter mainWriter = getOwlModelWriter(mainTS, bw);
-	   // mainWriter.getXmlWriter().setEncoding(osw.getEncoding());
-        mainWriter.getXmlWriter().setEncoding(encoding);
-        mainWriter.write();
-        bw.flush();
-        bw.close();
-        
+        tasks.add(new SaveTask(mainTS, new File(uri), null, null));
+
         while (ts.hasNext()) {
             TripleStore tripleStore = (TripleStore) ts.next();
             String name = tripleStore.getName();
             URI ontologyName = new URI(name);
             Repository rep = model.getRepositoryManager().getRepository(ontologyName);
             if (rep != null && rep.isWritable(ontologyName) && rep.hasOutputStream(ontologyName)) {
-                Log.getLogger().info("Saving import " + ontologyName + " to " + rep.getOntologyLocationDescription(ontologyName));
-                OutputStream os = rep.getOutputStream(ontologyName);
-                OutputStreamWriter outputStreamWriter = new OutputStreamWriter(os, FileUtilities.getWriteEncoding());
-                bw = new BufferedWriter(outputStreamWriter);
-                OWLModelWriter omw = getOwlModelWriter(tripleStore, bw);
-                omw.getXmlWriter().setEncoding(FileUtilities.getWriteEncoding());
-                omw.write();
-                bw.flush();
-                bw.close();
+                File file = getLocalFile(rep, ontologyName);
+                if (!saveUnmodified && !tracker.isModified(tripleStore) && (file == null || file.exists())) {
+                    continue;
+                }
+                tasks.add(new SaveTask(tripleStore, file, rep, ontologyName));
             }
         }
+        return tasks;
+    }
+
 
+    private void saveRepositories() throws IOException {
         // Save the repositories as well
         RepositoryFileManager fm = new RepositoryFileManager(model);
         fm.saveGlobalRepositories();
@@ -80,6 +218,138 @@ public class OWLModelAllTripleStoresWriter {
     }
 
 
+    private TripleStoreChangeTracker getChangeTracker() {
+        if (model instanceof AbstractOWLModel) {
+            return ((AbstractOWLModel) model).getTripleStoreChangeTracker();
+        }
+        return null;
+    }
+
+
+    private static File getLocalFile(Repository rep, URI ontologyName) {
+        if (rep instanceof AbstractLocalRepository) {
+            return ((AbstractLocalRepository) rep).getOntologyFile(ontologyName);
+        }
+        if (rep instanceof HTTPRepository) {
+            try {
+                URI location = ((HTTPRepository) rep).getOntologyURL().toURI();
+                if ("file".equals(location.getScheme())) {
+                    return new File(location);
+                }
+            }
+            catch (Exception e) {
+                Log.emptyCatchBlock(e);
+            }
+        }
+        return null;
+    }
+
+
+    private void write(TripleStore tripleStore, OutputStream os) throws Exception {
+        String encoding = FileUtilities.getWriteEncoding();
+        BufferedWriter bw = new BufferedWriter(new OutputStreamWriter(os, encoding));
+        try {
+            OWLModelWriter omw = getOwlModelWriter(tripleStore, bw);
+            omw.getXmlWriter().setEncoding(encoding);
+            omw.write();
+            bw.flush();
+        }
+        finally {
+            bw.close();
+        }
+    }
+
+
+    /**
+     * Writes a TripleStore to a temporary file which then replaces the given file.
+     */
+    private void writeAtomically(TripleStore tripleStore, File file) throws Exception {
+        file = file.getAbsoluteFile();
+        File tmp = File.createTempFile("." + file.getName() + "-", ".tmp", file.getParentFile());
+        try {
+            write(tripleStore, new FileOutputStream(tmp));
+            replaceFile(tmp, file);
+        }
+        finally {
+            if (tmp.exists()) {
+                tmp.delete();
+            }
+        }
+    }
+
+
+    private static void replaceFile(File source, File target) throws IOException {
+        if (source.renameTo(target)) {
+            return;
+        }
+        // renameTo does not replace existing files on all platforms
+        File backup = null;
+        if (target.exists()) {
+            backup = new File(target.getPath() + ".bak");
+            backup.delete();
+            if (!target.renameTo(backup)) {
+                throw new IOException("Could not replace " + target);
+            }
+        }
+        if (!source.renameTo(target)) {
+            if (backup != null) {
+                backup.renameTo(target);
+            }
+            throw new IOException("Could not write " + target);
+        }
+        if (backup != null) {
+            backup.delete();
+        }
+    }
+
+
+    /**
+     * Writes one TripleStore, either to its file or to the output stream of its
+     * repository.
+     */
+    private class SaveTask implements Callable<Object> {
+
+        private TripleStore tripleStore;
+
+        private File file;
+
+        private Repository rep;
+
+        private URI ontologyName;
+
+
+        SaveTask(TripleStore tripleStore, File file, Repository rep, URI ontologyName) {
+            this.tripleStore = tripleStore;
+            this.file = file;
+            this.rep = rep;
+            this.ontologyName = ontologyName;
+        }
+
+
+        String getErrorMessage() {
+            return ontologyName == null ? "Failed to save file " + uri : "Failed to save import " + ontologyName;
+        }
+
+
+        public Object call() throws Exception {
+            if (ontologyName != null) {
+                Log.getLogger().info("Saving import " + ontologyName + " to " + rep.getOntologyLocationDescription(ontologyName));
+            }
+            if (file != null) {
+                writeAtomically(tripleStore, file);
+            }
+            else {
+                write(tripleStore, rep.getOutputStream(ontologyName));
+            }
+            TripleStoreChangeTracker tracker = getChangeTracker();
+            if (tracker != null) {
+                tracker.markSaved(tripleStore);
+            }
+            return null;
+        }
+    }
+
+
     private OWLModelWriter getOwlModelWriter(TripleStore ts, Writer writer) {
         if (ordered) {
             return new OWLModelOrderedWriter(model, ts, writer);
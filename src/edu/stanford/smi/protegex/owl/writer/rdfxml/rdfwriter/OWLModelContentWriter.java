@@ -5,6 +5,7 @@ import java.util.Collection;
 import java.util.Comparator;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.Set;
 import java.util.TreeSet;
 import java.util.logging.Level;
 
@@ -12,7 +13,6 @@ import edu.stanford.smi.protege.util.Log;
 import edu.stanford.smi.protegex.owl.model.OWLAllDifferent;
 import edu.stanford.smi.protegex.owl.model.OWLModel;
 import edu.stanford.smi.protegex.owl.model.OWLOntology;
-import edu.stanford.smi.protegex.owl.model.RDFProperty;
 import edu.stanford.smi.protegex.owl.model.RDFResource;
 import edu.stanford.smi.protegex.owl.model.triplestore.TripleStore;
 import edu.stanford.smi.protegex.owl.writer.rdfxml.renderer.RDFAxiomRenderer;
@@ -69,37 +69,31 @@ public class OWLModelContentWriter implements RDFXMLContentWriter {
         else {
             resources = new HashSet<RDFResource>();
         }
-        // Resources that have this triplestore as their home triplestore
-        for (Iterator<RDFResource> it = tripleStore.listHomeResources(); it.hasNext();) {
-            RDFResource curRes = it.next();
-            if (!Util.isExcludedResource(curRes)) {
-                resources.add(curRes);
-            }
+        //leave out unwanted non-system frames, such as :ONTOLOGY-POINTER
+        Set<Object> unwantedResources = new HashSet<Object>();
+        try {
+        	unwantedResources.addAll(model.getSystemFrames().getOwlOntologyPointerClass().getInstances());
+        } catch (Exception e) {
+        	Log.getLogger().log(Level.WARNING, "Could not remove unwanted frames from OWL export", e);
         }
 
+        // Resources that have this triplestore as their home triplestore
+        addResources(resources, tripleStore.listHomeResources(), unwantedResources);
+
         // Render the resources that there are statements about in this triple store
-        for (Iterator it = model.getRDFProperties().iterator(); it.hasNext();) {
-            RDFProperty curProp = (RDFProperty) it.next();
-            for (Iterator<RDFResource> subjIt = tripleStore.listSubjects(curProp); subjIt.hasNext();) {
-                Object subj = subjIt.next();
-                if (subj instanceof RDFResource) {
-                    RDFResource curSubj = (RDFResource) subj;
-                    if (!Util.isExcludedResource(curSubj) &&
-                            resources.contains(curSubj) == false) {
-                        resources.add(curSubj);
-                    }
-                }
+        addResources(resources, tripleStore.listSubjects(), unwantedResources);
+
+        return resources;
+    }
+
+
+    private void addResources(Collection<RDFResource> resources, Iterator<RDFResource> it, Set<Object> unwantedResources) {
+        while (it.hasNext()) {
+            RDFResource curRes = it.next();
+            if (!Util.isExcludedResource(curRes) && !unwantedResources.contains(curRes)) {
+                resources.add(curRes);
             }
         }
-        
-        //remove unwanted non-system frames, such as :ONTOLOGY-POINTER
-        try {
-        	resources.removeAll(model.getSystemFrames().getOwlOntologyPointerClass().getInstances());        	
-        } catch (Exception e) {
-        	Log.getLogger().log(Level.WARNING, "Could not remove unwanted frames from OWL export", e);
-        }       
-        
-        return resources;
     }
 
 
@@ -14,6 +14,8 @@ public class ProtegeWriterSettings implements WriterSettings {
 
     public final static String USE_XML_ENTITIES_PROPERTY = ProtegeWriterSettings.class.getName() + ".useXMLEntities";
 
+    public final static String PARALLEL_SAVE_PROPERTY = ProtegeWriterSettings.class.getName() + ".parallelSave";
+
 
     public ProtegeWriterSettings(OWLModel owlModel) {
         this.owlModel = owlModel;
@@ -25,11 +27,21 @@ public class ProtegeWriterSettings implements WriterSettings {
     }
 
 
+    public boolean isParallelSave() {
+        return Boolean.TRUE.equals(owlModel.getOWLProject().getSettingsMap().getBoolean(PARALLEL_SAVE_PROPERTY));
+    }
+
+
     public boolean isSortAlphabetically() {
         return Boolean.TRUE.equals(owlModel.getOWLProject().getSettingsMap().getBoolean(SORT_ALPHABETICALLY_PROPERTY));
     }
 
 
+    public void setParallelSave(boolean value) {
+        owlModel.getOWLProject().getSettingsMap().setBoolean(PARALLEL_SAVE_PROPERTY, Boolean.valueOf(value));
+    }
+
+
     public void setSortAlphabetically(boolean value) {
         owlModel.getOWLProject().getSettingsMap().setBoolean(SORT_ALPHABETICALLY_PROPERTY, Boolean.valueOf(value));
     }
@@ -0,0 +1,229 @@
+package edu.stanford.smi.protegex.owl.writer.triples;
+
+import java.io.IOException;
+import java.io.Writer;
+
+import edu.stanford.smi.protegex.owl.model.OWLModel;
+import edu.stanford.smi.protegex.owl.model.RDFExternalResource;
+import edu.stanford.smi.protegex.owl.model.RDFProperty;
+import edu.stanford.smi.protegex.owl.model.RDFResource;
+import edu.stanford.smi.protegex.owl.model.RDFSDatatype;
+import edu.stanford.smi.protegex.owl.model.RDFSLiteral;
+import edu.stanford.smi.protegex.owl.model.impl.DefaultRDFSLiteral;
+import edu.stanford.smi.protegex.owl.model.triplestore.TripleStore;
+import edu.stanford.smi.protegex.owl.model.triplestore.TripleVisitor;
+
+/**
+ * The base class of the writers that stream the triples of a <code>TripleStore</code>
+ * in a line based RDF syntax, without building an intermediate Jena model.
+ * <p/>
+ * The triples are passed to the writer by a <code>TripleVisitor</code>.  As the
+ * visitor cannot throw <code>IOException</code>s, an exception of the underlying
+ * <code>Writer</code> is carried out of the traversal and rethrown by <code>write</code>.
+ * <p/>
+ * All output is ASCII: other characters are written as <code>\\u</code> escapes.
+ */
+public abstract class AbstractTriplesWriter implements TripleVisitor {
+
+    private OWLModel owlModel;
+
+    private TripleStore tripleStore;
+
+    private Writer writer;
+
+
+    protected AbstractTriplesWriter(OWLModel owlModel, TripleStore tripleStore, Writer writer) {
+        this.owlModel = owlModel;
+        this.tripleStore = tripleStore;
+        this.writer = writer;
+    }
+
+
+    public OWLModel getOWLModel() {
+        return owlModel;
+    }
+
+
+    public TripleStore getTripleStore() {
+        return tripleStore;
+    }
+
+
+    protected Writer getWriter() {
+        return writer;
+    }
+
+
+    /**
+     * Writes all triples of the TripleStore and flushes the Writer.
+     */
+    public void write() throws IOException {
+        try {
+            writeTriples();
+        }
+        catch (TriplesWriterException e) {
+            throw e.getIOException();
+        }
+        writer.flush();
+    }
+
+
+    /**
+     * Writes the header, all triples and the footer of the document.
+     */
+    protected abstract void writeTriples() throws IOException;
+
+
+    public final void visit(RDFResource subject, RDFProperty predicate, Object object) {
+        try {
+            writeTriple(subject, predicate, object);
+        }
+        catch (IOException e) {
+            throw new TriplesWriterException(e);
+        }
+    }
+
+
+    /**
+     * Writes a single triple.
+     *
+     * @param object the object in the form in which it is stored in the TripleStore
+     */
+    protected abstract void writeTriple(RDFResource subject, RDFProperty predicate, Object object) throws IOException;
+
+
+    protected void writeObject(Object object) throws IOException {
+        if (object instanceof RDFResource) {
+            writeResource((RDFResource) object);
+        }
+        else if (object instanceof RDFExternalResource) {
+            writeURI(((RDFExternalResource) object).getResourceURI());
+        }
+        else {
+            if (object instanceof String && DefaultRDFSLiteral.isRawValue((String) object)) {
+                object = DefaultRDFSLiteral.fromRawValue(owlModel, (String) object);
+            }
+            writeLiteral(owlModel.asRDFSLiteral(object));
+        }
+    }
+
+
+    protected void writeResource(RDFResource resource) throws IOException {
+        if (resource.isAnonymous()) {
+            writeBlankNode(resource.getName());
+        }
+        else {
+            writeURI(resource.getURI());
+        }
+    }
+
+
+    protected void writeURI(String uri) throws IOException {
+        writer.write('<');
+        writeEscaped(uri, false);
+        writer.write('>');
+    }
+
+
+    /**
+     * Writes a blank node label.  Blank node labels may only contain letters
+     * and digits, so the name of the anonymous resource is encoded: letters
+     * and digits (except <code>x</code>) are kept and all other characters are
+     * written as <code>x</code> followed by four hex digits.
+     */
+    protected void writeBlankNode(String name) throws IOException {
+        writer.write("_:b");
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if ((c >= 'a' && c <= 'z' && c != 'x') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9')) {
+                writer.write(c);
+            }
+            else {
+                writer.write('x');
+                writeHex(c, 4);
+            }
+        }
+    }
+
+
+    protected void writeLiteral(RDFSLiteral literal) throws IOException {
+        writer.write('"');
+        writeEscaped(literal.getString(), true);
+        writer.write('"');
+        String language = literal.getLanguage();
+        if (language != null && language.length() > 0) {
+            writer.write('@');
+            writer.write(language);
+        }
+        else {
+            RDFSDatatype datatype = literal.getDatatype();
+            if (datatype != null) {
+                writer.write("^^");
+                writeURI(datatype.getURI());
+            }
+        }
+    }
+
+
+    /**
+     * Writes a string with the escapes of N-Triples, which are also understood
+     * by Turtle.
+     *
+     * @param s       the string to write
+     * @param literal true to escape a literal, false to escape a URI
+     */
+    protected void writeEscaped(String s, boolean literal) throws IOException {
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (literal && c == '\\') {
+                writer.write("\\\\");
+            }
+            else if (literal && c == '"') {
+                writer.write("\\\"");
+            }
+            else if (literal && c == '\n') {
+                writer.write("\\n");
+            }
+            else if (literal && c == '\r') {
+                writer.write("\\r");
+            }
+            else if (literal && c == '\t') {
+                writer.write("\\t");
+            }
+            else if (c >= 0x20 && c < 0x7F && (literal || c != '>')) {
+                writer.write(c);
+            }
+            else if (Character.isHighSurrogate(c) && i + 1 < s.length() && Character.isLowSurrogate(s.charAt(i + 1))) {
+                writer.write("\\U");
+                writeHex(Character.toCodePoint(c, s.charAt(++i)), 8);
+            }
+            else {
+                writer.write("\\u");
+                writeHex(c, 4);
+            }
+        }
+    }
+
+
+    private void writeHex(int value, int digits) throws IOException {
+        for (int shift = (digits - 1) * 4; shift >= 0; shift -= 4) {
+            writer.write(Character.toUpperCase(Character.forDigit((value >> shift) & 0xF, 16)));
+        }
+    }
+
+
+    /**
+     * Carries an IOException out of a TripleVisitor.
+     */
+    private static class TriplesWriterException extends RuntimeException {
+
+        TriplesWriterException(IOException cause) {
+            super(cause);
+        }
+
+
+        IOException getIOException() {
+            return (IOException) getCause();
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package edu.stanford.smi.protegex.owl.writer.triples;
+
+import java.io.IOException;
+import java.io.Writer;
+
+import edu.stanford.smi.protegex.owl.model.OWLModel;
+import edu.stanford.smi.protegex.owl.model.RDFProperty;
+import edu.stanford.smi.protegex.owl.model.RDFResource;
+import edu.stanford.smi.protegex.owl.model.triplestore.TripleStore;
+
+/**
+ * Writes the triples of a <code>TripleStore</code> in N-Triples format.
+ * Each triple is written as soon as it is visited, so the memory needed does
+ * not depend on the size of the TripleStore.
+ */
+public class NTriplesWriter extends AbstractTriplesWriter {
+
+    public NTriplesWriter(OWLModel owlModel, TripleStore tripleStore, Writer writer) {
+        super(owlModel, tripleStore, writer);
+    }
+
+
+    @Override
+    protected void writeTriples() throws IOException {
+        getTripleStore().visitTriples(this);
+    }
+
+
+    @Override
+    protected void writeTriple(RDFResource subject, RDFProperty predicate, Object object) throws IOException {
+        Writer writer = getWriter();
+        writeResource(subject);
+        writer.write(' ');
+        writeResource(predicate);
+        writer.write(' ');
+        writeObject(object);
+        writer.write(" .\n");
+    }
+}
@@ -0,0 +1,160 @@
+package edu.stanford.smi.protegex.owl.writer.triples;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.hp.hpl.jena.rdf.model.impl.Util;
+
+import edu.stanford.smi.protegex.owl.model.NamespaceManager;
+import edu.stanford.smi.protegex.owl.model.OWLModel;
+import edu.stanford.smi.protegex.owl.model.RDFProperty;
+import edu.stanford.smi.protegex.owl.model.RDFResource;
+import edu.stanford.smi.protegex.owl.model.triplestore.TripleStore;
+
+/**
+ * Writes the triples of a <code>TripleStore</code> in Turtle format, grouped by
+ * subject and predicate.  The prefixes of the namespace manager of the
+ * TripleStore are used to abbreviate URIs.
+ * <p/>
+ * Turtle is a subset of N3, so this writer can also be used to write N3.
+ */
+public class TurtleWriter extends AbstractTriplesWriter {
+
+    // namespace -> prefix of the prefixes that can be used in Turtle
+    private Map<String, String> prefixes = new HashMap<String, String>();
+
+    private RDFResource subject;
+
+    private RDFProperty predicate;
+
+
+    public TurtleWriter(OWLModel owlModel, TripleStore tripleStore, Writer writer) {
+        super(owlModel, tripleStore, writer);
+    }
+
+
+    @Override
+    protected void writeTriples() throws IOException {
+        subject = null;
+        predicate = null;
+        writePrefixes();
+        getTripleStore().visitTriplesBySubject(this);
+        if (subject != null) {
+            getWriter().write(" .\n");
+        }
+    }
+
+
+    private void writePrefixes() throws IOException {
+        Writer writer = getWriter();
+        NamespaceManager nsm = getTripleStore().getNamespaceManager();
+        for (String prefix : nsm.getPrefixes()) {
+            String namespace = nsm.getNamespaceForPrefix(prefix);
+            if (namespace != null && isValidPrefix(prefix) && !prefixes.containsKey(namespace)) {
+                prefixes.put(namespace, prefix);
+                writer.write("@prefix ");
+                writer.write(prefix);
+                writer.write(": ");
+                super.writeURI(namespace);
+                writer.write(" .\n");
+            }
+        }
+        if (!prefixes.isEmpty()) {
+            writer.write('\n');
+        }
+    }
+
+
+    @Override
+    protected void writeTriple(RDFResource subject, RDFProperty predicate, Object object) throws IOException {
+        Writer writer = getWriter();
+        if (!subject.equals(this.subject)) {
+            if (this.subject != null) {
+                writer.write(" .\n\n");
+            }
+            writeResource(subject);
+            writer.write(' ');
+            writePredicate(predicate);
+        }
+        else if (!predicate.equals(this.predicate)) {
+            writer.write(" ;\n    ");
+            writePredicate(predicate);
+        }
+        else {
+            writer.write(" ,\n        ");
+        }
+        writeObject(object);
+        this.subject = subject;
+        this.predicate = predicate;
+    }
+
+
+    private void writePredicate(RDFProperty predicate) throws IOException {
+        if (predicate.equals(getOWLModel().getRDFTypeProperty())) {
+            getWriter().write('a');
+        }
+        else {
+            writeResource(predicate);
+        }
+        getWriter().write(' ');
+    }
+
+
+    @Override
+    protected void writeURI(String uri) throws IOException {
+        int split = Util.splitNamespace(uri);
+        if (split > 0 && split < uri.length() && isValidLocalName(uri, split)) {
+            String prefix = prefixes.get(uri.substring(0, split));
+            if (prefix != null) {
+                Writer writer = getWriter();
+                writer.write(prefix);
+                writer.write(':');
+                writer.write(uri, split, uri.length() - split);
+                return;
+            }
+        }
+        super.writeURI(uri);
+    }
+
+
+    private static boolean isValidPrefix(String prefix) {
+        if (prefix.length() == 0) {
+            return true;
+        }
+        if (!isLetter(prefix.charAt(0))) {
+            return false;
+        }
+        for (int i = 1; i < prefix.length(); i++) {
+            if (!isNameChar(prefix.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+
+    private static boolean isValidLocalName(String uri, int start) {
+        char first = uri.charAt(start);
+        if (!isLetter(first) && first != '_') {
+            return false;
+        }
+        for (int i = start + 1; i < uri.length(); i++) {
+            if (!isNameChar(uri.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+
+    private static boolean isLetter(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+
+    private static boolean isNameChar(char c) {
+        return isLetter(c) || (c >= '0' && c <= '9') || c == '_' || c == '-';
+    }
+}
@@ -7,6 +7,7 @@ import com.hp.hpl.jena.ontology.OntModel;
 
 import edu.stanford.smi.protege.exception.OntologyLoadException;
 import edu.stanford.smi.protegex.owl.ProtegeOWL;
+import edu.stanford.smi.protegex.owl.jena.Jena;
 import edu.stanford.smi.protegex.owl.jena.JenaOWLModel;
 import edu.stanford.smi.protegex.owl.model.OWLDatatypeProperty;
 import edu.stanford.smi.protegex.owl.model.OWLIndividual;
@@ -30,6 +31,9 @@ public class JenaOntModelExample {
         DatatypeProperty ontProperty = ontModel.getDatatypeProperty(property.getURI());
         Individual ontIndividual = ontModel.getIndividual(individual.getURI());
 
-        // Do anything what you like with the OntModel resources...
+        // The OntModel is shared and kept up to date by the OWLModel, so only read it
+        // Changes can be made on a copy
+        OntModel copy = Jena.cloneOntModel(ontModel);
+        copy.createIndividual(individual.getURI() + "Copy", copy.getOntClass(cls.getURI()));
     }
 }